@@ -422,6 +422,18 @@ public final class BufUtil {
      * Return the content of the given {@link MessageBuf} as string representation.
      */
     public static String contentToString(MessageBuf<?> buf) {
+        return contentToString(buf, 0);
+    }
+
+    /**
+     * Return the content of the given {@link MessageBuf} as string representation, truncated to
+     * {@code maxLength} characters. The messages after the limit are not converted to a {@link String} at all.
+     * A {@code maxLength} of {@code 0} means no limit.
+     */
+    public static String contentToString(MessageBuf<?> buf, int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("maxLength: " + maxLength + " (expected: >= 0)");
+        }
         if (buf.isEmpty()) {
             return "[]";
         }
@@ -435,6 +447,10 @@ public final class BufUtil {
             } else {
                 sb.append(msg);
             }
+            if (maxLength > 0 && sb.length() - 1 > maxLength) {
+                sb.setLength(maxLength + 1);
+                return sb.append("...]").toString();
+            }
             if (it.hasNext()) {
                 sb.append(", ");
             }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BufUtilTest {
+
+    @Test
+    public void testContentToString() {
+        MessageBuf<Object> buf = Unpooled.messageBuffer();
+        assertEquals("[]", BufUtil.contentToString(buf));
+        buf.add("a");
+        buf.add(1);
+        buf.add(buf);
+        assertEquals("[a, 1, (DefaultMessageBuf)]", BufUtil.contentToString(buf));
+        assertEquals("[a, 1, (DefaultMessageBuf)]", BufUtil.contentToString(buf, 0));
+    }
+
+    @Test
+    public void testContentToStringTruncated() {
+        MessageBuf<Object> buf = Unpooled.messageBuffer();
+        buf.add("abcdef");
+        buf.add(new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("Converted after the limit");
+            }
+        });
+        assertEquals("[abcd...]", BufUtil.contentToString(buf, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testContentToStringNegativeMaxLength() {
+        BufUtil.contentToString(Unpooled.messageBuffer(), -1);
+    }
+}
@@ -15,44 +15,229 @@
  */
 package io.netty.util;
 
-import java.util.IdentityHashMap;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
- * Default {@link AttributeMap} implementation which use simple synchronization to keep the memory overhead
- * as low as possible.
+ * Default {@link AttributeMap} implementation which does not block and keeps the memory overhead as low as
+ * possible. The attributes are stored in a small open addressing table which is indexed by the
+ * {@link UniqueName#id() id} of their {@link AttributeKey}, so a lookup only visits a few slots and new
+ * attributes are inserted with a single compare-and-set. A thread which finds the table being replaced by a larger
+ * one helps to finish the copy instead of waiting for the thread which started it.
  */
 public class DefaultAttributeMap implements AttributeMap {
 
     @SuppressWarnings("rawtypes")
-    private static final AtomicReferenceFieldUpdater<DefaultAttributeMap, Map> updater =
-            AtomicReferenceFieldUpdater.newUpdater(DefaultAttributeMap.class, Map.class, "map");
+    private static final AtomicReferenceFieldUpdater<DefaultAttributeMap, AtomicReferenceArray> updater =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultAttributeMap.class, AtomicReferenceArray.class, "table");
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * The maximum number of slots an attribute may be away from the slot of its key. A larger table is created
+     * if there is no free slot within this distance.
+     */
+    private static final int MAX_PROBES = 8;
+
+    /**
+     * Marks the slot of a removed attribute. Lookups continue with the next slot.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * Marks the free and removed slots of a table which is copied into a larger table. The slots which hold an
+     * attribute are marked with a {@link Moved} instead.
+     */
+    private static final Object MOVED = new Object();
 
     // Initialize lazily to reduce memory consumption; updated by AtomicReferenceFieldUpdater above.
     @SuppressWarnings("UnusedDeclaration")
-    private volatile Map<AttributeKey<?>, Attribute<?>> map;
+    private volatile AtomicReferenceArray<Object> table;
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Attribute<T> attr(AttributeKey<T> key) {
-        Map<AttributeKey<?>, Attribute<?>> map = this.map;
-        if (map == null) {
-            // Not using ConcurrentHashMap due to high memory consumption.
-            map = new IdentityHashMap<AttributeKey<?>, Attribute<?>>(2);
-            if (!updater.compareAndSet(this, null, map)) {
-                map = this.map;
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+
+        DefaultAttribute<T> newAttr = null;
+        for (;;) {
+            AtomicReferenceArray<Object> table = this.table;
+            if (table == null) {
+                table = new AtomicReferenceArray<Object>(INITIAL_CAPACITY);
+                if (!updater.compareAndSet(this, null, table)) {
+                    continue;
+                }
+            }
+
+            final int mask = table.length() - 1;
+            final int probes = Math.min(MAX_PROBES, table.length());
+            int index = key.id() & mask;
+            for (int i = 0; i < probes; i ++) {
+                Object o = table.get(index);
+                if (o == null) {
+                    // Slots never become free again, so the key cannot be stored in a later slot.
+                    if (newAttr == null) {
+                        newAttr = new DefaultAttribute<T>(this, key);
+                    }
+                    if (table.compareAndSet(index, null, newAttr)) {
+                        return newAttr;
+                    }
+                    o = table.get(index);
+                }
+                if (o == MOVED || o instanceof Moved) {
+                    break;
+                }
+                if (o instanceof DefaultAttribute && ((DefaultAttribute<?>) o).key == key) {
+                    return (Attribute<T>) o;
+                }
+                index = index + 1 & mask;
+            }
+
+            // Either the table is full or being resized already; help to finish it and try again.
+            resize(table, key);
+        }
+    }
+
+    private void remove(DefaultAttribute<?> attr) {
+        for (;;) {
+            AtomicReferenceArray<Object> table = this.table;
+            final int mask = table.length() - 1;
+            final int probes = Math.min(MAX_PROBES, table.length());
+            int index = attr.key.id() & mask;
+            boolean moved = false;
+            for (int i = 0; i < probes; i ++) {
+                Object o = table.get(index);
+                if (o == attr) {
+                    if (table.compareAndSet(index, attr, REMOVED)) {
+                        return;
+                    }
+                    o = table.get(index);
+                }
+                if (o == MOVED || o instanceof Moved) {
+                    moved = true;
+                    break;
+                }
+                if (o == null) {
+                    break;
+                }
+                index = index + 1 & mask;
+            }
+
+            if (!moved) {
+                // Removed already.
+                return;
+            }
+            resize(table, attr.key);
+        }
+    }
+
+    /**
+     * Replaces the given table with a larger one, which has a free slot for the given key. Any number of threads
+     * may resize the same table at once: all of them freeze every slot, so the attributes they copy are the same,
+     * and the first one to install its copy wins.
+     */
+    private void resize(AtomicReferenceArray<Object> oldTable, AttributeKey<?> key) {
+        if (table != oldTable) {
+            return;
+        }
+
+        // Freeze the old table, so no attribute is added or removed while it is copied.
+        final int oldLength = oldTable.length();
+        Object[] attrs = new Object[oldLength];
+        int size = 0;
+        for (int i = 0; i < oldLength; i ++) {
+            Object o = freeze(oldTable, i);
+            if (o instanceof Moved) {
+                attrs[size ++] = ((Moved) o).attr;
+            }
+        }
+
+        // Only grow if the table is not mostly filled with removed attributes.
+        int length = size > oldLength >>> 2 ? oldLength << 1 : oldLength;
+        for (;;) {
+            AtomicReferenceArray<Object> newTable = copy(attrs, size, length, key);
+            if (newTable != null) {
+                // If another thread was faster, its table may lack a slot for the key, which the caller
+                // finds out when it tries again.
+                updater.compareAndSet(this, oldTable, newTable);
+                return;
+            }
+            length <<= 1;
+        }
+    }
+
+    /**
+     * Marks the given slot as moved, unless another thread did so already, and returns the mark.
+     */
+    private static Object freeze(AtomicReferenceArray<Object> table, int index) {
+        for (;;) {
+            Object o = table.get(index);
+            if (o == MOVED || o instanceof Moved) {
+                return o;
+            }
+            Object mark = o instanceof DefaultAttribute ? new Moved((DefaultAttribute<?>) o) : MOVED;
+            if (table.compareAndSet(index, o, mark)) {
+                return mark;
+            }
+        }
+    }
+
+    /**
+     * Copies the given attributes into a new table of the given length, or returns {@code null} if they do not
+     * fit or no slot is left for the given key.
+     */
+    private static AtomicReferenceArray<Object> copy(Object[] attrs, int size, int length, AttributeKey<?> key) {
+        Object[] slots = new Object[length];
+        for (int i = 0; i < size; i ++) {
+            if (!insert(slots, attrs[i])) {
+                return null;
             }
         }
+        if (!hasFreeSlot(slots, key)) {
+            return null;
+        }
+        return new AtomicReferenceArray<Object>(slots);
+    }
 
-        synchronized (map) {
-            @SuppressWarnings("unchecked")
-            Attribute<T> attr = (Attribute<T>) map.get(key);
-            if (attr == null) {
-                attr = new DefaultAttribute<T>(map, key);
-                map.put(key, attr);
+    private static boolean insert(Object[] slots, Object attr) {
+        final int mask = slots.length - 1;
+        final int probes = Math.min(MAX_PROBES, slots.length);
+        int index = ((DefaultAttribute<?>) attr).key.id() & mask;
+        for (int i = 0; i < probes; i ++) {
+            if (slots[index] == null) {
+                slots[index] = attr;
+                return true;
             }
-            return attr;
+            index = index + 1 & mask;
+        }
+        return false;
+    }
+
+    private static boolean hasFreeSlot(Object[] slots, AttributeKey<?> key) {
+        final int mask = slots.length - 1;
+        final int probes = Math.min(MAX_PROBES, slots.length);
+        int index = key.id() & mask;
+        for (int i = 0; i < probes; i ++) {
+            if (slots[index] == null) {
+                return true;
+            }
+            index = index + 1 & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the slot of an attribute in a table which is copied into a larger table, so that every thread which
+     * helps with the copy finds the attribute.
+     */
+    private static final class Moved {
+        final DefaultAttribute<?> attr;
+
+        Moved(DefaultAttribute<?> attr) {
+            this.attr = attr;
         }
     }
 
@@ -60,10 +245,10 @@ public class DefaultAttributeMap implements AttributeMap {
 
         private static final long serialVersionUID = -2661411462200283011L;
 
-        private final Map<AttributeKey<?>, Attribute<?>> map;
+        private final DefaultAttributeMap map;
         private final AttributeKey<T> key;
 
-        DefaultAttribute(Map<AttributeKey<?>, Attribute<?>> map, AttributeKey<T> key) {
+        DefaultAttribute(DefaultAttributeMap map, AttributeKey<T> key) {
             this.map = map;
             this.key = key;
         }
@@ -98,9 +283,7 @@ public class DefaultAttributeMap implements AttributeMap {
         }
 
         private void remove0() {
-            synchronized (map) {
-                map.remove(key);
-            }
+            map.remove(this);
         }
     }
 }
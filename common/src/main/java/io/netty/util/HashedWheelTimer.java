@@ -19,18 +19,18 @@ import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link Timer} optimized for approximated I/O timeout scheduling.
@@ -63,6 +63,14 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * share it across your application.  One of the common mistakes, that makes
  * your application unresponsive, is to create a new instance for every connection.
  *
+ * <h3>Pending Timeouts</h3>
+ *
+ * Every timeout which was neither expired nor cancelled yet holds on to its
+ * {@link TimerTask}.  If timeouts are created faster than they expire, for
+ * example by a client which creates a request timeout per call, you can limit
+ * the number of pending timeouts in the constructor.  {@link #newTimeout(TimerTask, long, TimeUnit)}
+ * will throw a {@link RejectedExecutionException} once the limit is reached.
+ *
  * <h3>Implementation Details</h3>
  *
  * {@link HashedWheelTimer} is based on
@@ -72,6 +80,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * and Hierarchical Timing Wheels: data structures to efficiently implement a
  * timer facility'</a>.  More comprehensive slides are located
  * <a href="http://www.cse.wustl.edu/~cdgill/courses/cs6874/TimingWheels.ppt">here</a>.
+ * <p>
+ * The wheel itself is only ever touched by the worker thread, so no locking is
+ * needed: new and cancelled timeouts are handed over through lock-free queues
+ * which the worker drains on every tick, and every bucket is a doubly linked
+ * list of timeouts, so a cancelled timeout is removed in constant time.
  */
 public class HashedWheelTimer implements Timer {
 
@@ -82,6 +95,9 @@ public class HashedWheelTimer implements Timer {
             new ResourceLeakDetector<HashedWheelTimer>(
                     HashedWheelTimer.class, 1, Runtime.getRuntime().availableProcessors() * 4);
 
+    // Upper bound of new timeouts moved into the wheel per tick, so a flood of new timeouts can not stall it.
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
     private final ResourceLeak leak;
     private final Worker worker = new Worker();
     final Thread workerThread;
@@ -92,10 +108,14 @@ public class HashedWheelTimer implements Timer {
     final AtomicInteger workerState = new AtomicInteger(); // 0 - init, 1 - started, 2 - shut down
 
     final long tickDuration;
-    final Set<HashedWheelTimeout>[] wheel;
+    final HashedWheelBucket[] wheel;
     final int mask;
-    final ReadWriteLock lock = new ReentrantReadWriteLock();
-    volatile int wheelCursor;
+    final Queue<HashedWheelTimeout> timeouts = new ConcurrentLinkedQueue<HashedWheelTimeout>();
+    final Queue<HashedWheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<HashedWheelTimeout>();
+    final AtomicLong pendingTimeouts = new AtomicLong();
+    final long maxPendingTimeouts;
+    final CountDownLatch startTimeInitialized = new CountDownLatch(1);
+    volatile long startTime;
 
     /**
      * Creates a new timer with the default thread factory
@@ -178,6 +198,27 @@ public class HashedWheelTimer implements Timer {
     public HashedWheelTimer(
             ThreadFactory threadFactory,
             long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this(threadFactory, tickDuration, unit, ticksPerWheel, 0);
+    }
+
+    /**
+     * Creates a new timer.
+     *
+     * @param threadFactory       a {@link ThreadFactory} that creates a
+     *                            background {@link Thread} which is dedicated to
+     *                            {@link TimerTask} execution.
+     * @param tickDuration        the duration between tick
+     * @param unit                the time unit of the {@code tickDuration}
+     * @param ticksPerWheel       the size of the wheel
+     * @param maxPendingTimeouts  the maximum number of timeouts which were neither expired nor cancelled yet,
+     *                            or {@code 0} for no limit
+     * @throws NullPointerException     if either of {@code threadFactory} and {@code unit} is {@code null}
+     * @throws IllegalArgumentException if either of {@code tickDuration} and {@code ticksPerWheel} is <= 0,
+     *                                  or {@code maxPendingTimeouts} is < 0
+     */
+    public HashedWheelTimer(
+            ThreadFactory threadFactory,
+            long tickDuration, TimeUnit unit, int ticksPerWheel, long maxPendingTimeouts) {
 
         if (threadFactory == null) {
             throw new NullPointerException("threadFactory");
@@ -191,6 +232,10 @@ public class HashedWheelTimer implements Timer {
         if (ticksPerWheel <= 0) {
             throw new IllegalArgumentException("ticksPerWheel must be greater than 0: " + ticksPerWheel);
         }
+        if (maxPendingTimeouts < 0) {
+            throw new IllegalArgumentException(
+                    "maxPendingTimeouts must be greater than or equal to 0: " + maxPendingTimeouts);
+        }
 
         // Normalize ticksPerWheel to power of two and initialize the wheel.
         wheel = createWheel(ticksPerWheel);
@@ -206,12 +251,12 @@ public class HashedWheelTimer implements Timer {
                     tickDuration, Long.MAX_VALUE / wheel.length));
         }
 
+        this.maxPendingTimeouts = maxPendingTimeouts;
         workerThread = threadFactory.newThread(worker);
         leak = leakDetector.open(this);
     }
 
-    @SuppressWarnings("unchecked")
-    private static Set<HashedWheelTimeout>[] createWheel(int ticksPerWheel) {
+    private static HashedWheelBucket[] createWheel(int ticksPerWheel) {
         if (ticksPerWheel <= 0) {
             throw new IllegalArgumentException(
                     "ticksPerWheel must be greater than 0: " + ticksPerWheel);
@@ -222,10 +267,9 @@ public class HashedWheelTimer implements Timer {
         }
 
         ticksPerWheel = normalizeTicksPerWheel(ticksPerWheel);
-        Set<HashedWheelTimeout>[] wheel = new Set[ticksPerWheel];
+        HashedWheelBucket[] wheel = new HashedWheelBucket[ticksPerWheel];
         for (int i = 0; i < wheel.length; i ++) {
-            wheel[i] = Collections.newSetFromMap(
-                    PlatformDependent.<HashedWheelTimeout, Boolean>newConcurrentHashMap());
+            wheel[i] = new HashedWheelBucket();
         }
         return wheel;
     }
@@ -259,6 +303,15 @@ public class HashedWheelTimer implements Timer {
             default:
                 throw new Error("Invalid WorkerState");
         }
+
+        // Wait until the startTime is initialized by the worker.
+        while (startTime == 0) {
+            try {
+                startTimeInitialized.await();
+            } catch (InterruptedException ignore) {
+                // Ignore - it will be ready very soon.
+            }
+        }
     }
 
     @Override
@@ -292,19 +345,11 @@ public class HashedWheelTimer implements Timer {
 
         leak.close();
 
-        Set<Timeout> unprocessedTimeouts = new HashSet<Timeout>();
-        for (Set<HashedWheelTimeout> bucket: wheel) {
-            unprocessedTimeouts.addAll(bucket);
-            bucket.clear();
-        }
-
-        return Collections.unmodifiableSet(unprocessedTimeouts);
+        return worker.unprocessedTimeouts();
     }
 
     @Override
     public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
-        final long currentTime = System.nanoTime();
-
         if (task == null) {
             throw new NullPointerException("task");
         }
@@ -314,46 +359,36 @@ public class HashedWheelTimer implements Timer {
 
         start();
 
-        long delayInNanos = unit.toNanos(delay);
-        HashedWheelTimeout timeout = new HashedWheelTimeout(task, currentTime + delayInNanos);
-        scheduleTimeout(timeout, delayInNanos);
-        return timeout;
-    }
-
-    void scheduleTimeout(HashedWheelTimeout timeout, long delay) {
-        // Prepare the required parameters to schedule the timeout object.
-        long relativeIndex = (delay + tickDuration - 1) / tickDuration;
-        // if the previous line had an overflow going on, then we’ll just schedule this timeout
-        // one tick early; that shouldn’t matter since we’re talking 270 years here
-        if (relativeIndex < 0) {
-            relativeIndex = delay / tickDuration;
-        }
-        if (relativeIndex == 0) {
-            relativeIndex = 1;
-        }
-        if ((relativeIndex & mask) == 0) {
-            relativeIndex--;
+        long pendingTimeouts = this.pendingTimeouts.incrementAndGet();
+        if (maxPendingTimeouts > 0 && pendingTimeouts > maxPendingTimeouts) {
+            this.pendingTimeouts.decrementAndGet();
+            throw new RejectedExecutionException(
+                    "Number of pending timeouts (" + pendingTimeouts + ") is greater than or equal to maximum " +
+                    "allowed pending timeouts (" + maxPendingTimeouts + ')');
         }
-        final long remainingRounds = relativeIndex / wheel.length;
 
-        // Add the timeout to the wheel.
-        lock.readLock().lock();
-        try {
-            if (workerState.get() == WORKER_STATE_SHUTDOWN) {
-                throw new IllegalStateException("Cannot enqueue after shutdown");
-            }
-            final int stopIndex = (int) (wheelCursor + relativeIndex & mask);
-            timeout.stopIndex = stopIndex;
-            timeout.remainingRounds = remainingRounds;
-            wheel[stopIndex].add(timeout);
-        } finally {
-            lock.readLock().unlock();
+        // The timeout is only added to the wheel by the worker thread on its next tick.
+        long deadline = System.nanoTime() + unit.toNanos(delay) - startTime;
+        // Guard against overflow.
+        if (delay > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE;
         }
+        HashedWheelTimeout timeout = new HashedWheelTimeout(task, deadline);
+        timeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Returns the number of timeouts which were neither expired nor cancelled yet.
+     */
+    public long pendingTimeouts() {
+        return pendingTimeouts.get();
     }
 
     private final class Worker implements Runnable {
 
-        private long startTime;
+        private final Set<Timeout> unprocessedTimeouts = new HashSet<Timeout>();
+
         private long tick;
 
         Worker() {
@@ -361,80 +396,78 @@ public class HashedWheelTimer implements Timer {
 
         @Override
         public void run() {
-            List<HashedWheelTimeout> expiredTimeouts =
-                    new ArrayList<HashedWheelTimeout>();
+            // Initialize the startTime. 0 is used as the indicator for the uninitialized value.
+            long startTime = System.nanoTime();
+            if (startTime == 0) {
+                startTime = 1;
+            }
+            HashedWheelTimer.this.startTime = startTime;
 
-            startTime = System.nanoTime();
-            tick = 1;
+            // Notify the other threads waiting for the initialization at start().
+            startTimeInitialized.countDown();
 
-            while (workerState.get() == WORKER_STATE_STARTED) {
+            do {
                 final long deadline = waitForNextTick();
                 if (deadline > 0) {
-                    fetchExpiredTimeouts(expiredTimeouts, deadline);
-                    notifyExpiredTimeouts(expiredTimeouts);
+                    processCancelledTimeouts();
+                    transferTimeoutsToBuckets();
+                    wheel[(int) (tick & mask)].expireTimeouts(deadline);
+                    tick ++;
                 }
-            }
-        }
-
-        private void fetchExpiredTimeouts(
-                List<HashedWheelTimeout> expiredTimeouts, long deadline) {
+            } while (workerState.get() == WORKER_STATE_STARTED);
 
-            // Find the expired timeouts and decrease the round counter
-            // if necessary.  Note that we don't send the notification
-            // immediately to make sure the listeners are called without
-            // an exclusive lock.
-            lock.writeLock().lock();
-            try {
-                int newWheelCursor = wheelCursor = wheelCursor + 1 & mask;
-                fetchExpiredTimeouts(expiredTimeouts, wheel[newWheelCursor].iterator(), deadline);
-            } finally {
-                lock.writeLock().unlock();
+            // Fill the unprocessedTimeouts so we can return them from stop() method.
+            for (HashedWheelBucket bucket: wheel) {
+                bucket.clearTimeouts(unprocessedTimeouts);
+            }
+            for (;;) {
+                HashedWheelTimeout timeout = timeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (!timeout.isCancelled()) {
+                    unprocessedTimeouts.add(timeout);
+                }
             }
+            processCancelledTimeouts();
         }
 
-        private void fetchExpiredTimeouts(
-                List<HashedWheelTimeout> expiredTimeouts,
-                Iterator<HashedWheelTimeout> i, long deadline) {
+        Set<Timeout> unprocessedTimeouts() {
+            return Collections.unmodifiableSet(unprocessedTimeouts);
+        }
 
-            List<HashedWheelTimeout> slipped = null;
-            while (i.hasNext()) {
-                HashedWheelTimeout timeout = i.next();
-                if (timeout.remainingRounds <= 0) {
-                    i.remove();
-                    if (timeout.deadline <= deadline) {
-                        expiredTimeouts.add(timeout);
-                    } else {
-                        // Handle the case where the timeout is put into a wrong
-                        // place, usually one tick earlier.  For now, just add
-                        // it to a temporary list - we will reschedule it in a
-                        // separate loop.
-                        if (slipped == null) {
-                            slipped = new ArrayList<HashedWheelTimeout>();
-                        }
-                        slipped.add(timeout);
-                    }
-                } else {
-                    timeout.remainingRounds --;
+        private void transferTimeoutsToBuckets() {
+            for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i ++) {
+                HashedWheelTimeout timeout = timeouts.poll();
+                if (timeout == null) {
+                    break;
                 }
-            }
-
-            // Reschedule the slipped timeouts.
-            if (slipped != null) {
-                for (HashedWheelTimeout timeout: slipped) {
-                    scheduleTimeout(timeout, timeout.deadline - deadline);
+                if (timeout.isCancelled()) {
+                    // Cancelled before it was added - processCancelledTimeouts() accounts for it.
+                    continue;
                 }
+
+                long calculated = timeout.deadline / tickDuration;
+                timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+                // Ensure we don't schedule for the past.
+                final long ticks = Math.max(calculated, tick);
+                wheel[(int) (ticks & mask)].addTimeout(timeout);
             }
         }
 
-        private void notifyExpiredTimeouts(
-                List<HashedWheelTimeout> expiredTimeouts) {
-            // Notify the expired timeouts.
-            for (int i = expiredTimeouts.size() - 1; i >= 0; i --) {
-                expiredTimeouts.get(i).expire();
+        private void processCancelledTimeouts() {
+            for (;;) {
+                HashedWheelTimeout timeout = cancelledTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                HashedWheelBucket bucket = timeout.bucket;
+                if (bucket != null) {
+                    bucket.remove(timeout);
+                }
+                pendingTimeouts.decrementAndGet();
             }
-
-            // Clean up the temporary list.
-            expiredTimeouts.clear();
         }
 
         /**
@@ -444,14 +477,13 @@ public class HashedWheelTimer implements Timer {
          * current time otherwise (with Long.MIN_VALUE changed by +1)
          */
         private long waitForNextTick() {
-            long deadline = startTime + tickDuration * tick;
+            long deadline = tickDuration * (tick + 1);
 
             for (;;) {
-                final long currentTime = System.nanoTime();
+                final long currentTime = System.nanoTime() - startTime;
                 long sleepTimeMs = (deadline - currentTime + 999999) / 1000000;
 
                 if (sleepTimeMs <= 0) {
-                    tick += 1;
                     if (currentTime == Long.MIN_VALUE) {
                         return -Long.MAX_VALUE;
                     } else {
@@ -486,11 +518,20 @@ public class HashedWheelTimer implements Timer {
         private static final int ST_EXPIRED = 2;
 
         private final TimerTask task;
+        // Relative to the startTime of the timer.
         final long deadline;
-        volatile int stopIndex;
-        volatile long remainingRounds;
         private final AtomicInteger state = new AtomicInteger(ST_INIT);
 
+        // The fields below are only accessed by the worker thread.
+
+        // The number of rounds the wheel has to turn before the timeout expires.
+        long remainingRounds;
+
+        // The bucket the timeout is linked into, and its neighbours there.
+        HashedWheelBucket bucket;
+        HashedWheelTimeout next;
+        HashedWheelTimeout prev;
+
         HashedWheelTimeout(TimerTask task, long deadline) {
             this.task = task;
             this.deadline = deadline;
@@ -512,7 +553,8 @@ public class HashedWheelTimer implements Timer {
                 return false;
             }
 
-            wheel[stopIndex].remove(this);
+            // The worker thread removes the timeout from its bucket on its next tick.
+            cancelledTimeouts.add(this);
             return true;
         }
 
@@ -531,6 +573,7 @@ public class HashedWheelTimer implements Timer {
                 return;
             }
 
+            pendingTimeouts.decrementAndGet();
             try {
                 task.run(this);
             } catch (Throwable t) {
@@ -543,7 +586,7 @@ public class HashedWheelTimer implements Timer {
         @Override
         public String toString() {
             final long currentTime = System.nanoTime();
-            long remaining = deadline - currentTime;
+            long remaining = deadline - currentTime + startTime;
 
             StringBuilder buf = new StringBuilder(192);
             buf.append(getClass().getSimpleName());
@@ -552,12 +595,12 @@ public class HashedWheelTimer implements Timer {
             buf.append("deadline: ");
             if (remaining > 0) {
                 buf.append(remaining);
-                buf.append(" ms later, ");
+                buf.append(" ns later");
             } else if (remaining < 0) {
                 buf.append(-remaining);
-                buf.append(" ms ago, ");
+                buf.append(" ns ago");
             } else {
-                buf.append("now, ");
+                buf.append("now");
             }
 
             if (isCancelled()) {
@@ -567,4 +610,90 @@ public class HashedWheelTimer implements Timer {
             return buf.append(')').toString();
         }
     }
+
+    /**
+     * A bucket of the wheel: a doubly linked list of {@link HashedWheelTimeout}s, so timeouts can be added and
+     * removed in constant time. Only accessed by the worker thread.
+     */
+    private static final class HashedWheelBucket {
+
+        private HashedWheelTimeout head;
+        private HashedWheelTimeout tail;
+
+        void addTimeout(HashedWheelTimeout timeout) {
+            assert timeout.bucket == null;
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * Expire all timeouts of this bucket which are due at the given deadline.
+         */
+        void expireTimeouts(long deadline) {
+            HashedWheelTimeout timeout = head;
+            while (timeout != null) {
+                HashedWheelTimeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    if (timeout.deadline > deadline) {
+                        // The timeout was placed into a wrong bucket, which should never happen.
+                        throw new IllegalStateException(String.format(
+                                "timeout.deadline (%d) > deadline (%d)", timeout.deadline, deadline));
+                    }
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds --;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(HashedWheelTimeout timeout) {
+            HashedWheelTimeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+
+            if (timeout == head) {
+                if (timeout == tail) {
+                    // The only timeout of this bucket.
+                    tail = null;
+                    head = null;
+                } else {
+                    head = next;
+                }
+            } else if (timeout == tail) {
+                tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Remove all timeouts of this bucket and add the ones which were not cancelled to the given set.
+         */
+        void clearTimeouts(Set<Timeout> set) {
+            for (;;) {
+                HashedWheelTimeout timeout = head;
+                if (timeout == null) {
+                    return;
+                }
+                remove(timeout);
+                if (!timeout.isExpired()) {
+                    set.add(timeout);
+                }
+            }
+        }
+    }
 }
@@ -75,7 +75,9 @@ public class UniqueName implements Comparable<UniqueName> {
     }
 
     /**
-     * Returns this {@link UniqueName}'s ID
+     * Returns this {@link UniqueName}'s ID. The IDs are assigned in ascending order, so they spread evenly over
+     * the slots of a hash table, as {@link DefaultAttributeMap} uses them for {@link AttributeKey}s. IDs which
+     * differ by a multiple of the table size still share a slot.
      *
      * @return the id
      */
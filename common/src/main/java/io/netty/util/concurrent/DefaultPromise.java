@@ -21,6 +21,8 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import static java.util.concurrent.TimeUnit.*;
 
@@ -38,12 +40,26 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         }
     };
     private static final Signal SUCCESS = new Signal(DefaultPromise.class.getName() + ".SUCCESS");
+    // Marks the listeners as notified, so listeners added afterwards are notified immediately.
+    private static final Signal NOTIFIED = new Signal(DefaultPromise.class.getName() + ".NOTIFIED");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultPromise, Object> RESULT_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, Object.class, "result");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultPromise, Object> LISTENERS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, Object.class, "listeners");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultPromise, WaitNode> WAITERS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, WaitNode.class, "waiters");
+
     private final EventExecutor executor;
 
     private volatile Object result;
-    private Object listeners; // Can be ChannelFutureListener or DefaultFutureListeners
-
-    private short waiters;
+    // null, a GenericFutureListener, a ListenerNode (stack of listeners, most recently added first) or NOTIFIED.
+    private volatile Object listeners;
+    // Threads blocked in await*(), most recently added first.
+    private volatile WaitNode waiters;
 
     /**
      * Creates a new instance.
@@ -98,25 +114,15 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             throw new NullPointerException("listener");
         }
 
-        if (isDone()) {
-            notifyListener(executor(), this, listener);
-            return this;
-        }
+        for (;;) {
+            Object listeners = this.listeners;
+            if (listeners == NOTIFIED) {
+                break;
+            }
 
-        synchronized (this) {
-            if (!isDone()) {
-                if (listeners == null) {
-                    listeners = listener;
-                } else {
-                    if (listeners instanceof DefaultFutureListeners) {
-                        ((DefaultFutureListeners) listeners).add(listener);
-                    } else {
-                        @SuppressWarnings("unchecked")
-                        final GenericFutureListener<? extends Future<V>> firstListener =
-                                (GenericFutureListener<? extends Future<V>>) listeners;
-                        listeners = new DefaultFutureListeners(firstListener, listener);
-                    }
-                }
+            // The first listener is stored as is, so the common case of a single listener does not allocate.
+            Object newListeners = listeners == null ? listener : new ListenerNode(listener, listeners);
+            if (LISTENERS_UPDATER.compareAndSet(this, listeners, newListeners)) {
                 return this;
             }
         }
@@ -146,21 +152,17 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             throw new NullPointerException("listener");
         }
 
-        if (isDone()) {
-            return this;
-        }
+        for (;;) {
+            Object listeners = this.listeners;
+            if (listeners == null || listeners == NOTIFIED) {
+                return this;
+            }
 
-        synchronized (this) {
-            if (!isDone()) {
-                if (listeners instanceof DefaultFutureListeners) {
-                    ((DefaultFutureListeners) listeners).remove(listener);
-                } else if (listeners == listener) {
-                    listeners = null;
-                }
+            Object newListeners = ListenerNode.remove(listeners, listener);
+            if (newListeners == listeners || LISTENERS_UPDATER.compareAndSet(this, listeners, newListeners)) {
+                return this;
             }
         }
-
-        return this;
     }
 
     @Override
@@ -211,16 +213,10 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             throw new InterruptedException();
         }
 
-        synchronized (this) {
-            while (!isDone()) {
-                checkDeadLock();
-                incWaiters();
-                try {
-                    wait();
-                } finally {
-                    decWaiters();
-                }
-            }
+        if (!doAwait(0, true)) {
+            // Only an interruption stops waiting without a timeout.
+            Thread.interrupted();
+            throw new InterruptedException();
         }
         return this;
     }
@@ -228,12 +224,12 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     @Override
     public boolean await(long timeout, TimeUnit unit)
             throws InterruptedException {
-        return await0(unit.toNanos(timeout), true);
+        return await0(unit.toNanos(timeout));
     }
 
     @Override
     public boolean await(long timeoutMillis) throws InterruptedException {
-        return await0(MILLISECONDS.toNanos(timeoutMillis), true);
+        return await0(MILLISECONDS.toNanos(timeoutMillis));
     }
 
     @Override
@@ -242,47 +238,21 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             return this;
         }
 
-        boolean interrupted = false;
-        synchronized (this) {
-            while (!isDone()) {
-                checkDeadLock();
-                incWaiters();
-                try {
-                    wait();
-                } catch (InterruptedException e) {
-                    interrupted = true;
-                } finally {
-                    decWaiters();
-                }
-            }
-        }
-
-        if (interrupted) {
-            Thread.currentThread().interrupt();
-        }
-
+        doAwait(0, false);
         return this;
     }
 
     @Override
     public boolean awaitUninterruptibly(long timeout, TimeUnit unit) {
-        try {
-            return await0(unit.toNanos(timeout), false);
-        } catch (InterruptedException e) {
-            throw new InternalError();
-        }
+        return awaitUninterruptibly0(unit.toNanos(timeout));
     }
 
     @Override
     public boolean awaitUninterruptibly(long timeoutMillis) {
-        try {
-            return await0(MILLISECONDS.toNanos(timeoutMillis), false);
-        } catch (InterruptedException e) {
-            throw new InternalError();
-        }
+        return awaitUninterruptibly0(MILLISECONDS.toNanos(timeoutMillis));
     }
 
-    private boolean await0(long timeoutNanos, boolean interruptable) throws InterruptedException {
+    private boolean await0(long timeoutNanos) throws InterruptedException {
         if (isDone()) {
             return true;
         }
@@ -291,58 +261,124 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             return isDone();
         }
 
-        if (interruptable && Thread.interrupted()) {
+        if (Thread.interrupted()) {
             throw new InterruptedException();
         }
 
-        long startTime = timeoutNanos <= 0 ? 0 : System.nanoTime();
-        long waitTime = timeoutNanos;
-        boolean interrupted = false;
+        if (doAwait(timeoutNanos, true)) {
+            return true;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return false;
+    }
+
+    private boolean awaitUninterruptibly0(long timeoutNanos) {
+        if (isDone()) {
+            return true;
+        }
 
+        if (timeoutNanos <= 0) {
+            return isDone();
+        }
+
+        return doAwait(timeoutNanos, false);
+    }
+
+    /**
+     * Blocks until this future is done, the timeout elapsed or the thread was interrupted. A timeout of {@code 0}
+     * means no timeout. Only this method adds waiters, so a future nobody blocks on never allocates any.
+     * If {@code interruptable} is {@code true}, an interruption stops waiting and is left in the interrupt status
+     * of the thread, so the caller can throw the {@link InterruptedException}.
+     */
+    private boolean doAwait(long timeoutNanos, boolean interruptable) {
+        checkDeadLock();
+
+        final long deadline = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : 0;
+        final WaitNode node = new WaitNode();
+        boolean queued = false;
+        boolean interrupted = false;
         try {
-            synchronized (this) {
+            for (;;) {
                 if (isDone()) {
                     return true;
                 }
 
-                if (waitTime <= 0) {
-                    return isDone();
+                if (!queued) {
+                    // Recheck isDone() after enqueuing, as the completion may have woken up all waiters already.
+                    WaitNode waiters = this.waiters;
+                    node.next = waiters;
+                    queued = WAITERS_UPDATER.compareAndSet(this, waiters, node);
+                    continue;
                 }
 
-                checkDeadLock();
-                incWaiters();
-                try {
-                    for (;;) {
-                        try {
-                            wait(waitTime / 1000000, (int) (waitTime % 1000000));
-                        } catch (InterruptedException e) {
-                            if (interruptable) {
-                                throw e;
-                            } else {
-                                interrupted = true;
-                            }
-                        }
+                if (deadline == 0) {
+                    LockSupport.park(this);
+                } else {
+                    long waitTime = deadline - System.nanoTime();
+                    if (waitTime <= 0) {
+                        return isDone();
+                    }
+                    LockSupport.parkNanos(this, waitTime);
+                }
 
-                        if (isDone()) {
-                            return true;
-                        } else {
-                            waitTime = timeoutNanos - (System.nanoTime() - startTime);
-                            if (waitTime <= 0) {
-                                return isDone();
-                            }
-                        }
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                    if (interruptable) {
+                        return isDone();
                     }
-                } finally {
-                    decWaiters();
                 }
             }
         } finally {
+            if (queued) {
+                removeWaiter(node);
+            }
             if (interrupted) {
                 Thread.currentThread().interrupt();
             }
         }
     }
 
+    /**
+     * Unlinks the given waiter, along with any other waiter which gave up waiting already.
+     */
+    private void removeWaiter(WaitNode node) {
+        node.thread = null;
+        retry:
+        for (;;) {
+            WaitNode pred = null;
+            for (WaitNode q = waiters; q != null;) {
+                WaitNode next = q.next;
+                if (q.thread != null) {
+                    pred = q;
+                } else if (pred != null) {
+                    pred.next = next;
+                    if (pred.thread == null) {
+                        // pred gave up waiting concurrently, so start over.
+                        continue retry;
+                    }
+                } else if (!WAITERS_UPDATER.compareAndSet(this, q, next)) {
+                    continue retry;
+                }
+                q = next;
+            }
+            break;
+        }
+    }
+
+    private void wakeUpWaiters() {
+        WaitNode waiters = WAITERS_UPDATER.getAndSet(this, null);
+        while (waiters != null) {
+            Thread thread = waiters.thread;
+            if (thread != null) {
+                waiters.thread = null;
+                LockSupport.unpark(thread);
+            }
+            waiters = waiters.next;
+        }
+    }
+
     /**
      * Do deadlock checks
      */
@@ -390,42 +426,20 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     }
 
     private boolean setFailure0(Throwable cause) {
-        if (isDone()) {
-            return false;
-        }
-
-        synchronized (this) {
-            // Allow only once.
-            if (isDone()) {
-                return false;
-            }
-
-            result = new CauseHolder(cause);
-            if (hasWaiters()) {
-                notifyAll();
-            }
-        }
-        return true;
+        return setValue0(new CauseHolder(cause));
     }
 
     private boolean setSuccess0(V result) {
-        if (isDone()) {
+        return setValue0(result == null ? SUCCESS : result);
+    }
+
+    private boolean setValue0(Object result) {
+        // Allow only once.
+        if (isDone() || !RESULT_UPDATER.compareAndSet(this, null, result)) {
             return false;
         }
-
-        synchronized (this) {
-            // Allow only once.
-            if (isDone()) {
-                return false;
-            }
-            if (result == null) {
-                this.result = SUCCESS;
-            } else {
-                this.result = result;
-            }
-            if (hasWaiters()) {
-                notifyAll();
-            }
+        if (waiters != null) {
+            wakeUpWaiters();
         }
         return true;
     }
@@ -440,39 +454,24 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         return (V) result;
     }
 
-    private boolean hasWaiters() {
-        return waiters > 0;
-    }
-
-    private void incWaiters() {
-        if (waiters == Short.MAX_VALUE) {
-            throw new IllegalStateException("too many waiters");
-        }
-        waiters ++;
-    }
-
-    private void decWaiters() {
-        waiters --;
-    }
-
     private void notifyListeners() {
-        // This method doesn't need synchronization because:
-        // 1) This method is always called after synchronized (this) block.
-        //    Hence any listener list modification happens-before this method.
-        // 2) This method is called only when 'done' is true.  Once 'done'
-        //    becomes true, the listener list is never modified - see add/removeListener()
-
         Object listeners = this.listeners;
         if (listeners == null) {
-            return;
+            // Try the cheap path first, which does not need an atomic exchange.
+            if (LISTENERS_UPDATER.compareAndSet(this, null, NOTIFIED)) {
+                return;
+            }
         }
 
-        this.listeners = null;
+        listeners = LISTENERS_UPDATER.getAndSet(this, NOTIFIED);
+        if (listeners == null) {
+            return;
+        }
 
         EventExecutor executor = executor();
         if (executor.inEventLoop()) {
-            if (listeners instanceof DefaultFutureListeners) {
-                notifyListeners0(this, (DefaultFutureListeners) listeners);
+            if (listeners instanceof ListenerNode) {
+                notifyListeners0(this, ((ListenerNode) listeners).toArray());
             } else {
                 @SuppressWarnings("unchecked")
                 final GenericFutureListener<? extends Future<V>> l =
@@ -481,12 +480,12 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             }
         } else {
             try {
-                if (listeners instanceof DefaultFutureListeners) {
-                    final DefaultFutureListeners dfl = (DefaultFutureListeners) listeners;
+                if (listeners instanceof ListenerNode) {
+                    final GenericFutureListener<?>[] array = ((ListenerNode) listeners).toArray();
                     executor.execute(new Runnable() {
                         @Override
                         public void run() {
-                            notifyListeners0(DefaultPromise.this, dfl);
+                            notifyListeners0(DefaultPromise.this, array);
                         }
                     });
                 } else {
@@ -506,11 +505,9 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         }
     }
 
-    private static void notifyListeners0(Future<?> future, DefaultFutureListeners listeners) {
-        final GenericFutureListener<?>[] a = listeners.listeners();
-        final int size = listeners.size();
-        for (int i = 0; i < size; i ++) {
-            notifyListener0(future, a[i]);
+    private static void notifyListeners0(Future<?> future, GenericFutureListener<?>[] listeners) {
+        for (GenericFutureListener<?> l: listeners) {
+            notifyListener0(future, l);
         }
     }
 
@@ -557,30 +554,30 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
      * Returns a {@link GenericProgressiveFutureListener}, an array of {@link GenericProgressiveFutureListener}, or
      * {@code null}.
      */
-    private synchronized Object progressiveListeners() {
+    private Object progressiveListeners() {
         Object listeners = this.listeners;
-        if (listeners == null) {
+        if (listeners == null || listeners == NOTIFIED) {
             // No listeners added
             return null;
         }
 
-        if (listeners instanceof DefaultFutureListeners) {
-            // Copy DefaultFutureListeners into an array of listeners.
-            DefaultFutureListeners dfl = (DefaultFutureListeners) listeners;
-            int progressiveSize = dfl.progressiveSize();
+        if (listeners instanceof ListenerNode) {
+            GenericFutureListener<?>[] array = ((ListenerNode) listeners).toArray();
+            int progressiveSize = 0;
+            GenericFutureListener<?> progressive = null;
+            for (GenericFutureListener<?> l: array) {
+                if (l instanceof GenericProgressiveFutureListener) {
+                    progressiveSize ++;
+                    progressive = l;
+                }
+            }
             switch (progressiveSize) {
                 case 0:
                     return null;
                 case 1:
-                    for (GenericFutureListener<?> l: dfl.listeners()) {
-                        if (l instanceof GenericProgressiveFutureListener) {
-                            return l;
-                        }
-                    }
-                    return null;
+                    return progressive;
             }
 
-            GenericFutureListener<?>[] array = dfl.listeners();
             GenericProgressiveFutureListener<?>[] copy = new GenericProgressiveFutureListener[progressiveSize];
             for (int i = 0, j = 0; j < progressiveSize; i ++) {
                 GenericFutureListener<?> l = array[i];
@@ -665,6 +662,62 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         }
     }
 
+    /**
+     * An immutable stack of listeners, so listeners can be added and removed with a single CAS.
+     */
+    private static final class ListenerNode {
+        final GenericFutureListener<?> listener;
+        // The listeners added before: a GenericFutureListener or a ListenerNode.
+        final Object next;
+        final int size;
+
+        ListenerNode(GenericFutureListener<?> listener, Object next) {
+            this.listener = listener;
+            this.next = next;
+            size = next instanceof ListenerNode ? ((ListenerNode) next).size + 1 : 2;
+        }
+
+        /**
+         * Returns the listeners in the order they were added.
+         */
+        GenericFutureListener<?>[] toArray() {
+            GenericFutureListener<?>[] array = new GenericFutureListener[size];
+            Object node = this;
+            for (int i = size - 1; i > 0; i --) {
+                ListenerNode n = (ListenerNode) node;
+                array[i] = n.listener;
+                node = n.next;
+            }
+            array[0] = (GenericFutureListener<?>) node;
+            return array;
+        }
+
+        /**
+         * Returns the given listeners without the most recently added occurrence of {@code l}, or {@code listeners}
+         * itself if {@code l} is not contained.
+         */
+        static Object remove(Object listeners, GenericFutureListener<?> l) {
+            if (!(listeners instanceof ListenerNode)) {
+                return listeners == l ? null : listeners;
+            }
+
+            ListenerNode node = (ListenerNode) listeners;
+            if (node.listener == l) {
+                return node.next;
+            }
+            Object next = remove(node.next, l);
+            if (next == node.next) {
+                return listeners;
+            }
+            return next == null ? node.listener : new ListenerNode(node.listener, next);
+        }
+    }
+
+    private static final class WaitNode {
+        volatile Thread thread = Thread.currentThread();
+        volatile WaitNode next;
+    }
+
     private static final class CauseHolder {
         final Throwable cause;
         private CauseHolder(Throwable cause) {
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency and utilisation metrics of a {@link SingleThreadEventExecutor}, obtained via
+ * {@link SingleThreadEventExecutor#enableMetrics()}.
+ * <p>
+ * All values are only ever written by the thread of the executor, so recording them costs a few plain volatile
+ * writes and no locking. They can be read from any thread at any time, but as they are not updated atomically
+ * as a group, a snapshot taken while the executor is busy may be slightly inconsistent.
+ * <p>
+ * Durations are collected in histograms with power-of-two buckets: bucket {@code i} counts the durations in
+ * {@code [2^(i-1), 2^i)} nanoseconds (bucket {@code 0} counts {@code 0}), the last bucket counts everything above.
+ * Use {@link #bucketUpperBoundNanos(int)} to label them.
+ * <p>
+ * The recording methods are public so the I/O part of an event loop in another package can feed its
+ * measurements. They must only be called by the thread of the executor.
+ */
+public final class EventExecutorMetrics {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EventExecutorMetrics.class);
+
+    /**
+     * The number of histogram buckets. The last bucket collects all durations of {@code 2^(BUCKETS - 2)}
+     * nanoseconds (about 4.6 minutes) and more.
+     */
+    public static final int BUCKETS = 40;
+
+    private static final long DEFAULT_SLOW_TASK_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final SingleThreadEventExecutor executor;
+
+    private final AtomicLongArray taskTimeHistogram = new AtomicLongArray(BUCKETS);
+    private volatile long taskCount;
+    private volatile long taskTimeNanos;
+    private volatile long maxTaskTimeNanos;
+
+    private volatile long slowTaskThresholdNanos = DEFAULT_SLOW_TASK_THRESHOLD;
+    private volatile long slowTaskCount;
+
+    private final AtomicLongArray selectWaitHistogram = new AtomicLongArray(BUCKETS);
+    private volatile long selectCount;
+    private volatile long selectWaitNanos;
+    private volatile long maxSelectWaitNanos;
+
+    private volatile long ioTimeNanos;
+
+    private final AtomicLongArray latenessHistogram = new AtomicLongArray(BUCKETS);
+    private volatile long scheduledTaskCount;
+    private volatile long scheduledTaskLatenessNanos;
+    private volatile long maxScheduledTaskLatenessNanos;
+
+    EventExecutorMetrics(SingleThreadEventExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the {@link SingleThreadEventExecutor} these metrics belong to.
+     */
+    public SingleThreadEventExecutor executor() {
+        return executor;
+    }
+
+    /**
+     * Returns the number of tasks which are waiting in the task queue.
+     *
+     * @see SingleThreadEventExecutor#pendingTasks()
+     */
+    public int pendingTasks() {
+        return executor.pendingTasks();
+    }
+
+    /**
+     * Returns the number of tasks which were executed.
+     */
+    public long taskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Returns the total time spent in the execution of tasks.
+     */
+    public long totalTaskTimeNanos() {
+        return taskTimeNanos;
+    }
+
+    /**
+     * Returns the longest execution time of a single task.
+     */
+    public long maxTaskTimeNanos() {
+        return maxTaskTimeNanos;
+    }
+
+    /**
+     * Returns a copy of the task execution time histogram.
+     */
+    public long[] taskTimeHistogram() {
+        return snapshot(taskTimeHistogram);
+    }
+
+    /**
+     * Returns the execution time above which a task is reported as slow. The default is 100 milliseconds.
+     */
+    public long slowTaskThreshold(TimeUnit unit) {
+        return unit.convert(slowTaskThresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the execution time above which a task is counted and logged as slow. Use {@code 0} to disable the
+     * detection of slow tasks.
+     */
+    public EventExecutorMetrics setSlowTaskThreshold(long threshold, TimeUnit unit) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold: " + threshold + " (expected: >= 0)");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        slowTaskThresholdNanos = unit.toNanos(threshold);
+        return this;
+    }
+
+    /**
+     * Returns the number of tasks which took longer than the {@link #slowTaskThreshold(TimeUnit)}.
+     */
+    public long slowTaskCount() {
+        return slowTaskCount;
+    }
+
+    /**
+     * Returns how often the event loop blocked to wait for I/O readiness.
+     */
+    public long selectCount() {
+        return selectCount;
+    }
+
+    /**
+     * Returns the total time the event loop was blocked waiting for I/O readiness.
+     */
+    public long totalSelectWaitNanos() {
+        return selectWaitNanos;
+    }
+
+    /**
+     * Returns the longest time the event loop was blocked waiting for I/O readiness at once.
+     */
+    public long maxSelectWaitNanos() {
+        return maxSelectWaitNanos;
+    }
+
+    /**
+     * Returns a copy of the select wait time histogram.
+     */
+    public long[] selectWaitHistogram() {
+        return snapshot(selectWaitHistogram);
+    }
+
+    /**
+     * Returns the total time spent processing I/O events.
+     */
+    public long totalIoTimeNanos() {
+        return ioTimeNanos;
+    }
+
+    /**
+     * Returns the fraction of the busy time ({@link #totalIoTimeNanos()} plus {@link #totalTaskTimeNanos()}) which
+     * was spent processing I/O events, or {@code 0} if the executor was not busy at all yet.
+     */
+    public double ioTimeFraction() {
+        long io = ioTimeNanos;
+        long busy = io + taskTimeNanos;
+        if (busy == 0) {
+            return 0;
+        }
+        return (double) io / busy;
+    }
+
+    /**
+     * Returns the number of scheduled tasks which were run.
+     */
+    public long scheduledTaskCount() {
+        return scheduledTaskCount;
+    }
+
+    /**
+     * Returns the sum of how late scheduled tasks were run compared to their deadline.
+     */
+    public long totalScheduledTaskLatenessNanos() {
+        return scheduledTaskLatenessNanos;
+    }
+
+    /**
+     * Returns the longest delay between the deadline of a scheduled task and its execution.
+     */
+    public long maxScheduledTaskLatenessNanos() {
+        return maxScheduledTaskLatenessNanos;
+    }
+
+    /**
+     * Returns a copy of the scheduled task lateness histogram.
+     */
+    public long[] scheduledTaskLatenessHistogram() {
+        return snapshot(latenessHistogram);
+    }
+
+    /**
+     * Returns the exclusive upper bound of the given histogram bucket in nanoseconds, or {@link Long#MAX_VALUE}
+     * for the last bucket.
+     */
+    public static long bucketUpperBoundNanos(int bucket) {
+        if (bucket < 0 || bucket >= BUCKETS) {
+            throw new IllegalArgumentException("bucket: " + bucket + " (expected: 0-" + (BUCKETS - 1) + ')');
+        }
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return 1L << bucket;
+    }
+
+    /**
+     * Records the execution of a task. Must only be called by the thread of the executor.
+     */
+    public void recordTask(Runnable task, long nanos) {
+        taskCount ++;
+        taskTimeNanos += nanos;
+        if (nanos > maxTaskTimeNanos) {
+            maxTaskTimeNanos = nanos;
+        }
+        increment(taskTimeHistogram, nanos);
+
+        long slowTaskThresholdNanos = this.slowTaskThresholdNanos;
+        if (slowTaskThresholdNanos > 0 && nanos >= slowTaskThresholdNanos) {
+            slowTaskCount ++;
+            if (logger.isWarnEnabled()) {
+                logger.warn(
+                        "A task blocked the event executor for " + TimeUnit.NANOSECONDS.toMillis(nanos) +
+                        " ms (threshold: " + TimeUnit.NANOSECONDS.toMillis(slowTaskThresholdNanos) + " ms): " + task);
+            }
+        }
+    }
+
+    /**
+     * Records the time the event loop was blocked waiting for I/O readiness. Must only be called by the thread of
+     * the executor.
+     */
+    public void recordSelectWait(long nanos) {
+        selectCount ++;
+        selectWaitNanos += nanos;
+        if (nanos > maxSelectWaitNanos) {
+            maxSelectWaitNanos = nanos;
+        }
+        increment(selectWaitHistogram, nanos);
+    }
+
+    /**
+     * Records the time spent processing I/O events. Must only be called by the thread of the executor.
+     */
+    public void recordIoTime(long nanos) {
+        ioTimeNanos += nanos;
+    }
+
+    /**
+     * Records how late a scheduled task was run. Must only be called by the thread of the executor.
+     */
+    void recordScheduledTaskLateness(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        scheduledTaskCount ++;
+        scheduledTaskLatenessNanos += nanos;
+        if (nanos > maxScheduledTaskLatenessNanos) {
+            maxScheduledTaskLatenessNanos = nanos;
+        }
+        increment(latenessHistogram, nanos);
+    }
+
+    private static void increment(AtomicLongArray histogram, long nanos) {
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+        // Single writer, so a lazy set is enough to publish the new value.
+        histogram.lazySet(bucket, histogram.get(bucket) + 1);
+    }
+
+    private static long[] snapshot(AtomicLongArray histogram) {
+        long[] copy = new long[histogram.length()];
+        for (int i = 0; i < copy.length; i ++) {
+            copy[i] = histogram.get(i);
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(tasks: " + taskCount + ", taskTime: " + taskTimeNanos +
+               "ns, slowTasks: " + slowTaskCount + ", selects: " + selectCount + ", selectWait: " +
+               selectWaitNanos + "ns, ioTime: " + ioTimeNanos + "ns, scheduledTasks: " + scheduledTaskCount +
+               ", scheduledTaskLateness: " + scheduledTaskLatenessNanos + "ns)";
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.concurrent.SingleThreadEventExecutor.ScheduledFutureTask;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * A hierarchical timing wheel which holds the scheduled tasks of a {@link SingleThreadEventExecutor}.
+ * <p>
+ * Adding a task only links it into the bucket of its deadline, and a cancelled task is not removed at all until
+ * its bucket expires or the periodic purge of the executor runs, so both are {@code O(1)} no matter how many
+ * tasks are scheduled. Once the bucket of a task is reached it is moved into a small {@link PriorityQueue}, so
+ * tasks are still handed out strictly ordered by their deadline and never before it.
+ * <p>
+ * The wheel has {@value #LEVELS} levels of {@value #WHEEL_SIZE} buckets each. A tick of the lowest level is
+ * {@code 2^20} nanoseconds (about a millisecond) and every level above covers {@value #WHEEL_SIZE} times the
+ * range of the one below. Tasks which are too far in the future for the wheel (more than two years) go to the
+ * {@link PriorityQueue} directly.
+ * <p>
+ * This class is not thread-safe and must only be accessed by the thread of the executor.
+ */
+final class ScheduledTaskWheel {
+
+    private static final int TICK_SHIFT = 20;
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 6;
+
+    private final ScheduledFutureTask<?>[][] buckets = new ScheduledFutureTask<?>[LEVELS][WHEEL_SIZE];
+    // One bit per non-empty bucket, so the next non-empty bucket can be found without iterating.
+    private final long[] occupied = new long[LEVELS];
+    // Tasks whose bucket was already reached, or which are too far in the future for the wheel.
+    private final Queue<ScheduledFutureTask<?>> queue = new PriorityQueue<ScheduledFutureTask<?>>();
+    // All buckets before this tick were moved to the queue already.
+    private long currentTick;
+    private int wheelSize;
+
+    ScheduledTaskWheel(long nanoTime) {
+        currentTick = nanoTime >> TICK_SHIFT;
+    }
+
+    boolean isEmpty() {
+        return wheelSize == 0 && queue.isEmpty();
+    }
+
+    void add(ScheduledFutureTask<?> task) {
+        long tick = task.deadlineNanos() >> TICK_SHIFT;
+        if (tick >= currentTick) {
+            for (int level = 0; level < LEVELS; level ++) {
+                int shift = level * WHEEL_BITS;
+                // A task belongs to the lowest level whose current rotation contains its deadline.
+                if (tick >>> (shift + WHEEL_BITS) == currentTick >>> (shift + WHEEL_BITS)) {
+                    int slot = (int) (tick >>> shift) & WHEEL_MASK;
+                    task.nextInBucket = buckets[level][slot];
+                    buckets[level][slot] = task;
+                    occupied[level] |= 1L << slot;
+                    wheelSize ++;
+                    return;
+                }
+            }
+        }
+        queue.add(task);
+    }
+
+    /**
+     * Returns the deadline of the next task which becomes ready, or {@code -1} if there is no task at all. The
+     * returned deadline may be earlier than the deadline of the task, but never later.
+     */
+    long nextDeadlineNanos() {
+        ScheduledFutureTask<?> head = queue.peek();
+        long deadline = head == null ? Long.MAX_VALUE : head.deadlineNanos();
+        if (wheelSize != 0) {
+            for (int level = 0; level < LEVELS; level ++) {
+                long bits = occupied[level];
+                if (bits == 0) {
+                    continue;
+                }
+                // All buckets of a level expire earlier than any bucket of the level above.
+                int shift = level * WHEEL_BITS;
+                int slot = Long.numberOfTrailingZeros(bits);
+                long rotationStart = currentTick >>> (shift + WHEEL_BITS) << (shift + WHEEL_BITS);
+                long bucketStart = (rotationStart | ((long) slot << shift)) << TICK_SHIFT;
+                if (bucketStart < deadline) {
+                    deadline = bucketStart;
+                }
+                break;
+            }
+        }
+        return deadline == Long.MAX_VALUE ? -1 : deadline;
+    }
+
+    /**
+     * Removes and returns the task with the earliest deadline if it is not later than {@code nanoTime}.
+     */
+    ScheduledFutureTask<?> poll(long nanoTime) {
+        advance(nanoTime);
+        ScheduledFutureTask<?> task = queue.peek();
+        if (task == null || task.deadlineNanos() > nanoTime) {
+            return null;
+        }
+        return queue.remove();
+    }
+
+    /**
+     * Removes all cancelled tasks.
+     */
+    void purge() {
+        Iterator<ScheduledFutureTask<?>> i = queue.iterator();
+        while (i.hasNext()) {
+            if (i.next().isCancelled()) {
+                i.remove();
+            }
+        }
+
+        for (int level = 0; level < LEVELS; level ++) {
+            long bits = occupied[level];
+            while (bits != 0) {
+                int slot = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                ScheduledFutureTask<?> head = null;
+                ScheduledFutureTask<?> task = buckets[level][slot];
+                while (task != null) {
+                    ScheduledFutureTask<?> next = task.nextInBucket;
+                    if (task.isCancelled()) {
+                        task.nextInBucket = null;
+                        wheelSize --;
+                    } else {
+                        task.nextInBucket = head;
+                        head = task;
+                    }
+                    task = next;
+                }
+                buckets[level][slot] = head;
+                if (head == null) {
+                    occupied[level] &= ~(1L << slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all tasks and returns them.
+     */
+    List<ScheduledFutureTask<?>> clear() {
+        List<ScheduledFutureTask<?>> tasks = new ArrayList<ScheduledFutureTask<?>>(wheelSize + queue.size());
+        tasks.addAll(queue);
+        queue.clear();
+        for (int level = 0; level < LEVELS; level ++) {
+            long bits = occupied[level];
+            while (bits != 0) {
+                int slot = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                ScheduledFutureTask<?> task = takeBucket(level, slot);
+                while (task != null) {
+                    tasks.add(task);
+                    ScheduledFutureTask<?> next = task.nextInBucket;
+                    task.nextInBucket = null;
+                    task = next;
+                }
+            }
+        }
+        wheelSize = 0;
+        return tasks;
+    }
+
+    /**
+     * Moves all buckets which expired until {@code nanoTime} to the queue.
+     */
+    private void advance(long nanoTime) {
+        long tick = nanoTime >> TICK_SHIFT;
+        while (currentTick <= tick) {
+            if (wheelSize == 0) {
+                // Nothing to cascade, so the wheel can jump straight to the current tick.
+                currentTick = tick + 1;
+                return;
+            }
+
+            // Expire all non-empty buckets of the lowest level up to the end of its rotation.
+            long end = Math.min(tick, currentTick | WHEEL_MASK);
+            int startSlot = (int) currentTick & WHEEL_MASK;
+            int endSlot = (int) end & WHEEL_MASK;
+            long bits = occupied[0] & (-1L << startSlot) & (-1L >>> (WHEEL_MASK - endSlot));
+            while (bits != 0) {
+                int slot = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                ScheduledFutureTask<?> task = takeBucket(0, slot);
+                while (task != null) {
+                    ScheduledFutureTask<?> next = task.nextInBucket;
+                    task.nextInBucket = null;
+                    wheelSize --;
+                    // Cancelled tasks are completed already, so just drop them.
+                    if (!task.isCancelled()) {
+                        queue.add(task);
+                    }
+                    task = next;
+                }
+            }
+
+            currentTick = end + 1;
+            if ((currentTick & WHEEL_MASK) == 0) {
+                cascade(1);
+            }
+        }
+    }
+
+    /**
+     * Redistributes the bucket of the given level which starts at the current tick to the levels below.
+     */
+    private void cascade(int level) {
+        if (level == LEVELS) {
+            return;
+        }
+
+        int shift = level * WHEEL_BITS;
+        int slot = (int) (currentTick >>> shift) & WHEEL_MASK;
+        if (slot == 0) {
+            // The level above starts a new bucket as well, which may have tasks for this bucket.
+            cascade(level + 1);
+        }
+
+        ScheduledFutureTask<?> task = takeBucket(level, slot);
+        while (task != null) {
+            ScheduledFutureTask<?> next = task.nextInBucket;
+            task.nextInBucket = null;
+            wheelSize --;
+            if (!task.isCancelled()) {
+                add(task);
+            }
+            task = next;
+        }
+    }
+
+    private ScheduledFutureTask<?> takeBucket(int level, int slot) {
+        ScheduledFutureTask<?> head = buckets[level][slot];
+        buckets[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+        return head;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -50,6 +51,11 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     static final ThreadLocal<SingleThreadEventExecutor> CURRENT_EVENT_LOOP =
             new ThreadLocal<SingleThreadEventExecutor>();
 
+    private static final boolean METRICS_ENABLED =
+            SystemPropertyUtil.getBoolean("io.netty.eventExecutor.metrics", false);
+    private static final boolean TIMING_WHEEL_ENABLED =
+            SystemPropertyUtil.getBoolean("io.netty.eventExecutor.timingWheel", false);
+
     private static final int ST_NOT_STARTED = 1;
     private static final int ST_STARTED = 2;
     private static final int ST_SHUTTING_DOWN = 3;
@@ -72,7 +78,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
     private final EventExecutorGroup parent;
     private final Queue<Runnable> taskQueue;
-    final Queue<ScheduledFutureTask<?>> delayedTaskQueue = new PriorityQueue<ScheduledFutureTask<?>>();
+    private final Queue<ScheduledFutureTask<?>> delayedTaskQueue;
+    private final ScheduledTaskWheel timingWheel;
 
     private final Thread thread;
     private final Object stateLock = new Object();
@@ -81,10 +88,12 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     private final boolean addTaskWakesUp;
 
     private long lastExecutionTime;
+    private long cachedNanoTime;
     private volatile int state = ST_NOT_STARTED;
     private volatile long gracefulShutdownQuietPeriod;
     private volatile long gracefulShutdownTimeout;
     private long gracefulShutdownStartTime;
+    volatile EventExecutorMetrics metrics;
 
     /**
      * Create a new instance
@@ -96,6 +105,24 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
      */
     protected SingleThreadEventExecutor(
             EventExecutorGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp) {
+        this(parent, threadFactory, addTaskWakesUp, TIMING_WHEEL_ENABLED);
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param parent            the {@link EventExecutorGroup} which is the parent of this instance and belongs to it
+     * @param threadFactory     the {@link ThreadFactory} which will be used for the used {@link Thread}
+     * @param addTaskWakesUp    {@code true} if and only if invocation of {@link #addTask(Runnable)} will wake up the
+     *                          executor thread
+     * @param useTimingWheel    {@code true} if scheduled tasks should be kept in a hierarchical timing wheel, which
+     *                          makes scheduling and cancelling them {@code O(1)}, instead of a priority queue.
+     *                          This pays off when many tasks are scheduled and cancelled again, like the timeouts
+     *                          of a lot of connections. The default is set by the
+     *                          {@code io.netty.eventExecutor.timingWheel} system property.
+     */
+    protected SingleThreadEventExecutor(
+            EventExecutorGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp, boolean useTimingWheel) {
 
         if (threadFactory == null) {
             throw new NullPointerException("threadFactory");
@@ -110,6 +137,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
                 CURRENT_EVENT_LOOP.set(SingleThreadEventExecutor.this);
                 boolean success = false;
                 updateLastExecutionTime();
+                updateCachedNanoTime();
                 try {
                     SingleThreadEventExecutor.this.run();
                     success = true;
@@ -155,6 +183,40 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         });
 
         taskQueue = newTaskQueue();
+        if (useTimingWheel) {
+            delayedTaskQueue = null;
+            timingWheel = new ScheduledTaskWheel(nanoTime());
+        } else {
+            delayedTaskQueue = new PriorityQueue<ScheduledFutureTask<?>>();
+            timingWheel = null;
+        }
+        if (METRICS_ENABLED) {
+            metrics = new EventExecutorMetrics(this);
+        }
+    }
+
+    /**
+     * Returns the {@link EventExecutorMetrics} of this executor, or {@code null} if they were not enabled via
+     * {@link #enableMetrics()} or the {@code io.netty.eventExecutor.metrics} system property.
+     */
+    public final EventExecutorMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Enable the collection of {@link EventExecutorMetrics} for this executor if not done yet and return them.
+     */
+    public final EventExecutorMetrics enableMetrics() {
+        EventExecutorMetrics metrics = this.metrics;
+        if (metrics == null) {
+            synchronized (stateLock) {
+                metrics = this.metrics;
+                if (metrics == null) {
+                    this.metrics = metrics = new EventExecutorMetrics(this);
+                }
+            }
+        }
+        return metrics;
     }
 
     /**
@@ -203,6 +265,13 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
      * @return {@code null} if the executor thread has been interrupted or waken up.
      */
     protected Runnable takeTask() {
+        Runnable task = takeTask0();
+        // The thread may have been blocked for a long time, so the cached time is stale at this point.
+        updateCachedNanoTime();
+        return task;
+    }
+
+    private Runnable takeTask0() {
         assert inEventLoop();
         if (!(taskQueue instanceof BlockingQueue)) {
             throw new UnsupportedOperationException();
@@ -210,8 +279,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
         BlockingQueue<Runnable> taskQueue = (BlockingQueue<Runnable>) this.taskQueue;
         for (;;) {
-            ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
-            if (delayedTask == null) {
+            long deadlineNanos = nextDelayedTaskDeadlineNanos();
+            if (deadlineNanos < 0) {
                 Runnable task = null;
                 try {
                     task = taskQueue.take();
@@ -223,7 +292,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
                 }
                 return task;
             } else {
-                long delayNanos = delayedTask.delayNanos();
+                long delayNanos = deadlineNanos - nanoTime();
                 Runnable task;
                 if (delayNanos > 0) {
                     try {
@@ -232,6 +301,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
                         return null;
                     }
                 } else {
+                    // Queue the due tasks first, as a task which keeps re-submitting itself would starve them.
+                    fetchFromDelayedQueue();
                     task = taskQueue.poll();
                 }
 
@@ -248,6 +319,21 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     }
 
     private void fetchFromDelayedQueue() {
+        if (timingWheel != null) {
+            if (timingWheel.isEmpty()) {
+                return;
+            }
+            final long nanoTime = nanoTime();
+            for (;;) {
+                ScheduledFutureTask<?> delayedTask = timingWheel.poll(nanoTime);
+                if (delayedTask == null) {
+                    break;
+                }
+                taskQueue.add(delayedTask);
+            }
+            return;
+        }
+
         long nanoTime = 0L;
         for (;;) {
             ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
@@ -324,6 +410,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
      * @return {@code true} if and only if at least one task was run
      */
     protected boolean runAllTasks() {
+        updateCachedNanoTime();
         fetchFromDelayedQueue();
         Runnable task = pollTask();
         if (task == null) {
@@ -332,7 +419,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
         for (;;) {
             try {
-                task.run();
+                runTask(task);
             } catch (Throwable t) {
                 logger.warn("A task raised an exception.", t);
             }
@@ -350,6 +437,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
      * the tasks in the task queue and returns if it ran longer than {@code timeoutNanos}.
      */
     protected boolean runAllTasks(long timeoutNanos) {
+        updateCachedNanoTime();
         fetchFromDelayedQueue();
         Runnable task = pollTask();
         if (task == null) {
@@ -361,7 +449,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         long lastExecutionTime;
         for (;;) {
             try {
-                task.run();
+                runTask(task);
             } catch (Throwable t) {
                 logger.warn("A task raised an exception.", t);
             }
@@ -388,16 +476,57 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         return true;
     }
 
+    /**
+     * Run the given task and record its execution time if {@link #metrics()} are enabled. Any exception thrown by
+     * the task is passed on to the caller.
+     */
+    protected final void runTask(Runnable task) {
+        final EventExecutorMetrics metrics = this.metrics;
+        if (metrics == null) {
+            task.run();
+            return;
+        }
+
+        final long startTime = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            metrics.recordTask(task, System.nanoTime() - startTime);
+        }
+    }
+
     /**
      * Returns the ammount of time left until the scheduled task with the closest dead line is executed.
      */
     protected long delayNanos(long currentTimeNanos) {
+        long deadlineNanos = nextDelayedTaskDeadlineNanos();
+        if (deadlineNanos < 0) {
+            return SCHEDULE_PURGE_INTERVAL;
+        }
+
+        return Math.max(0, deadlineNanos - (currentTimeNanos - START_TIME));
+    }
+
+    /**
+     * Returns the deadline of the scheduled task which is due next, or {@code -1} if there is none.
+     */
+    private long nextDelayedTaskDeadlineNanos() {
+        if (timingWheel != null) {
+            return timingWheel.nextDeadlineNanos();
+        }
         ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
         if (delayedTask == null) {
-            return SCHEDULE_PURGE_INTERVAL;
+            return -1;
         }
+        return delayedTask.deadlineNanos();
+    }
 
-        return delayedTask.delayNanos(currentTimeNanos);
+    private void addDelayedTask(ScheduledFutureTask<?> task) {
+        if (timingWheel != null) {
+            timingWheel.add(task);
+        } else {
+            delayedTaskQueue.add(task);
+        }
     }
 
     /**
@@ -411,6 +540,31 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         lastExecutionTime = nanoTime();
     }
 
+    /**
+     * Updates the cached time returned by {@link #cachedNanoTime()}. {@link #runAllTasks()},
+     * {@link #runAllTasks(long)} and {@link #takeTask()} update it automatically. An implementation which performs
+     * I/O before running its tasks should call this method once it returns from waiting for I/O, so the I/O
+     * handlers see an up-to-date time.
+     */
+    protected final void updateCachedNanoTime() {
+        cachedNanoTime = System.nanoTime();
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} as of the start of the current event loop iteration. Reading
+     * it is much cheaper than calling {@link System#nanoTime()}, so it is meant for timestamps which are taken very
+     * often but only need to be coarse, like the time of the last read of a connection.
+     * <p>
+     * If the caller is not the thread of this executor, the cached time may be arbitrarily old, so
+     * {@link System#nanoTime()} is returned instead.
+     */
+    public final long cachedNanoTime() {
+        if (!inEventLoop()) {
+            return System.nanoTime();
+        }
+        return cachedNanoTime;
+    }
+
     /**
      *
      */
@@ -660,6 +814,13 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     }
 
     private void cancelDelayedTasks() {
+        if (timingWheel != null) {
+            for (ScheduledFutureTask<?> task: timingWheel.clear()) {
+                task.cancel(false);
+            }
+            return;
+        }
+
         if (delayedTaskQueue.isEmpty()) {
             return;
         }
@@ -810,12 +971,12 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         }
 
         if (inEventLoop()) {
-            delayedTaskQueue.add(task);
+            addDelayedTask(task);
         } else {
             execute(new Runnable() {
                 @Override
                 public void run() {
-                    delayedTaskQueue.add(task);
+                    addDelayedTask(task);
                 }
             });
         }
@@ -827,7 +988,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         synchronized (stateLock) {
             if (state == ST_NOT_STARTED) {
                 state = ST_STARTED;
-                delayedTaskQueue.add(new ScheduledFutureTask<Void>(
+                addDelayedTask(new ScheduledFutureTask<Void>(
                         this, Executors.<Void>callable(new PurgeTask(), null),
                         deadlineNanos(SCHEDULE_PURGE_INTERVAL), -SCHEDULE_PURGE_INTERVAL));
                 thread.start();
@@ -835,7 +996,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         }
     }
 
-    private static final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFuture<V> {
+    static final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFuture<V> {
 
         @SuppressWarnings("rawtypes")
         private static final AtomicIntegerFieldUpdater<ScheduledFutureTask> uncancellableUpdater =
@@ -847,6 +1008,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         private final long periodNanos;
         @SuppressWarnings("UnusedDeclaration")
         private volatile int uncancellable;
+        // Next task in the same bucket of the ScheduledTaskWheel.
+        ScheduledFutureTask<?> nextInBucket;
 
         ScheduledFutureTask(SingleThreadEventExecutor executor, Runnable runnable, V result, long nanoTime) {
             this(executor, Executors.callable(runnable, result), nanoTime);
@@ -880,10 +1043,6 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
             return Math.max(0, deadlineNanos() - nanoTime());
         }
 
-        public long delayNanos(long currentTimeNanos) {
-            return Math.max(0, deadlineNanos() - (currentTimeNanos - START_TIME));
-        }
-
         @Override
         public long getDelay(TimeUnit unit) {
             return unit.convert(delayNanos(), TimeUnit.NANOSECONDS);
@@ -923,6 +1082,10 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         @Override
         public void run() {
             assert executor().inEventLoop();
+            EventExecutorMetrics metrics = executor().metrics;
+            if (metrics != null) {
+                metrics.recordScheduledTaskLateness(nanoTime() - deadlineNanos);
+            }
             try {
                 if (periodNanos == 0) {
                     if (setUncancellable()) {
@@ -941,7 +1104,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
                                 deadlineNanos = nanoTime() - p;
                             }
                             if (!isDone()) {
-                                executor().delayedTaskQueue.add(this);
+                                executor().addDelayedTask(this);
                             }
                         }
                     }
@@ -977,6 +1140,11 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     private final class PurgeTask implements Runnable {
         @Override
         public void run() {
+            if (timingWheel != null) {
+                timingWheel.purge();
+                return;
+            }
+
             Iterator<ScheduledFutureTask<?>> i = delayedTaskQueue.iterator();
             while (i.hasNext()) {
                 ScheduledFutureTask<?> task = i.next();
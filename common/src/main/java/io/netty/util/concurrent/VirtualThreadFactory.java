@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A {@link ThreadFactory} which creates virtual threads. Virtual threads are only available on Java 21 and
+ * later, so use {@link #isSupported()} to check if this factory can be used, or
+ * {@link #newInstanceOrElse(String, ThreadFactory)} to fall back to another factory otherwise.
+ * <p>
+ * A virtual thread which blocks on a socket only parks itself instead of occupying an operating system thread,
+ * so it is cheap to dedicate one to every connection of a blocking transport.
+ */
+public final class VirtualThreadFactory implements ThreadFactory {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(VirtualThreadFactory.class);
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            name = builderType.getMethod("name", String.class, long.class);
+            factory = builderType.getMethod("factory");
+            // Make sure it actually works, as it may be a preview feature which was not enabled.
+            factory.invoke(name.invoke(ofVirtual.invoke(null), "probe-", 0L));
+        } catch (Throwable t) {
+            ofVirtual = null;
+            logger.debug("Virtual threads: unavailable", t);
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        logger.debug("Virtual threads: {}", OF_VIRTUAL != null ? "available" : "unavailable");
+    }
+
+    /**
+     * Returns {@code true} if the current runtime supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns a new {@link VirtualThreadFactory} if the current runtime supports virtual threads, or the given
+     * {@code fallback} otherwise.
+     */
+    public static ThreadFactory newInstanceOrElse(String poolName, ThreadFactory fallback) {
+        if (fallback == null) {
+            throw new NullPointerException("fallback");
+        }
+        if (!isSupported()) {
+            return fallback;
+        }
+        return new VirtualThreadFactory(poolName);
+    }
+
+    private final ThreadFactory factory;
+
+    /**
+     * Creates a new instance whose threads are named {@code <poolName>-<n>}.
+     *
+     * @throws UnsupportedOperationException if the current runtime does not support virtual threads
+     */
+    public VirtualThreadFactory(String poolName) {
+        if (poolName == null) {
+            throw new NullPointerException("poolName");
+        }
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("virtual threads are not supported by the current runtime");
+        }
+
+        try {
+            factory = (ThreadFactory) FACTORY.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), poolName + '-', 0L));
+        } catch (Exception e) {
+            throw new IllegalStateException("failed to create a virtual thread factory", e);
+        }
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        return factory.newThread(r);
+    }
+}
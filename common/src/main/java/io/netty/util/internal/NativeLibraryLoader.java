@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Locale;
+
+/**
+ * Helper class to load JNI resources.
+ * <p>
+ * The library is looked up as {@code META-INF/native/lib<name>.so} (or the platform specific equivalent) in the
+ * given {@link ClassLoader} first.  If it is found there it is extracted into the directory specified by the
+ * system property <strong>io.netty.native.workdir</strong> (default: {@code java.io.tmpdir}) and loaded from there.
+ * Otherwise {@link System#loadLibrary(String)} is used so that the library can also be installed in the
+ * {@code java.library.path}.
+ */
+public final class NativeLibraryLoader {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(NativeLibraryLoader.class);
+
+    private static final String NATIVE_RESOURCE_HOME = "META-INF/native/";
+    private static final String OSNAME;
+    private static final File WORKDIR;
+
+    static {
+        OSNAME = SystemPropertyUtil.get("os.name", "").toLowerCase(Locale.UK).replaceAll("[^a-z0-9]+", "");
+
+        String workdir = SystemPropertyUtil.get("io.netty.native.workdir");
+        if (workdir != null) {
+            File f = new File(workdir);
+            if (!f.exists()) {
+                // ok to ignore as createTempFile will take care
+                //noinspection ResultOfMethodCallIgnored
+                f.mkdirs();
+            }
+
+            try {
+                f = f.getAbsoluteFile();
+            } catch (Exception ignored) {
+                // Good to have an absolute path, but it's OK.
+            }
+
+            WORKDIR = f;
+            logger.debug("-Dio.netty.native.workdir: {}", WORKDIR);
+        } else {
+            WORKDIR = new File(SystemPropertyUtil.get("java.io.tmpdir", "."));
+            logger.debug("-Dio.netty.native.workdir: {} (java.io.tmpdir)", WORKDIR);
+        }
+    }
+
+    /**
+     * Load the given library with the specified {@link ClassLoader}.
+     *
+     * @throws UnsatisfiedLinkError if the library could neither be extracted from the {@link ClassLoader} nor
+     *                              found in the {@code java.library.path}
+     */
+    public static void load(String name, ClassLoader loader) {
+        String libname = System.mapLibraryName(name);
+        String path = NATIVE_RESOURCE_HOME + libname;
+
+        URL url = loader == null ? ClassLoader.getSystemResource(path) : loader.getResource(path);
+        if (url == null && isOSX()) {
+            // Fall back to the legacy extension used by older JDKs on OS X.
+            if (path.endsWith(".jnilib")) {
+                path = NATIVE_RESOURCE_HOME + "lib" + name + ".dynlib";
+            } else {
+                path = NATIVE_RESOURCE_HOME + "lib" + name + ".jnilib";
+            }
+            url = loader == null ? ClassLoader.getSystemResource(path) : loader.getResource(path);
+        }
+
+        if (url == null) {
+            // Fall back to normal loading of JNI stuff
+            System.loadLibrary(name);
+            return;
+        }
+
+        int index = libname.lastIndexOf('.');
+        String prefix = libname.substring(0, index);
+        String suffix = libname.substring(index, libname.length());
+        InputStream in = null;
+        OutputStream out = null;
+        File tmpFile = null;
+        boolean loaded = false;
+        try {
+            tmpFile = File.createTempFile(prefix, suffix, WORKDIR);
+            in = url.openStream();
+            out = new FileOutputStream(tmpFile);
+
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            out.flush();
+            out.close();
+            out = null;
+
+            System.load(tmpFile.getPath());
+            loaded = true;
+        } catch (Exception e) {
+            throw (UnsatisfiedLinkError) new UnsatisfiedLinkError(
+                    "could not load a native library: " + name).initCause(e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+            if (tmpFile != null) {
+                if (loaded) {
+                    tmpFile.deleteOnExit();
+                } else {
+                    if (!tmpFile.delete()) {
+                        tmpFile.deleteOnExit();
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isOSX() {
+        return OSNAME.startsWith("macosx") || OSNAME.startsWith("osx");
+    }
+
+    private NativeLibraryLoader() {
+        // Utility
+    }
+}
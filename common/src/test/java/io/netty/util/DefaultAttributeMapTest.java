@@ -20,6 +20,9 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class DefaultAttributeMapTest {
 
     private DefaultAttributeMap map;
@@ -67,4 +70,83 @@ public class DefaultAttributeMapTest {
         one.remove();
         assertNull(one.get());
     }
+
+    @Test
+    public void testManyKeys() {
+        @SuppressWarnings("unchecked")
+        AttributeKey<Integer>[] keys = new AttributeKey[100];
+        for (int i = 0; i < keys.length; i ++) {
+            keys[i] = new AttributeKey<Integer>("ManyKeys" + i);
+            map.attr(keys[i]).set(i);
+        }
+        for (int i = 0; i < keys.length; i ++) {
+            assertSame(keys[i], map.attr(keys[i]).key());
+            assertEquals(Integer.valueOf(i), map.attr(keys[i]).get());
+        }
+    }
+
+    @Test
+    public void testRemoveAndRecreate() {
+        AttributeKey<String> key = new AttributeKey<String>("Removed");
+        AttributeKey<String> other = new AttributeKey<String>("Kept");
+        map.attr(other).set("kept");
+
+        // The removed attributes must neither be returned again nor fill up the table.
+        for (int i = 0; i < 1000; i ++) {
+            Attribute<String> attr = map.attr(key);
+            assertNull(attr.get());
+            attr.set("value");
+            assertSame(attr, map.attr(key));
+            assertEquals("value", attr.getAndRemove());
+            assertNotSame(attr, map.attr(key));
+            map.attr(key).remove();
+        }
+        assertEquals("kept", map.attr(other).get());
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentAttr() throws Exception {
+        @SuppressWarnings("unchecked")
+        final AttributeKey<Integer>[] keys = new AttributeKey[64];
+        for (int i = 0; i < keys.length; i ++) {
+            keys[i] = new AttributeKey<Integer>("Concurrent" + i);
+        }
+
+        final int threadCount = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final Attribute<?>[][] attrs = new Attribute<?>[threadCount][keys.length];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t ++) {
+            final int id = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < keys.length; i ++) {
+                            // Every thread starts at a different key, so they add and resize concurrently.
+                            int index = (i + id * 16) % keys.length;
+                            attrs[id][index] = map.attr(keys[index]);
+                        }
+                    } catch (Throwable cause) {
+                        error.compareAndSet(null, cause);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        assertNull(error.get());
+        for (int i = 0; i < keys.length; i ++) {
+            for (int t = 1; t < threadCount; t ++) {
+                assertSame(attrs[0][i], attrs[t][i]);
+            }
+            assertSame(attrs[0][i], map.attr(keys[i]));
+        }
+    }
 }
@@ -17,6 +17,8 @@ package io.netty.util;
 
 import org.junit.Test;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -102,4 +104,54 @@ public class HashedWheelTimerTest {
             }
         }, 1, TimeUnit.SECONDS);
     }
+
+    @Test(timeout = 5000)
+    public void testCancelledTimeoutsAreRemoved() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        final TimerTask task = new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                fail("This should not run");
+            }
+        };
+        for (int i = 0; i < 100; i ++) {
+            Timeout timeout = timer.newTimeout(task, 10, TimeUnit.SECONDS);
+            assertTrue(timeout.cancel());
+            assertTrue(timeout.isCancelled());
+            assertFalse(timeout.cancel());
+        }
+
+        // The worker removes the cancelled timeouts on its next tick.
+        while (timer.pendingTimeouts() != 0) {
+            Thread.sleep(10);
+        }
+        assertTrue(timer.stop().isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void testMaxPendingTimeouts() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer(
+                Executors.defaultThreadFactory(), 10, TimeUnit.MILLISECONDS, 8, 2);
+        final CountDownLatch latch = new CountDownLatch(2);
+        final TimerTask task = new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                latch.countDown();
+            }
+        };
+        timer.newTimeout(task, 100, TimeUnit.MILLISECONDS);
+        timer.newTimeout(task, 100, TimeUnit.MILLISECONDS);
+        try {
+            timer.newTimeout(task, 100, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+        assertEquals(2, timer.pendingTimeouts());
+
+        latch.await();
+        assertEquals(0, timer.pendingTimeouts());
+        timer.newTimeout(task, 1, TimeUnit.SECONDS);
+        assertEquals(1, timer.stop().size());
+    }
 }
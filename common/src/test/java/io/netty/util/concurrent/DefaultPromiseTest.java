@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DefaultPromiseTest {
+
+    private static EventExecutorGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        group = new DefaultEventExecutorGroup(1);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeout = 5000)
+    public void testListenersNotifiedInOrder() throws Exception {
+        final Promise<Void> promise = new DefaultPromise<Void>(group.next());
+        final List<Integer> notified = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(5);
+        List<GenericFutureListener<Future<Void>>> listeners = new ArrayList<GenericFutureListener<Future<Void>>>();
+        for (int i = 0; i < 5; i ++) {
+            final int id = i;
+            GenericFutureListener<Future<Void>> l = new GenericFutureListener<Future<Void>>() {
+                @Override
+                public void operationComplete(Future<Void> future) {
+                    notified.add(id);
+                    latch.countDown();
+                }
+            };
+            listeners.add(l);
+            promise.addListener(l);
+        }
+
+        // Remove one listener from the middle and add it again at the end.
+        promise.removeListener(listeners.get(2));
+        promise.addListener(listeners.get(2));
+
+        promise.setSuccess(null);
+        latch.await();
+        assertEquals(5, notified.size());
+        assertEquals(Integer.valueOf(0), notified.get(0));
+        assertEquals(Integer.valueOf(1), notified.get(1));
+        assertEquals(Integer.valueOf(3), notified.get(2));
+        assertEquals(Integer.valueOf(4), notified.get(3));
+        assertEquals(Integer.valueOf(2), notified.get(4));
+    }
+
+    @Test(timeout = 5000)
+    public void testListenerAddedAfterCompletion() throws Exception {
+        final Promise<String> promise = new DefaultPromise<String>(group.next());
+        promise.setSuccess("done");
+        final CountDownLatch latch = new CountDownLatch(1);
+        promise.addListener(new GenericFutureListener<Future<String>>() {
+            @Override
+            public void operationComplete(Future<String> future) {
+                assertEquals("done", future.getNow());
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentWaiters() throws Exception {
+        for (int round = 0; round < 100; round ++) {
+            final Promise<Void> promise = new DefaultPromise<Void>(group.next());
+            final CountDownLatch started = new CountDownLatch(4);
+            final CountDownLatch done = new CountDownLatch(4);
+            for (int i = 0; i < 4; i ++) {
+                final boolean timed = (i & 1) == 0;
+                new Thread() {
+                    @Override
+                    public void run() {
+                        started.countDown();
+                        if (timed) {
+                            assertTrue(promise.awaitUninterruptibly(10, TimeUnit.SECONDS));
+                        } else {
+                            promise.awaitUninterruptibly();
+                        }
+                        done.countDown();
+                    }
+                }.start();
+            }
+            started.await();
+            promise.setFailure(new Exception());
+            done.await();
+            assertFalse(promise.isSuccess());
+        }
+    }
+
+    @Test
+    public void testAwaitTimeout() throws Exception {
+        Promise<Void> promise = new DefaultPromise<Void>(group.next());
+        assertFalse(promise.await(10, TimeUnit.MILLISECONDS));
+        assertFalse(promise.awaitUninterruptibly(10));
+        assertTrue(promise.trySuccess(null));
+        assertFalse(promise.trySuccess(null));
+        assertTrue(promise.await(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void testAwaitInterrupted() throws Exception {
+        final Promise<Void> promise = new DefaultPromise<Void>(group.next());
+        final Thread waiter = Thread.currentThread();
+        Thread interrupter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+                waiter.interrupt();
+            }
+        };
+        interrupter.start();
+        try {
+            promise.await(10, TimeUnit.SECONDS);
+            fail();
+        } catch (InterruptedException e) {
+            // Expected
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+        interrupter.join();
+    }
+
+    @Test(timeout = 5000)
+    public void testAwaitUninterruptibly() throws Exception {
+        final Promise<Void> promise = new DefaultPromise<Void>(group.next());
+        final Thread waiter = Thread.currentThread();
+        Thread completer = new Thread() {
+            @Override
+            public void run() {
+                waiter.interrupt();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+                promise.setSuccess(null);
+            }
+        };
+        completer.start();
+        assertTrue(promise.awaitUninterruptibly(10, TimeUnit.SECONDS));
+        // The interruption is kept for the caller.
+        assertTrue(Thread.interrupted());
+        completer.join();
+    }
+}
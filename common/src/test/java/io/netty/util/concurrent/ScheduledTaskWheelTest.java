@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.concurrent.SingleThreadEventExecutor.ScheduledFutureTask;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScheduledTaskWheelTest {
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() { }
+    };
+
+    private final SingleThreadEventExecutor executor =
+            new DefaultEventExecutor(null, Executors.defaultThreadFactory());
+
+    private ScheduledFutureTask<?> newTask(long deadlineNanos) {
+        return new ScheduledFutureTask<Void>(executor, NOOP, null, deadlineNanos);
+    }
+
+    @Test
+    public void testOrderAndCancellation() {
+        final long start = TimeUnit.HOURS.toNanos(1);
+        ScheduledTaskWheel wheel = new ScheduledTaskWheel(start);
+        assertTrue(wheel.isEmpty());
+        assertEquals(-1, wheel.nextDeadlineNanos());
+
+        Random random = new Random(42);
+        List<ScheduledFutureTask<?>> tasks = new ArrayList<ScheduledFutureTask<?>>();
+        int expected = 0;
+        for (int i = 0; i < 10000; i ++) {
+            // Spread the deadlines over all levels of the wheel.
+            long delay = (long) (Math.pow(10, random.nextInt(13)) * random.nextDouble());
+            ScheduledFutureTask<?> task = newTask(start + delay);
+            wheel.add(task);
+            tasks.add(task);
+            if (random.nextInt(4) == 0) {
+                task.cancel(false);
+            } else {
+                expected ++;
+            }
+        }
+        assertFalse(wheel.isEmpty());
+
+        long now = start;
+        long lastDeadline = Long.MIN_VALUE;
+        int polled = 0;
+        while (!wheel.isEmpty()) {
+            long nextDeadline = wheel.nextDeadlineNanos();
+            assertTrue(nextDeadline >= 0);
+            now = Math.max(now, nextDeadline);
+
+            ScheduledFutureTask<?> task;
+            while ((task = wheel.poll(now)) != null) {
+                assertFalse(task.isCancelled());
+                assertTrue(task.deadlineNanos() <= now);
+                assertTrue(task.deadlineNanos() >= lastDeadline);
+                // A task must never be handed out later than the deadline reported before.
+                assertTrue(task.deadlineNanos() >= nextDeadline);
+                lastDeadline = task.deadlineNanos();
+                polled ++;
+            }
+            now ++;
+        }
+        assertEquals(expected, polled);
+    }
+
+    @Test
+    public void testNotBeforeDeadline() {
+        ScheduledTaskWheel wheel = new ScheduledTaskWheel(0);
+        ScheduledFutureTask<?> task = newTask(1500000);
+        wheel.add(task);
+
+        assertTrue(wheel.nextDeadlineNanos() <= 1500000);
+        assertNull(wheel.poll(1499999));
+        assertSame(task, wheel.poll(1500000));
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testPurgeAndClear() {
+        ScheduledTaskWheel wheel = new ScheduledTaskWheel(0);
+        ScheduledFutureTask<?> a = newTask(TimeUnit.SECONDS.toNanos(1));
+        ScheduledFutureTask<?> b = newTask(TimeUnit.SECONDS.toNanos(1));
+        ScheduledFutureTask<?> c = newTask(TimeUnit.DAYS.toNanos(3650));
+        wheel.add(a);
+        wheel.add(b);
+        wheel.add(c);
+
+        a.cancel(false);
+        c.cancel(false);
+        wheel.purge();
+
+        List<ScheduledFutureTask<?>> remaining = wheel.clear();
+        assertEquals(1, remaining.size());
+        assertSame(b, remaining.get(0));
+        assertTrue(wheel.isEmpty());
+    }
+}
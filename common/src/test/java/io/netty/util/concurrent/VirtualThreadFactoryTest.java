@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+public class VirtualThreadFactoryTest {
+
+    @Test
+    public void testUnsupported() {
+        assumeTrue(!VirtualThreadFactory.isSupported());
+
+        ThreadFactory fallback = Executors.defaultThreadFactory();
+        assertSame(fallback, VirtualThreadFactory.newInstanceOrElse("test", fallback));
+        try {
+            new VirtualThreadFactory("test");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testSupported() throws Exception {
+        assumeTrue(VirtualThreadFactory.isSupported());
+
+        ThreadFactory factory = VirtualThreadFactory.newInstanceOrElse("test", Executors.defaultThreadFactory());
+        assertTrue(factory instanceof VirtualThreadFactory);
+
+        final AtomicReference<Thread> current = new AtomicReference<Thread>();
+        Thread t = factory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                current.set(Thread.currentThread());
+            }
+        });
+        assertEquals("test-0", t.getName());
+        // Virtual threads are always daemon threads.
+        assertTrue(t.isDaemon());
+        t.start();
+        t.join();
+        assertSame(t, current.get());
+        assertEquals("test-1", factory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).getName());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFallback() {
+        VirtualThreadFactory.newInstanceOrElse("test", null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullPoolName() {
+        new VirtualThreadFactory(null);
+    }
+}
@@ -0,0 +1,649 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#include <jni.h>
+#include <stdlib.h>
+#include <string.h>
+#include <pthread.h>
+#include <openssl/ssl.h>
+#include <openssl/err.h>
+#include <openssl/evp.h>
+#include <openssl/rand.h>
+#include <openssl/x509.h>
+#if OPENSSL_VERSION_NUMBER >= 0x30000000L
+#include <openssl/core_names.h>
+#else
+#include <openssl/hmac.h>
+#endif
+#include "io_netty_handler_ssl_openssl_Native.h"
+
+// The size of the buffer the SSL writes the encrypted data to. It holds two records of the maximum size, so
+// SSL_write() never fails because the buffer is full, as the buffer is always drained before writing.
+#define SSL_TO_NETWORK_BUFFER_SIZE (2 * (16384 + 2048 + 5))
+// The size of the buffer the received encrypted data is written to. SSL_read() drains it after every write.
+#define NETWORK_TO_SSL_BUFFER_SIZE (16384 + 2048 + 5)
+
+static const unsigned char sessionIdContext[] = "netty";
+
+static jclass stringClass = NULL;
+
+// The session ticket keys of an SSL_CTX. The first key encrypts new tickets, all keys decrypt.
+typedef struct {
+    pthread_rwlock_t lock;
+    unsigned char *keys;
+    int count;
+    // Updated atomically, as the handshakes of different threads use the same SSL_CTX.
+    long fail;
+    long created;
+    long renewed;
+    long resumed;
+} TicketKeys;
+
+static int ticketKeysIndex = -1;
+
+static void freeTicketKeys(void *parent, void *ptr, CRYPTO_EX_DATA *ad, int idx, long argl, void *argp) {
+    TicketKeys *ticketKeys = ptr;
+    if (ticketKeys != NULL) {
+        pthread_rwlock_destroy(&ticketKeys->lock);
+        free(ticketKeys->keys);
+        free(ticketKeys);
+    }
+}
+
+static jclass findGlobalClass(JNIEnv *env, const char *name) {
+    jclass localClass = (*env)->FindClass(env, name);
+    if (localClass == NULL) {
+        return NULL;
+    }
+    jclass globalClass = (*env)->NewGlobalRef(env, localClass);
+    (*env)->DeleteLocalRef(env, localClass);
+    return globalClass;
+}
+
+jint JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    stringClass = findGlobalClass(env, "java/lang/String");
+    if (stringClass == NULL) {
+        return JNI_ERR;
+    }
+
+#if OPENSSL_VERSION_NUMBER < 0x10100000L
+    SSL_library_init();
+    SSL_load_error_strings();
+#else
+    OPENSSL_init_ssl(OPENSSL_INIT_LOAD_SSL_STRINGS | OPENSSL_INIT_LOAD_CRYPTO_STRINGS, NULL);
+#endif
+
+    ticketKeysIndex = SSL_CTX_get_ex_new_index(0, NULL, NULL, NULL, freeTicketKeys);
+    if (ticketKeysIndex < 0) {
+        return JNI_ERR;
+    }
+    return JNI_VERSION_1_6;
+}
+
+void JNI_OnUnload(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return;
+    }
+    if (stringClass != NULL) {
+        (*env)->DeleteGlobalRef(env, stringClass);
+        stringClass = NULL;
+    }
+}
+
+static SSL *toSsl(jlong ssl) {
+    return (SSL *) (intptr_t) ssl;
+}
+
+static SSL_CTX *toSslContext(jlong ctx) {
+    return (SSL_CTX *) (intptr_t) ctx;
+}
+
+static BIO *networkBio(SSL *ssl) {
+    return (BIO *) SSL_get_app_data(ssl);
+}
+
+// Returns the number of bytes on success, or the negated result of SSL_get_error() otherwise.
+static jint sslResult(SSL *ssl, int result) {
+    if (result > 0) {
+        return result;
+    }
+    return -SSL_get_error(ssl, result);
+}
+
+static jbyteArray toByteArray(JNIEnv *env, const unsigned char *data, int len) {
+    jbyteArray array = (*env)->NewByteArray(env, len);
+    if (array != NULL) {
+        (*env)->SetByteArrayRegion(env, array, 0, len, (const jbyte *) data);
+    }
+    return array;
+}
+
+JNIEXPORT jstring JNICALL Java_io_netty_handler_ssl_openssl_Native_versionString(JNIEnv * env, jclass clazz) {
+#if OPENSSL_VERSION_NUMBER < 0x10100000L
+    return (*env)->NewStringUTF(env, SSLeay_version(SSLEAY_VERSION));
+#else
+    return (*env)->NewStringUTF(env, OpenSSL_version(OPENSSL_VERSION));
+#endif
+}
+
+JNIEXPORT jstring JNICALL Java_io_netty_handler_ssl_openssl_Native_lastErrorString(JNIEnv * env, jclass clazz) {
+    unsigned long err = ERR_get_error();
+    ERR_clear_error();
+    if (err == 0) {
+        return NULL;
+    }
+    char buf[256];
+    ERR_error_string_n(err, buf, sizeof(buf));
+    return (*env)->NewStringUTF(env, buf);
+}
+
+JNIEXPORT jlong JNICALL Java_io_netty_handler_ssl_openssl_Native_newSslContext(
+        JNIEnv * env, jclass clazz, jboolean server) {
+    ERR_clear_error();
+#if OPENSSL_VERSION_NUMBER < 0x10100000L
+    SSL_CTX *ctx = SSL_CTX_new(server ? SSLv23_server_method() : SSLv23_client_method());
+#else
+    SSL_CTX *ctx = SSL_CTX_new(server ? TLS_server_method() : TLS_client_method());
+#endif
+    if (ctx == NULL) {
+        return 0;
+    }
+
+    SSL_CTX_set_options(ctx, SSL_OP_NO_SSLv2 | SSL_OP_NO_SSLv3 | SSL_OP_NO_COMPRESSION);
+    // The buffers passed to SSL_write() move between calls, and only part of them may be written at once.
+    // SSL_MODE_RELEASE_BUFFERS frees the internal buffers of idle connections.
+    SSL_CTX_set_mode(ctx, SSL_MODE_ENABLE_PARTIAL_WRITE | SSL_MODE_ACCEPT_MOVING_WRITE_BUFFER
+            | SSL_MODE_RELEASE_BUFFERS);
+    if (server) {
+        SSL_CTX_set_session_id_context(ctx, sessionIdContext, sizeof(sessionIdContext) - 1);
+    }
+    return (jlong) (intptr_t) ctx;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_freeSslContext(JNIEnv * env, jclass clazz, jlong ctx) {
+    SSL_CTX_free(toSslContext(ctx));
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_setCertificateChainFile(
+        JNIEnv * env, jclass clazz, jlong ctx, jstring file) {
+    const char *path = (*env)->GetStringUTFChars(env, file, NULL);
+    if (path == NULL) {
+        return JNI_FALSE;
+    }
+    ERR_clear_error();
+    int result = SSL_CTX_use_certificate_chain_file(toSslContext(ctx), path);
+    (*env)->ReleaseStringUTFChars(env, file, path);
+    return result == 1 ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_setPrivateKeyFile(
+        JNIEnv * env, jclass clazz, jlong ctx, jstring file, jstring password) {
+    SSL_CTX *c = toSslContext(ctx);
+    const char *path = (*env)->GetStringUTFChars(env, file, NULL);
+    if (path == NULL) {
+        return JNI_FALSE;
+    }
+    const char *pass = NULL;
+    if (password != NULL) {
+        pass = (*env)->GetStringUTFChars(env, password, NULL);
+        if (pass == NULL) {
+            (*env)->ReleaseStringUTFChars(env, file, path);
+            return JNI_FALSE;
+        }
+        // The default password callback uses the user data as the password.
+        SSL_CTX_set_default_passwd_cb_userdata(c, (void *) pass);
+    }
+
+    ERR_clear_error();
+    int result = SSL_CTX_use_PrivateKey_file(c, path, SSL_FILETYPE_PEM);
+    if (result == 1) {
+        result = SSL_CTX_check_private_key(c);
+    }
+
+    if (pass != NULL) {
+        SSL_CTX_set_default_passwd_cb_userdata(c, NULL);
+        (*env)->ReleaseStringUTFChars(env, password, pass);
+    }
+    (*env)->ReleaseStringUTFChars(env, file, path);
+    return result == 1 ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_setTrustCertificateFile(
+        JNIEnv * env, jclass clazz, jlong ctx, jstring file) {
+    SSL_CTX *c = toSslContext(ctx);
+    int result;
+    ERR_clear_error();
+    if (file == NULL) {
+        result = SSL_CTX_set_default_verify_paths(c);
+    } else {
+        const char *path = (*env)->GetStringUTFChars(env, file, NULL);
+        if (path == NULL) {
+            return JNI_FALSE;
+        }
+        result = SSL_CTX_load_verify_locations(c, path, NULL);
+        (*env)->ReleaseStringUTFChars(env, file, path);
+    }
+    if (result != 1) {
+        return JNI_FALSE;
+    }
+    SSL_CTX_set_verify(c, SSL_VERIFY_PEER, NULL);
+    return JNI_TRUE;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_setCipherList(
+        JNIEnv * env, jclass clazz, jlong ctx, jstring ciphers) {
+    const char *list = (*env)->GetStringUTFChars(env, ciphers, NULL);
+    if (list == NULL) {
+        return JNI_FALSE;
+    }
+    ERR_clear_error();
+    int result = SSL_CTX_set_cipher_list(toSslContext(ctx), list);
+    (*env)->ReleaseStringUTFChars(env, ciphers, list);
+    return result == 1 ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_setSessionCacheEnabled(
+        JNIEnv * env, jclass clazz, jlong ctx, jboolean enabled) {
+    SSL_CTX_set_session_cache_mode(toSslContext(ctx), enabled ? SSL_SESS_CACHE_SERVER : SSL_SESS_CACHE_OFF);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_setSessionCacheSize(
+        JNIEnv * env, jclass clazz, jlong ctx, jlong size) {
+    SSL_CTX_sess_set_cache_size(toSslContext(ctx), (long) size);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_setSessionTimeout(
+        JNIEnv * env, jclass clazz, jlong ctx, jlong seconds) {
+    SSL_CTX_set_timeout(toSslContext(ctx), (long) seconds);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_setSessionTicketsEnabled(
+        JNIEnv * env, jclass clazz, jlong ctx, jboolean enabled) {
+    if (enabled) {
+        SSL_CTX_clear_options(toSslContext(ctx), SSL_OP_NO_TICKET);
+    } else {
+        SSL_CTX_set_options(toSslContext(ctx), SSL_OP_NO_TICKET);
+    }
+}
+
+#if OPENSSL_VERSION_NUMBER >= 0x30000000L
+typedef EVP_MAC_CTX TicketMacContext;
+
+static int initTicketMac(EVP_MAC_CTX *macCtx, unsigned char *key) {
+    OSSL_PARAM params[3];
+    params[0] = OSSL_PARAM_construct_octet_string(OSSL_MAC_PARAM_KEY, key, TICKET_KEY_HMAC_SIZE);
+    params[1] = OSSL_PARAM_construct_utf8_string(OSSL_MAC_PARAM_DIGEST, (char *) "SHA256", 0);
+    params[2] = OSSL_PARAM_construct_end();
+    return EVP_MAC_CTX_set_params(macCtx, params);
+}
+#else
+typedef HMAC_CTX TicketMacContext;
+
+static int initTicketMac(HMAC_CTX *macCtx, unsigned char *key) {
+    return HMAC_Init_ex(macCtx, key, TICKET_KEY_HMAC_SIZE, EVP_sha256(), NULL);
+}
+#endif
+
+// Called by OpenSSL to encrypt (enc == 1) or decrypt (enc == 0) a session ticket.
+static int ticketKeyCallback(SSL *ssl, unsigned char *keyName, unsigned char *iv,
+                             EVP_CIPHER_CTX *cipherCtx, TicketMacContext *macCtx, int enc) {
+    TicketKeys *ticketKeys = SSL_CTX_get_ex_data(SSL_get_SSL_CTX(ssl), ticketKeysIndex);
+    if (ticketKeys == NULL) {
+        return -1;
+    }
+
+    int result;
+    pthread_rwlock_rdlock(&ticketKeys->lock);
+    if (enc) {
+        unsigned char *key = ticketKeys->keys;
+        if (ticketKeys->count == 0) {
+            // Do not issue a ticket.
+            result = 0;
+        } else if (RAND_bytes(iv, EVP_CIPHER_iv_length(EVP_aes_128_cbc())) <= 0
+                || !EVP_EncryptInit_ex(cipherCtx, EVP_aes_128_cbc(), NULL,
+                                       key + TICKET_KEY_NAME_SIZE + TICKET_KEY_HMAC_SIZE, iv)
+                || !initTicketMac(macCtx, key + TICKET_KEY_NAME_SIZE)) {
+            result = -1;
+        } else {
+            memcpy(keyName, key, TICKET_KEY_NAME_SIZE);
+            __sync_fetch_and_add(&ticketKeys->created, 1);
+            result = 1;
+        }
+    } else {
+        int i;
+        unsigned char *key = NULL;
+        for (i = 0; i < ticketKeys->count; i ++) {
+            if (memcmp(keyName, ticketKeys->keys + i * TICKET_KEY_SIZE, TICKET_KEY_NAME_SIZE) == 0) {
+                key = ticketKeys->keys + i * TICKET_KEY_SIZE;
+                break;
+            }
+        }
+
+        if (key == NULL) {
+            // Unknown or retired key, so do a full handshake.
+            __sync_fetch_and_add(&ticketKeys->fail, 1);
+            result = 0;
+        } else if (!initTicketMac(macCtx, key + TICKET_KEY_NAME_SIZE)
+                || !EVP_DecryptInit_ex(cipherCtx, EVP_aes_128_cbc(), NULL,
+                                       key + TICKET_KEY_NAME_SIZE + TICKET_KEY_HMAC_SIZE, iv)) {
+            result = -1;
+        } else if (i == 0) {
+            __sync_fetch_and_add(&ticketKeys->resumed, 1);
+            result = 1;
+        } else {
+            // Resume, but issue a new ticket which is encrypted with the current key.
+            __sync_fetch_and_add(&ticketKeys->renewed, 1);
+            result = 2;
+        }
+    }
+    pthread_rwlock_unlock(&ticketKeys->lock);
+    return result;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_setSessionTicketKeys(
+        JNIEnv * env, jclass clazz, jlong ctx, jbyteArray keys) {
+    SSL_CTX *c = toSslContext(ctx);
+    jsize len = (*env)->GetArrayLength(env, keys);
+    unsigned char *newKeys = malloc(len);
+    if (newKeys == NULL) {
+        return JNI_FALSE;
+    }
+    (*env)->GetByteArrayRegion(env, keys, 0, len, (jbyte *) newKeys);
+
+    TicketKeys *ticketKeys = SSL_CTX_get_ex_data(c, ticketKeysIndex);
+    if (ticketKeys == NULL) {
+        ticketKeys = calloc(1, sizeof(TicketKeys));
+        if (ticketKeys == NULL) {
+            free(newKeys);
+            return JNI_FALSE;
+        }
+        pthread_rwlock_init(&ticketKeys->lock, NULL);
+        ticketKeys->keys = newKeys;
+        ticketKeys->count = len / TICKET_KEY_SIZE;
+        SSL_CTX_set_ex_data(c, ticketKeysIndex, ticketKeys);
+#if OPENSSL_VERSION_NUMBER >= 0x30000000L
+        SSL_CTX_set_tlsext_ticket_key_evp_cb(c, ticketKeyCallback);
+#else
+        SSL_CTX_set_tlsext_ticket_key_cb(c, ticketKeyCallback);
+#endif
+        return JNI_TRUE;
+    }
+
+    pthread_rwlock_wrlock(&ticketKeys->lock);
+    unsigned char *oldKeys = ticketKeys->keys;
+    ticketKeys->keys = newKeys;
+    ticketKeys->count = len / TICKET_KEY_SIZE;
+    pthread_rwlock_unlock(&ticketKeys->lock);
+    free(oldKeys);
+    return JNI_TRUE;
+}
+
+static jlong ticketStat(SSL_CTX *ctx, int stat) {
+    TicketKeys *ticketKeys = SSL_CTX_get_ex_data(ctx, ticketKeysIndex);
+    if (ticketKeys == NULL) {
+        return 0;
+    }
+    switch (stat) {
+    case SESSION_STAT_TICKET_KEY_FAIL:
+        return __sync_fetch_and_add(&ticketKeys->fail, 0);
+    case SESSION_STAT_TICKET_KEY_NEW:
+        return __sync_fetch_and_add(&ticketKeys->created, 0);
+    case SESSION_STAT_TICKET_KEY_RENEW:
+        return __sync_fetch_and_add(&ticketKeys->renewed, 0);
+    default:
+        return __sync_fetch_and_add(&ticketKeys->resumed, 0);
+    }
+}
+
+JNIEXPORT jlong JNICALL Java_io_netty_handler_ssl_openssl_Native_sessionStat(
+        JNIEnv * env, jclass clazz, jlong ctx, jint stat) {
+    SSL_CTX *c = toSslContext(ctx);
+    switch (stat) {
+    case SESSION_STAT_NUMBER:
+        return SSL_CTX_sess_number(c);
+    case SESSION_STAT_ACCEPT:
+        return SSL_CTX_sess_accept(c);
+    case SESSION_STAT_ACCEPT_GOOD:
+        return SSL_CTX_sess_accept_good(c);
+    case SESSION_STAT_HITS:
+        return SSL_CTX_sess_hits(c);
+    case SESSION_STAT_MISSES:
+        return SSL_CTX_sess_misses(c);
+    case SESSION_STAT_TIMEOUTS:
+        return SSL_CTX_sess_timeouts(c);
+    case SESSION_STAT_CACHE_FULL:
+        return SSL_CTX_sess_cache_full(c);
+    case SESSION_STAT_TICKET_KEY_FAIL:
+    case SESSION_STAT_TICKET_KEY_NEW:
+    case SESSION_STAT_TICKET_KEY_RENEW:
+    case SESSION_STAT_TICKET_KEY_RESUME:
+        return ticketStat(c, stat);
+    default:
+        return -1;
+    }
+}
+
+JNIEXPORT jlong JNICALL Java_io_netty_handler_ssl_openssl_Native_newSsl(
+        JNIEnv * env, jclass clazz, jlong ctx, jboolean server) {
+    ERR_clear_error();
+    SSL *ssl = SSL_new(toSslContext(ctx));
+    if (ssl == NULL) {
+        return 0;
+    }
+
+    // The SSL reads from and writes to the internal BIO, the engine feeds and drains the network BIO.
+    BIO *internal;
+    BIO *network;
+    if (BIO_new_bio_pair(&internal, SSL_TO_NETWORK_BUFFER_SIZE, &network, NETWORK_TO_SSL_BUFFER_SIZE) != 1) {
+        SSL_free(ssl);
+        return 0;
+    }
+    SSL_set_bio(ssl, internal, internal);
+    SSL_set_app_data(ssl, network);
+
+    if (server) {
+        SSL_set_accept_state(ssl);
+    } else {
+        SSL_set_connect_state(ssl);
+    }
+    return (jlong) (intptr_t) ssl;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_freeSsl(JNIEnv * env, jclass clazz, jlong ssl) {
+    SSL *s = toSsl(ssl);
+    BIO *network = networkBio(s);
+    // Frees the internal BIO as well.
+    SSL_free(s);
+    BIO_free(network);
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_setVerify(
+        JNIEnv * env, jclass clazz, jlong ssl, jint mode) {
+    switch (mode) {
+    case VERIFY_OPTIONAL:
+        SSL_set_verify(toSsl(ssl), SSL_VERIFY_PEER, NULL);
+        break;
+    case VERIFY_REQUIRE:
+        SSL_set_verify(toSsl(ssl), SSL_VERIFY_PEER | SSL_VERIFY_FAIL_IF_NO_PEER_CERT, NULL);
+        break;
+    default:
+        SSL_set_verify(toSsl(ssl), SSL_VERIFY_NONE, NULL);
+        break;
+    }
+}
+
+JNIEXPORT void JNICALL Java_io_netty_handler_ssl_openssl_Native_setProtocols(
+        JNIEnv * env, jclass clazz, jlong ssl, jint protocols) {
+    long options = 0;
+    if (!(protocols & PROTOCOL_TLS_V1)) {
+        options |= SSL_OP_NO_TLSv1;
+    }
+    if (!(protocols & PROTOCOL_TLS_V1_1)) {
+        options |= SSL_OP_NO_TLSv1_1;
+    }
+    if (!(protocols & PROTOCOL_TLS_V1_2)) {
+        options |= SSL_OP_NO_TLSv1_2;
+    }
+#ifdef SSL_OP_NO_TLSv1_3
+    if (!(protocols & PROTOCOL_TLS_V1_3)) {
+        options |= SSL_OP_NO_TLSv1_3;
+    }
+#endif
+    SSL_set_options(toSsl(ssl), options);
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_setSslCipherList(
+        JNIEnv * env, jclass clazz, jlong ssl, jstring ciphers) {
+    const char *list = (*env)->GetStringUTFChars(env, ciphers, NULL);
+    if (list == NULL) {
+        return JNI_FALSE;
+    }
+    ERR_clear_error();
+    int result = SSL_set_cipher_list(toSsl(ssl), list);
+    (*env)->ReleaseStringUTFChars(env, ciphers, list);
+    return result == 1 ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jobjectArray JNICALL Java_io_netty_handler_ssl_openssl_Native_ciphers(
+        JNIEnv * env, jclass clazz, jlong ssl) {
+    STACK_OF(SSL_CIPHER) *ciphers = SSL_get_ciphers(toSsl(ssl));
+    int count = ciphers == NULL ? 0 : sk_SSL_CIPHER_num(ciphers);
+    jobjectArray array = (*env)->NewObjectArray(env, count, stringClass, NULL);
+    if (array == NULL) {
+        return NULL;
+    }
+    int i;
+    for (i = 0; i < count; i ++) {
+        jstring name = (*env)->NewStringUTF(env, SSL_CIPHER_get_name(sk_SSL_CIPHER_value(ciphers, i)));
+        if (name == NULL) {
+            return NULL;
+        }
+        (*env)->SetObjectArrayElement(env, array, i, name);
+        (*env)->DeleteLocalRef(env, name);
+    }
+    return array;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_writeToBio(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, buf);
+    int written = BIO_write(networkBio(toSsl(ssl)), buffer + pos, len);
+    // The BIO is full.
+    return written > 0 ? written : 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_readFromBio(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len) {
+    char *buffer = (*env)->GetDirectBufferAddress(env, buf);
+    int read = BIO_read(networkBio(toSsl(ssl)), buffer + pos, len);
+    // Nothing to read.
+    return read > 0 ? read : 0;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_pendingInBio(JNIEnv * env, jclass clazz, jlong ssl) {
+    return (jint) BIO_ctrl_pending(networkBio(toSsl(ssl)));
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_writeToSsl(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len) {
+    SSL *s = toSsl(ssl);
+    char *buffer = (*env)->GetDirectBufferAddress(env, buf);
+    ERR_clear_error();
+    return sslResult(s, SSL_write(s, buffer + pos, len));
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_readFromSsl(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len) {
+    SSL *s = toSsl(ssl);
+    char *buffer = (*env)->GetDirectBufferAddress(env, buf);
+    ERR_clear_error();
+    return sslResult(s, SSL_read(s, buffer + pos, len));
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_doHandshake(JNIEnv * env, jclass clazz, jlong ssl) {
+    SSL *s = toSsl(ssl);
+    ERR_clear_error();
+    return sslResult(s, SSL_do_handshake(s));
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_shutdownSsl(JNIEnv * env, jclass clazz, jlong ssl) {
+    ERR_clear_error();
+    return SSL_shutdown(toSsl(ssl));
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_isInInit(JNIEnv * env, jclass clazz, jlong ssl) {
+    return SSL_in_init(toSsl(ssl)) ? JNI_TRUE : JNI_FALSE;
+}
+
+// Returns the number of received bytes which were not read via SSL_read() yet, decrypted or not.
+JNIEXPORT jint JNICALL Java_io_netty_handler_ssl_openssl_Native_pendingInSsl(JNIEnv * env, jclass clazz, jlong ssl) {
+    SSL *s = toSsl(ssl);
+    return SSL_pending(s) + (jint) BIO_ctrl_pending(SSL_get_rbio(s));
+}
+
+JNIEXPORT jstring JNICALL Java_io_netty_handler_ssl_openssl_Native_cipher(JNIEnv * env, jclass clazz, jlong ssl) {
+    const char *name = SSL_get_cipher(toSsl(ssl));
+    if (name == NULL) {
+        return NULL;
+    }
+    return (*env)->NewStringUTF(env, name);
+}
+
+JNIEXPORT jstring JNICALL Java_io_netty_handler_ssl_openssl_Native_protocol(JNIEnv * env, jclass clazz, jlong ssl) {
+    return (*env)->NewStringUTF(env, SSL_get_version(toSsl(ssl)));
+}
+
+JNIEXPORT jbyteArray JNICALL Java_io_netty_handler_ssl_openssl_Native_peerCertificate(
+        JNIEnv * env, jclass clazz, jlong ssl) {
+#if OPENSSL_VERSION_NUMBER < 0x30000000L
+    X509 *cert = SSL_get_peer_certificate(toSsl(ssl));
+#else
+    X509 *cert = SSL_get1_peer_certificate(toSsl(ssl));
+#endif
+    if (cert == NULL) {
+        return NULL;
+    }
+
+    unsigned char *der = NULL;
+    int len = i2d_X509(cert, &der);
+    X509_free(cert);
+    if (len <= 0) {
+        return NULL;
+    }
+    jbyteArray array = toByteArray(env, der, len);
+    OPENSSL_free(der);
+    return array;
+}
+
+JNIEXPORT jboolean JNICALL Java_io_netty_handler_ssl_openssl_Native_isSessionReused(
+        JNIEnv * env, jclass clazz, jlong ssl) {
+    return SSL_session_reused(toSsl(ssl)) ? JNI_TRUE : JNI_FALSE;
+}
+
+JNIEXPORT jbyteArray JNICALL Java_io_netty_handler_ssl_openssl_Native_sessionId(JNIEnv * env, jclass clazz, jlong ssl) {
+    SSL_SESSION *session = SSL_get_session(toSsl(ssl));
+    if (session == NULL) {
+        return NULL;
+    }
+    unsigned int len;
+    const unsigned char *id = SSL_SESSION_get_id(session, &len);
+    return toByteArray(env, id, len);
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#include <jni.h>
+
+#ifndef IO_NETTY_HANDLER_SSL_OPENSSL_NATIVE_H
+#define IO_NETTY_HANDLER_SSL_OPENSSL_NATIVE_H
+
+// These must be kept in sync with Native.java
+#define PROTOCOL_TLS_V1 0x01
+#define PROTOCOL_TLS_V1_1 0x02
+#define PROTOCOL_TLS_V1_2 0x04
+#define PROTOCOL_TLS_V1_3 0x08
+
+#define VERIFY_NONE 0
+#define VERIFY_OPTIONAL 1
+#define VERIFY_REQUIRE 2
+
+#define SESSION_STAT_NUMBER 0
+#define SESSION_STAT_ACCEPT 1
+#define SESSION_STAT_ACCEPT_GOOD 2
+#define SESSION_STAT_HITS 3
+#define SESSION_STAT_MISSES 4
+#define SESSION_STAT_TIMEOUTS 5
+#define SESSION_STAT_CACHE_FULL 6
+#define SESSION_STAT_TICKET_KEY_FAIL 7
+#define SESSION_STAT_TICKET_KEY_NEW 8
+#define SESSION_STAT_TICKET_KEY_RENEW 9
+#define SESSION_STAT_TICKET_KEY_RESUME 10
+
+// The layout of a session ticket key, as used by SSL_CTRL_SET_TLSEXT_TICKET_KEYS
+#define TICKET_KEY_NAME_SIZE 16
+#define TICKET_KEY_HMAC_SIZE 16
+#define TICKET_KEY_AES_SIZE 16
+#define TICKET_KEY_SIZE (TICKET_KEY_NAME_SIZE + TICKET_KEY_HMAC_SIZE + TICKET_KEY_AES_SIZE)
+
+jstring Java_io_netty_handler_ssl_openssl_Native_versionString(JNIEnv * env, jclass clazz);
+jstring Java_io_netty_handler_ssl_openssl_Native_lastErrorString(JNIEnv * env, jclass clazz);
+
+jlong Java_io_netty_handler_ssl_openssl_Native_newSslContext(JNIEnv * env, jclass clazz, jboolean server);
+void Java_io_netty_handler_ssl_openssl_Native_freeSslContext(JNIEnv * env, jclass clazz, jlong ctx);
+jboolean Java_io_netty_handler_ssl_openssl_Native_setCertificateChainFile(
+        JNIEnv * env, jclass clazz, jlong ctx, jstring file);
+jboolean Java_io_netty_handler_ssl_openssl_Native_setPrivateKeyFile(
+        JNIEnv * env, jclass clazz, jlong ctx, jstring file, jstring password);
+jboolean Java_io_netty_handler_ssl_openssl_Native_setTrustCertificateFile(
+        JNIEnv * env, jclass clazz, jlong ctx, jstring file);
+jboolean Java_io_netty_handler_ssl_openssl_Native_setCipherList(JNIEnv * env, jclass clazz, jlong ctx, jstring ciphers);
+void Java_io_netty_handler_ssl_openssl_Native_setSessionCacheEnabled(
+        JNIEnv * env, jclass clazz, jlong ctx, jboolean enabled);
+void Java_io_netty_handler_ssl_openssl_Native_setSessionCacheSize(JNIEnv * env, jclass clazz, jlong ctx, jlong size);
+void Java_io_netty_handler_ssl_openssl_Native_setSessionTimeout(JNIEnv * env, jclass clazz, jlong ctx, jlong seconds);
+void Java_io_netty_handler_ssl_openssl_Native_setSessionTicketsEnabled(
+        JNIEnv * env, jclass clazz, jlong ctx, jboolean enabled);
+jboolean Java_io_netty_handler_ssl_openssl_Native_setSessionTicketKeys(
+        JNIEnv * env, jclass clazz, jlong ctx, jbyteArray keys);
+jlong Java_io_netty_handler_ssl_openssl_Native_sessionStat(JNIEnv * env, jclass clazz, jlong ctx, jint stat);
+
+jlong Java_io_netty_handler_ssl_openssl_Native_newSsl(JNIEnv * env, jclass clazz, jlong ctx, jboolean server);
+void Java_io_netty_handler_ssl_openssl_Native_freeSsl(JNIEnv * env, jclass clazz, jlong ssl);
+void Java_io_netty_handler_ssl_openssl_Native_setVerify(JNIEnv * env, jclass clazz, jlong ssl, jint mode);
+void Java_io_netty_handler_ssl_openssl_Native_setProtocols(JNIEnv * env, jclass clazz, jlong ssl, jint protocols);
+jboolean Java_io_netty_handler_ssl_openssl_Native_setSslCipherList(
+        JNIEnv * env, jclass clazz, jlong ssl, jstring ciphers);
+jobjectArray Java_io_netty_handler_ssl_openssl_Native_ciphers(JNIEnv * env, jclass clazz, jlong ssl);
+
+jint Java_io_netty_handler_ssl_openssl_Native_writeToBio(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len);
+jint Java_io_netty_handler_ssl_openssl_Native_readFromBio(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len);
+jint Java_io_netty_handler_ssl_openssl_Native_pendingInBio(JNIEnv * env, jclass clazz, jlong ssl);
+jint Java_io_netty_handler_ssl_openssl_Native_writeToSsl(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len);
+jint Java_io_netty_handler_ssl_openssl_Native_readFromSsl(
+        JNIEnv * env, jclass clazz, jlong ssl, jobject buf, jint pos, jint len);
+jint Java_io_netty_handler_ssl_openssl_Native_doHandshake(JNIEnv * env, jclass clazz, jlong ssl);
+jint Java_io_netty_handler_ssl_openssl_Native_shutdownSsl(JNIEnv * env, jclass clazz, jlong ssl);
+jboolean Java_io_netty_handler_ssl_openssl_Native_isInInit(JNIEnv * env, jclass clazz, jlong ssl);
+jint Java_io_netty_handler_ssl_openssl_Native_pendingInSsl(JNIEnv * env, jclass clazz, jlong ssl);
+
+jstring Java_io_netty_handler_ssl_openssl_Native_cipher(JNIEnv * env, jclass clazz, jlong ssl);
+jstring Java_io_netty_handler_ssl_openssl_Native_protocol(JNIEnv * env, jclass clazz, jlong ssl);
+jbyteArray Java_io_netty_handler_ssl_openssl_Native_peerCertificate(JNIEnv * env, jclass clazz, jlong ssl);
+jbyteArray Java_io_netty_handler_ssl_openssl_Native_sessionId(JNIEnv * env, jclass clazz, jlong ssl);
+jboolean Java_io_netty_handler_ssl_openssl_Native_isSessionReused(JNIEnv * env, jclass clazz, jlong ssl);
+
+#endif
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+import io.netty.util.internal.NativeLibraryLoader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Native helper methods
+ *
+ * <strong>Internal usage only!</strong>
+ */
+final class Native {
+    static {
+        NativeLibraryLoader.load("netty-handler-native-openssl", Native.class.getClassLoader());
+    }
+
+    // Protocol masks. These must be kept in sync with io_netty_handler_ssl_openssl_Native.h
+    public static final int PROTOCOL_TLS_V1 = 0x01;
+    public static final int PROTOCOL_TLS_V1_1 = 0x02;
+    public static final int PROTOCOL_TLS_V1_2 = 0x04;
+    public static final int PROTOCOL_TLS_V1_3 = 0x08;
+
+    // Client certificate verification modes. These must be kept in sync with io_netty_handler_ssl_openssl_Native.h
+    public static final int VERIFY_NONE = 0;
+    public static final int VERIFY_OPTIONAL = 1;
+    public static final int VERIFY_REQUIRE = 2;
+
+    // Session statistics. These must be kept in sync with io_netty_handler_ssl_openssl_Native.h
+    public static final int SESSION_STAT_NUMBER = 0;
+    public static final int SESSION_STAT_ACCEPT = 1;
+    public static final int SESSION_STAT_ACCEPT_GOOD = 2;
+    public static final int SESSION_STAT_HITS = 3;
+    public static final int SESSION_STAT_MISSES = 4;
+    public static final int SESSION_STAT_TIMEOUTS = 5;
+    public static final int SESSION_STAT_CACHE_FULL = 6;
+    public static final int SESSION_STAT_TICKET_KEY_FAIL = 7;
+    public static final int SESSION_STAT_TICKET_KEY_NEW = 8;
+    public static final int SESSION_STAT_TICKET_KEY_RENEW = 9;
+    public static final int SESSION_STAT_TICKET_KEY_RESUME = 10;
+
+    // The results of SSL_get_error(), as defined by openssl/ssl.h
+    public static final int SSL_ERROR_SSL = 1;
+    public static final int SSL_ERROR_WANT_READ = 2;
+    public static final int SSL_ERROR_WANT_WRITE = 3;
+    public static final int SSL_ERROR_SYSCALL = 5;
+    public static final int SSL_ERROR_ZERO_RETURN = 6;
+
+    public static native String versionString();
+    public static native String lastErrorString();
+
+    // SSL_CTX operations. The methods returning a boolean return false on failure, see lastErrorString().
+    public static native long newSslContext(boolean server);
+    public static native void freeSslContext(long ctx);
+    public static native boolean setCertificateChainFile(long ctx, String file);
+    public static native boolean setPrivateKeyFile(long ctx, String file, String password);
+    public static native boolean setTrustCertificateFile(long ctx, String file);
+    public static native boolean setCipherList(long ctx, String ciphers);
+    public static native void setSessionCacheEnabled(long ctx, boolean enabled);
+    public static native void setSessionCacheSize(long ctx, long size);
+    public static native void setSessionTimeout(long ctx, long seconds);
+    public static native void setSessionTicketsEnabled(long ctx, boolean enabled);
+    // The keys are concatenated, the first one encrypts new tickets.
+    public static native boolean setSessionTicketKeys(long ctx, byte[] keys);
+    public static native long sessionStat(long ctx, int stat);
+
+    // SSL operations
+    public static native long newSsl(long ctx, boolean server);
+    public static native void freeSsl(long ssl);
+    public static native void setVerify(long ssl, int mode);
+    public static native void setProtocols(long ssl, int protocols);
+    public static native boolean setSslCipherList(long ssl, String ciphers);
+    public static native String[] ciphers(long ssl);
+
+    // Feed and drain the network side of the SSL. These return the number of bytes transferred, which is 0 if the
+    // network buffer is full or empty respectively.
+    public static native int writeToBio(long ssl, ByteBuffer buf, int pos, int len);
+    public static native int readFromBio(long ssl, ByteBuffer buf, int pos, int len);
+    public static native int pendingInBio(long ssl);
+
+    // These return the number of bytes (or 1 for doHandshake) on success, or the negated SSL_ERROR_* otherwise.
+    public static native int writeToSsl(long ssl, ByteBuffer buf, int pos, int len);
+    public static native int readFromSsl(long ssl, ByteBuffer buf, int pos, int len);
+    public static native int doHandshake(long ssl);
+    public static native int shutdownSsl(long ssl);
+    public static native boolean isInInit(long ssl);
+    public static native int pendingInSsl(long ssl);
+
+    // Session information
+    public static native String cipher(long ssl);
+    public static native String protocol(long ssl);
+    public static native byte[] peerCertificate(long ssl);
+    public static native byte[] sessionId(long ssl);
+    public static native boolean isSessionReused(long ssl);
+
+    private Native() {
+        // utility
+    }
+}
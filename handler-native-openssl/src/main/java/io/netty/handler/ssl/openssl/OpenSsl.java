@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+/**
+ * Tells if {@code netty-handler-native-openssl} is supported.
+ */
+public final class OpenSsl {
+
+    private static final Throwable UNAVAILABILITY_CAUSE;
+    private static final String VERSION;
+
+    static {
+        Throwable cause = null;
+        String version = null;
+        try {
+            version = Native.versionString();
+        } catch (Throwable t) {
+            cause = t;
+        }
+
+        UNAVAILABILITY_CAUSE = cause;
+        VERSION = version;
+    }
+
+    /**
+     * Returns {@code true} if and only if the
+     * {@code netty-handler-native-openssl} is available.
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    /**
+     * Ensure that {@code netty-handler-native-openssl} is
+     * available.
+     *
+     * @throws UnsatisfiedLinkError if unavailable
+     */
+    public static void ensureAvailability() {
+        if (UNAVAILABILITY_CAUSE != null) {
+            throw (Error) new UnsatisfiedLinkError(
+                    "failed to load the required native library").initCause(UNAVAILABILITY_CAUSE);
+        }
+    }
+
+    /**
+     * Returns the cause of unavailability of
+     * {@code netty-handler-native-openssl}.
+     *
+     * @return the cause if unavailable. {@code null} if available.
+     */
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    /**
+     * Returns the version of the OpenSSL library in use, such as {@code "OpenSSL 1.0.1e 11 Feb 2013"}.
+     *
+     * @return the version if available. {@code null} if unavailable.
+     */
+    public static String versionString() {
+        return VERSION;
+    }
+
+    private OpenSsl() { }
+}
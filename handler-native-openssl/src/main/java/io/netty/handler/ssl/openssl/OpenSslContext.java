@@ -0,0 +1,249 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+import io.netty.handler.ssl.SslHandler;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import java.io.File;
+
+/**
+ * The OpenSSL counterpart of an {@link javax.net.ssl.SSLContext}, which holds the certificates and settings shared
+ * by the {@link SSLEngine}s it creates. Pass an engine created by {@link #newEngine()} to a {@link SslHandler} to
+ * let OpenSSL encrypt and decrypt the traffic of a channel instead of the JDK:
+ * <pre>
+ * {@link OpenSslContext} context = {@link OpenSslContext}.newServerContext(certChainFile, keyFile);
+ * ...
+ * pipeline.addLast("ssl", new {@link SslHandler}(context.newEngine()));
+ * </pre>
+ * The certificates and keys are read from PEM files. Unlike the JDK, OpenSSL names cipher suites like
+ * {@code "ECDHE-RSA-AES128-GCM-SHA256"}. A client context verifies the certificate chain of the server, but not its
+ * host name.
+ * <p>
+ * A server-side context caches the sessions of its clients and issues session tickets, so a returning client can
+ * resume its session with an abbreviated handshake. Use an {@link OpenSslServerContextBuilder} to tune the session
+ * cache or to rotate the session ticket keys, and {@link #sessionStats()} to see how many handshakes resumed a session.
+ */
+public final class OpenSslContext {
+
+    private final boolean server;
+    private final OpenSslSessionStats sessionStats = new OpenSslSessionStats(this);
+    private long ctx;
+    private volatile OpenSslSessionTicketKeyManager sessionTicketKeyManager;
+
+    /**
+     * Creates a new server-side context which presents the given certificate chain.
+     *
+     * @param certChainFile the PEM file which contains the certificate of the server, optionally followed by the
+     *                      intermediate certificates
+     * @param keyFile the PEM file which contains the unencrypted private key of the certificate
+     */
+    public static OpenSslContext newServerContext(File certChainFile, File keyFile) throws SSLException {
+        return newServerContext(certChainFile, keyFile, null);
+    }
+
+    /**
+     * Creates a new server-side context which presents the given certificate chain.
+     *
+     * @param certChainFile the PEM file which contains the certificate of the server, optionally followed by the
+     *                      intermediate certificates
+     * @param keyFile the PEM file which contains the private key of the certificate
+     * @param keyPassword the password of the private key, or {@code null} if it is not encrypted
+     */
+    public static OpenSslContext newServerContext(
+            File certChainFile, File keyFile, String keyPassword) throws SSLException {
+        return new OpenSslServerContextBuilder(certChainFile, keyFile).keyPassword(keyPassword).build();
+    }
+
+    static OpenSslContext newServerContext(OpenSslServerContextBuilder builder) throws SSLException {
+        File certChainFile = builder.certChainFile();
+        File keyFile = builder.keyFile();
+        OpenSslContext context = new OpenSslContext(true);
+        boolean success = false;
+        try {
+            if (!Native.setCertificateChainFile(context.ctx, certChainFile.getPath())) {
+                throw newException("failed to load the certificate chain: " + certChainFile);
+            }
+            if (!Native.setPrivateKeyFile(context.ctx, keyFile.getPath(), builder.keyPassword())) {
+                throw newException("failed to load the private key: " + keyFile);
+            }
+            if (builder.ciphers() != null) {
+                context.setCiphers(builder.ciphers());
+            }
+
+            Native.setSessionCacheEnabled(context.ctx, builder.sessionCacheEnabled());
+            Native.setSessionCacheSize(context.ctx, builder.sessionCacheSize());
+            Native.setSessionTimeout(context.ctx, builder.sessionTimeoutSeconds());
+            Native.setSessionTicketsEnabled(context.ctx, builder.sessionTicketsEnabled());
+            OpenSslSessionTicketKeyManager keyManager = builder.sessionTicketKeyManager();
+            if (keyManager != null && builder.sessionTicketsEnabled()) {
+                keyManager.add(context);
+                context.sessionTicketKeyManager = keyManager;
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                context.destroy();
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Creates a new client-side context which trusts the certificate authorities of the system.
+     */
+    public static OpenSslContext newClientContext() throws SSLException {
+        return newClientContext(null);
+    }
+
+    /**
+     * Creates a new client-side context which trusts the certificates in the given PEM file.
+     *
+     * @param trustCertChainFile the PEM file which contains the trusted certificates, or {@code null} to trust the
+     *                           certificate authorities of the system
+     */
+    public static OpenSslContext newClientContext(File trustCertChainFile) throws SSLException {
+        OpenSslContext context = new OpenSslContext(false);
+        boolean success = false;
+        try {
+            String path = trustCertChainFile == null ? null : trustCertChainFile.getPath();
+            if (!Native.setTrustCertificateFile(context.ctx, path)) {
+                throw newException("failed to load the trusted certificates: " +
+                        (trustCertChainFile == null ? "system default" : trustCertChainFile));
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                context.destroy();
+            }
+        }
+        return context;
+    }
+
+    private OpenSslContext(boolean server) throws SSLException {
+        OpenSsl.ensureAvailability();
+
+        this.server = server;
+        ctx = Native.newSslContext(server);
+        if (ctx == 0) {
+            throw newException("failed to create an SSL context");
+        }
+    }
+
+    /**
+     * Returns {@code true} if the engines of this context act as the server side of a connection.
+     */
+    public boolean isServer() {
+        return server;
+    }
+
+    /**
+     * Sets the cipher suites which are enabled by default for the engines created afterwards, in the format of
+     * the OpenSSL {@code ciphers} command, such as {@code "HIGH:!aNULL:!MD5"}.
+     */
+    public synchronized void setCiphers(String ciphers) throws SSLException {
+        if (ciphers == null) {
+            throw new NullPointerException("ciphers");
+        }
+        if (!Native.setCipherList(checkNotDestroyed(), ciphers)) {
+            throw newException("failed to set the ciphers: " + ciphers);
+        }
+    }
+
+    /**
+     * Returns the session resumption statistics of this context, which are only maintained for a server-side
+     * context.
+     */
+    public OpenSslSessionStats sessionStats() {
+        return sessionStats;
+    }
+
+    /**
+     * Creates a new engine which has no hint about the remote peer.
+     */
+    public SSLEngine newEngine() throws SSLException {
+        return newEngine(null, -1);
+    }
+
+    /**
+     * Creates a new engine which uses the given remote peer as a hint.
+     */
+    public synchronized SSLEngine newEngine(String peerHost, int peerPort) throws SSLException {
+        return new OpenSslEngine(checkNotDestroyed(), server, peerHost, peerPort);
+    }
+
+    /**
+     * Releases the native resources of this context. The engines which were created already keep working until
+     * they are closed.
+     */
+    public void destroy() {
+        // Unregister outside of the lock, as the key manager calls setSessionTicketKeys() with its own lock held.
+        OpenSslSessionTicketKeyManager keyManager = sessionTicketKeyManager;
+        if (keyManager != null) {
+            sessionTicketKeyManager = null;
+            keyManager.remove(this);
+        }
+
+        synchronized (this) {
+            if (ctx != 0) {
+                Native.freeSslContext(ctx);
+                ctx = 0;
+            }
+        }
+    }
+
+    synchronized void setSessionTicketKeys(byte[] keys) {
+        if (ctx != 0 && !Native.setSessionTicketKeys(ctx, keys)) {
+            throw new IllegalStateException(errorMessage("failed to set the session ticket keys"));
+        }
+    }
+
+    synchronized long sessionStat(int stat) {
+        if (ctx == 0) {
+            return 0;
+        }
+        return Native.sessionStat(ctx, stat);
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        super.finalize();
+        destroy();
+    }
+
+    private long checkNotDestroyed() {
+        if (ctx == 0) {
+            throw new IllegalStateException("context destroyed already");
+        }
+        return ctx;
+    }
+
+    static SSLException newException(String message) {
+        return new SSLException(errorMessage(message));
+    }
+
+    /**
+     * Appends the last error reported by OpenSSL to the given message, if there was one.
+     */
+    static String errorMessage(String message) {
+        String error = Native.lastErrorString();
+        if (error != null) {
+            return message + " (" + error + ')';
+        }
+        return message;
+    }
+}
@@ -0,0 +1,803 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+import io.netty.util.internal.EmptyArrays;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionBindingEvent;
+import javax.net.ssl.SSLSessionBindingListener;
+import javax.net.ssl.SSLSessionContext;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link SSLEngine} which lets OpenSSL do the work. Create one with {@link OpenSslContext#newEngine()}.
+ * <p>
+ * The encrypted data is passed to and from OpenSSL through a pair of memory buffers, and OpenSSL reads and writes
+ * the plain text directly from and to the given {@link ByteBuffer}s if they are direct. Heap buffers are copied
+ * through a direct buffer of the current thread. OpenSSL never needs delegated tasks, so
+ * {@link #getDelegatedTask()} always returns {@code null}.
+ * <p>
+ * The native resources of an engine are released once both {@link #closeInbound()} and {@link #closeOutbound()}
+ * were called, or when the engine is garbage collected.
+ */
+final class OpenSslEngine extends SSLEngine {
+
+    // TLS record header (5) + maximum plain text (16384) + maximum expansion by compression (1024) and
+    // encryption (1024)
+    static final int MAX_PLAINTEXT_LENGTH = 16384;
+    static final int MAX_ENCRYPTED_PACKET_LENGTH = MAX_PLAINTEXT_LENGTH + 2048 + 5;
+
+    private static final String[] SUPPORTED_PROTOCOLS = { "TLSv1", "TLSv1.1", "TLSv1.2", "TLSv1.3" };
+    private static final int[] PROTOCOL_MASKS = {
+            Native.PROTOCOL_TLS_V1, Native.PROTOCOL_TLS_V1_1, Native.PROTOCOL_TLS_V1_2, Native.PROTOCOL_TLS_V1_3 };
+
+    private static final SSLEngineResult CLOSED_NOT_HANDSHAKING =
+            new SSLEngineResult(Status.CLOSED, HandshakeStatus.NOT_HANDSHAKING, 0, 0);
+
+    private static final ThreadLocal<ByteBuffer> SCRATCH = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(MAX_ENCRYPTED_PACKET_LENGTH);
+        }
+    };
+
+    private final boolean server;
+    private long ssl;
+
+    private String[] enabledProtocols = SUPPORTED_PROTOCOLS.clone();
+    private boolean needClientAuth;
+    private boolean wantClientAuth;
+
+    // true once the first handshake step was taken, so a client knows it has to send its hello.
+    private boolean handshakeStarted;
+    private boolean handshakeFinished;
+    // true if OpenSSL reported a fatal error, after which it must not be asked to send close_notify.
+    private boolean failed;
+
+    private boolean inboundDone;
+    private boolean outboundClosed;
+    private boolean closeNotifySent;
+
+    private final OpenSslSession session = new OpenSslSession();
+
+    OpenSslEngine(long ctx, boolean server, String peerHost, int peerPort) throws SSLException {
+        super(peerHost, peerPort);
+        this.server = server;
+        ssl = Native.newSsl(ctx, server);
+        if (ssl == 0) {
+            throw OpenSslContext.newException("failed to create an SSL engine");
+        }
+    }
+
+    @Override
+    public synchronized SSLEngineResult wrap(
+            ByteBuffer[] srcs, int offset, int length, ByteBuffer dst) throws SSLException {
+        checkBuffers(srcs, offset, length);
+        if (dst == null) {
+            throw new NullPointerException("dst");
+        }
+        if (dst.isReadOnly()) {
+            throw new IllegalArgumentException("dst is read-only");
+        }
+
+        if (ssl == 0) {
+            return CLOSED_NOT_HANDSHAKING;
+        }
+        if (dst.remaining() < MAX_ENCRYPTED_PACKET_LENGTH) {
+            return new SSLEngineResult(Status.BUFFER_OVERFLOW, getHandshakeStatus(), 0, 0);
+        }
+
+        // Send what OpenSSL produced during the last unwrap first, as the handshake may depend on it.
+        int bytesProduced = readFromBio(dst);
+        if (Native.pendingInBio(ssl) > 0) {
+            return new SSLEngineResult(status(), HandshakeStatus.NEED_WRAP, 0, bytesProduced);
+        }
+
+        if (outboundClosed) {
+            if (!closeNotifySent) {
+                closeNotifySent = true;
+                if (handshakeFinished && !failed) {
+                    Native.shutdownSsl(ssl);
+                    bytesProduced += readFromBio(dst);
+                }
+            }
+            HandshakeStatus handshakeStatus = getHandshakeStatus();
+            freeIfDone();
+            return new SSLEngineResult(Status.CLOSED, handshakeStatus, 0, bytesProduced);
+        }
+
+        if (!handshakeFinished) {
+            boolean finished = handshake();
+            bytesProduced += readFromBio(dst);
+            return new SSLEngineResult(
+                    Status.OK, finished ? HandshakeStatus.FINISHED : getHandshakeStatus(), 0, bytesProduced);
+        }
+
+        int bytesConsumed = 0;
+        for (int i = offset; i < offset + length; i ++) {
+            ByteBuffer src = srcs[i];
+            while (src.hasRemaining()) {
+                // Make sure the record fits into the memory buffer and dst.
+                if (dst.remaining() < MAX_ENCRYPTED_PACKET_LENGTH) {
+                    return new SSLEngineResult(Status.OK, getHandshakeStatus(), bytesConsumed, bytesProduced);
+                }
+
+                int result = writeToSsl(src, Math.min(src.remaining(), MAX_PLAINTEXT_LENGTH));
+                if (result <= 0) {
+                    throw newSslException(-result, "failed to encrypt");
+                }
+                bytesConsumed += result;
+                bytesProduced += readFromBio(dst);
+            }
+        }
+        return new SSLEngineResult(Status.OK, getHandshakeStatus(), bytesConsumed, bytesProduced);
+    }
+
+    @Override
+    public synchronized SSLEngineResult unwrap(
+            ByteBuffer src, ByteBuffer[] dsts, int offset, int length) throws SSLException {
+        if (src == null) {
+            throw new NullPointerException("src");
+        }
+        checkBuffers(dsts, offset, length);
+        for (int i = offset; i < offset + length; i ++) {
+            if (dsts[i].isReadOnly()) {
+                throw new IllegalArgumentException("dsts[" + i + "] is read-only");
+            }
+        }
+
+        if (ssl == 0 || inboundDone) {
+            return CLOSED_NOT_HANDSHAKING;
+        }
+
+        boolean finished = false;
+        boolean overflow = false;
+        int bytesConsumed = 0;
+        int bytesProduced = 0;
+        int dstIndex = offset;
+        for (;;) {
+            int written = src.hasRemaining() ? writeToBio(src) : 0;
+            bytesConsumed += written;
+
+            if (!handshakeFinished) {
+                finished = handshake();
+                if (!finished) {
+                    if (written > 0 && src.hasRemaining() && Native.pendingInBio(ssl) == 0) {
+                        // The memory buffer was full, so there may be more handshake messages to come.
+                        continue;
+                    }
+                    break;
+                }
+            }
+
+            // Decrypt as much as possible into the destination buffers.
+            int read = 0;
+            int error = 0;
+            while (dstIndex < offset + length) {
+                ByteBuffer dst = dsts[dstIndex];
+                if (!dst.hasRemaining()) {
+                    dstIndex ++;
+                    continue;
+                }
+                int result = readFromSsl(dst);
+                if (result <= 0) {
+                    error = -result;
+                    break;
+                }
+                read += result;
+            }
+            bytesProduced += read;
+
+            if (error == Native.SSL_ERROR_ZERO_RETURN) {
+                // Received close_notify, so respond with close_notify as well.
+                inboundDone = true;
+                outboundClosed = true;
+                break;
+            }
+            if (error != 0 && error != Native.SSL_ERROR_WANT_READ && error != Native.SSL_ERROR_WANT_WRITE) {
+                throw newSslException(error, "failed to decrypt");
+            }
+            if (error == 0 && Native.pendingInSsl(ssl) > 0) {
+                // Ran out of space before all data was decrypted.
+                overflow = true;
+                break;
+            }
+            if (written == 0 && read == 0 || !src.hasRemaining()) {
+                break;
+            }
+        }
+
+        Status status;
+        if (inboundDone) {
+            status = Status.CLOSED;
+        } else if (overflow && bytesProduced == 0 && !finished) {
+            // Like the JDK, only report an overflow if nothing else happened, as a caller is likely to retry
+            // with a larger buffer without looking at anything else.
+            status = Status.BUFFER_OVERFLOW;
+        } else {
+            status = Status.OK;
+        }
+        SSLEngineResult result = new SSLEngineResult(
+                status, finished ? HandshakeStatus.FINISHED : getHandshakeStatus(), bytesConsumed, bytesProduced);
+        freeIfDone();
+        return result;
+    }
+
+    /**
+     * Takes the next step of the handshake. Returns {@code true} if the handshake was finished by this step.
+     */
+    private boolean handshake() throws SSLException {
+        handshakeStarted = true;
+        int result = Native.doHandshake(ssl);
+        if (result > 0) {
+            handshakeFinished = true;
+            session.handshakeFinished(ssl);
+            return true;
+        }
+
+        int error = -result;
+        if (error != Native.SSL_ERROR_WANT_READ && error != Native.SSL_ERROR_WANT_WRITE) {
+            failed = true;
+            throw new SSLHandshakeException(OpenSslContext.errorMessage(errorMessage(error, "handshake failed")));
+        }
+        return false;
+    }
+
+    private Status status() {
+        return outboundClosed && closeNotifySent ? Status.CLOSED : Status.OK;
+    }
+
+    private SSLException newSslException(int error, String message) {
+        failed = true;
+        return OpenSslContext.newException(errorMessage(error, message));
+    }
+
+    private static String errorMessage(int error, String message) {
+        if (error == Native.SSL_ERROR_SYSCALL) {
+            return message + " (unexpected end of stream)";
+        }
+        return message;
+    }
+
+    private void freeIfDone() {
+        if (inboundDone && outboundClosed && closeNotifySent && Native.pendingInBio(ssl) == 0) {
+            free();
+        }
+    }
+
+    private void free() {
+        if (ssl != 0) {
+            Native.freeSsl(ssl);
+            ssl = 0;
+        }
+    }
+
+    private static void checkBuffers(ByteBuffer[] buffers, int offset, int length) {
+        if (buffers == null) {
+            throw new NullPointerException("buffers");
+        }
+        if (offset < 0 || length < 0 || offset > buffers.length - length) {
+            throw new IndexOutOfBoundsException(
+                    "offset: " + offset + ", length: " + length + " (expected: offset <= offset + length <= " +
+                    "buffers.length (" + buffers.length + "))");
+        }
+        for (int i = offset; i < offset + length; i ++) {
+            if (buffers[i] == null) {
+                throw new NullPointerException("buffers[" + i + ']');
+            }
+        }
+    }
+
+    // The following methods transfer data to and from OpenSSL. A heap buffer is copied through the direct scratch
+    // buffer of the current thread, as OpenSSL needs the memory address of the data.
+
+    private int writeToBio(ByteBuffer src) {
+        final int pos = src.position();
+        final int written;
+        if (src.isDirect()) {
+            written = Native.writeToBio(ssl, src, pos, src.remaining());
+        } else {
+            ByteBuffer scratch = copyToScratch(src, Math.min(src.remaining(), MAX_ENCRYPTED_PACKET_LENGTH));
+            written = Native.writeToBio(ssl, scratch, 0, scratch.remaining());
+        }
+        src.position(pos + written);
+        return written;
+    }
+
+    private int readFromBio(ByteBuffer dst) {
+        // The memory buffer is a ring, so it may take more than one read to drain it.
+        int read = 0;
+        while (dst.hasRemaining()) {
+            final int n;
+            if (dst.isDirect()) {
+                n = Native.readFromBio(ssl, dst, dst.position(), dst.remaining());
+                dst.position(dst.position() + n);
+            } else {
+                ByteBuffer scratch = SCRATCH.get();
+                n = Native.readFromBio(ssl, scratch, 0, Math.min(dst.remaining(), scratch.capacity()));
+                scratch.clear().limit(n);
+                dst.put(scratch);
+            }
+            if (n == 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    private int writeToSsl(ByteBuffer src, int len) {
+        final int pos = src.position();
+        final int result;
+        if (src.isDirect()) {
+            result = Native.writeToSsl(ssl, src, pos, len);
+        } else {
+            result = Native.writeToSsl(ssl, copyToScratch(src, len), 0, len);
+        }
+        if (result > 0) {
+            src.position(pos + result);
+        }
+        return result;
+    }
+
+    private int readFromSsl(ByteBuffer dst) {
+        final int pos = dst.position();
+        if (dst.isDirect()) {
+            int result = Native.readFromSsl(ssl, dst, pos, dst.remaining());
+            if (result > 0) {
+                dst.position(pos + result);
+            }
+            return result;
+        }
+
+        ByteBuffer scratch = SCRATCH.get();
+        int result = Native.readFromSsl(ssl, scratch, 0, Math.min(dst.remaining(), scratch.capacity()));
+        if (result > 0) {
+            scratch.clear().limit(result);
+            dst.put(scratch);
+        }
+        return result;
+    }
+
+    private static ByteBuffer copyToScratch(ByteBuffer src, int len) {
+        ByteBuffer scratch = SCRATCH.get();
+        ByteBuffer data = src.duplicate();
+        data.limit(data.position() + len);
+        scratch.clear();
+        scratch.put(data);
+        scratch.flip();
+        return scratch;
+    }
+
+    @Override
+    public Runnable getDelegatedTask() {
+        // OpenSSL never delegates.
+        return null;
+    }
+
+    @Override
+    public synchronized void closeInbound() throws SSLException {
+        inboundDone = true;
+        if (outboundClosed) {
+            free();
+        }
+    }
+
+    @Override
+    public synchronized boolean isInboundDone() {
+        return inboundDone || ssl == 0;
+    }
+
+    @Override
+    public synchronized void closeOutbound() {
+        outboundClosed = true;
+        if (!handshakeFinished) {
+            // Nothing to close yet.
+            closeNotifySent = true;
+        }
+        if (inboundDone) {
+            free();
+        }
+    }
+
+    @Override
+    public synchronized boolean isOutboundDone() {
+        return ssl == 0 || outboundClosed && closeNotifySent && Native.pendingInBio(ssl) == 0;
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return getEnabledCipherSuites();
+    }
+
+    @Override
+    public synchronized String[] getEnabledCipherSuites() {
+        if (ssl == 0) {
+            return EmptyArrays.EMPTY_STRINGS;
+        }
+        return Native.ciphers(ssl);
+    }
+
+    /**
+     * Enables the given cipher suites, which are given by their OpenSSL names such as
+     * {@code "ECDHE-RSA-AES128-GCM-SHA256"}.
+     */
+    @Override
+    public synchronized void setEnabledCipherSuites(String[] suites) {
+        if (suites == null) {
+            throw new NullPointerException("suites");
+        }
+        if (ssl == 0) {
+            throw new IllegalStateException("engine closed already");
+        }
+
+        StringBuilder buf = new StringBuilder();
+        for (String s: suites) {
+            if (s == null) {
+                break;
+            }
+            if (buf.length() > 0) {
+                buf.append(':');
+            }
+            buf.append(s);
+        }
+        if (!Native.setSslCipherList(ssl, buf.toString())) {
+            throw new IllegalArgumentException(
+                    "failed to enable the cipher suites: " + buf + " (" + Native.lastErrorString() + ')');
+        }
+    }
+
+    @Override
+    public String[] getSupportedProtocols() {
+        return SUPPORTED_PROTOCOLS.clone();
+    }
+
+    @Override
+    public synchronized String[] getEnabledProtocols() {
+        return enabledProtocols.clone();
+    }
+
+    @Override
+    public synchronized void setEnabledProtocols(String[] protocols) {
+        if (protocols == null) {
+            throw new NullPointerException("protocols");
+        }
+
+        int mask = 0;
+        for (String p: protocols) {
+            int i = 0;
+            while (i < SUPPORTED_PROTOCOLS.length && !SUPPORTED_PROTOCOLS[i].equals(p)) {
+                i ++;
+            }
+            if (i == SUPPORTED_PROTOCOLS.length) {
+                throw new IllegalArgumentException("unsupported protocol: " + p);
+            }
+            mask |= PROTOCOL_MASKS[i];
+        }
+
+        if (ssl != 0) {
+            Native.setProtocols(ssl, mask);
+        }
+        enabledProtocols = protocols.clone();
+    }
+
+    @Override
+    public synchronized SSLSession getSession() {
+        return session;
+    }
+
+    @Override
+    public synchronized void beginHandshake() throws SSLException {
+        if (ssl == 0 || outboundClosed) {
+            throw new SSLException("engine closed already");
+        }
+        if (handshakeFinished) {
+            throw new SSLException("renegotiation unsupported");
+        }
+        // The handshake is started by the next wrap or unwrap.
+    }
+
+    @Override
+    public synchronized HandshakeStatus getHandshakeStatus() {
+        if (ssl == 0) {
+            return HandshakeStatus.NOT_HANDSHAKING;
+        }
+        if (Native.pendingInBio(ssl) > 0 || outboundClosed && !closeNotifySent) {
+            return HandshakeStatus.NEED_WRAP;
+        }
+        if (!handshakeFinished && !outboundClosed) {
+            // A client sends the first message.
+            return !server && !handshakeStarted ? HandshakeStatus.NEED_WRAP : HandshakeStatus.NEED_UNWRAP;
+        }
+        return HandshakeStatus.NOT_HANDSHAKING;
+    }
+
+    @Override
+    public void setUseClientMode(boolean clientMode) {
+        if (clientMode == server) {
+            throw new IllegalArgumentException(
+                    "an engine of a " + (server ? "server" : "client") + " context can't change its mode");
+        }
+    }
+
+    @Override
+    public boolean getUseClientMode() {
+        return !server;
+    }
+
+    @Override
+    public synchronized void setNeedClientAuth(boolean need) {
+        needClientAuth = need;
+        wantClientAuth = false;
+        updateVerify();
+    }
+
+    @Override
+    public synchronized boolean getNeedClientAuth() {
+        return needClientAuth;
+    }
+
+    @Override
+    public synchronized void setWantClientAuth(boolean want) {
+        wantClientAuth = want;
+        needClientAuth = false;
+        updateVerify();
+    }
+
+    @Override
+    public synchronized boolean getWantClientAuth() {
+        return wantClientAuth;
+    }
+
+    private void updateVerify() {
+        if (server && ssl != 0) {
+            Native.setVerify(ssl, needClientAuth ? Native.VERIFY_REQUIRE
+                    : wantClientAuth ? Native.VERIFY_OPTIONAL : Native.VERIFY_NONE);
+        }
+    }
+
+    @Override
+    public void setEnableSessionCreation(boolean flag) {
+        if (!flag) {
+            throw new UnsupportedOperationException("session creation can't be disabled");
+        }
+    }
+
+    @Override
+    public boolean getEnableSessionCreation() {
+        return true;
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        super.finalize();
+        free();
+    }
+
+    /**
+     * The {@link SSLSession} of an {@link OpenSslEngine}, whose properties are captured once the handshake is
+     * finished.
+     */
+    private final class OpenSslSession implements SSLSession {
+
+        private final long creationTime = System.currentTimeMillis();
+        private byte[] id = EmptyArrays.EMPTY_BYTES;
+        private String cipherSuite = "SSL_NULL_WITH_NULL_NULL";
+        private String protocol = "NONE";
+        private Certificate[] peerCertificates;
+        private Map<String, Object> values;
+
+        void handshakeFinished(long ssl) {
+            byte[] id = Native.sessionId(ssl);
+            if (id != null) {
+                this.id = id;
+            }
+            String cipherSuite = Native.cipher(ssl);
+            if (cipherSuite != null) {
+                this.cipherSuite = cipherSuite;
+            }
+            protocol = Native.protocol(ssl);
+
+            byte[] peerCertificate = Native.peerCertificate(ssl);
+            if (peerCertificate != null) {
+                try {
+                    peerCertificates = CertificateFactory.getInstance("X.509").generateCertificates(
+                            new ByteArrayInputStream(peerCertificate)).toArray(new Certificate[1]);
+                } catch (CertificateException e) {
+                    // Should never happen, as OpenSSL parsed it already.
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        @Override
+        public byte[] getId() {
+            return id.clone();
+        }
+
+        @Override
+        public SSLSessionContext getSessionContext() {
+            return null;
+        }
+
+        @Override
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+        @Override
+        public long getLastAccessedTime() {
+            return creationTime;
+        }
+
+        @Override
+        public void invalidate() {
+            // NOOP
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public void putValue(String name, Object value) {
+            if (name == null) {
+                throw new NullPointerException("name");
+            }
+            if (value == null) {
+                throw new NullPointerException("value");
+            }
+            Object old;
+            synchronized (this) {
+                if (values == null) {
+                    values = new HashMap<String, Object>(2);
+                }
+                old = values.put(name, value);
+            }
+            if (value instanceof SSLSessionBindingListener) {
+                ((SSLSessionBindingListener) value).valueBound(new SSLSessionBindingEvent(this, name));
+            }
+            notifyUnbound(old, name);
+        }
+
+        @Override
+        public Object getValue(String name) {
+            if (name == null) {
+                throw new NullPointerException("name");
+            }
+            synchronized (this) {
+                return values == null ? null : values.get(name);
+            }
+        }
+
+        @Override
+        public void removeValue(String name) {
+            if (name == null) {
+                throw new NullPointerException("name");
+            }
+            Object old;
+            synchronized (this) {
+                old = values == null ? null : values.remove(name);
+            }
+            notifyUnbound(old, name);
+        }
+
+        @Override
+        public String[] getValueNames() {
+            synchronized (this) {
+                if (values == null) {
+                    return EmptyArrays.EMPTY_STRINGS;
+                }
+                return values.keySet().toArray(new String[values.size()]);
+            }
+        }
+
+        private void notifyUnbound(Object value, String name) {
+            if (value instanceof SSLSessionBindingListener) {
+                ((SSLSessionBindingListener) value).valueUnbound(new SSLSessionBindingEvent(this, name));
+            }
+        }
+
+        @Override
+        public Certificate[] getPeerCertificates() throws SSLPeerUnverifiedException {
+            Certificate[] peerCertificates = this.peerCertificates;
+            if (peerCertificates == null) {
+                throw new SSLPeerUnverifiedException("peer not verified");
+            }
+            return peerCertificates.clone();
+        }
+
+        @Override
+        public Certificate[] getLocalCertificates() {
+            return null;
+        }
+
+        @Override
+        public javax.security.cert.X509Certificate[] getPeerCertificateChain() throws SSLPeerUnverifiedException {
+            Certificate[] peerCertificates = getPeerCertificates();
+            List<javax.security.cert.X509Certificate> chain =
+                    new ArrayList<javax.security.cert.X509Certificate>(peerCertificates.length);
+            for (Certificate c: peerCertificates) {
+                try {
+                    chain.add(javax.security.cert.X509Certificate.getInstance(c.getEncoded()));
+                } catch (Exception e) {
+                    throw (SSLPeerUnverifiedException) new SSLPeerUnverifiedException(
+                            "failed to convert the peer certificate").initCause(e);
+                }
+            }
+            return chain.toArray(new javax.security.cert.X509Certificate[chain.size()]);
+        }
+
+        @Override
+        public Principal getPeerPrincipal() throws SSLPeerUnverifiedException {
+            return ((X509Certificate) getPeerCertificates()[0]).getSubjectX500Principal();
+        }
+
+        @Override
+        public Principal getLocalPrincipal() {
+            return null;
+        }
+
+        @Override
+        public String getCipherSuite() {
+            return cipherSuite;
+        }
+
+        @Override
+        public String getProtocol() {
+            return protocol;
+        }
+
+        @Override
+        public String getPeerHost() {
+            return OpenSslEngine.this.getPeerHost();
+        }
+
+        @Override
+        public int getPeerPort() {
+            return OpenSslEngine.this.getPeerPort();
+        }
+
+        @Override
+        public int getPacketBufferSize() {
+            return MAX_ENCRYPTED_PACKET_LENGTH;
+        }
+
+        @Override
+        public int getApplicationBufferSize() {
+            return MAX_PLAINTEXT_LENGTH;
+        }
+    }
+}
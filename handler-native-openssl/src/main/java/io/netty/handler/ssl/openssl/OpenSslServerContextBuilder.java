@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+import javax.net.ssl.SSLException;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a server-side {@link OpenSslContext} with custom session resumption settings:
+ * <pre>
+ * {@link OpenSslSessionTicketKeyManager} keyManager = new {@link OpenSslSessionTicketKeyManager}();
+ * keyManager.scheduleRotation(group, 12, {@link TimeUnit}.HOURS);
+ *
+ * {@link OpenSslContext} context = new {@link OpenSslServerContextBuilder}(certChainFile, keyFile)
+ *         .sessionCacheSize(100000)
+ *         .sessionTimeout(1, {@link TimeUnit}.HOURS)
+ *         .sessionTicketKeyManager(keyManager)
+ *         .build();
+ * </pre>
+ * All engines of a context, no matter which event loop they run on, share the same session cache and session
+ * ticket keys, so a client can resume its session on any connection to the server.
+ * <p>
+ * These settings only apply to OpenSSL. A JDK {@link javax.net.ssl.SSLContext} has its own server session cache,
+ * which is sized with {@link javax.net.ssl.SSLSessionContext#setSessionCacheSize(int)} and
+ * {@link javax.net.ssl.SSLSessionContext#setSessionTimeout(int)} of
+ * {@link javax.net.ssl.SSLContext#getServerSessionContext()}. The JDK neither lets its session ticket keys be set
+ * or rotated nor counts how many sessions were resumed.
+ */
+public final class OpenSslServerContextBuilder {
+
+    /**
+     * The default maximum number of sessions in the session cache.
+     */
+    public static final long DEFAULT_SESSION_CACHE_SIZE = 20480;
+
+    /**
+     * The default lifetime of a session in seconds.
+     */
+    public static final long DEFAULT_SESSION_TIMEOUT_SECONDS = 300;
+
+    private final File certChainFile;
+    private final File keyFile;
+    private String keyPassword;
+    private String ciphers;
+    private boolean sessionCacheEnabled = true;
+    private long sessionCacheSize = DEFAULT_SESSION_CACHE_SIZE;
+    private long sessionTimeoutSeconds = DEFAULT_SESSION_TIMEOUT_SECONDS;
+    private boolean sessionTicketsEnabled = true;
+    private OpenSslSessionTicketKeyManager sessionTicketKeyManager;
+
+    /**
+     * Creates a new builder for a context which presents the given certificate chain.
+     *
+     * @param certChainFile the PEM file which contains the certificate of the server, optionally followed by the
+     *                      intermediate certificates
+     * @param keyFile the PEM file which contains the private key of the certificate
+     */
+    public OpenSslServerContextBuilder(File certChainFile, File keyFile) {
+        if (certChainFile == null) {
+            throw new NullPointerException("certChainFile");
+        }
+        if (keyFile == null) {
+            throw new NullPointerException("keyFile");
+        }
+        this.certChainFile = certChainFile;
+        this.keyFile = keyFile;
+    }
+
+    /**
+     * Sets the password of the private key, or {@code null} if it is not encrypted.
+     */
+    public OpenSslServerContextBuilder keyPassword(String keyPassword) {
+        this.keyPassword = keyPassword;
+        return this;
+    }
+
+    /**
+     * Sets the enabled cipher suites as in {@link OpenSslContext#setCiphers(String)}, or {@code null} to use the
+     * defaults of OpenSSL.
+     */
+    public OpenSslServerContextBuilder ciphers(String ciphers) {
+        this.ciphers = ciphers;
+        return this;
+    }
+
+    /**
+     * Enables or disables the session cache, which lets a client resume its session by its id. Enabled by default.
+     */
+    public OpenSslServerContextBuilder sessionCacheEnabled(boolean sessionCacheEnabled) {
+        this.sessionCacheEnabled = sessionCacheEnabled;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of sessions in the session cache, or {@code 0} for no limit. The least recently used
+     * sessions are evicted once the cache is full. Defaults to {@value #DEFAULT_SESSION_CACHE_SIZE}.
+     */
+    public OpenSslServerContextBuilder sessionCacheSize(long sessionCacheSize) {
+        if (sessionCacheSize < 0) {
+            throw new IllegalArgumentException("sessionCacheSize: " + sessionCacheSize + " (expected: >= 0)");
+        }
+        this.sessionCacheSize = sessionCacheSize;
+        return this;
+    }
+
+    /**
+     * Sets how long a session can be resumed, both from the session cache and from a session ticket. Defaults to
+     * {@value #DEFAULT_SESSION_TIMEOUT_SECONDS} seconds.
+     */
+    public OpenSslServerContextBuilder sessionTimeout(long timeout, TimeUnit unit) {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        long seconds = unit.toSeconds(timeout);
+        if (seconds <= 0) {
+            throw new IllegalArgumentException(
+                    "sessionTimeout: " + timeout + ' ' + unit + " (expected: >= 1 second)");
+        }
+        sessionTimeoutSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Enables or disables session tickets, which let a client resume its session without the server keeping any
+     * state. Enabled by default.
+     */
+    public OpenSslServerContextBuilder sessionTicketsEnabled(boolean sessionTicketsEnabled) {
+        this.sessionTicketsEnabled = sessionTicketsEnabled;
+        return this;
+    }
+
+    /**
+     * Sets the manager of the keys which encrypt the session tickets, or {@code null} to let OpenSSL generate
+     * a random key which is never rotated. A manager can be shared by several contexts, so they accept the tickets
+     * of each other.
+     */
+    public OpenSslServerContextBuilder sessionTicketKeyManager(OpenSslSessionTicketKeyManager keyManager) {
+        sessionTicketKeyManager = keyManager;
+        return this;
+    }
+
+    /**
+     * Creates a new context with the current settings.
+     */
+    public OpenSslContext build() throws SSLException {
+        return OpenSslContext.newServerContext(this);
+    }
+
+    File certChainFile() {
+        return certChainFile;
+    }
+
+    File keyFile() {
+        return keyFile;
+    }
+
+    String keyPassword() {
+        return keyPassword;
+    }
+
+    String ciphers() {
+        return ciphers;
+    }
+
+    boolean sessionCacheEnabled() {
+        return sessionCacheEnabled;
+    }
+
+    long sessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    long sessionTimeoutSeconds() {
+        return sessionTimeoutSeconds;
+    }
+
+    boolean sessionTicketsEnabled() {
+        return sessionTicketsEnabled;
+    }
+
+    OpenSslSessionTicketKeyManager sessionTicketKeyManager() {
+        return sessionTicketKeyManager;
+    }
+}
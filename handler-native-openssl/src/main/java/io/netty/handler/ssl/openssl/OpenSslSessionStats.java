@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+/**
+ * The session resumption statistics of a server {@link OpenSslContext}, obtained via
+ * {@link OpenSslContext#sessionStats()}. All values are read live from OpenSSL and count from the creation of the
+ * context. They are all {@code 0} once the context was destroyed.
+ * <p>
+ * A handshake either resumes a session, which is counted by {@link #hits()}, or does a full handshake. A full
+ * handshake is counted by {@link #misses()} if the client asked to resume a session which was unknown or expired.
+ */
+public final class OpenSslSessionStats {
+
+    private final OpenSslContext context;
+
+    OpenSslSessionStats(OpenSslContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the number of sessions in the session cache.
+     */
+    public long number() {
+        return context.sessionStat(Native.SESSION_STAT_NUMBER);
+    }
+
+    /**
+     * Returns the number of started handshakes.
+     */
+    public long accept() {
+        return context.sessionStat(Native.SESSION_STAT_ACCEPT);
+    }
+
+    /**
+     * Returns the number of successful handshakes.
+     */
+    public long acceptGood() {
+        return context.sessionStat(Native.SESSION_STAT_ACCEPT_GOOD);
+    }
+
+    /**
+     * Returns the number of resumed sessions, from the session cache or from a session ticket.
+     */
+    public long hits() {
+        return context.sessionStat(Native.SESSION_STAT_HITS);
+    }
+
+    /**
+     * Returns the number of sessions a client asked to resume, but which were not found.
+     */
+    public long misses() {
+        return context.sessionStat(Native.SESSION_STAT_MISSES);
+    }
+
+    /**
+     * Returns the number of sessions a client asked to resume, but which had expired.
+     */
+    public long timeouts() {
+        return context.sessionStat(Native.SESSION_STAT_TIMEOUTS);
+    }
+
+    /**
+     * Returns the number of sessions which were evicted because the session cache was full.
+     */
+    public long cacheFull() {
+        return context.sessionStat(Native.SESSION_STAT_CACHE_FULL);
+    }
+
+    /**
+     * Returns the number of session tickets which were issued. Only counted if the keys are managed by an
+     * {@link OpenSslSessionTicketKeyManager}.
+     */
+    public long ticketKeyNew() {
+        return context.sessionStat(Native.SESSION_STAT_TICKET_KEY_NEW);
+    }
+
+    /**
+     * Returns the number of session tickets which were decrypted with the current key. Only counted if the keys
+     * are managed by an {@link OpenSslSessionTicketKeyManager}.
+     */
+    public long ticketKeyResume() {
+        return context.sessionStat(Native.SESSION_STAT_TICKET_KEY_RESUME);
+    }
+
+    /**
+     * Returns the number of session tickets which were decrypted with a previous key and therefore renewed.
+     * Only counted if the keys are managed by an {@link OpenSslSessionTicketKeyManager}.
+     */
+    public long ticketKeyRenew() {
+        return context.sessionStat(Native.SESSION_STAT_TICKET_KEY_RENEW);
+    }
+
+    /**
+     * Returns the number of session tickets whose key was unknown, usually because it was retired. Only counted
+     * if the keys are managed by an {@link OpenSslSessionTicketKeyManager}.
+     */
+    public long ticketKeyFail() {
+        return context.sessionStat(Native.SESSION_STAT_TICKET_KEY_FAIL);
+    }
+
+    /**
+     * Returns the fraction of the started handshakes which resumed a session, or {@code 0} if there were none.
+     */
+    public double hitRatio() {
+        long accept = accept();
+        if (accept == 0) {
+            return 0;
+        }
+        return (double) hits() / accept;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(number: " + number() + ", accept: " + accept() +
+                ", acceptGood: " + acceptGood() + ", hits: " + hits() + ", misses: " + misses() +
+                ", timeouts: " + timeouts() + ", cacheFull: " + cacheFull() + ", ticketKeyNew: " + ticketKeyNew() +
+                ", ticketKeyResume: " + ticketKeyResume() + ", ticketKeyRenew: " + ticketKeyRenew() +
+                ", ticketKeyFail: " + ticketKeyFail() + ')';
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * A key which encrypts and authenticates the session tickets of a server, so a client can resume its session
+ * with any server which knows the key. A ticket is encrypted with AES-128-CBC and authenticated with
+ * HMAC-SHA256, and carries the name of its key so the server can find the key again.
+ */
+public final class OpenSslSessionTicketKey {
+
+    /**
+     * The size of the name of a key.
+     */
+    public static final int NAME_SIZE = 16;
+
+    /**
+     * The size of the HMAC key.
+     */
+    public static final int HMAC_KEY_SIZE = 16;
+
+    /**
+     * The size of the AES key.
+     */
+    public static final int AES_KEY_SIZE = 16;
+
+    /**
+     * The size of a key as returned by {@link #toByteArray()}.
+     */
+    public static final int SIZE = NAME_SIZE + HMAC_KEY_SIZE + AES_KEY_SIZE;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private final byte[] key;
+
+    /**
+     * Creates a new key with a random name and random secrets.
+     */
+    public static OpenSslSessionTicketKey newKey() {
+        byte[] key = new byte[SIZE];
+        synchronized (random) {
+            random.nextBytes(key);
+        }
+        return new OpenSslSessionTicketKey(key);
+    }
+
+    /**
+     * Creates a new key from the output of {@link #toByteArray()}, so all servers of a cluster can share the
+     * same keys.
+     */
+    public OpenSslSessionTicketKey(byte[] key) {
+        if (key == null) {
+            throw new NullPointerException("key");
+        }
+        if (key.length != SIZE) {
+            throw new IllegalArgumentException("key.length: " + key.length + " (expected: " + SIZE + ')');
+        }
+        this.key = key.clone();
+    }
+
+    /**
+     * Creates a new key from its parts.
+     */
+    public OpenSslSessionTicketKey(byte[] name, byte[] hmacKey, byte[] aesKey) {
+        this(concat(name, hmacKey, aesKey));
+    }
+
+    private static byte[] concat(byte[] name, byte[] hmacKey, byte[] aesKey) {
+        if (name == null) {
+            throw new NullPointerException("name");
+        }
+        if (hmacKey == null) {
+            throw new NullPointerException("hmacKey");
+        }
+        if (aesKey == null) {
+            throw new NullPointerException("aesKey");
+        }
+        if (name.length != NAME_SIZE) {
+            throw new IllegalArgumentException("name.length: " + name.length + " (expected: " + NAME_SIZE + ')');
+        }
+        if (hmacKey.length != HMAC_KEY_SIZE) {
+            throw new IllegalArgumentException(
+                    "hmacKey.length: " + hmacKey.length + " (expected: " + HMAC_KEY_SIZE + ')');
+        }
+        if (aesKey.length != AES_KEY_SIZE) {
+            throw new IllegalArgumentException(
+                    "aesKey.length: " + aesKey.length + " (expected: " + AES_KEY_SIZE + ')');
+        }
+
+        byte[] key = new byte[SIZE];
+        System.arraycopy(name, 0, key, 0, NAME_SIZE);
+        System.arraycopy(hmacKey, 0, key, NAME_SIZE, HMAC_KEY_SIZE);
+        System.arraycopy(aesKey, 0, key, NAME_SIZE + HMAC_KEY_SIZE, AES_KEY_SIZE);
+        return key;
+    }
+
+    /**
+     * Returns the name of this key.
+     */
+    public byte[] name() {
+        return Arrays.copyOfRange(key, 0, NAME_SIZE);
+    }
+
+    /**
+     * Returns the name, the HMAC key and the AES key of this key in a single array.
+     */
+    public byte[] toByteArray() {
+        return key.clone();
+    }
+
+    void copyTo(byte[] dst, int index) {
+        System.arraycopy(key, 0, dst, index, SIZE);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof OpenSslSessionTicketKey && Arrays.equals(key, ((OpenSslSessionTicketKey) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        // Never leak the secrets.
+        StringBuilder buf = new StringBuilder(getClass().getSimpleName()).append("(name: ");
+        for (int i = 0; i < NAME_SIZE; i ++) {
+            buf.append(Character.forDigit(key[i] >>> 4 & 0xF, 16)).append(Character.forDigit(key[i] & 0xF, 16));
+        }
+        return buf.append(')').toString();
+    }
+}
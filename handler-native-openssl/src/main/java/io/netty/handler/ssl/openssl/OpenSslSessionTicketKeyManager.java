@@ -0,0 +1,175 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the {@link OpenSslSessionTicketKey}s of one or more server {@link OpenSslContext}s, which are given to
+ * {@link OpenSslServerContextBuilder#sessionTicketKeyManager(OpenSslSessionTicketKeyManager)}.
+ * <p>
+ * The first key encrypts new tickets, while all keys are accepted to decrypt a ticket. A client whose ticket was
+ * encrypted with an older key resumes its session and gets a new ticket. {@link #rotate()} adds a new first key
+ * and retires the oldest one once there are more than {@link #maxKeys()} keys, so a stolen key is only useful for
+ * a limited time. Rotate the keys regularly with {@link #scheduleRotation(ScheduledExecutorService, long, TimeUnit)}
+ * or with {@link #setKeys(OpenSslSessionTicketKey...)} if the keys are shared with other servers.
+ * <p>
+ * A manager only keeps weak references to its contexts, so a context which is not destroyed explicitly is still
+ * freed once it is garbage.
+ */
+public final class OpenSslSessionTicketKeyManager {
+
+    private static final InternalLogger logger =
+            InternalLoggerFactory.getInstance(OpenSslSessionTicketKeyManager.class);
+
+    private final int maxKeys;
+    private final List<WeakReference<OpenSslContext>> contexts = new ArrayList<WeakReference<OpenSslContext>>();
+    private volatile OpenSslSessionTicketKey[] keys;
+
+    /**
+     * Creates a new instance with a random key, which keeps the current and the previous key.
+     */
+    public OpenSslSessionTicketKeyManager() {
+        this(2);
+    }
+
+    /**
+     * Creates a new instance with a random key.
+     *
+     * @param maxKeys the number of keys to keep when rotating, which is the current key and the
+     *                {@code maxKeys - 1} previous keys
+     */
+    public OpenSslSessionTicketKeyManager(int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys: " + maxKeys + " (expected: > 0)");
+        }
+        this.maxKeys = maxKeys;
+        keys = new OpenSslSessionTicketKey[] { OpenSslSessionTicketKey.newKey() };
+    }
+
+    /**
+     * Returns the number of keys kept when rotating.
+     */
+    public int maxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Returns the current keys, whose first key encrypts new tickets.
+     */
+    public OpenSslSessionTicketKey[] keys() {
+        return keys.clone();
+    }
+
+    /**
+     * Replaces the keys. The first key encrypts new tickets, all keys are accepted to decrypt a ticket.
+     */
+    public synchronized void setKeys(OpenSslSessionTicketKey... keys) {
+        if (keys == null) {
+            throw new NullPointerException("keys");
+        }
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("keys must not be empty");
+        }
+        for (int i = 0; i < keys.length; i ++) {
+            if (keys[i] == null) {
+                throw new NullPointerException("keys[" + i + ']');
+            }
+        }
+
+        this.keys = keys.clone();
+        byte[] encoded = encode(keys);
+        for (Iterator<WeakReference<OpenSslContext>> i = contexts.iterator(); i.hasNext();) {
+            OpenSslContext ctx = i.next().get();
+            if (ctx == null) {
+                i.remove();
+            } else {
+                ctx.setSessionTicketKeys(encoded);
+            }
+        }
+    }
+
+    /**
+     * Adds a new random key which encrypts the tickets from now on, and retires the oldest keys if there are
+     * more than {@link #maxKeys()}.
+     *
+     * @return the new key
+     */
+    public synchronized OpenSslSessionTicketKey rotate() {
+        OpenSslSessionTicketKey[] oldKeys = keys;
+        OpenSslSessionTicketKey[] newKeys = new OpenSslSessionTicketKey[Math.min(oldKeys.length + 1, maxKeys)];
+        newKeys[0] = OpenSslSessionTicketKey.newKey();
+        System.arraycopy(oldKeys, 0, newKeys, 1, newKeys.length - 1);
+        setKeys(newKeys);
+        return newKeys[0];
+    }
+
+    /**
+     * Calls {@link #rotate()} every {@code interval}. Cancel the returned future to stop.
+     */
+    public ScheduledFuture<?> scheduleRotation(ScheduledExecutorService executor, long interval, TimeUnit unit) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval: " + interval + " (expected: > 0)");
+        }
+        return executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    rotate();
+                } catch (Throwable t) {
+                    logger.warn("Failed to rotate the session ticket keys.", t);
+                }
+            }
+        }, interval, interval, unit);
+    }
+
+    synchronized void add(OpenSslContext ctx) {
+        ctx.setSessionTicketKeys(encode(keys));
+        contexts.add(new WeakReference<OpenSslContext>(ctx));
+    }
+
+    synchronized void remove(OpenSslContext ctx) {
+        for (Iterator<WeakReference<OpenSslContext>> i = contexts.iterator(); i.hasNext();) {
+            OpenSslContext c = i.next().get();
+            if (c == null || c == ctx) {
+                i.remove();
+            }
+        }
+    }
+
+    private static byte[] encode(OpenSslSessionTicketKey[] keys) {
+        byte[] encoded = new byte[keys.length * OpenSslSessionTicketKey.SIZE];
+        for (int i = 0; i < keys.length; i ++) {
+            keys[i].copyTo(encoded, i * OpenSslSessionTicketKey.SIZE);
+        }
+        return encoded;
+    }
+}
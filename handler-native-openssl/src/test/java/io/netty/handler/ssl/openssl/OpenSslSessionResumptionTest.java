@@ -0,0 +1,245 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl.openssl;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.cert.X509Certificate;
+
+import static org.junit.Assert.*;
+
+public class OpenSslSessionResumptionTest {
+
+    private static File certFile;
+    private static File keyFile;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Assume.assumeTrue(OpenSsl.isAvailable());
+        certFile = copyResource("test.crt");
+        keyFile = copyResource("test.key");
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (certFile != null) {
+            certFile.delete();
+        }
+        if (keyFile != null) {
+            keyFile.delete();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testResumeWithSessionTicket() throws Exception {
+        OpenSslSessionTicketKeyManager keyManager = new OpenSslSessionTicketKeyManager(2);
+        OpenSslContext server = new OpenSslServerContextBuilder(certFile, keyFile)
+                .sessionTicketKeyManager(keyManager)
+                .build();
+        try {
+            OpenSslSessionStats stats = server.sessionStats();
+
+            // Every scenario starts with a new client, which has no session to resume.
+            SSLContext client = newClientContext();
+            handshake(server, client);
+            assertEquals(0, stats.hits());
+            assertTrue(stats.ticketKeyNew() > 0);
+            handshake(server, client);
+            assertEquals(1, stats.hits());
+            assertEquals(1, stats.ticketKeyResume());
+
+            // A ticket encrypted with the previous key is still accepted, but renewed.
+            client = newClientContext();
+            handshake(server, client);
+            keyManager.rotate();
+            handshake(server, client);
+            assertEquals(2, stats.hits());
+            assertEquals(1, stats.ticketKeyRenew());
+
+            // Once the key of a ticket was retired, a full handshake is required.
+            client = newClientContext();
+            handshake(server, client);
+            keyManager.rotate();
+            keyManager.rotate();
+            handshake(server, client);
+            assertEquals(2, stats.hits());
+            assertEquals(1, stats.ticketKeyFail());
+            assertEquals(6, stats.acceptGood());
+        } finally {
+            server.destroy();
+        }
+
+        // A destroyed context must not be updated anymore.
+        keyManager.rotate();
+    }
+
+    @Test(timeout = 30000)
+    public void testNoResumptionIfDisabled() throws Exception {
+        OpenSslContext server = new OpenSslServerContextBuilder(certFile, keyFile)
+                .sessionCacheEnabled(false)
+                .sessionTicketsEnabled(false)
+                .build();
+        try {
+            SSLContext client = newClientContext();
+            handshake(server, client);
+            handshake(server, client);
+            assertEquals(0, server.sessionStats().hits());
+            assertEquals(2, server.sessionStats().acceptGood());
+        } finally {
+            server.destroy();
+        }
+        assertEquals(0, server.sessionStats().acceptGood());
+    }
+
+    @Test(timeout = 30000)
+    public void testKeyManagerDoesNotRetainContext() throws Exception {
+        OpenSslSessionTicketKeyManager keyManager = new OpenSslSessionTicketKeyManager();
+        WeakReference<OpenSslContext> server = new WeakReference<OpenSslContext>(
+                new OpenSslServerContextBuilder(certFile, keyFile).sessionTicketKeyManager(keyManager).build());
+
+        // The context is only reachable from the key manager, which must not keep it from being freed.
+        while (server.get() != null) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        System.runFinalization();
+        keyManager.rotate();
+    }
+
+    private static SSLContext newClientContext() throws Exception {
+        SSLContext ctx = SSLContext.getInstance("TLS");
+        ctx.init(null, new TrustManager[] { new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+                // NOOP
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+                // NOOP
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        } }, null);
+        return ctx;
+    }
+
+    /**
+     * Runs a handshake between a new server and client engine and exchanges a message in both directions, so the
+     * client also receives the session ticket which is sent after the handshake.
+     */
+    private static void handshake(OpenSslContext serverContext, SSLContext clientContext) throws Exception {
+        // The client only resumes sessions of the same peer.
+        SSLEngine client = clientContext.createSSLEngine("localhost", 8443);
+        client.setUseClientMode(true);
+        SSLEngine server = serverContext.newEngine();
+
+        int packetSize = Math.max(client.getSession().getPacketBufferSize(), server.getSession().getPacketBufferSize());
+        ByteBuffer clientOut = ByteBuffer.wrap("ping".getBytes("US-ASCII"));
+        ByteBuffer serverOut = ByteBuffer.wrap("pong".getBytes("US-ASCII"));
+        ByteBuffer clientIn = ByteBuffer.allocate(packetSize);
+        ByteBuffer serverIn = ByteBuffer.allocate(packetSize);
+        ByteBuffer clientToServer = ByteBuffer.allocate(packetSize);
+        ByteBuffer serverToClient = ByteBuffer.allocate(packetSize);
+
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int i = 0; i < 100; i ++) {
+            wrap(client, clientOut, clientToServer);
+            wrap(server, serverOut, serverToClient);
+
+            clientToServer.flip();
+            unwrap(server, clientToServer, serverIn);
+            clientToServer.compact();
+
+            serverToClient.flip();
+            unwrap(client, serverToClient, clientIn);
+            serverToClient.compact();
+
+            if (clientIn.position() == 4 && serverIn.position() == 4 &&
+                clientToServer.position() == 0 && serverToClient.position() == 0) {
+                return;
+            }
+        }
+        fail("handshake did not complete");
+    }
+
+    private static void wrap(SSLEngine engine, ByteBuffer src, ByteBuffer dst) throws Exception {
+        SSLEngineResult result = engine.wrap(src, dst);
+        runDelegatedTasks(engine, result);
+    }
+
+    private static void unwrap(SSLEngine engine, ByteBuffer src, ByteBuffer dst) throws Exception {
+        while (src.hasRemaining()) {
+            SSLEngineResult result = engine.unwrap(src, dst);
+            runDelegatedTasks(engine, result);
+            if (result.bytesConsumed() == 0) {
+                break;
+            }
+        }
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine, SSLEngineResult result) {
+        if (result.getHandshakeStatus() == HandshakeStatus.NEED_TASK) {
+            for (;;) {
+                Runnable task = engine.getDelegatedTask();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+            }
+        }
+    }
+
+    private static File copyResource(String name) throws Exception {
+        InputStream in = OpenSslSessionResumptionTest.class.getResourceAsStream("/io/netty/handler/ssl/" + name);
+        assertNotNull(name, in);
+        File file = File.createTempFile("netty-", '-' + name);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            byte[] buf = new byte[8192];
+            for (;;) {
+                int n = in.read(buf);
+                if (n < 0) {
+                    break;
+                }
+                out.write(buf, 0, n);
+            }
+        } finally {
+            out.close();
+            in.close();
+        }
+        return file;
+    }
+}
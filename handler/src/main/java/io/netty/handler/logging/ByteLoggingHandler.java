@@ -22,61 +22,48 @@ import io.netty.channel.ChannelInboundByteHandler;
 import io.netty.channel.ChannelOutboundByteHandler;
 import io.netty.channel.ChannelPromise;
 
+import java.util.Arrays;
+
+/**
+ * A {@link LoggingHandler} which also logs a hex dump of all received and written bytes. The dump is written into a
+ * {@code char} array which is reused by the calling thread, and can be limited to the first bytes of a buffer via
+ * {@link #setMaxDumpBytes(int)}.
+ */
 public class ByteLoggingHandler
         extends LoggingHandler implements ChannelInboundByteHandler, ChannelOutboundByteHandler {
 
     private static final String NEWLINE = String.format("%n");
-
-    private static final String[] BYTE2HEX = new String[256];
-    private static final String[] HEXPADDING = new String[16];
-    private static final String[] BYTEPADDING = new String[16];
+    private static final char[] NEWLINE_CHARS = NEWLINE.toCharArray();
+    private static final char[] HEADER = (
+            NEWLINE + "         +-------------------------------------------------+" +
+            NEWLINE + "         |  0  1  2  3  4  5  6  7  8  9  a  b  c  d  e  f |" +
+            NEWLINE + "+--------+-------------------------------------------------+----------------+").toCharArray();
+    private static final char[] FOOTER = (
+            NEWLINE + "+--------+-------------------------------------------------+----------------+").toCharArray();
+
+    /**
+     * The number of characters of a row of the dump without the line separator.
+     */
+    private static final int ROW_LENGTH = 77;
+
+    /**
+     * The largest dump buffer which is kept by a thread. Larger dumps use a new array.
+     */
+    private static final int MAX_CACHED_DUMP_LENGTH = 64 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
     private static final char[] BYTE2CHAR = new char[256];
 
-    static {
-        int i;
-
-        // Generate the lookup table for byte-to-hex-dump conversion
-        for (i = 0; i < 10; i ++) {
-            StringBuilder buf = new StringBuilder(3);
-            buf.append(" 0");
-            buf.append(i);
-            BYTE2HEX[i] = buf.toString();
-        }
-        for (; i < 16; i ++) {
-            StringBuilder buf = new StringBuilder(3);
-            buf.append(" 0");
-            buf.append((char) ('a' + i - 10));
-            BYTE2HEX[i] = buf.toString();
-        }
-        for (; i < BYTE2HEX.length; i ++) {
-            StringBuilder buf = new StringBuilder(3);
-            buf.append(' ');
-            buf.append(Integer.toHexString(i));
-            BYTE2HEX[i] = buf.toString();
-        }
-
-        // Generate the lookup table for hex dump paddings
-        for (i = 0; i < HEXPADDING.length; i ++) {
-            int padding = HEXPADDING.length - i;
-            StringBuilder buf = new StringBuilder(padding * 3);
-            for (int j = 0; j < padding; j ++) {
-                buf.append("   ");
-            }
-            HEXPADDING[i] = buf.toString();
-        }
-
-        // Generate the lookup table for byte dump paddings
-        for (i = 0; i < BYTEPADDING.length; i ++) {
-            int padding = BYTEPADDING.length - i;
-            StringBuilder buf = new StringBuilder(padding);
-            for (int j = 0; j < padding; j ++) {
-                buf.append(' ');
-            }
-            BYTEPADDING[i] = buf.toString();
+    private static final ThreadLocal<char[]> DUMP_BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[1024];
         }
+    };
 
+    static {
         // Generate the lookup table for byte-to-char conversion
-        for (i = 0; i < BYTE2CHAR.length; i ++) {
+        for (int i = 0; i < BYTE2CHAR.length; i ++) {
             if (i <= 0x1f || i >= 0x7f) {
                 BYTE2CHAR[i] = '.';
             } else {
@@ -85,6 +72,8 @@ public class ByteLoggingHandler
         }
     }
 
+    private volatile int maxDumpBytes;
+
     public ByteLoggingHandler() { }
 
     public ByteLoggingHandler(Class<?> clazz, LogLevel level) {
@@ -107,6 +96,25 @@ public class ByteLoggingHandler
         super(name);
     }
 
+    /**
+     * Returns the maximum number of bytes of a buffer which are included in the hex dump, or {@code 0} if there is
+     * no limit.
+     */
+    public int getMaxDumpBytes() {
+        return maxDumpBytes;
+    }
+
+    /**
+     * Limits the hex dump to the first {@code maxDumpBytes} bytes of a buffer. The default is {@code 0}, which
+     * dumps the whole buffer.
+     */
+    public void setMaxDumpBytes(int maxDumpBytes) {
+        if (maxDumpBytes < 0) {
+            throw new IllegalArgumentException("maxDumpBytes: " + maxDumpBytes + " (expected: >= 0)");
+        }
+        this.maxDumpBytes = maxDumpBytes;
+    }
+
     @Override
     public ByteBuf newInboundBuffer(ChannelHandlerContext ctx) throws Exception {
         return ChannelHandlerUtil.allocate(ctx);
@@ -131,7 +139,7 @@ public class ByteLoggingHandler
     public void inboundBufferUpdated(ChannelHandlerContext ctx)
             throws Exception {
         ByteBuf buf = ctx.inboundByteBuffer();
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, formatBuffer("RECEIVED", buf)));
         }
         ctx.nextInboundByteBuffer().writeBytes(buf);
@@ -142,7 +150,7 @@ public class ByteLoggingHandler
     public void flush(ChannelHandlerContext ctx, ChannelPromise promise)
             throws Exception {
         ByteBuf buf = ctx.outboundByteBuffer();
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, formatBuffer("WRITE", buf)));
         }
         ctx.nextOutboundByteBuffer().writeBytes(buf);
@@ -150,53 +158,76 @@ public class ByteLoggingHandler
     }
 
     protected String formatBuffer(String message, ByteBuf buf) {
-        int length = buf.readableBytes();
-        int rows = length / 16 + (length % 15 == 0? 0 : 1) + 4;
-        StringBuilder dump = new StringBuilder(rows * 80 + message.length() + 16);
+        final int length = buf.readableBytes();
+        final int maxDumpBytes = this.maxDumpBytes;
+        final int dumpLength = maxDumpBytes > 0 ? Math.min(length, maxDumpBytes) : length;
+        final int rows = dumpLength + 15 >>> 4;
+
+        StringBuilder summary = new StringBuilder(message.length() + 32);
+        summary.append(message).append('(').append(length).append('B');
+        if (dumpLength < length) {
+            summary.append(", first ").append(dumpLength).append("B shown");
+        }
+        summary.append(')');
 
-        dump.append(message).append('(').append(length).append('B').append(')');
-        dump.append(
-                NEWLINE + "         +-------------------------------------------------+" +
-                NEWLINE + "         |  0  1  2  3  4  5  6  7  8  9  a  b  c  d  e  f |" +
-                NEWLINE + "+--------+-------------------------------------------------+----------------+");
+        char[] dump = dumpBuffer(
+                summary.length() + HEADER.length + rows * (NEWLINE_CHARS.length + ROW_LENGTH) + FOOTER.length);
+        int pos = summary.length();
+        summary.getChars(0, pos, dump, 0);
+        pos = append(dump, pos, HEADER);
 
         final int startIndex = buf.readerIndex();
-        final int endIndex = buf.writerIndex();
-
-        int i;
-        for (i = startIndex; i < endIndex; i ++) {
-            int relIdx = i - startIndex;
-            int relIdxMod16 = relIdx & 15;
-            if (relIdxMod16 == 0) {
-                dump.append(NEWLINE);
-                dump.append(Long.toHexString(relIdx & 0xFFFFFFFFL | 0x100000000L));
-                dump.setCharAt(dump.length() - 9, '|');
-                dump.append('|');
+        for (int rowStart = 0; rowStart < dumpLength; rowStart += 16) {
+            final int rowLength = Math.min(16, dumpLength - rowStart);
+            pos = append(dump, pos, NEWLINE_CHARS);
+            dump[pos ++] = '|';
+            for (int shift = 28; shift >= 0; shift -= 4) {
+                dump[pos ++] = HEX_DIGITS[rowStart >>> shift & 0xf];
+            }
+            dump[pos ++] = '|';
+            for (int j = 0; j < rowLength; j ++) {
+                int b = buf.getUnsignedByte(startIndex + rowStart + j);
+                dump[pos ++] = ' ';
+                dump[pos ++] = HEX_DIGITS[b >>> 4];
+                dump[pos ++] = HEX_DIGITS[b & 0xf];
             }
-            dump.append(BYTE2HEX[buf.getUnsignedByte(i)]);
-            if (relIdxMod16 == 15) {
-                dump.append(" |");
-                for (int j = i - 15; j <= i; j ++) {
-                    dump.append(BYTE2CHAR[buf.getUnsignedByte(j)]);
-                }
-                dump.append('|');
+            pos = pad(dump, pos, (16 - rowLength) * 3);
+            dump[pos ++] = ' ';
+            dump[pos ++] = '|';
+            for (int j = 0; j < rowLength; j ++) {
+                dump[pos ++] = BYTE2CHAR[buf.getUnsignedByte(startIndex + rowStart + j)];
             }
+            pos = pad(dump, pos, 16 - rowLength);
+            dump[pos ++] = '|';
         }
 
-        if ((i - startIndex & 15) != 0) {
-            int remainder = length & 15;
-            dump.append(HEXPADDING[remainder]);
-            dump.append(" |");
-            for (int j = i - remainder; j < i; j ++) {
-                dump.append(BYTE2CHAR[buf.getUnsignedByte(j)]);
-            }
-            dump.append(BYTEPADDING[remainder]);
-            dump.append('|');
+        pos = append(dump, pos, FOOTER);
+        return new String(dump, 0, pos);
+    }
+
+    /**
+     * Returns the dump buffer of the current thread if it can hold the given number of characters.
+     */
+    private static char[] dumpBuffer(int length) {
+        char[] dump = DUMP_BUFFER.get();
+        if (dump.length >= length) {
+            return dump;
         }
+        if (length > MAX_CACHED_DUMP_LENGTH) {
+            return new char[length];
+        }
+        dump = new char[Math.min(MAX_CACHED_DUMP_LENGTH, Math.max(length, dump.length << 1))];
+        DUMP_BUFFER.set(dump);
+        return dump;
+    }
 
-        dump.append(
-                NEWLINE + "+--------+-------------------------------------------------+----------------+");
+    private static int append(char[] dump, int pos, char[] chars) {
+        System.arraycopy(chars, 0, dump, pos, chars.length);
+        return pos + chars.length;
+    }
 
-        return dump.toString();
+    private static int pad(char[] dump, int pos, int count) {
+        Arrays.fill(dump, pos, pos + count, ' ');
+        return pos + count;
     }
 }
@@ -25,21 +25,36 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link ChannelHandler} that logs all events using a logging framework.
  * By default, all events are logged at <tt>DEBUG</tt> level.
+ * <p>
+ * To keep the overhead low when the handler stays in the pipeline of a busy server, only every n-th event can be
+ * logged via {@link #setSampleRate(int)} and the number of logged events can be limited via
+ * {@link #setMaxEventsPerSecond(int)}. The number of events which were skipped is added to the next logged event.
  */
 @Sharable
 public class LoggingHandler extends ChannelDuplexHandler {
 
     private static final LogLevel DEFAULT_LEVEL = LogLevel.DEBUG;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
 
     protected final InternalLogger logger;
     protected final InternalLogLevel internalLevel;
 
     private final LogLevel level;
 
+    private volatile int sampleRate = 1;
+    private volatile int maxEventsPerSecond;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowEvents = new AtomicInteger();
+    private final AtomicLong skippedEvents = new AtomicLong();
+
     /**
      * Creates a new instance whose logger name is the fully qualified class
      * name of the instance with hex dump enabled.
@@ -120,11 +135,81 @@ public class LoggingHandler extends ChannelDuplexHandler {
         return level;
     }
 
+    /**
+     * Returns the number of events of which only one is logged.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Logs only every n-th event. The default is {@code 1}, which logs all events.
+     */
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate: " + sampleRate + " (expected: > 0)");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Returns the maximum number of events which are logged per second, or {@code 0} if there is no limit.
+     */
+    public int getMaxEventsPerSecond() {
+        return maxEventsPerSecond;
+    }
+
+    /**
+     * Limits the number of events which are logged per second. The default is {@code 0}, which means no limit.
+     */
+    public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+        if (maxEventsPerSecond < 0) {
+            throw new IllegalArgumentException(
+                    "maxEventsPerSecond: " + maxEventsPerSecond + " (expected: >= 0)");
+        }
+        this.maxEventsPerSecond = maxEventsPerSecond;
+    }
+
+    /**
+     * Returns {@code true} if the next event should be logged. This is checked before a log message is formatted,
+     * so the events which are not logged because of the log level, the {@link #setSampleRate(int) sample rate} or
+     * the {@link #setMaxEventsPerSecond(int) rate limit} cost no more than this call.
+     */
+    protected boolean isLoggable() {
+        if (!logger.isEnabled(internalLevel)) {
+            return false;
+        }
+
+        int sampleRate = this.sampleRate;
+        if (sampleRate > 1 && sampleCounter.getAndIncrement() % sampleRate != 0) {
+            skippedEvents.incrementAndGet();
+            return false;
+        }
+
+        int maxEventsPerSecond = this.maxEventsPerSecond;
+        if (maxEventsPerSecond > 0) {
+            long start = windowStart.get();
+            long now = System.nanoTime();
+            if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                windowEvents.set(0);
+            }
+            if (windowEvents.incrementAndGet() > maxEventsPerSecond) {
+                skippedEvents.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected String format(ChannelHandlerContext ctx, String message) {
         String chStr = ctx.channel().toString();
-        StringBuilder buf = new StringBuilder(chStr.length() + message.length() + 1);
+        long skipped = skippedEvents.get() == 0 ? 0 : skippedEvents.getAndSet(0);
+        StringBuilder buf = new StringBuilder(chStr.length() + message.length() + 1 + (skipped == 0 ? 0 : 32));
         buf.append(chStr);
         buf.append(' ');
+        if (skipped != 0) {
+            buf.append('(').append(skipped).append(" events skipped) ");
+        }
         buf.append(message);
         return buf.toString();
     }
@@ -132,7 +217,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void channelRegistered(ChannelHandlerContext ctx)
             throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "REGISTERED"));
         }
         super.channelRegistered(ctx);
@@ -141,7 +226,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx)
             throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "UNREGISTERED"));
         }
         super.channelUnregistered(ctx);
@@ -150,7 +235,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void channelActive(ChannelHandlerContext ctx)
             throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "ACTIVE"));
         }
         super.channelActive(ctx);
@@ -159,7 +244,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void channelInactive(ChannelHandlerContext ctx)
             throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "INACTIVE"));
         }
         super.channelInactive(ctx);
@@ -168,7 +253,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx,
             Throwable cause) throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "EXCEPTION: " + cause), cause);
         }
         super.exceptionCaught(ctx, cause);
@@ -177,7 +262,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx,
             Object evt) throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "USER_EVENT: " + evt));
         }
         super.userEventTriggered(ctx, evt);
@@ -186,7 +271,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void bind(ChannelHandlerContext ctx,
             SocketAddress localAddress, ChannelPromise promise) throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "BIND(" + localAddress + ')'));
         }
         super.bind(ctx, localAddress, promise);
@@ -196,7 +281,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     public void connect(ChannelHandlerContext ctx,
             SocketAddress remoteAddress, SocketAddress localAddress,
             ChannelPromise promise) throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "CONNECT(" + remoteAddress + ", " + localAddress + ')'));
         }
         super.connect(ctx, remoteAddress, localAddress, promise);
@@ -205,7 +290,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void disconnect(ChannelHandlerContext ctx,
             ChannelPromise promise) throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "DISCONNECT()"));
         }
         super.disconnect(ctx, promise);
@@ -214,7 +299,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void close(ChannelHandlerContext ctx,
             ChannelPromise promise) throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "CLOSE()"));
         }
         super.close(ctx, promise);
@@ -223,7 +308,7 @@ public class LoggingHandler extends ChannelDuplexHandler {
     @Override
     public void deregister(ChannelHandlerContext ctx,
              ChannelPromise promise) throws Exception {
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, "DEREGISTER()"));
         }
         super.deregister(ctx, promise);
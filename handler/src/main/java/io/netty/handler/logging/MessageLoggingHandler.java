@@ -23,10 +23,16 @@ import io.netty.channel.ChannelInboundMessageHandler;
 import io.netty.channel.ChannelOutboundMessageHandler;
 import io.netty.channel.ChannelPromise;
 
+/**
+ * A {@link LoggingHandler} which also logs all received and written messages. The logged content can be truncated
+ * via {@link #setMaxContentLength(int)}.
+ */
 public class MessageLoggingHandler
         extends LoggingHandler
         implements ChannelInboundMessageHandler<Object>, ChannelOutboundMessageHandler<Object> {
 
+    private volatile int maxContentLength;
+
     public MessageLoggingHandler() { }
 
     public MessageLoggingHandler(Class<?> clazz, LogLevel level) {
@@ -49,6 +55,24 @@ public class MessageLoggingHandler
         super(name);
     }
 
+    /**
+     * Returns the maximum number of characters of the logged messages, or {@code 0} if there is no limit.
+     */
+    public int getMaxContentLength() {
+        return maxContentLength;
+    }
+
+    /**
+     * Truncates the logged messages to {@code maxContentLength} characters. The messages after the limit are not
+     * converted to a {@link String} at all. The default is {@code 0}, which logs all messages completely.
+     */
+    public void setMaxContentLength(int maxContentLength) {
+        if (maxContentLength < 0) {
+            throw new IllegalArgumentException("maxContentLength: " + maxContentLength + " (expected: >= 0)");
+        }
+        this.maxContentLength = maxContentLength;
+    }
+
     @Override
     public MessageBuf<Object> newInboundBuffer(ChannelHandlerContext ctx) throws Exception {
         return Unpooled.messageBuffer();
@@ -63,7 +87,7 @@ public class MessageLoggingHandler
     public void inboundBufferUpdated(ChannelHandlerContext ctx)
             throws Exception {
         MessageBuf<Object> buf = ctx.inboundMessageBuffer();
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, formatBuffer("RECEIVED", buf)));
         }
 
@@ -82,7 +106,7 @@ public class MessageLoggingHandler
     public void flush(ChannelHandlerContext ctx, ChannelPromise promise)
             throws Exception {
         MessageBuf<Object> buf = ctx.outboundMessageBuffer();
-        if (logger.isEnabled(internalLevel)) {
+        if (isLoggable()) {
             logger.log(internalLevel, format(ctx, formatBuffer("WRITE", buf)));
         }
 
@@ -98,6 +122,6 @@ public class MessageLoggingHandler
     }
 
     protected String formatBuffer(String message, MessageBuf<Object> buf) {
-        return message + '(' + buf.size() + "): " + BufUtil.contentToString(buf);
+        return message + '(' + buf.size() + "): " + BufUtil.contentToString(buf, maxContentLength);
     }
 }
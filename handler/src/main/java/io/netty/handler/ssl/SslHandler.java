@@ -17,6 +17,7 @@ package io.netty.handler.ssl;
 
 import io.netty.buffer.BufUtil;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFlushPromiseNotifier;
@@ -27,8 +28,10 @@ import io.netty.channel.ChannelHandlerUtil;
 import io.netty.channel.ChannelInboundByteHandler;
 import io.netty.channel.ChannelOutboundByteHandler;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelProgressivePromise;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.ChannelStateHandler;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.FileRegion;
 import io.netty.util.concurrent.DefaultPromise;
 import io.netty.util.concurrent.EventExecutor;
@@ -42,6 +45,7 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 import javax.net.ssl.SSLEngineResult.Status;
 import javax.net.ssl.SSLException;
 import java.io.EOFException;
@@ -51,7 +55,10 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
@@ -132,6 +139,21 @@ import java.util.regex.Pattern;
  * <li>Initiate SSL handshake.</li>
  * </ol>
  *
+ * <h3>Coalescing small writes</h3>
+ * <p>
+ * Every flush is encrypted into at least one SSL/TLS record, so an application which flushes many small writes
+ * pays for the record overhead and the cipher setup of every one of them. If {@link #setCoalescingWrites(boolean)}
+ * is enabled, flushes of less than a full record are delayed until the current event loop iteration is done,
+ * so all data flushed in the meantime is encrypted into as few records as possible.
+ *
+ * <h3>Running the handshake off the I/O thread</h3>
+ * <p>
+ * By default the delegated tasks of the {@link SSLEngine}, which do the expensive cryptographic work of a
+ * handshake, run on the I/O thread and stall all other channels of the event loop. If an {@link Executor} is
+ * given to the constructor, the delegated tasks run there instead, while the handshake of the channel waits, and
+ * the handshake is continued on the event loop when they are done. Use a shared {@link SslHandshakeExecutor} to
+ * limit the number of handshakes which run at the same time and to monitor the handshake latency.
+ *
  * <h3>Known issues</h3>
  * <p>
  * Because of a known issue with the current implementation of the SslEngine that comes
@@ -166,6 +188,7 @@ public class SslHandler
     private static final SSLException SSLENGINE_CLOSED = new SSLException("SSLEngine closed already");
     private static final SSLException HANDSHAKE_TIMED_OUT = new SSLException("handshake timed out");
     private static final ClosedChannelException CHANNEL_CLOSED = new ClosedChannelException();
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
 
     static {
         SSLENGINE_CLOSED.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
@@ -180,7 +203,11 @@ public class SslHandler
 
     private final boolean startTls;
     private boolean sentFirstMessage;
-    private WritableByteChannel bufferChannel;
+
+    // Only accessed by the executor of ctx.
+    private FileTransfer fileTransfer;
+    private boolean flushDeferred;
+    private final Queue<FileTransfer> pendingFileTransfers = new ArrayDeque<FileTransfer>();
 
     private final LazyChannelPromise handshakePromise = new LazyChannelPromise();
     private final LazyChannelPromise sslCloseFuture = new LazyChannelPromise();
@@ -189,8 +216,38 @@ public class SslHandler
     private volatile long handshakeTimeoutMillis = 10000;
     private volatile long closeNotifyTimeoutMillis = 3000;
 
+    private volatile boolean coalescingWrites;
+    // Only accessed by the executor of ctx.
+    private boolean delegatedTaskRunning;
+    private long handshakeStartNanos;
+    // Only accessed by the executor of ctx.
+    private boolean flushPending;
+    private final Runnable pendingFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            if (!flushPending) {
+                return;
+            }
+            try {
+                flush0(ctx, ctx.newPromise(), true);
+            } catch (Exception e) {
+                ctx.fireExceptionCaught(e);
+            }
+        }
+    };
+
     private static final SslHandshakeCompletionEvent HANDSHAKE_SUCCESS_EVENT = new SslHandshakeCompletionEvent(null);
 
+    /**
+     * The maximum length of the plaintext of an SSL/TLS record.
+     */
+    private static final int MAX_PLAINTEXT_LENGTH = 16 * 1024;
+
+    /**
+     * The number of bytes of a file which are read and encrypted at once by {@link #sendFile}.
+     */
+    private static final int FILE_CHUNK_SIZE = 4 * MAX_PLAINTEXT_LENGTH;
+
     /**
      * Creates a new instance.
      *
@@ -218,7 +275,8 @@ public class SslHandler
      *        the {@link SSLEngine} this handler will use
      * @param delegatedTaskExecutor
      *        the {@link Executor} which will execute the delegated task
-     *        that {@link SSLEngine#getDelegatedTask()} will return
+     *        that {@link SSLEngine#getDelegatedTask()} will return, usually a shared
+     *        {@link SslHandshakeExecutor}
      */
     public SslHandler(SSLEngine engine, Executor delegatedTaskExecutor) {
         this(engine, false, delegatedTaskExecutor);
@@ -234,7 +292,8 @@ public class SslHandler
      *        by the {@link SSLEngine}
      * @param delegatedTaskExecutor
      *        the {@link Executor} which will execute the delegated task
-     *        that {@link SSLEngine#getDelegatedTask()} will return
+     *        that {@link SSLEngine#getDelegatedTask()} will return, usually a shared
+     *        {@link SslHandshakeExecutor}
      */
     public SslHandler(SSLEngine engine, boolean startTls, Executor delegatedTaskExecutor) {
         if (engine == null) {
@@ -288,6 +347,22 @@ public class SslHandler
         this.closeNotifyTimeoutMillis = closeNotifyTimeoutMillis;
     }
 
+    /**
+     * Returns {@code true} if flushes of less than a full SSL/TLS record are delayed until the end of the current
+     * event loop iteration, so they can be encrypted together with the following ones.
+     */
+    public boolean isCoalescingWrites() {
+        return coalescingWrites;
+    }
+
+    /**
+     * Sets if flushes of less than a full SSL/TLS record should be delayed until the end of the current event loop
+     * iteration, so they can be encrypted together with the following ones. The default is {@code false}.
+     */
+    public void setCoalescingWrites(boolean coalescingWrites) {
+        this.coalescingWrites = coalescingWrites;
+    }
+
     /**
      * Returns the {@link SSLEngine} which is used by this handler.
      */
@@ -314,8 +389,9 @@ public class SslHandler
      * See {@link #close()}
 
      */
-    public ChannelFuture close(final ChannelPromise future) {
+    public ChannelFuture close(ChannelPromise promise) {
         final ChannelHandlerContext ctx = this.ctx;
+        final ChannelPromise future = ChannelHandlerUtil.unvoid(ctx, promise);
         ctx.executor().execute(new Runnable() {
             @Override
             public void run() {
@@ -383,30 +459,66 @@ public class SslHandler
         ctx.read();
     }
 
+    /**
+     * Encrypts the given {@link FileRegion} chunk by chunk. While one chunk is written to the socket, the next one
+     * is read and encrypted already, so at most two encrypted chunks are held in memory no matter how large the
+     * file is. The content of a {@link DefaultFileRegion} is read with positional reads into a direct buffer,
+     * without the intermediate copy of {@link FileRegion#transferTo(WritableByteChannel, long)}.
+     * <p>
+     * Data which is flushed while a file is sent is encrypted once the file was sent completely.
+     */
     @Override
     public final void sendFile(ChannelHandlerContext ctx, FileRegion region, ChannelPromise promise) throws Exception {
-        if (bufferChannel == null) {
-            bufferChannel = new BufferChannel(ctx.outboundByteBuffer());
+        if (fileTransfer == null && ctx.outboundByteBuffer().isReadable()) {
+            flush0(ctx, ctx.newPromise(), true);
         }
-        long written = 0;
-        try {
-            for (;;) {
-                long localWritten = region.transferTo(bufferChannel, written);
-                if (localWritten == -1) {
-                    checkEOF(region, written);
-                    flush(ctx, promise);
-                    break;
-                }
-                written += localWritten;
-                if (written >= region.count()) {
-                    flush(ctx, promise);
-                    break;
+
+        // The data which could not be encrypted yet, for example because the handshake is not done, is encrypted
+        // right before the file.
+        FileTransfer transfer = new FileTransfer(region, promise, ctx.outboundByteBuffer().readableBytes());
+        if (fileTransfer != null) {
+            pendingFileTransfers.add(transfer);
+            return;
+        }
+        startFileTransfer(transfer);
+    }
+
+    private void startFileTransfer(final FileTransfer transfer) {
+        fileTransfer = transfer;
+        if (handshakePromise.isDone()) {
+            transfer.transfer();
+        } else {
+            // A file can only be sent once the handshake is done, as the handshake needs to wrap as well.
+            handshakePromise.addListener(new GenericFutureListener<Future<Channel>>() {
+                @Override
+                public void operationComplete(Future<Channel> future) throws Exception {
+                    if (future.isSuccess()) {
+                        transfer.transfer();
+                    } else {
+                        transfer.fail(future.cause());
+                    }
                 }
+            });
+        }
+    }
+
+    private void fileTransferDone() {
+        fileTransfer = null;
+
+        FileTransfer next = pendingFileTransfers.poll();
+        if (next != null) {
+            startFileTransfer(next);
+            return;
+        }
+
+        // Encrypt the data which was held back while the file was sent.
+        if (flushDeferred) {
+            flushDeferred = false;
+            try {
+                flush0(ctx, ctx.newPromise(), true);
+            } catch (Exception e) {
+                ctx.fireExceptionCaught(e);
             }
-        } catch (IOException e) {
-            promise.setFailure(e);
-        } finally {
-            region.release();
         }
     }
 
@@ -418,22 +530,201 @@ public class SslHandler
         }
     }
 
-    private static final class BufferChannel implements WritableByteChannel {
-        private final ByteBuf buffer;
+    /**
+     * Sends a {@link FileRegion} in chunks of {@link #FILE_CHUNK_SIZE} bytes. Only accessed by the executor of
+     * {@link #ctx}.
+     */
+    private final class FileTransfer {
+        private final FileRegion region;
+        private final ChannelPromise promise;
+        private int precedingBytes;
+        private ByteBuf chunk;
+        private long transferred;
+        private long written;
+        private int pendingChunks;
+        private boolean transferring;
+        private boolean done;
+
+        FileTransfer(FileRegion region, ChannelPromise promise, int precedingBytes) {
+            this.region = region;
+            this.promise = promise;
+            this.precedingBytes = precedingBytes;
+        }
+
+        void transfer() {
+            if (done || transferring) {
+                return;
+            }
+            transferring = true;
+            try {
+                if (precedingBytes > 0) {
+                    wrapPrecedingData();
+                }
+
+                final long count = region.count();
+                if (count == 0) {
+                    complete();
+                    return;
+                }
+                if (chunk == null) {
+                    chunk = ctx.alloc().directBuffer(FILE_CHUNK_SIZE, FILE_CHUNK_SIZE);
+                }
+                // Read and encrypt the next chunk while the previous one is written to the socket. A flush which
+                // completes right away, as it does on a blocking transport, only makes room for the next chunk, so
+                // the transfer goes on in this loop instead of nesting the flush listeners ever deeper, which
+                // would end up in a task per chunk once the listener stack is exhausted.
+                while (!done && pendingChunks < 2 && transferred < count) {
+                    int readBytes = readChunk();
+                    if (readBytes < 0) {
+                        checkEOF(region, transferred);
+                    }
+                    if (readBytes <= 0) {
+                        // Nothing can be read right now, which should not happen for a file.
+                        throw new EOFException("no progress at " + transferred + " of " + count + " bytes");
+                    }
+                    transferred += readBytes;
+
+                    wrapFully(chunk);
+                    chunk.clear();
 
-        BufferChannel(ByteBuf buffer) {
-            this.buffer = buffer;
+                    pendingChunks ++;
+                    final int chunkBytes = readBytes;
+                    ctx.flush(ctx.newPromise().addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            chunkWritten(future, chunkBytes);
+                        }
+                    }));
+                }
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                transferring = false;
+            }
+        }
+
+        /**
+         * Encrypts the data which was written before the file, but not encrypted yet.
+         */
+        private void wrapPrecedingData() throws SSLException {
+            ByteBuf in = ctx.outboundByteBuffer();
+            int length = Math.min(precedingBytes, in.readableBytes());
+            precedingBytes = 0;
+            if (length > 0) {
+                wrapFully(in.slice(in.readerIndex(), length));
+                in.skipBytes(length);
+                // Notifies the promises of the flushes which were held back.
+                flush0(ctx, length);
+            }
         }
+
+        private void wrapFully(ByteBuf in) throws SSLException {
+            final ByteBuf out = ctx.nextOutboundByteBuffer();
+            while (in.isReadable()) {
+                SSLEngineResult result = wrap(engine, in, out);
+                if (result.getStatus() == Status.CLOSED) {
+                    throw SSLENGINE_CLOSED;
+                }
+                if (result.bytesConsumed() == 0) {
+                    throw new SSLException("cannot send a file while handshaking: " + result.getHandshakeStatus());
+                }
+            }
+        }
+
+        private int readChunk() throws IOException {
+            if (region instanceof DefaultFileRegion) {
+                ByteBuffer dst = chunk.nioBuffer(chunk.writerIndex(), chunk.writableBytes());
+                int readBytes = ((DefaultFileRegion) region).read(dst, transferred);
+                if (readBytes > 0) {
+                    chunk.writerIndex(chunk.writerIndex() + readBytes);
+                }
+                return readBytes;
+            }
+
+            int writerIndex = chunk.writerIndex();
+            long readBytes = region.transferTo(new ChunkChannel(chunk), transferred);
+            if (readBytes == 0 && chunk.writerIndex() == writerIndex && transferred < region.count()) {
+                return -1;
+            }
+            return chunk.writerIndex() - writerIndex;
+        }
+
+        private void chunkWritten(ChannelFuture future, int chunkBytes) {
+            pendingChunks --;
+            written += chunkBytes;
+            if (!future.isSuccess()) {
+                fail(future.cause());
+                return;
+            }
+            if (done) {
+                return;
+            }
+
+            long count = region.count();
+            if (promise instanceof ChannelProgressivePromise) {
+                ((ChannelProgressivePromise) promise).setProgress(written, count);
+            }
+            if (written >= count) {
+                complete();
+            } else if (!transferring) {
+                transfer();
+            }
+        }
+
+        private void complete() {
+            done = true;
+            release();
+            promise.trySuccess();
+            fileTransferDone();
+        }
+
+        void fail(Throwable cause) {
+            if (done) {
+                return;
+            }
+            done = true;
+            release();
+            promise.tryFailure(cause);
+            fileTransferDone();
+        }
+
+        private void release() {
+            if (chunk != null) {
+                chunk.release();
+                chunk = null;
+            }
+            region.release();
+        }
+    }
+
+    /**
+     * Lets {@link FileRegion#transferTo(WritableByteChannel, long)} fill a chunk, which stops the transfer once
+     * the chunk is full.
+     */
+    private static final class ChunkChannel implements WritableByteChannel {
+        private final ByteBuf chunk;
+
+        ChunkChannel(ByteBuf chunk) {
+            this.chunk = chunk;
+        }
+
         @Override
         public int write(ByteBuffer src) {
-            int bytes = src.remaining();
-            buffer.writeBytes(src);
+            int bytes = Math.min(src.remaining(), chunk.writableBytes());
+            if (bytes < src.remaining()) {
+                ByteBuffer part = src.duplicate();
+                part.limit(part.position() + bytes);
+                chunk.writeBytes(part);
+                src.position(src.position() + bytes);
+            } else {
+                chunk.writeBytes(src);
+            }
             return bytes;
         }
 
         @Override
         public boolean isOpen() {
-            return buffer.refCnt() > 0;
+            return chunk.refCnt() > 0;
         }
 
         @Override
@@ -444,11 +735,34 @@ public class SslHandler
 
     @Override
     public void flush(final ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        if (coalescingWrites && (!startTls || sentFirstMessage)) {
+            ByteBuf in = ctx.outboundByteBuffer();
+            if (in.readableBytes() < MAX_PLAINTEXT_LENGTH) {
+                // Wait for more data to fill up the record. The pending data is encrypted by the next flush or
+                // at the end of the current event loop iteration at the latest.
+                addFlushPromise(ctx, promise, in.readableBytes());
+                if (!flushPending) {
+                    flushPending = true;
+                    ctx.executor().execute(pendingFlushTask);
+                }
+                return;
+            }
+        }
         flush0(ctx, promise, false);
     }
 
+    private void addFlushPromise(ChannelHandlerContext ctx, ChannelPromise promise, int pendingDataSize) {
+        if (ctx.executor() == ctx.channel().eventLoop()) {
+            flushFutureNotifier.add(promise, pendingDataSize);
+        } else {
+            synchronized (flushFutureNotifier) {
+                flushFutureNotifier.add(promise, pendingDataSize);
+            }
+        }
+    }
+
     private void flush0(ChannelHandlerContext ctx, ChannelPromise promise, boolean internal) throws Exception {
-        final ByteBuf in = ctx.outboundByteBuffer();
+        ByteBuf in = ctx.outboundByteBuffer();
         final ByteBuf out = ctx.nextOutboundByteBuffer();
 
         // Do not encrypt the first write request if this handler is
@@ -460,17 +774,26 @@ public class SslHandler
             return;
         }
 
-        if (ctx.executor() == ctx.channel().eventLoop()) {
-            flushFutureNotifier.add(promise, in.readableBytes());
-        } else {
-            synchronized (flushFutureNotifier) {
-                flushFutureNotifier.add(promise, in.readableBytes());
+        flushPending = false;
+        addFlushPromise(ctx, promise, in.readableBytes());
+        if (delegatedTaskRunning) {
+            // The SSLEngine cannot make progress before the delegated tasks are done, which flush again.
+            return;
+        }
+        if (fileTransfer != null) {
+            // Keep the order of the data, which is flushed again once the file was sent.
+            flushDeferred = true;
+            if (handshakePromise.isDone()) {
+                return;
             }
+            // Only drive the handshake.
+            in = Unpooled.EMPTY_BUFFER;
         }
 
         boolean unwrapLater = false;
         int bytesConsumed = 0;
         try {
+            loop:
             for (;;) {
                 SSLEngineResult result = wrap(engine, in, out);
                 bytesConsumed += result.bytesConsumed();
@@ -496,8 +819,10 @@ public class SslHandler
                         }
                         break;
                     case NEED_TASK:
-                        runDelegatedTasks();
-                        continue;
+                        if (runDelegatedTasks()) {
+                            continue;
+                        }
+                        break loop;
                     case FINISHED:
                         setHandshakeSuccess();
                         continue;
@@ -580,10 +905,19 @@ public class SslHandler
     }
 
     private static SSLEngineResult wrap(SSLEngine engine, ByteBuf in, ByteBuf out) throws SSLException {
-        ByteBuffer in0 = in.nioBuffer();
+        // Gather the components of a composite buffer instead of copying them into a single buffer.
+        final ByteBuffer in0;
+        final ByteBuffer[] in0s;
+        if (in.nioBufferCount() == 1) {
+            in0 = in.nioBuffer();
+            in0s = null;
+        } else {
+            in0 = null;
+            in0s = in.nioBuffers();
+        }
         for (;;) {
             ByteBuffer out0 = out.nioBuffer(out.writerIndex(), out.writableBytes());
-            SSLEngineResult result = engine.wrap(in0, out0);
+            SSLEngineResult result = in0s == null ? engine.wrap(in0, out0) : engine.wrap(in0s, out0);
             in.skipBytes(result.bytesConsumed());
             out.writerIndex(out.writerIndex() + result.bytesProduced());
             if (result.getStatus() == Status.BUFFER_OVERFLOW) {
@@ -707,32 +1041,31 @@ public class SslHandler
      *                  Is thrown if the given {@link ByteBuf} has not at least 5 bytes to read.
      */
     public static boolean isEncrypted(ByteBuf buffer) {
-        return getEncryptedPacketLength(buffer) != -1;
+        if (buffer.readableBytes() < 5) {
+            throw new IllegalArgumentException("buffer must have at least 5 readable bytes");
+        }
+        return getEncryptedPacketLength(buffer, buffer.readerIndex()) != -1;
     }
 
     /**
-     * Return how much bytes can be read out of the encrypted data. Be aware that this method will not increase
-     * the readerIndex of the given {@link ByteBuf}.
+     * Return how much bytes can be read out of the encrypted data which starts at the given offset. Be aware that
+     * this method will not increase the readerIndex of the given {@link ByteBuf}.
      *
      * @param   buffer
-     *                  The {@link ByteBuf} to read from. Be aware that it must have at least 5 bytes to read,
-     *                  otherwise it will throw an {@link IllegalArgumentException}.
+     *                  The {@link ByteBuf} to read from. Be aware that it must have at least 5 bytes to read
+     *                  from the given offset.
+     * @param   offset
+     *                  The index the encrypted packet starts at.
      * @return length
      *                  The length of the encrypted packet that is included in the buffer. This will
      *                  return {@code -1} if the given {@link ByteBuf} is not encrypted at all.
-     * @throws IllegalArgumentException
-     *                  Is thrown if the given {@link ByteBuf} has not at least 5 bytes to read.
      */
-    private static int getEncryptedPacketLength(ByteBuf buffer) {
-        if (buffer.readableBytes() < 5) {
-            throw new IllegalArgumentException("buffer must have at least 5 readable bytes");
-        }
-
+    private static int getEncryptedPacketLength(ByteBuf buffer, int offset) {
         int packetLength = 0;
 
         // SSLv3 or TLS - Check ContentType
         boolean tls;
-        switch (buffer.getUnsignedByte(buffer.readerIndex())) {
+        switch (buffer.getUnsignedByte(offset)) {
         case 20:  // change_cipher_spec
         case 21:  // alert
         case 22:  // handshake
@@ -746,10 +1079,10 @@ public class SslHandler
 
         if (tls) {
             // SSLv3 or TLS - Check ProtocolVersion
-            int majorVersion = buffer.getUnsignedByte(buffer.readerIndex() + 1);
+            int majorVersion = buffer.getUnsignedByte(offset + 1);
             if (majorVersion == 3) {
                 // SSLv3 or TLS
-                packetLength = (getShort(buffer, buffer.readerIndex() + 3) & 0xFFFF) + 5;
+                packetLength = (getShort(buffer, offset + 3) & 0xFFFF) + 5;
                 if (packetLength <= 5) {
                     // Neither SSLv3 or TLSv1 (i.e. SSLv2 or bad data)
                     tls = false;
@@ -763,16 +1096,14 @@ public class SslHandler
         if (!tls) {
             // SSLv2 or bad data - Check the version
             boolean sslv2 = true;
-            int headerLength = (buffer.getUnsignedByte(
-                    buffer.readerIndex()) & 0x80) != 0 ? 2 : 3;
-            int majorVersion = buffer.getUnsignedByte(
-                    buffer.readerIndex() + headerLength + 1);
+            int headerLength = (buffer.getUnsignedByte(offset) & 0x80) != 0 ? 2 : 3;
+            int majorVersion = buffer.getUnsignedByte(offset + headerLength + 1);
             if (majorVersion == 2 || majorVersion == 3) {
                 // SSLv2
                 if (headerLength == 2) {
-                    packetLength = (getShort(buffer, buffer.readerIndex()) & 0x7FFF) + 2;
+                    packetLength = (getShort(buffer, offset) & 0x7FFF) + 2;
                 } else {
-                    packetLength = (getShort(buffer, buffer.readerIndex()) & 0x3FFF) + 3;
+                    packetLength = (getShort(buffer, offset) & 0x3FFF) + 3;
                 }
                 if (packetLength <= headerLength) {
                     sslv2 = false;
@@ -790,35 +1121,74 @@ public class SslHandler
 
     @Override
     public void inboundBufferUpdated(final ChannelHandlerContext ctx) throws Exception {
-        final ByteBuf in = ctx.inboundByteBuffer();
-
-        if (in.readableBytes() < 5) {
+        if (delegatedTaskRunning) {
+            // Keep the records until the delegated tasks are done, which unwrap again.
             return;
         }
 
-        int packetLength = getEncryptedPacketLength(in);
+        final ByteBuf in = ctx.inboundByteBuffer();
 
-        if (packetLength == -1) {
-            // Bad data - discard the buffer and raise an exception.
-            NotSslRecordException e = new NotSslRecordException(
-                    "not an SSL/TLS record: " + BufUtil.hexDump(in));
-            in.skipBytes(in.readableBytes());
-            ctx.fireExceptionCaught(e);
-            setHandshakeFailure(e);
-            return;
+        // Find all complete records, so they are unwrapped in a single pass and the SSLEngine is never asked to
+        // unwrap a partial record.
+        final int readable = in.readableBytes();
+        int length = 0;
+        while (readable - length >= 5) {
+            int packetLength = getEncryptedPacketLength(in, in.readerIndex() + length);
+            if (packetLength == -1) {
+                if (length > 0) {
+                    // Let the SSLEngine complain about the bad data after the good records were unwrapped.
+                    length = readable;
+                    break;
+                }
+
+                // Bad data - discard the buffer and raise an exception.
+                NotSslRecordException e = new NotSslRecordException(
+                        "not an SSL/TLS record: " + BufUtil.hexDump(in));
+                in.skipBytes(in.readableBytes());
+                ctx.fireExceptionCaught(e);
+                setHandshakeFailure(e);
+                return;
+            }
+
+            assert packetLength > 0;
+
+            if (packetLength > readable - length) {
+                break;
+            }
+            length += packetLength;
         }
 
-        assert packetLength > 0;
+        if (length == 0) {
+            return;
+        }
 
         final ByteBuf out = ctx.nextInboundByteBuffer();
+        final int endIndex = in.readerIndex() + length;
 
         boolean wrapLater = false;
         int bytesProduced = 0;
+        ByteBuffer in0 = null;
+        int in0Index = -1;
         try {
             loop:
             for (;;) {
-                SSLEngineResult result = unwrap(engine, in, out);
+                int readerIndex = in.readerIndex();
+                if (readerIndex >= endIndex) {
+                    // All records were unwrapped, but the SSLEngine may still have to tell about the handshake
+                    // status after running the delegated tasks.
+                    in0 = EMPTY_BUFFER;
+                } else if (in0 == null || in0Index != readerIndex) {
+                    // Either the previous view was consumed or a handler which was notified while unwrapping
+                    // triggered another unwrap, so start over where it stopped.
+                    in0 = nioBuffer(in, readerIndex, endIndex - readerIndex);
+                }
+
+                SSLEngineResult result = unwrap(engine, in, in0, out);
                 bytesProduced += result.bytesProduced();
+                in0Index = in.readerIndex();
+                if (!in0.hasRemaining()) {
+                    in0 = null;
+                }
 
                 switch (result.getStatus()) {
                 case CLOSED:
@@ -826,6 +1196,11 @@ public class SslHandler
                     sslCloseFuture.trySuccess(ctx.channel());
                     break;
                 case BUFFER_UNDERFLOW:
+                    // Asking about the handshake status after the delegated tasks underflows, but the SSLEngine may
+                    // still have something to send.
+                    if (result.getHandshakeStatus() == HandshakeStatus.NEED_WRAP) {
+                        wrapLater = true;
+                    }
                     break loop;
                 }
 
@@ -836,7 +1211,9 @@ public class SslHandler
                     wrapLater = true;
                     break;
                 case NEED_TASK:
-                    runDelegatedTasks();
+                    if (!runDelegatedTasks()) {
+                        break loop;
+                    }
                     break;
                 case FINISHED:
                     setHandshakeSuccess();
@@ -875,8 +1252,34 @@ public class SslHandler
         return (short) (buf.getByte(offset) << 8 | buf.getByte(offset + 1) & 0xFF);
     }
 
-    private static SSLEngineResult unwrap(SSLEngine engine, ByteBuf in, ByteBuf out) throws SSLException {
-        ByteBuffer in0 = in.nioBuffer();
+    /**
+     * Returns a {@link ByteBuffer} to unwrap the data which starts at the given index from. As a
+     * {@link SSLEngine} can only unwrap from a single {@link ByteBuffer}, the components of a composite buffer are
+     * used one record at a time. Only a record which crosses the boundary of two components is copied.
+     */
+    private static ByteBuffer nioBuffer(ByteBuf in, int index, int length) {
+        if (in.nioBufferCount() == 1) {
+            return in.nioBuffer(index, length);
+        }
+
+        int packetLength = getEncryptedPacketLength(in, index);
+        if (packetLength > 0 && packetLength < length) {
+            length = packetLength;
+        }
+        ByteBuffer[] buffers = in.nioBuffers(index, length);
+        if (buffers.length == 1) {
+            return buffers[0];
+        }
+        ByteBuffer merged = ByteBuffer.allocate(length);
+        for (ByteBuffer b: buffers) {
+            merged.put(b);
+        }
+        merged.flip();
+        return merged;
+    }
+
+    private static SSLEngineResult unwrap(
+            SSLEngine engine, ByteBuf in, ByteBuffer in0, ByteBuf out) throws SSLException {
         for (;;) {
             ByteBuffer out0 = out.nioBuffer(out.writerIndex(), out.writableBytes());
             SSLEngineResult result = engine.unwrap(in0, out0);
@@ -892,14 +1295,86 @@ public class SslHandler
         }
     }
 
-    private void runDelegatedTasks() {
+    /**
+     * Runs the delegated tasks of the {@link SSLEngine}. Returns {@code true} if they are done already, or
+     * {@code false} if they run on the {@link #delegatedTaskExecutor} and the handshake is continued by
+     * {@link #resumeHandshake(Throwable)} once they are done.
+     */
+    private boolean runDelegatedTasks() throws SSLException {
+        if (delegatedTaskExecutor == ImmediateExecutor.INSTANCE) {
+            runDelegatedTasks(engine);
+            return true;
+        }
+
+        delegatedTaskRunning = true;
+        try {
+            delegatedTaskExecutor.execute(new DelegatedTasks());
+        } catch (RejectedExecutionException e) {
+            delegatedTaskRunning = false;
+            throw new SSLException("failed to run the delegated tasks of the handshake", e);
+        }
+        return false;
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine) {
         for (;;) {
             Runnable task = engine.getDelegatedTask();
             if (task == null) {
                 break;
             }
+            task.run();
+        }
+    }
 
-            delegatedTaskExecutor.execute(task);
+    /**
+     * Continues the handshake on the event loop after the delegated tasks are done.
+     */
+    private void resumeHandshake(Throwable cause) {
+        delegatedTaskRunning = false;
+        try {
+            if (cause != null) {
+                setHandshakeFailure(cause instanceof SSLException ?
+                        cause : new SSLException("failed to run the delegated tasks of the handshake", cause));
+                return;
+            }
+
+            flush0(ctx, ctx.newPromise(), true);
+            if (!delegatedTaskRunning && ctx.inboundByteBuffer().isReadable()) {
+                inboundBufferUpdated(ctx);
+            }
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
+    private final class DelegatedTasks implements SslHandshakeExecutor.RejectableTask {
+        @Override
+        public void run() {
+            Throwable cause = null;
+            try {
+                runDelegatedTasks(engine);
+            } catch (Throwable t) {
+                cause = t;
+            }
+            resume(cause);
+        }
+
+        @Override
+        public void rejected(RejectedExecutionException cause) {
+            resume(cause);
+        }
+
+        private void resume(final Throwable cause) {
+            try {
+                ctx.executor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        resumeHandshake(cause);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.warn("Failed to continue the handshake of " + ctx.channel() + " on its event loop.", e);
+            }
         }
     }
 
@@ -908,6 +1383,10 @@ public class SslHandler
      */
     private void setHandshakeSuccess() {
         if (handshakePromise.trySuccess(ctx.channel())) {
+            if (delegatedTaskExecutor instanceof SslHandshakeExecutor && handshakeStartNanos != 0) {
+                ((SslHandshakeExecutor) delegatedTaskExecutor).handshakeSucceeded(
+                        System.nanoTime() - handshakeStartNanos);
+            }
             ctx.fireUserEventTriggered(HANDSHAKE_SUCCESS_EVENT);
         }
     }
@@ -944,6 +1423,9 @@ public class SslHandler
 
     private void notifyHandshakeFailure(Throwable cause) {
         if (handshakePromise.tryFailure(cause)) {
+            if (delegatedTaskExecutor instanceof SslHandshakeExecutor) {
+                ((SslHandshakeExecutor) delegatedTaskExecutor).handshakeFailed();
+            }
             ctx.fireUserEventTriggered(new SslHandshakeCompletionEvent(cause));
             ctx.pipeline().fireExceptionCaught(cause);
         }
@@ -982,6 +1464,7 @@ public class SslHandler
     }
 
     private Future<Channel> handshake0() {
+        handshakeStartNanos = System.nanoTime();
         final ScheduledFuture<?> timeoutFuture;
         if (handshakeTimeoutMillis > 0) {
             timeoutFuture = ctx.executor().schedule(new Runnable() {
@@ -1030,6 +1513,9 @@ public class SslHandler
                     }
                 }
             });
+        } else if (handshakeStartNanos == 0) {
+            // The server side starts the handshake once the client sends its hello.
+            handshakeStartNanos = System.nanoTime();
         }
         ctx.fireChannelActive();
     }
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import javax.net.ssl.SSLEngine;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link Executor} which runs the delegated tasks of {@link SSLEngine}s, the expensive cryptographic work of a
+ * handshake, on a shared pool instead of the I/O thread, so a burst of handshakes does not stall the other
+ * connections of an event loop. Share one instance between all {@link SslHandler}s:
+ * <pre>
+ * {@link SslHandshakeExecutor} handshakeExecutor = new {@link SslHandshakeExecutor}(
+ *         Executors.newFixedThreadPool(4), 4, 1024);
+ * ...
+ * pipeline.addLast("ssl", new {@link SslHandler}(engine, handshakeExecutor));
+ * </pre>
+ * At most {@code maxConcurrentHandshakes} handshakes run their delegated tasks at the same time, the others wait
+ * in a FIFO queue. Once {@code maxPendingHandshakes} handshakes are waiting, further handshakes are rejected and
+ * fail with an {@link javax.net.ssl.SSLException} instead of piling up. When the tasks of a handshake are done,
+ * the {@link SslHandler} continues the handshake on the event loop of its channel.
+ * <p>
+ * The executor also collects the duration of the handshakes of the {@link SslHandler}s which use it, from the
+ * start of the handshake until it succeeded, and the time their delegated tasks spent waiting in the queue.
+ */
+public final class SslHandshakeExecutor implements Executor {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SslHandshakeExecutor.class);
+
+    private final Executor executor;
+    private final int maxConcurrentHandshakes;
+    private final int maxPendingHandshakes;
+
+    // Guarded by this.
+    private final Queue<Task> pendingTasks = new ArrayDeque<Task>();
+    private int activeTasks;
+
+    private final AtomicLong taskCount = new AtomicLong();
+    private final AtomicLong taskTimeNanos = new AtomicLong();
+    private final AtomicLong queueTimeNanos = new AtomicLong();
+    private final AtomicLong maxQueueTimeNanos = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong handshakeCount = new AtomicLong();
+    private final AtomicLong handshakeTimeNanos = new AtomicLong();
+    private final AtomicLong maxHandshakeTimeNanos = new AtomicLong();
+    private final AtomicLong failedHandshakeCount = new AtomicLong();
+
+    /**
+     * Creates a new instance which lets up to {@code maxConcurrentHandshakes} handshakes run their delegated
+     * tasks at the same time and queues up to {@code maxPendingHandshakes} more.
+     *
+     * @param executor the {@link Executor} which runs the delegated tasks, usually a fixed size thread pool
+     * @param maxConcurrentHandshakes the maximum number of handshakes whose delegated tasks run at the same time
+     * @param maxPendingHandshakes the maximum number of handshakes which wait for their delegated tasks to run
+     */
+    public SslHandshakeExecutor(Executor executor, int maxConcurrentHandshakes, int maxPendingHandshakes) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        if (maxConcurrentHandshakes <= 0) {
+            throw new IllegalArgumentException(
+                    "maxConcurrentHandshakes: " + maxConcurrentHandshakes + " (expected: > 0)");
+        }
+        if (maxPendingHandshakes < 0) {
+            throw new IllegalArgumentException(
+                    "maxPendingHandshakes: " + maxPendingHandshakes + " (expected: >= 0)");
+        }
+        this.executor = executor;
+        this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+        this.maxPendingHandshakes = maxPendingHandshakes;
+    }
+
+    /**
+     * Runs the given task as soon as less than {@code maxConcurrentHandshakes} tasks are running.
+     *
+     * @throws RejectedExecutionException if {@code maxPendingHandshakes} tasks are waiting already
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+
+        Task t = new Task(task);
+        synchronized (this) {
+            if (activeTasks >= maxConcurrentHandshakes) {
+                if (pendingTasks.size() >= maxPendingHandshakes) {
+                    rejectedCount.incrementAndGet();
+                    throw new RejectedExecutionException(
+                            "too many pending handshakes: " + pendingTasks.size());
+                }
+                pendingTasks.add(t);
+                return;
+            }
+            activeTasks ++;
+        }
+        submit(t);
+    }
+
+    private void submit(Task task) {
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                activeTasks --;
+            }
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private void scheduleNext() {
+        for (;;) {
+            Task next;
+            synchronized (this) {
+                next = pendingTasks.poll();
+                if (next == null) {
+                    activeTasks --;
+                    return;
+                }
+            }
+            try {
+                submit(next);
+                return;
+            } catch (RuntimeException e) {
+                // submit() released the slot already, so take it again for the next task.
+                synchronized (this) {
+                    activeTasks ++;
+                }
+                next.reject(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of handshakes whose delegated tasks run at the same time.
+     */
+    public int maxConcurrentHandshakes() {
+        return maxConcurrentHandshakes;
+    }
+
+    /**
+     * Returns the maximum number of handshakes which wait for their delegated tasks to run.
+     */
+    public int maxPendingHandshakes() {
+        return maxPendingHandshakes;
+    }
+
+    /**
+     * Returns the number of handshakes whose delegated tasks are running.
+     */
+    public synchronized int activeHandshakes() {
+        return activeTasks;
+    }
+
+    /**
+     * Returns the number of handshakes which wait for their delegated tasks to run.
+     */
+    public synchronized int pendingHandshakes() {
+        return pendingTasks.size();
+    }
+
+    /**
+     * Returns the number of delegated task runs which were rejected because too many were pending.
+     */
+    public long rejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of delegated task runs which were executed.
+     */
+    public long taskCount() {
+        return taskCount.get();
+    }
+
+    /**
+     * Returns the total time spent in the execution of the delegated tasks.
+     */
+    public long totalTaskTimeNanos() {
+        return taskTimeNanos.get();
+    }
+
+    /**
+     * Returns the total time the delegated tasks waited in the queue before they were executed.
+     */
+    public long totalQueueTimeNanos() {
+        return queueTimeNanos.get();
+    }
+
+    /**
+     * Returns the longest time a delegated task waited in the queue before it was executed.
+     */
+    public long maxQueueTimeNanos() {
+        return maxQueueTimeNanos.get();
+    }
+
+    /**
+     * Returns the number of successful handshakes.
+     */
+    public long handshakeCount() {
+        return handshakeCount.get();
+    }
+
+    /**
+     * Returns the number of failed handshakes.
+     */
+    public long failedHandshakeCount() {
+        return failedHandshakeCount.get();
+    }
+
+    /**
+     * Returns the total duration of all successful handshakes.
+     */
+    public long totalHandshakeTimeNanos() {
+        return handshakeTimeNanos.get();
+    }
+
+    /**
+     * Returns the duration of the slowest successful handshake.
+     */
+    public long maxHandshakeTimeNanos() {
+        return maxHandshakeTimeNanos.get();
+    }
+
+    /**
+     * Returns the mean duration of the successful handshakes, or {@code 0} if there were none.
+     */
+    public long meanHandshakeTime(TimeUnit unit) {
+        long count = handshakeCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        return unit.convert(handshakeTimeNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    void handshakeSucceeded(long handshakeTimeNanos) {
+        handshakeCount.incrementAndGet();
+        this.handshakeTimeNanos.addAndGet(handshakeTimeNanos);
+        updateMax(maxHandshakeTimeNanos, handshakeTimeNanos);
+    }
+
+    void handshakeFailed() {
+        failedHandshakeCount.incrementAndGet();
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        for (;;) {
+            long current = max.get();
+            if (value <= current || max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(active: " + activeHandshakes() + '/' + maxConcurrentHandshakes +
+                ", pending: " + pendingHandshakes() + '/' + maxPendingHandshakes +
+                ", rejected: " + rejectedCount() + ", handshakes: " + handshakeCount() +
+                ", failed: " + failedHandshakeCount() +
+                ", meanHandshakeTime: " + meanHandshakeTime(TimeUnit.MICROSECONDS) + "us)";
+    }
+
+    private final class Task implements Runnable {
+        private final Runnable task;
+        private final long queuedNanos = System.nanoTime();
+
+        Task(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            long queueTime = startNanos - queuedNanos;
+            queueTimeNanos.addAndGet(queueTime);
+            updateMax(maxQueueTimeNanos, queueTime);
+            try {
+                task.run();
+            } finally {
+                taskCount.incrementAndGet();
+                taskTimeNanos.addAndGet(System.nanoTime() - startNanos);
+                scheduleNext();
+            }
+        }
+
+        void reject(RuntimeException cause) {
+            RejectedExecutionException e = cause instanceof RejectedExecutionException ?
+                    (RejectedExecutionException) cause : new RejectedExecutionException(cause);
+            if (task instanceof RejectableTask) {
+                ((RejectableTask) task).rejected(e);
+            } else {
+                logger.warn("Dropped a delegated task because the executor rejected it.", e);
+            }
+        }
+    }
+
+    /**
+     * A task which wants to know if it was accepted by {@link #execute(Runnable)}, but rejected later on because
+     * the underlying {@link Executor} did not accept it.
+     */
+    interface RejectableTask extends Runnable {
+        void rejected(RejectedExecutionException cause);
+    }
+}
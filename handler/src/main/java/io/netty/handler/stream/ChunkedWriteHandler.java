@@ -15,6 +15,8 @@
  */
 package io.netty.handler.stream;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.MessageBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
@@ -27,11 +29,13 @@ import io.netty.channel.ChannelHandlerUtil;
 import io.netty.channel.ChannelOutboundMessageHandler;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link ChannelHandler} that adds support for writing a large data stream
@@ -63,6 +67,18 @@ import java.util.concurrent.atomic.AtomicInteger;
  * {@link ChunkedInput#readChunk(Object)}, resulting in the indefinitely suspended
  * transfer.  To resume the transfer when a new chunk is available, you have to
  * call {@link #resumeTransfer()}.
+ *
+ * <h3>Limiting the memory used by a transfer</h3>
+ *
+ * By default up to {@code maxPendingWrites} chunks may wait to be written to
+ * the socket, no matter how large they are. If a byte budget is set with
+ * {@link #setMaxPendingBytes(long)}, the next chunk is only fetched while
+ * less than that many bytes wait to be written, and a suspended transfer
+ * continues once the socket drained half of them. The memory used by a
+ * transfer is then bounded by the budget plus one chunk, so serving many large
+ * streams at once uses constant memory. The chunks of a {@link ChunkedByteInput}
+ * are read straight into the outbound buffer of the next handler, which is
+ * allocated by the {@link io.netty.buffer.ByteBufAllocator} of the channel.
  */
 public class ChunkedWriteHandler
         extends ChannelDuplexHandler implements ChannelOutboundMessageHandler<Object> {
@@ -74,6 +90,9 @@ public class ChunkedWriteHandler
     private final int maxPendingWrites;
     private volatile ChannelHandlerContext ctx;
     private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private volatile long maxPendingBytes;
+    private volatile boolean suspended;
     private Object currentEvent;
 
     public ChunkedWriteHandler() {
@@ -98,7 +117,47 @@ public class ChunkedWriteHandler
         this.ctx = ctx;
     }
 
+    /**
+     * Returns the maximum number of bytes which may wait to be written before the transfer is suspended, or
+     * {@code 0} if only the number of pending chunks is limited.
+     */
+    public long getMaxPendingBytes() {
+        return maxPendingBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes which may wait to be written before the transfer is suspended. Once
+     * the pending bytes dropped to half of it, the transfer continues. Use {@code 0} to limit the number of
+     * pending chunks to {@code maxPendingWrites} instead, which is the default.
+     */
+    public void setMaxPendingBytes(long maxPendingBytes) {
+        if (maxPendingBytes < 0) {
+            throw new IllegalArgumentException(
+                    "maxPendingBytes: " + maxPendingBytes + " (expected: >= 0)");
+        }
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    /**
+     * Returns the number of bytes which were fetched from the inputs, but not written to the socket yet.
+     */
+    public long pendingBytes() {
+        return pendingBytes.get();
+    }
+
     private boolean isWritable() {
+        long maxPendingBytes = this.maxPendingBytes;
+        if (maxPendingBytes > 0) {
+            return pendingBytes.get() < maxPendingBytes;
+        }
+        return pendingWrites.get() < maxPendingWrites;
+    }
+
+    private boolean canResume() {
+        long maxPendingBytes = this.maxPendingBytes;
+        if (maxPendingBytes > 0) {
+            return pendingBytes.get() <= maxPendingBytes >>> 1;
+        }
         return pendingWrites.get() < maxPendingWrites;
     }
 
@@ -231,8 +290,17 @@ public class ChunkedWriteHandler
                 boolean read;
                 boolean endOfInput;
                 boolean suspend;
+                long chunkSize = 0;
                 try {
-                    read = readChunk(ctx, chunks);
+                    if (maxPendingBytes > 0) {
+                        long mark = outboundMark(ctx, chunks);
+                        read = readChunk(ctx, chunks);
+                        if (read) {
+                            chunkSize = chunkSize(ctx, chunks, mark);
+                        }
+                    } else {
+                        read = readChunk(ctx, chunks);
+                    }
                     endOfInput = chunks.isEndOfInput();
 
                     if (!read) {
@@ -267,45 +335,31 @@ public class ChunkedWriteHandler
                 }
 
                 pendingWrites.incrementAndGet();
+                pendingBytes.addAndGet(chunkSize);
                 ChannelFuture f = ctx.flush();
                 if (endOfInput) {
                     this.currentEvent = null;
+                }
 
-                    // Register a listener which will close the input once the write is complete.
-                    // This is needed because the Chunk may have some resource bound that can not
-                    // be closed before its not written.
-                    //
-                    // See https://github.com/netty/netty/issues/303
-                    f.addListener(new ChannelFutureListener() {
-                        @Override
-                        public void operationComplete(ChannelFuture future) throws Exception {
-                            pendingWrites.decrementAndGet();
+                final long writtenBytes = chunkSize;
+                final boolean lastChunk = endOfInput;
+                f.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        pendingWrites.decrementAndGet();
+                        pendingBytes.addAndGet(-writtenBytes);
+                        if (lastChunk || !future.isSuccess()) {
+                            // Close the input only once the write is complete, because the chunk may have some
+                            // resource bound that can not be closed before its not written.
+                            //
+                            // See https://github.com/netty/netty/issues/303
                             closeInput(chunks);
+                        } else if (suspended && canResume()) {
+                            suspended = false;
+                            resumeTransfer();
                         }
-                    });
-                } else if (isWritable()) {
-                    f.addListener(new ChannelFutureListener() {
-                        @Override
-                        public void operationComplete(ChannelFuture future) throws Exception {
-                            pendingWrites.decrementAndGet();
-                            if (!future.isSuccess()) {
-                                closeInput((ChunkedInput<?>) currentEvent);
-                            }
-                        }
-                    });
-                } else {
-                    f.addListener(new ChannelFutureListener() {
-                        @Override
-                        public void operationComplete(ChannelFuture future) throws Exception {
-                            pendingWrites.decrementAndGet();
-                            if (!future.isSuccess()) {
-                                closeInput((ChunkedInput<?>) currentEvent);
-                            } else if (isWritable()) {
-                                resumeTransfer();
-                            }
-                        }
-                    });
-                }
+                    }
+                });
             } else {
                 ChannelHandlerUtil.addToNextOutboundBuffer(ctx, currentEvent);
                 this.currentEvent = null;
@@ -316,6 +370,48 @@ public class ChunkedWriteHandler
                 return;
             }
         }
+
+        if (!isWritable()) {
+            // Let the completion of the pending writes resume the transfer once the socket drained.
+            suspended = true;
+            if (canResume()) {
+                // All pending writes completed in the meantime.
+                suspended = false;
+                resumeTransfer();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes in the next outbound byte buffer or the number of messages in the next outbound
+     * message buffer, which is passed to {@link #chunkSize(ChannelHandlerContext, ChunkedInput, long)} after the
+     * chunk was read.
+     */
+    private static long outboundMark(ChannelHandlerContext ctx, ChunkedInput<?> chunks) {
+        if (chunks instanceof ChunkedByteInput) {
+            return ctx.nextOutboundByteBuffer().writerIndex();
+        }
+        return ctx.nextOutboundMessageBuffer().size();
+    }
+
+    /**
+     * Returns the number of bytes which were added to the next outbound buffer since the given mark was taken.
+     */
+    private static long chunkSize(ChannelHandlerContext ctx, ChunkedInput<?> chunks, long mark) {
+        if (chunks instanceof ChunkedByteInput) {
+            return ctx.nextOutboundByteBuffer().writerIndex() - mark;
+        }
+
+        long skip = mark;
+        long size = 0;
+        for (Object msg: ctx.nextOutboundMessageBuffer()) {
+            if (skip > 0) {
+                skip --;
+            } else {
+                size += messageSize(msg);
+            }
+        }
+        return size;
     }
 
     /**
@@ -336,6 +432,23 @@ public class ChunkedWriteHandler
         }
     }
 
+    /**
+     * Returns the number of bytes the given message will write to the socket. A message whose size is not known
+     * counts as a chunk of the default size.
+     */
+    private static long messageSize(Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        }
+        if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        }
+        if (msg instanceof FileRegion) {
+            return ((FileRegion) msg).count();
+        }
+        return ChunkedStream.DEFAULT_CHUNK_SIZE;
+    }
+
     static void closeInput(ChunkedInput<?> chunks) {
         try {
             chunks.close();
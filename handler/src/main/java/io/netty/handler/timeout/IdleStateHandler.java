@@ -21,6 +21,7 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelHandlerUtil;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOperationHandler;
 import io.netty.channel.ChannelPromise;
@@ -95,14 +96,25 @@ import java.util.concurrent.TimeUnit;
  * ...
  * </pre>
  *
+ * <h3>Checking many connections</h3>
+ * By default, every {@link IdleStateHandler} schedules a task per enabled idle state. If sweeping is enabled,
+ * all idle state handlers, {@link ReadTimeoutHandler}s and {@link WriteTimeoutHandler}s of an event loop are checked
+ * by a single periodic task instead, which scales much better to a huge number of connections. The events are then
+ * triggered up to {@code io.netty.handler.timeout.sweepInterval} milliseconds (default: 100) late. Sweeping is
+ * enabled by the {@code sweep} constructor parameter, which defaults to the
+ * {@code io.netty.handler.timeout.sweep} system property.
+ *
  * @see ReadTimeoutHandler
  * @see WriteTimeoutHandler
  */
 public class IdleStateHandler extends ChannelStateHandlerAdapter implements ChannelOperationHandler {
 
-    private final long readerIdleTimeMillis;
-    private final long writerIdleTimeMillis;
-    private final long allIdleTimeMillis;
+    private static final long MIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long readerIdleTimeNanos;
+    private final long writerIdleTimeNanos;
+    private final long allIdleTimeNanos;
+    private final boolean sweepEnabled;
 
     volatile ScheduledFuture<?> readerIdleTimeout;
     volatile long lastReadTime;
@@ -115,6 +127,8 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
     volatile ScheduledFuture<?> allIdleTimeout;
     private boolean firstAllIdleEvent = true;
 
+    private volatile IdleSweep sweep;
+
     private volatile int state; // 0 - none, 1 - initialized, 2 - destroyed
 
     /**
@@ -164,25 +178,54 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
     public IdleStateHandler(
             long readerIdleTime, long writerIdleTime, long allIdleTime,
             TimeUnit unit) {
+        this(readerIdleTime, writerIdleTime, allIdleTime, unit, IdleTimeoutSweeper.ENABLED_BY_DEFAULT);
+    }
+
+    /**
+     * Creates a new instance firing {@link IdleStateEvent}s.
+     *
+     * @param readerIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#READER_IDLE}
+     *        will be triggered when no read was performed for the specified
+     *        period of time.  Specify {@code 0} to disable.
+     * @param writerIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#WRITER_IDLE}
+     *        will be triggered when no write was performed for the specified
+     *        period of time.  Specify {@code 0} to disable.
+     * @param allIdleTime
+     *        an {@link IdleStateEvent} whose state is {@link IdleState#ALL_IDLE}
+     *        will be triggered when neither read nor write was performed for
+     *        the specified period of time.  Specify {@code 0} to disable.
+     * @param unit
+     *        the {@link TimeUnit} of {@code readerIdleTime},
+     *        {@code writeIdleTime}, and {@code allIdleTime}
+     * @param sweep
+     *        {@code true} to check the idle states with a single task per
+     *        event loop, {@code false} to schedule a task per idle state
+     */
+    public IdleStateHandler(
+            long readerIdleTime, long writerIdleTime, long allIdleTime,
+            TimeUnit unit, boolean sweep) {
         if (unit == null) {
             throw new NullPointerException("unit");
         }
 
         if (readerIdleTime <= 0) {
-            readerIdleTimeMillis = 0;
+            readerIdleTimeNanos = 0;
         } else {
-            readerIdleTimeMillis = Math.max(unit.toMillis(readerIdleTime), 1);
+            readerIdleTimeNanos = Math.max(unit.toNanos(readerIdleTime), MIN_TIMEOUT_NANOS);
         }
         if (writerIdleTime <= 0) {
-            writerIdleTimeMillis = 0;
+            writerIdleTimeNanos = 0;
         } else {
-            writerIdleTimeMillis = Math.max(unit.toMillis(writerIdleTime), 1);
+            writerIdleTimeNanos = Math.max(unit.toNanos(writerIdleTime), MIN_TIMEOUT_NANOS);
         }
         if (allIdleTime <= 0) {
-            allIdleTimeMillis = 0;
+            allIdleTimeNanos = 0;
         } else {
-            allIdleTimeMillis = Math.max(unit.toMillis(allIdleTime), 1);
+            allIdleTimeNanos = Math.max(unit.toNanos(allIdleTime), MIN_TIMEOUT_NANOS);
         }
+        sweepEnabled = sweep;
     }
 
     /**
@@ -190,7 +233,7 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
      *
      */
     public long getReaderIdleTimeInMillis() {
-        return readerIdleTimeMillis;
+        return TimeUnit.NANOSECONDS.toMillis(readerIdleTimeNanos);
     }
 
     /**
@@ -198,7 +241,7 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
      *
      */
     public long getWriterIdleTimeInMillis() {
-        return writerIdleTimeMillis;
+        return TimeUnit.NANOSECONDS.toMillis(writerIdleTimeNanos);
     }
 
     /**
@@ -206,7 +249,7 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
      *
      */
     public long getAllIdleTimeInMillis() {
-        return allIdleTimeMillis;
+        return TimeUnit.NANOSECONDS.toMillis(allIdleTimeNanos);
     }
 
     @Override
@@ -252,7 +295,7 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
 
     @Override
     public void inboundBufferUpdated(ChannelHandlerContext ctx) throws Exception {
-        lastReadTime = System.currentTimeMillis();
+        lastReadTime = LoopClock.nanoTime(ctx.executor());
         firstReaderIdleEvent = firstAllIdleEvent = true;
         ctx.fireInboundBufferUpdated();
     }
@@ -265,10 +308,11 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
     @Override
 
     public void flush(final ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        promise = ChannelHandlerUtil.unvoid(ctx, promise);
         promise.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
-                lastWriteTime = System.currentTimeMillis();
+                lastWriteTime = LoopClock.nanoTime(ctx.executor());
                 firstWriterIdleEvent = firstAllIdleEvent = true;
             }
         });
@@ -303,17 +347,25 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
     }
 
     @Override
-    public void sendFile(ChannelHandlerContext ctx, FileRegion region, ChannelPromise promise) throws Exception {
+    public void sendFile(final ChannelHandlerContext ctx, FileRegion region, ChannelPromise promise) throws Exception {
+        promise = ChannelHandlerUtil.unvoid(ctx, promise);
         promise.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
-                lastWriteTime = System.currentTimeMillis();
+                lastWriteTime = LoopClock.nanoTime(ctx.executor());
                 firstWriterIdleEvent = firstAllIdleEvent = true;
             }
         });
         ctx.sendFile(region, promise);
     }
 
+    private long lastIoTime() {
+        long lastReadTime = this.lastReadTime;
+        long lastWriteTime = this.lastWriteTime;
+        // The times are compared by subtraction as System.nanoTime() may overflow.
+        return lastReadTime - lastWriteTime >= 0 ? lastReadTime : lastWriteTime;
+    }
+
     private void initialize(ChannelHandlerContext ctx) {
         // Avoid the case where destroy() is called before scheduling timeouts.
         // See: https://github.com/netty/netty/issues/143
@@ -327,21 +379,31 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
 
         EventExecutor loop = ctx.executor();
 
-        lastReadTime = lastWriteTime = System.currentTimeMillis();
-        if (readerIdleTimeMillis > 0) {
+        long currentTime = LoopClock.nanoTime(loop);
+        lastReadTime = lastWriteTime = currentTime;
+        if (sweepEnabled) {
+            if (readerIdleTimeNanos > 0 || writerIdleTimeNanos > 0 || allIdleTimeNanos > 0) {
+                IdleSweep sweep = new IdleSweep(ctx, currentTime);
+                this.sweep = sweep;
+                IdleTimeoutSweeper.register(loop, sweep);
+            }
+            return;
+        }
+
+        if (readerIdleTimeNanos > 0) {
             readerIdleTimeout = loop.schedule(
                     new ReaderIdleTimeoutTask(ctx),
-                    readerIdleTimeMillis, TimeUnit.MILLISECONDS);
+                    readerIdleTimeNanos, TimeUnit.NANOSECONDS);
         }
-        if (writerIdleTimeMillis > 0) {
+        if (writerIdleTimeNanos > 0) {
             writerIdleTimeout = loop.schedule(
                     new WriterIdleTimeoutTask(ctx),
-                    writerIdleTimeMillis, TimeUnit.MILLISECONDS);
+                    writerIdleTimeNanos, TimeUnit.NANOSECONDS);
         }
-        if (allIdleTimeMillis > 0) {
+        if (allIdleTimeNanos > 0) {
             allIdleTimeout = loop.schedule(
                     new AllIdleTimeoutTask(ctx),
-                    allIdleTimeMillis, TimeUnit.MILLISECONDS);
+                    allIdleTimeNanos, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -360,12 +422,62 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
             allIdleTimeout.cancel(false);
             allIdleTimeout = null;
         }
+        IdleSweep sweep = this.sweep;
+        if (sweep != null) {
+            IdleTimeoutSweeper.unregister(sweep.ctx.executor(), sweep);
+            this.sweep = null;
+        }
     }
 
     protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
         ctx.fireUserEventTriggered(evt);
     }
 
+    private void fireReaderIdle(ChannelHandlerContext ctx) {
+        try {
+            IdleStateEvent event;
+            if (firstReaderIdleEvent) {
+                firstReaderIdleEvent = false;
+                event = IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT;
+            } else {
+                event = IdleStateEvent.READER_IDLE_STATE_EVENT;
+            }
+            channelIdle(ctx, event);
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
+    private void fireWriterIdle(ChannelHandlerContext ctx) {
+        try {
+            IdleStateEvent event;
+            if (firstWriterIdleEvent) {
+                firstWriterIdleEvent = false;
+                event = IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT;
+            } else {
+                event = IdleStateEvent.WRITER_IDLE_STATE_EVENT;
+            }
+            channelIdle(ctx, event);
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
+    private void fireAllIdle(ChannelHandlerContext ctx) {
+        try {
+            IdleStateEvent event;
+            if (firstAllIdleEvent) {
+                firstAllIdleEvent = false;
+                event = IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT;
+            } else {
+                event = IdleStateEvent.ALL_IDLE_STATE_EVENT;
+            }
+            channelIdle(ctx, event);
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
     private final class ReaderIdleTimeoutTask implements Runnable {
 
         private final ChannelHandlerContext ctx;
@@ -380,28 +492,17 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
                 return;
             }
 
-            long currentTime = System.currentTimeMillis();
+            long currentTime = LoopClock.nanoTime(ctx.executor());
             long lastReadTime = IdleStateHandler.this.lastReadTime;
-            long nextDelay = readerIdleTimeMillis - (currentTime - lastReadTime);
+            long nextDelay = readerIdleTimeNanos - (currentTime - lastReadTime);
             if (nextDelay <= 0) {
                 // Reader is idle - set a new timeout and notify the callback.
                 readerIdleTimeout =
-                    ctx.executor().schedule(this, readerIdleTimeMillis, TimeUnit.MILLISECONDS);
-                try {
-                    IdleStateEvent event;
-                    if (firstReaderIdleEvent) {
-                        firstReaderIdleEvent = false;
-                        event = IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT;
-                    } else {
-                        event = IdleStateEvent.READER_IDLE_STATE_EVENT;
-                    }
-                    channelIdle(ctx, event);
-                } catch (Throwable t) {
-                    ctx.fireExceptionCaught(t);
-                }
+                    ctx.executor().schedule(this, readerIdleTimeNanos, TimeUnit.NANOSECONDS);
+                fireReaderIdle(ctx);
             } else {
                 // Read occurred before the timeout - set a new timeout with shorter delay.
-                readerIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.MILLISECONDS);
+                readerIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.NANOSECONDS);
             }
         }
     }
@@ -420,28 +521,17 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
                 return;
             }
 
-            long currentTime = System.currentTimeMillis();
+            long currentTime = LoopClock.nanoTime(ctx.executor());
             long lastWriteTime = IdleStateHandler.this.lastWriteTime;
-            long nextDelay = writerIdleTimeMillis - (currentTime - lastWriteTime);
+            long nextDelay = writerIdleTimeNanos - (currentTime - lastWriteTime);
             if (nextDelay <= 0) {
                 // Writer is idle - set a new timeout and notify the callback.
                 writerIdleTimeout = ctx.executor().schedule(
-                        this, writerIdleTimeMillis, TimeUnit.MILLISECONDS);
-                try {
-                    IdleStateEvent event;
-                    if (firstWriterIdleEvent) {
-                        firstWriterIdleEvent = false;
-                        event = IdleStateEvent.FIRST_WRITER_IDLE_STATE_EVENT;
-                    } else {
-                        event = IdleStateEvent.WRITER_IDLE_STATE_EVENT;
-                    }
-                    channelIdle(ctx, event);
-                } catch (Throwable t) {
-                    ctx.fireExceptionCaught(t);
-                }
+                        this, writerIdleTimeNanos, TimeUnit.NANOSECONDS);
+                fireWriterIdle(ctx);
             } else {
                 // Write occurred before the timeout - set a new timeout with shorter delay.
-                writerIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.MILLISECONDS);
+                writerIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.NANOSECONDS);
             }
         }
     }
@@ -460,31 +550,76 @@ public class IdleStateHandler extends ChannelStateHandlerAdapter implements Chan
                 return;
             }
 
-            long currentTime = System.currentTimeMillis();
-            long lastIoTime = Math.max(lastReadTime, lastWriteTime);
-            long nextDelay = allIdleTimeMillis - (currentTime - lastIoTime);
+            long currentTime = LoopClock.nanoTime(ctx.executor());
+            long nextDelay = allIdleTimeNanos - (currentTime - lastIoTime());
             if (nextDelay <= 0) {
                 // Both reader and writer are idle - set a new timeout and
                 // notify the callback.
                 allIdleTimeout = ctx.executor().schedule(
-                        this, allIdleTimeMillis, TimeUnit.MILLISECONDS);
-                try {
-                    IdleStateEvent event;
-                    if (firstAllIdleEvent) {
-                        firstAllIdleEvent = false;
-                        event = IdleStateEvent.FIRST_ALL_IDLE_STATE_EVENT;
-                    } else {
-                        event = IdleStateEvent.ALL_IDLE_STATE_EVENT;
-                    }
-                    channelIdle(ctx, event);
-                } catch (Throwable t) {
-                    ctx.fireExceptionCaught(t);
-                }
+                        this, allIdleTimeNanos, TimeUnit.NANOSECONDS);
+                fireAllIdle(ctx);
             } else {
                 // Either read or write occurred before the timeout - set a new
                 // timeout with shorter delay.
-                allIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.MILLISECONDS);
+                allIdleTimeout = ctx.executor().schedule(this, nextDelay, TimeUnit.NANOSECONDS);
             }
         }
     }
+
+    /**
+     * Checks all enabled idle states of this handler if sweeping was enabled. Every
+     * idle state is checked only once its deadline passed, which is computed just like the delays of the tasks.
+     */
+    private final class IdleSweep extends IdleTimeoutSweeper.Entry {
+
+        final ChannelHandlerContext ctx;
+        private long readerIdleDeadline;
+        private long writerIdleDeadline;
+        private long allIdleDeadline;
+
+        IdleSweep(ChannelHandlerContext ctx, long currentTime) {
+            this.ctx = ctx;
+            readerIdleDeadline = currentTime + readerIdleTimeNanos;
+            writerIdleDeadline = currentTime + writerIdleTimeNanos;
+            allIdleDeadline = currentTime + allIdleTimeNanos;
+        }
+
+        @Override
+        void sweep(long currentTime) {
+            if (readerIdleTimeNanos > 0 && currentTime - readerIdleDeadline >= 0 && isActive()) {
+                long nextDelay = readerIdleTimeNanos - (currentTime - lastReadTime);
+                if (nextDelay <= 0) {
+                    readerIdleDeadline = currentTime + readerIdleTimeNanos;
+                    fireReaderIdle(ctx);
+                } else {
+                    readerIdleDeadline = currentTime + nextDelay;
+                }
+            }
+            if (writerIdleTimeNanos > 0 && currentTime - writerIdleDeadline >= 0 && isActive()) {
+                long nextDelay = writerIdleTimeNanos - (currentTime - lastWriteTime);
+                if (nextDelay <= 0) {
+                    writerIdleDeadline = currentTime + writerIdleTimeNanos;
+                    fireWriterIdle(ctx);
+                } else {
+                    writerIdleDeadline = currentTime + nextDelay;
+                }
+            }
+            if (allIdleTimeNanos > 0 && currentTime - allIdleDeadline >= 0 && isActive()) {
+                long nextDelay = allIdleTimeNanos - (currentTime - lastIoTime());
+                if (nextDelay <= 0) {
+                    allIdleDeadline = currentTime + allIdleTimeNanos;
+                    fireAllIdle(ctx);
+                } else {
+                    allIdleDeadline = currentTime + nextDelay;
+                }
+            }
+            if (!isActive()) {
+                IdleTimeoutSweeper.unregister(ctx.executor(), this);
+            }
+        }
+
+        private boolean isActive() {
+            return sweep == this && ctx.channel().isOpen();
+        }
+    }
 }
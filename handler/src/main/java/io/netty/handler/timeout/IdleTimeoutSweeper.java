@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the timeouts of all handlers of an event loop with a single scheduled task, instead of scheduling a task
+ * per handler and timeout.
+ * <p>
+ * Every {@code io.netty.handler.timeout.sweepInterval} milliseconds, the sweeper visits all registered
+ * {@link Entry}s. A pass visits at most {@code io.netty.handler.timeout.sweepBatchSize} entries at once and
+ * continues with the rest after the event loop had a chance to do I/O, so a huge number of connections does not
+ * stall the event loop. A timeout is therefore detected up to one interval late.
+ * <p>
+ * All methods must be called from the event loop the entries belong to.
+ */
+final class IdleTimeoutSweeper implements Runnable {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(IdleTimeoutSweeper.class);
+
+    /**
+     * {@code true} if the timeout handlers use a sweeper instead of scheduling their own tasks, unless specified
+     * otherwise by their constructor.
+     */
+    static final boolean ENABLED_BY_DEFAULT =
+            SystemPropertyUtil.getBoolean("io.netty.handler.timeout.sweep", false);
+
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(1, SystemPropertyUtil.getInt("io.netty.handler.timeout.sweepInterval", 100)));
+    private static final int BATCH_SIZE =
+            Math.max(1, SystemPropertyUtil.getInt("io.netty.handler.timeout.sweepBatchSize", 4096));
+
+    private static final ThreadLocal<IdleTimeoutSweeper> SWEEPER = new ThreadLocal<IdleTimeoutSweeper>();
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.handler.timeout.sweep: {}", ENABLED_BY_DEFAULT);
+            logger.debug("-Dio.netty.handler.timeout.sweepInterval: {}",
+                    TimeUnit.NANOSECONDS.toMillis(INTERVAL_NANOS));
+            logger.debug("-Dio.netty.handler.timeout.sweepBatchSize: {}", BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Something whose timeouts are checked by a sweeper.
+     */
+    abstract static class Entry {
+        IdleTimeoutSweeper sweeper;
+        int index;
+
+        /**
+         * Checks the timeouts as of the given time, which was obtained via {@link LoopClock#nanoTime(EventExecutor)}.
+         */
+        abstract void sweep(long currentTime);
+    }
+
+    /**
+     * Adds the given entry to the sweeper of the given event loop, unless it was added already.
+     */
+    static void register(final EventExecutor executor, final Entry entry) {
+        if (!executor.inEventLoop()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    register(executor, entry);
+                }
+            });
+            return;
+        }
+
+        if (entry.sweeper != null) {
+            return;
+        }
+
+        IdleTimeoutSweeper sweeper = SWEEPER.get();
+        if (sweeper == null) {
+            sweeper = new IdleTimeoutSweeper(executor);
+            SWEEPER.set(sweeper);
+        }
+        sweeper.add(entry);
+    }
+
+    /**
+     * Removes the given entry from its sweeper, if it was added to one.
+     */
+    static void unregister(final EventExecutor executor, final Entry entry) {
+        if (!executor.inEventLoop()) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    unregister(executor, entry);
+                }
+            });
+            return;
+        }
+
+        IdleTimeoutSweeper sweeper = entry.sweeper;
+        if (sweeper != null) {
+            sweeper.remove(entry);
+        }
+    }
+
+    private final EventExecutor executor;
+    private Entry[] entries = new Entry[16];
+    private int size;
+    // The index below which entries were not visited yet by the current pass, or -1 if no pass is in progress.
+    private int cursor = -1;
+    private boolean scheduled;
+
+    private IdleTimeoutSweeper(EventExecutor executor) {
+        this.executor = executor;
+    }
+
+    private void add(Entry entry) {
+        if (size == entries.length) {
+            Entry[] newEntries = new Entry[size << 1];
+            System.arraycopy(entries, 0, newEntries, 0, size);
+            entries = newEntries;
+        }
+        entry.sweeper = this;
+        entry.index = size;
+        entries[size ++] = entry;
+
+        if (!scheduled) {
+            scheduled = true;
+            executor.schedule(this, INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void remove(Entry entry) {
+        // Move the last entry into the gap. As a pass visits the entries from the end to the start, the moved
+        // entry was visited already unless the removed entry was not visited yet either. So no entry is skipped.
+        int index = entry.index;
+        Entry last = entries[-- size];
+        entries[index] = last;
+        last.index = index;
+        entries[size] = null;
+        entry.sweeper = null;
+    }
+
+    @Override
+    public void run() {
+        if (cursor < 0) {
+            cursor = size;
+        }
+
+        final long currentTime = LoopClock.nanoTime(executor);
+        for (int i = 0; i < BATCH_SIZE && cursor > 0; i ++) {
+            // Entries may have been removed in the meantime.
+            cursor = Math.min(cursor, size) - 1;
+            if (cursor < 0) {
+                break;
+            }
+            try {
+                entries[cursor].sweep(currentTime);
+            } catch (Throwable t) {
+                logger.warn("An exception was thrown while checking for timeouts.", t);
+            }
+        }
+
+        if (cursor > 0) {
+            // Let the event loop do some I/O before visiting the remaining entries.
+            executor.execute(this);
+            return;
+        }
+
+        cursor = -1;
+        if (size == 0) {
+            // Nothing left to check, so do not keep the event loop busy.
+            scheduled = false;
+            if (SWEEPER.get() == this) {
+                SWEEPER.remove();
+            }
+            return;
+        }
+
+        executor.schedule(this, INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+    }
+}
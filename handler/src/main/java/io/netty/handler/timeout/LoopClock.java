@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/**
+ * The clock of the idle and timeout handlers, which avoids a {@link System#nanoTime()} call per read or write.
+ */
+final class LoopClock {
+
+    /**
+     * Returns the cached time of the given executor if it provides one, or {@link System#nanoTime()} otherwise.
+     */
+    static long nanoTime(EventExecutor executor) {
+        if (executor instanceof SingleThreadEventExecutor) {
+            return ((SingleThreadEventExecutor) executor).cachedNanoTime();
+        }
+        return System.nanoTime();
+    }
+
+    private LoopClock() {
+        // Unused
+    }
+}
@@ -58,14 +58,21 @@ import java.util.concurrent.TimeUnit;
  * bootstrap.childHandler(new MyChannelInitializer());
  * ...
  * </pre>
+ * The timeout is checked by a single task per event loop if sweeping is enabled, as explained in
+ * {@link IdleStateHandler}.
+ *
  * @see WriteTimeoutHandler
  * @see IdleStateHandler
  */
 public class ReadTimeoutHandler extends ChannelStateHandlerAdapter {
 
-    private final long timeoutMillis;
+    private static final long MIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long timeoutNanos;
+    private final boolean sweepEnabled;
 
     private volatile ScheduledFuture<?> timeout;
+    private volatile ReadTimeoutSweep sweep;
     private volatile long lastReadTime;
 
     private volatile int state; // 0 - none, 1 - Initialized, 2 - Destroyed;
@@ -91,15 +98,31 @@ public class ReadTimeoutHandler extends ChannelStateHandlerAdapter {
      *        the {@link TimeUnit} of {@code timeout}
      */
     public ReadTimeoutHandler(long timeout, TimeUnit unit) {
+        this(timeout, unit, IdleTimeoutSweeper.ENABLED_BY_DEFAULT);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeout
+     *        read timeout
+     * @param unit
+     *        the {@link TimeUnit} of {@code timeout}
+     * @param sweep
+     *        {@code true} to check the timeout with a single task per event
+     *        loop, {@code false} to schedule a task for it
+     */
+    public ReadTimeoutHandler(long timeout, TimeUnit unit, boolean sweep) {
         if (unit == null) {
             throw new NullPointerException("unit");
         }
 
         if (timeout <= 0) {
-            timeoutMillis = 0;
+            timeoutNanos = 0;
         } else {
-            timeoutMillis = Math.max(unit.toMillis(timeout), 1);
+            timeoutNanos = Math.max(unit.toNanos(timeout), MIN_TIMEOUT_NANOS);
         }
+        sweepEnabled = sweep;
     }
 
     @Override
@@ -145,7 +168,7 @@ public class ReadTimeoutHandler extends ChannelStateHandlerAdapter {
 
     @Override
     public void inboundBufferUpdated(ChannelHandlerContext ctx) throws Exception {
-        lastReadTime = System.currentTimeMillis();
+        lastReadTime = LoopClock.nanoTime(ctx.executor());
         ctx.fireInboundBufferUpdated();
     }
 
@@ -160,11 +183,18 @@ public class ReadTimeoutHandler extends ChannelStateHandlerAdapter {
 
         state = 1;
 
-        lastReadTime = System.currentTimeMillis();
-        if (timeoutMillis > 0) {
-            timeout = ctx.executor().schedule(
-                    new ReadTimeoutTask(ctx),
-                    timeoutMillis, TimeUnit.MILLISECONDS);
+        long currentTime = LoopClock.nanoTime(ctx.executor());
+        lastReadTime = currentTime;
+        if (timeoutNanos > 0) {
+            if (sweepEnabled) {
+                ReadTimeoutSweep sweep = new ReadTimeoutSweep(ctx, currentTime + timeoutNanos);
+                this.sweep = sweep;
+                IdleTimeoutSweeper.register(ctx.executor(), sweep);
+            } else {
+                timeout = ctx.executor().schedule(
+                        new ReadTimeoutTask(ctx),
+                        timeoutNanos, TimeUnit.NANOSECONDS);
+            }
         }
     }
 
@@ -175,6 +205,11 @@ public class ReadTimeoutHandler extends ChannelStateHandlerAdapter {
             timeout.cancel(false);
             timeout = null;
         }
+        ReadTimeoutSweep sweep = this.sweep;
+        if (sweep != null) {
+            IdleTimeoutSweeper.unregister(sweep.ctx.executor(), sweep);
+            this.sweep = null;
+        }
     }
 
     protected void readTimedOut(ChannelHandlerContext ctx) throws Exception {
@@ -185,6 +220,14 @@ public class ReadTimeoutHandler extends ChannelStateHandlerAdapter {
         }
     }
 
+    private void fireReadTimedOut(ChannelHandlerContext ctx) {
+        try {
+            readTimedOut(ctx);
+        } catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
     private final class ReadTimeoutTask implements Runnable {
 
         private final ChannelHandlerContext ctx;
@@ -199,19 +242,45 @@ public class ReadTimeoutHandler extends ChannelStateHandlerAdapter {
                 return;
             }
 
-            long currentTime = System.currentTimeMillis();
-            long nextDelay = timeoutMillis - (currentTime - lastReadTime);
+            long currentTime = LoopClock.nanoTime(ctx.executor());
+            long nextDelay = timeoutNanos - (currentTime - lastReadTime);
             if (nextDelay <= 0) {
                 // Read timed out - set a new timeout and notify the callback.
-                timeout = ctx.executor().schedule(this, timeoutMillis, TimeUnit.MILLISECONDS);
-                try {
-                    readTimedOut(ctx);
-                } catch (Throwable t) {
-                    ctx.fireExceptionCaught(t);
-                }
+                timeout = ctx.executor().schedule(this, timeoutNanos, TimeUnit.NANOSECONDS);
+                fireReadTimedOut(ctx);
             } else {
                 // Read occurred before the timeout - set a new timeout with shorter delay.
-                timeout = ctx.executor().schedule(this, nextDelay, TimeUnit.MILLISECONDS);
+                timeout = ctx.executor().schedule(this, nextDelay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private final class ReadTimeoutSweep extends IdleTimeoutSweeper.Entry {
+
+        final ChannelHandlerContext ctx;
+        private long deadline;
+
+        ReadTimeoutSweep(ChannelHandlerContext ctx, long deadline) {
+            this.ctx = ctx;
+            this.deadline = deadline;
+        }
+
+        @Override
+        void sweep(long currentTime) {
+            if (sweep != this || !ctx.channel().isOpen()) {
+                IdleTimeoutSweeper.unregister(ctx.executor(), this);
+                return;
+            }
+            if (currentTime - deadline < 0) {
+                return;
+            }
+
+            long nextDelay = timeoutNanos - (currentTime - lastReadTime);
+            if (nextDelay <= 0) {
+                deadline = currentTime + timeoutNanos;
+                fireReadTimedOut(ctx);
+            } else {
+                deadline = currentTime + nextDelay;
             }
         }
     }
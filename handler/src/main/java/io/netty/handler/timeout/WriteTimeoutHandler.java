@@ -21,11 +21,14 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelHandlerUtil;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOperationHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.FileRegion;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -62,15 +65,24 @@ import java.util.concurrent.TimeUnit;
  * bootstrap.childHandler(new MyChannelInitializer());
  * ...
  * </pre>
+ * If sweeping is enabled, the pending writes are checked by a single task per event loop as explained in
+ * {@link IdleStateHandler}, instead of scheduling a task for every write.
+ *
  * @see ReadTimeoutHandler
  * @see IdleStateHandler
  */
 public class WriteTimeoutHandler extends ChannelOperationHandlerAdapter {
 
-    private final long timeoutMillis;
+    private static final long MIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long timeoutNanos;
+    private final boolean sweepEnabled;
 
     private boolean closed;
 
+    // Only used if sweeping is enabled.
+    private WriteTimeoutSweep sweep;
+
     /**
      * Creates a new instance.
      *
@@ -90,31 +102,58 @@ public class WriteTimeoutHandler extends ChannelOperationHandlerAdapter {
      *        the {@link TimeUnit} of {@code timeout}
      */
     public WriteTimeoutHandler(long timeout, TimeUnit unit) {
+        this(timeout, unit, IdleTimeoutSweeper.ENABLED_BY_DEFAULT);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeout
+     *        write timeout
+     * @param unit
+     *        the {@link TimeUnit} of {@code timeout}
+     * @param sweep
+     *        {@code true} to check the pending writes with a single task per
+     *        event loop, {@code false} to schedule a task for every write
+     */
+    public WriteTimeoutHandler(long timeout, TimeUnit unit, boolean sweep) {
         if (unit == null) {
             throw new NullPointerException("unit");
         }
 
         if (timeout <= 0) {
-            timeoutMillis = 0;
+            timeoutNanos = 0;
         } else {
-            timeoutMillis = Math.max(unit.toMillis(timeout), 1);
+            timeoutNanos = Math.max(unit.toNanos(timeout), MIN_TIMEOUT_NANOS);
         }
+        sweepEnabled = sweep;
     }
 
     @Override
-    public void flush(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+    public void flush(final ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        promise = ChannelHandlerUtil.unvoid(ctx, promise);
         scheduleTimeout(ctx, promise);
         ctx.flush(promise);
     }
 
     @Override
     public void sendFile(ChannelHandlerContext ctx, FileRegion region, ChannelPromise promise) throws Exception {
+        promise = ChannelHandlerUtil.unvoid(ctx, promise);
         scheduleTimeout(ctx, promise);
         super.sendFile(ctx, region, promise);
     }
 
     private void scheduleTimeout(final ChannelHandlerContext ctx, final ChannelPromise future) {
-        if (timeoutMillis > 0) {
+        if (timeoutNanos > 0) {
+            if (sweepEnabled) {
+                WriteTimeoutSweep sweep = this.sweep;
+                if (sweep == null) {
+                    sweep = this.sweep = new WriteTimeoutSweep(ctx);
+                }
+                sweep.add(future);
+                return;
+            }
+
             // Schedule a timeout.
             final ScheduledFuture<?> sf = ctx.executor().schedule(new Runnable() {
                 @Override
@@ -128,7 +167,7 @@ public class WriteTimeoutHandler extends ChannelOperationHandlerAdapter {
                         }
                     }
                 }
-            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            }, timeoutNanos, TimeUnit.NANOSECONDS);
 
             // Cancel the scheduled timeout if the flush future is complete.
             future.addListener(new ChannelFutureListener() {
@@ -147,4 +186,74 @@ public class WriteTimeoutHandler extends ChannelOperationHandlerAdapter {
             closed = true;
         }
     }
+
+    /**
+     * Keeps the pending writes in the order they were issued. As all of them have the same timeout, their deadlines
+     * are in the same order, so only the writes at the head of the queue need to be checked. The sweep is only
+     * registered while there are pending writes.
+     */
+    private final class WriteTimeoutSweep extends IdleTimeoutSweeper.Entry {
+
+        private final ChannelHandlerContext ctx;
+        private final Queue<PendingWrite> pendingWrites = new ArrayDeque<PendingWrite>();
+
+        WriteTimeoutSweep(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        void add(ChannelPromise promise) {
+            // Get rid of the writes which completed already, so the queue does not grow between the sweeps.
+            removeCompleted();
+            if (pendingWrites.isEmpty()) {
+                IdleTimeoutSweeper.register(ctx.executor(), this);
+            }
+            pendingWrites.add(new PendingWrite(
+                    LoopClock.nanoTime(ctx.executor()) + timeoutNanos, promise));
+        }
+
+        @Override
+        void sweep(long currentTime) {
+            for (;;) {
+                removeCompleted();
+                PendingWrite write = pendingWrites.peek();
+                if (write == null) {
+                    IdleTimeoutSweeper.unregister(ctx.executor(), this);
+                    return;
+                }
+                if (currentTime - write.deadline < 0) {
+                    return;
+                }
+
+                pendingWrites.remove();
+                if (write.promise.tryFailure(WriteTimeoutException.INSTANCE)) {
+                    // If succeeded to mark as failure, notify the pipeline, too.
+                    try {
+                        writeTimedOut(ctx);
+                    } catch (Throwable t) {
+                        ctx.fireExceptionCaught(t);
+                    }
+                }
+            }
+        }
+
+        private void removeCompleted() {
+            for (;;) {
+                PendingWrite write = pendingWrites.peek();
+                if (write == null || !write.promise.isDone()) {
+                    return;
+                }
+                pendingWrites.remove();
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        final long deadline;
+        final ChannelPromise promise;
+
+        PendingWrite(long deadline, ChannelPromise promise) {
+            this.deadline = deadline;
+            this.promise = promise;
+        }
+    }
 }
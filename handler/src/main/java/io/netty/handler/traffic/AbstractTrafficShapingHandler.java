@@ -17,11 +17,24 @@ package io.netty.handler.traffic;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelHandlerUtil;
+import io.netty.channel.ChannelOutboundByteHandler;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
-
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -40,8 +53,16 @@ import java.util.concurrent.TimeUnit;
  * <li><tt>getTrafficCounter</tt> allows you to have access to the TrafficCounter and so to stop
  * or start the monitoring, to change the checkInterval directly, or to have access to its values.</li>
  * </ul>
+ *
+ * The limits are enforced with token buckets, which are refilled with the configured number of bytes per second
+ * and can hold the bytes of up to 100 ms, so the traffic is smooth instead of bursting once per checkInterval.
+ * The written data of each channel is held back in its own queue, in the order it was flushed, and released in
+ * batches by a single timer per event loop. A channel gets its next batch only once the previous one was written
+ * to the socket, so the data which is waiting for the limit stays in this handler instead of piling up in
+ * the outbound buffers of the channel.
  */
-public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler {
+public abstract class AbstractTrafficShapingHandler
+        extends ChannelDuplexHandler implements ChannelOutboundByteHandler {
     /**
      * Default delay between two checks: 1s
      */
@@ -52,6 +73,11 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
      */
     private static final long MINIMAL_WAIT = 10;
 
+    /**
+     * The number of bytes a channel of weight 1 can release per round of the fair scheduling
+     */
+    private static final int QUANTUM = 16 * 1024;
+
     /**
      * Traffic Counter
      */
@@ -75,6 +101,19 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
     private static final AttributeKey<Boolean> READ_SUSPENDED = new AttributeKey<Boolean>("readSuspended");
     private static final AttributeKey<Runnable> REOPEN_TASK = new AttributeKey<Runnable>("reopenTask");
     private static final AttributeKey<Runnable> BUFFER_UPDATE_TASK = new AttributeKey<Runnable>("bufferUpdateTask");
+    private static final AttributeKey<PerChannel> PER_CHANNEL = new AttributeKey<PerChannel>("trafficShapingQueue");
+
+    /**
+     * Token buckets for the write and read limits, shared by all channels of this handler
+     */
+    private final TokenBucket writeBucket;
+    private final TokenBucket readBucket;
+
+    /**
+     * The schedulers which release the queued writes, one per event loop
+     */
+    private final ConcurrentMap<EventExecutor, WriteScheduler> schedulers =
+            PlatformDependent.newConcurrentHashMap();
 
     /**
      *
@@ -98,6 +137,8 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
         this.writeLimit = writeLimit;
         this.readLimit = readLimit;
         this.checkInterval = checkInterval;
+        writeBucket = new TokenBucket(writeLimit);
+        readBucket = new TokenBucket(readLimit);
     }
 
     /**
@@ -152,9 +193,16 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
     public void configure(long newWriteLimit, long newReadLimit) {
         writeLimit = newWriteLimit;
         readLimit = newReadLimit;
+        writeBucket.setRate(newWriteLimit);
+        readBucket.setRate(newReadLimit);
         if (trafficCounter != null) {
             trafficCounter.resetAccounting(System.currentTimeMillis() + 1);
         }
+
+        // Release the queued writes according to the new limit right away.
+        for (WriteScheduler scheduler: schedulers.values()) {
+            scheduler.executor.execute(scheduler.drainTask);
+        }
     }
 
     /**
@@ -198,22 +246,52 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
     }
 
     /**
-     * @return the time that should be necessary to wait to respect limit. Can be negative time
+     * Sets the weight of the channel of the given context, which gets a share of the write limit proportional
+     * to its weight when several channels are waiting for it.
+     */
+    void setWeight(ChannelHandlerContext ctx, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight: " + weight + " (expected: > 0)");
+        }
+        perChannel(ctx).weight = weight;
+    }
+
+    /**
+     * Returns the weight of the channel of the given context.
      */
-    private static long getTimeToWait(long limit, long bytes, long lastTime, long curtime) {
-        long interval = curtime - lastTime;
-        if (interval <= 0) {
-            // Time is too short, so just lets continue
-            return 0;
+    int weight(ChannelHandlerContext ctx) {
+        return perChannel(ctx).weight;
+    }
+
+    private PerChannel perChannel(ChannelHandlerContext ctx) {
+        Attribute<PerChannel> attr = ctx.attr(PER_CHANNEL);
+        PerChannel channel = attr.get();
+        if (channel == null) {
+            channel = new PerChannel(ctx, scheduler(ctx.executor()));
+            PerChannel old = attr.setIfAbsent(channel);
+            if (old != null) {
+                channel = old;
+            }
+        }
+        return channel;
+    }
+
+    private WriteScheduler scheduler(EventExecutor executor) {
+        WriteScheduler scheduler = schedulers.get(executor);
+        if (scheduler == null) {
+            scheduler = new WriteScheduler(executor);
+            WriteScheduler old = schedulers.putIfAbsent(executor, scheduler);
+            if (old != null) {
+                scheduler = old;
+            }
         }
-        return (bytes * 1000 / limit - interval / 10) * 10;
+        return scheduler;
     }
 
     @Override
     public void inboundBufferUpdated(final ChannelHandlerContext ctx) throws Exception {
         ByteBuf buf = ctx.nextInboundByteBuffer();
 
-        long curtime = System.currentTimeMillis();
         long size = buf.readableBytes();
 
         if (trafficCounter != null) {
@@ -226,13 +304,12 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
             }
 
             // compute the number of ms to wait before reopening the channel
-            long wait = getTimeToWait(readLimit,
-                                      trafficCounter.currentReadBytes(),
-                                      trafficCounter.lastTime(), curtime);
+            readBucket.consume(size);
+            long wait = TimeUnit.NANOSECONDS.toMillis(readBucket.nanosUntilAvailable());
             if (wait >= MINIMAL_WAIT) { // At least 10ms seems a minimal
                 // time in order to
                 // try to limit the traffic
-                if (!ctx.attr(READ_SUSPENDED).get()) {
+                if (!isReadSuspended(ctx)) {
                     ctx.attr(READ_SUSPENDED).set(true);
 
                     // Create a Runnable to reactive the read if needed. If one was create before it will just be
@@ -269,38 +346,60 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
 
     @Override
     public void read(ChannelHandlerContext ctx) {
-        if (!ctx.attr(READ_SUSPENDED).get()) {
+        if (!isReadSuspended(ctx)) {
             ctx.read();
         }
     }
 
+    private static boolean isReadSuspended(ChannelHandlerContext ctx) {
+        // Not set until the first read was suspended.
+        return ctx.attr(READ_SUSPENDED).get() == Boolean.TRUE;
+    }
+
+    @Override
+    public ByteBuf newOutboundBuffer(ChannelHandlerContext ctx) throws Exception {
+        return ChannelHandlerUtil.allocate(ctx);
+    }
+
+    @Override
+    public void discardOutboundReadBytes(ChannelHandlerContext ctx) throws Exception {
+        ctx.outboundByteBuffer().discardSomeReadBytes();
+    }
+
     @Override
-    public void flush(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
-        long curtime = System.currentTimeMillis();
-        long size = ctx.nextOutboundByteBuffer().readableBytes();
+    public void flush(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        ByteBuf in = ctx.outboundByteBuffer();
+        PerChannel channel = perChannel(ctx);
+        int size = in.readableBytes() - channel.queuedBytes;
 
         if (trafficCounter != null) {
             trafficCounter.bytesWriteFlowControl(size);
-            if (writeLimit == 0) {
-                ctx.flush(promise);
-                return;
-            }
-            // compute the number of ms to wait before continue with the
-            // channel
-            long wait = getTimeToWait(writeLimit,
-                    trafficCounter.currentWrittenBytes(),
-                    trafficCounter.lastTime(), curtime);
-            if (wait >= MINIMAL_WAIT) {
-                ctx.executor().schedule(new Runnable() {
-                    @Override
-                    public void run() {
-                        ctx.flush(promise);
-                    }
-                }, wait, TimeUnit.MILLISECONDS);
-                return;
-            }
         }
-        ctx.flush(promise);
+        if (writeLimit == 0 && channel.isIdle()) {
+            ctx.nextOutboundByteBuffer().writeBytes(in);
+            ctx.flush(promise);
+            return;
+        }
+        channel.add(new ToSend(size, null, promise));
+    }
+
+    @Override
+    public void sendFile(ChannelHandlerContext ctx, FileRegion region, ChannelPromise promise) throws Exception {
+        PerChannel channel = perChannel(ctx);
+        if (writeLimit == 0 && channel.isIdle()) {
+            ctx.sendFile(region, promise);
+            return;
+        }
+        channel.add(new ToSend(region.count(), region, promise));
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        PerChannel channel = ctx.attr(PER_CHANNEL).get();
+        if (channel != null) {
+            channel.fail(new ClosedChannelException());
+        }
+        ctx.fireChannelInactive();
     }
 
     /**
@@ -317,6 +416,12 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
         if (trafficCounter != null) {
             trafficCounter.stop();
         }
+
+        // The queued bytes were forwarded to the next buffer already, so only the flushes are left.
+        PerChannel channel = ctx.attr(PER_CHANNEL).getAndRemove();
+        if (channel != null) {
+            channel.flushAll();
+        }
     }
 
     @Override
@@ -325,4 +430,267 @@ public abstract class AbstractTrafficShapingHandler extends ChannelDuplexHandler
                 " Read Limit: " + readLimit + " and Counter: " +
                 (trafficCounter != null? trafficCounter.toString() : "none");
     }
+
+    /**
+     * A flush or a file which waits to be released
+     */
+    private static final class ToSend {
+        final long size;
+        final FileRegion region;
+        final ChannelPromise promise;
+
+        ToSend(long size, FileRegion region, ChannelPromise promise) {
+            this.size = size;
+            this.region = region;
+            this.promise = promise;
+        }
+    }
+
+    /**
+     * The queued writes of a channel. Only accessed by the executor of its context.
+     */
+    private final class PerChannel implements ChannelFutureListener {
+        final ChannelHandlerContext ctx;
+        final WriteScheduler scheduler;
+        final Queue<ToSend> queue = new ArrayDeque<ToSend>();
+        final List<ChannelPromise> releasedPromises = new ArrayList<ChannelPromise>();
+        volatile int weight = 1;
+        int activeWeight;
+        int queuedBytes;
+        long deficit;
+        boolean inFlight;
+        boolean scheduled;
+        boolean removed;
+
+        PerChannel(ChannelHandlerContext ctx, WriteScheduler scheduler) {
+            this.ctx = ctx;
+            this.scheduler = scheduler;
+        }
+
+        boolean isIdle() {
+            return queue.isEmpty() && !inFlight;
+        }
+
+        void add(ToSend toSend) {
+            if (queue.isEmpty()) {
+                activeWeight = weight;
+                scheduler.addWeight(activeWeight);
+            }
+            queue.add(toSend);
+            if (toSend.region == null) {
+                queuedBytes += (int) toSend.size;
+            }
+            scheduler.submit(this);
+        }
+
+        ToSend remove() {
+            ToSend toSend = queue.remove();
+            if (toSend.region == null) {
+                queuedBytes -= (int) toSend.size;
+            }
+            if (queue.isEmpty()) {
+                deficit = 0;
+                scheduler.addWeight(-activeWeight);
+            }
+            return toSend;
+        }
+
+        /**
+         * Releases the queued writes which fit into the deficit of this channel and the given budget of tokens.
+         *
+         * @return the number of released bytes
+         */
+        long release(long budget) {
+            ByteBuf in = ctx.outboundByteBuffer();
+            long released = 0;
+            int bytes = 0;
+            for (;;) {
+                ToSend next = queue.peek();
+                if (next == null || next.size > deficit || released >= budget) {
+                    break;
+                }
+                if (next.region != null) {
+                    if (!releasedPromises.isEmpty()) {
+                        // Send the file once the preceding bytes were written.
+                        break;
+                    }
+                    remove();
+                    deficit -= next.size;
+                    released += next.size;
+                    releasedPromises.add(next.promise);
+                    inFlight = true;
+                    ctx.sendFile(next.region, ctx.newPromise().addListener(this));
+                    break;
+                }
+                remove();
+                deficit -= next.size;
+                released += next.size;
+                bytes += (int) next.size;
+                releasedPromises.add(next.promise);
+            }
+
+            if (!inFlight && !releasedPromises.isEmpty()) {
+                ctx.nextOutboundByteBuffer().writeBytes(in, bytes);
+                inFlight = true;
+                ctx.flush(ctx.newPromise().addListener(this));
+            }
+            writeBucket.consume(released);
+            return released;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            ChannelPromise[] promises = releasedPromises.toArray(new ChannelPromise[releasedPromises.size()]);
+            releasedPromises.clear();
+            inFlight = false;
+
+            Throwable cause = future.cause();
+            for (ChannelPromise p: promises) {
+                if (cause == null) {
+                    p.trySuccess();
+                } else {
+                    p.tryFailure(cause);
+                }
+            }
+            if (!removed && !queue.isEmpty()) {
+                scheduler.submit(this);
+            }
+        }
+
+        void fail(Throwable cause) {
+            while (!queue.isEmpty()) {
+                ToSend toSend = remove();
+                if (toSend.region != null) {
+                    toSend.region.release();
+                }
+                toSend.promise.tryFailure(cause);
+            }
+        }
+
+        void flushAll() {
+            removed = true;
+            while (!queue.isEmpty()) {
+                ToSend toSend = remove();
+                if (toSend.region != null) {
+                    ctx.sendFile(toSend.region, toSend.promise);
+                } else {
+                    ctx.flush(toSend.promise);
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the queued writes of the channels of an event loop with deficit round robin, so each channel gets
+     * a share of the write limit proportional to its weight. Only accessed by its executor, which runs it as the
+     * timer of the event loop once the tokens are used up.
+     * <p>
+     * The event loops share the tokens in proportion to the weights of their waiting channels. Each loop counts
+     * the bytes it released divided by its weight, and waits while it is more than {@link #QUANTUM} ahead of
+     * another loop which has channels ready to release. A loop whose channels all wait for their previous batch to
+     * be written does not count, so a stalled channel cannot hold back the other loops, and it catches up with
+     * the others once one of its channels is ready again.
+     */
+    private final class WriteScheduler implements Runnable {
+        final EventExecutor executor;
+        final Runnable drainTask = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+        private final Queue<PerChannel> channels = new ArrayDeque<PerChannel>();
+        private long weight;
+        private volatile boolean backlogged;
+        private volatile long virtualTime;
+        private boolean draining;
+        private boolean timerScheduled;
+
+        WriteScheduler(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        void addWeight(int delta) {
+            weight += delta;
+        }
+
+        /**
+         * Returns the lowest virtual time of the other loops with channels ready to release, or the given default
+         * value.
+         */
+        private long minVirtualTime(long defaultValue) {
+            long min = Long.MAX_VALUE;
+            for (WriteScheduler scheduler: schedulers.values()) {
+                if (scheduler != this && scheduler.backlogged) {
+                    min = Math.min(min, scheduler.virtualTime);
+                }
+            }
+            return min == Long.MAX_VALUE ? defaultValue : min;
+        }
+
+        private boolean mayRelease(long budget) {
+            return budget == Long.MAX_VALUE || virtualTime <= minVirtualTime(virtualTime) + QUANTUM;
+        }
+
+        void submit(PerChannel channel) {
+            if (!channel.scheduled && !channel.inFlight && !channel.queue.isEmpty()) {
+                channel.scheduled = true;
+                if (!backlogged) {
+                    // Do not let a loop which had nothing to release save up a share.
+                    virtualTime = Math.max(virtualTime, minVirtualTime(virtualTime));
+                    backlogged = true;
+                }
+                channels.add(channel);
+            }
+            if (!timerScheduled) {
+                drain();
+            }
+        }
+
+        @Override
+        public void run() {
+            timerScheduled = false;
+            drain();
+        }
+
+        private void drain() {
+            if (draining) {
+                return;
+            }
+            draining = true;
+            try {
+                long budget = writeBucket.available();
+                while (budget > 0 && !channels.isEmpty() && mayRelease(budget)) {
+                    for (int i = channels.size(); i > 0 && budget > 0 && mayRelease(budget); i --) {
+                        PerChannel channel = channels.remove();
+                        channel.scheduled = false;
+                        if (channel.removed || channel.inFlight || channel.queue.isEmpty()) {
+                            // Scheduled again once its released writes are done.
+                            continue;
+                        }
+
+                        channel.deficit += (long) QUANTUM * channel.activeWeight;
+                        long loopWeight = weight;
+                        long released = channel.release(budget);
+                        budget -= released;
+                        virtualTime += released / loopWeight;
+                        if (!channel.inFlight && !channel.queue.isEmpty()) {
+                            channel.scheduled = true;
+                            channels.add(channel);
+                        }
+                    }
+                }
+
+                backlogged = !channels.isEmpty();
+                if (backlogged && !timerScheduled) {
+                    long delay = Math.max(TimeUnit.MILLISECONDS.toNanos(MINIMAL_WAIT),
+                            writeBucket.nanosUntilAvailable());
+                    timerScheduled = true;
+                    executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+                }
+            } finally {
+                draining = false;
+            }
+        }
+    }
 }
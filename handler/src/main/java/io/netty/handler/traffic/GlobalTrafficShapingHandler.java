@@ -15,7 +15,9 @@
  */
 package io.netty.handler.traffic;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.concurrent.EventExecutor;
 
 import java.util.concurrent.ScheduledExecutorService;
@@ -47,6 +49,9 @@ import java.util.concurrent.ScheduledExecutorService;
  * </li>
  * </ul><br>
  *
+ * When several channels wait for the write limit, each of them gets a share proportional to its weight, which
+ * is 1 unless changed with {@link #setWeight(Channel, int)}, so a single busy channel cannot starve the others.<br><br>
+ *
  * Be sure to call {@link #release()} once this handler is not needed anymore to release all internal resources.
  * This will not shutdown the {@link EventExecutor} as it may be shared, so you need to do this by your own.
  */
@@ -124,6 +129,37 @@ public class GlobalTrafficShapingHandler extends AbstractTrafficShapingHandler {
         createGlobalTrafficCounter(executor);
     }
 
+    /**
+     * Sets the weight of the given channel, which gets a share of the write limit proportional to its weight
+     * when several channels wait for it. The default weight is 1.
+     *
+     * @param channel
+     *          a channel whose pipeline contains this handler
+     * @param weight
+     *          the new weight, which must be positive
+     */
+    public void setWeight(Channel channel, int weight) {
+        setWeight(context(channel), weight);
+    }
+
+    /**
+     * Returns the weight of the given channel.
+     *
+     * @param channel
+     *          a channel whose pipeline contains this handler
+     */
+    public int weight(Channel channel) {
+        return weight(context(channel));
+    }
+
+    private ChannelHandlerContext context(Channel channel) {
+        ChannelHandlerContext ctx = channel.pipeline().context(this);
+        if (ctx == null) {
+            throw new IllegalArgumentException("handler not in the pipeline of " + channel);
+        }
+        return ctx;
+    }
+
     /**
      * Release all internal resources of this instance
      */
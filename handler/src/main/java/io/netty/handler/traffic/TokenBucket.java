@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket which is refilled with {@code rate} bytes per second and holds up to the bytes of
+ * {@link #BURST_MILLIS} milliseconds. More tokens than available can be consumed, so a large write is never held
+ * back forever, but the debt has to be paid back before the next bytes are let through. A rate of {@code 0} means
+ * no limit.
+ * <p>
+ * The bucket of a {@link GlobalTrafficShapingHandler} is shared by all event loops, so its methods are
+ * synchronized. The handler only takes the lock a few times per read and per released batch of writes, not per
+ * write.
+ */
+final class TokenBucket {
+
+    /**
+     * The time span of traffic the bucket can hold, so an idle channel cannot save up an arbitrarily large burst.
+     */
+    static final long BURST_MILLIS = 100;
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private long rate;
+    private long tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(long rate) {
+        setRate(rate);
+    }
+
+    /**
+     * Changes the rate in bytes per second and fills the bucket up.
+     */
+    synchronized void setRate(long rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate: " + rate + " (expected: >= 0)");
+        }
+        this.rate = rate;
+        tokens = capacity();
+        lastRefillNanos = System.nanoTime();
+    }
+
+    synchronized long rate() {
+        return rate;
+    }
+
+    /**
+     * Returns the number of available tokens, which is negative if more were consumed than available, or
+     * {@link Long#MAX_VALUE} if there is no limit.
+     */
+    synchronized long available() {
+        if (rate == 0) {
+            return Long.MAX_VALUE;
+        }
+        refill();
+        return tokens;
+    }
+
+    /**
+     * Takes the given number of tokens out of the bucket, even if less are available.
+     */
+    synchronized void consume(long n) {
+        if (rate == 0) {
+            return;
+        }
+        refill();
+        tokens -= n;
+    }
+
+    /**
+     * Returns the time until a token is available, or {@code 0} if one is available already.
+     */
+    synchronized long nanosUntilAvailable() {
+        if (rate == 0) {
+            return 0;
+        }
+        refill();
+        if (tokens > 0) {
+            return 0;
+        }
+        long missing = 1 - tokens;
+        return missing / rate * NANOS_PER_SECOND + missing % rate * NANOS_PER_SECOND / rate;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = now - lastRefillNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        long refill = elapsed / NANOS_PER_SECOND * rate + elapsed % NANOS_PER_SECOND * rate / NANOS_PER_SECOND;
+        if (refill == 0) {
+            // Wait for a whole token instead of losing the time.
+            return;
+        }
+        tokens = Math.min(capacity(), tokens + refill);
+        lastRefillNanos = now;
+    }
+
+    private long capacity() {
+        return Math.max(1, rate * BURST_MILLIS / 1000);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TokenBucket(rate: " + rate + ", tokens: " + tokens + ')';
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.logging;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ByteLoggingHandlerTest {
+
+    private static final String NEWLINE = String.format("%n");
+    private static final String HEADER =
+            NEWLINE + "         +-------------------------------------------------+" +
+            NEWLINE + "         |  0  1  2  3  4  5  6  7  8  9  a  b  c  d  e  f |" +
+            NEWLINE + "+--------+-------------------------------------------------+----------------+";
+    private static final String FOOTER =
+            NEWLINE + "+--------+-------------------------------------------------+----------------+";
+
+    @Test
+    public void testFormatBuffer() {
+        ByteBuf buf = Unpooled.copiedBuffer("0123456789abcdef\n", CharsetUtil.US_ASCII);
+        buf.readByte();
+
+        String dump = new ByteLoggingHandler().formatBuffer("WRITE", buf);
+        assertEquals("WRITE(16B)" + HEADER +
+                NEWLINE + "|00000000| 31 32 33 34 35 36 37 38 39 61 62 63 64 65 66 0a |123456789abcdef.|" +
+                FOOTER, dump);
+    }
+
+    @Test
+    public void testFormatPartialRow() {
+        ByteBuf buf = Unpooled.copiedBuffer("0123456789abcdefABC", CharsetUtil.US_ASCII);
+
+        String dump = new ByteLoggingHandler().formatBuffer("RECEIVED", buf);
+        assertEquals("RECEIVED(19B)" + HEADER +
+                NEWLINE + "|00000000| 30 31 32 33 34 35 36 37 38 39 61 62 63 64 65 66 |0123456789abcdef|" +
+                NEWLINE + "|00000010| 41 42 43                                        |ABC             |" +
+                FOOTER, dump);
+    }
+
+    @Test
+    public void testMaxDumpBytes() {
+        ByteLoggingHandler handler = new ByteLoggingHandler();
+        handler.setMaxDumpBytes(4);
+
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[100000]);
+        String dump = handler.formatBuffer("WRITE", buf);
+        assertEquals("WRITE(100000B, first 4B shown)" + HEADER +
+                NEWLINE + "|00000000| 00 00 00 00                                     |....            |" +
+                FOOTER, dump);
+        assertEquals(0, buf.readerIndex());
+    }
+
+    @Test
+    public void testLargeDump() {
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[100000]);
+        String dump = new ByteLoggingHandler().formatBuffer("WRITE", buf);
+        assertEquals("WRITE(100000B)".length() + HEADER.length() + 6250 * (NEWLINE.length() + 77) +
+                FOOTER.length(), dump.length());
+        assertTrue(dump.endsWith(NEWLINE + "|00018690|" +
+                " 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 00 |................|" + FOOTER));
+    }
+
+    @Test
+    public void testSampleRate() {
+        ByteLoggingHandler handler = new ByteLoggingHandler(LogLevel.ERROR);
+        handler.setSampleRate(3);
+        assertTrue(handler.isLoggable());
+        assertFalse(handler.isLoggable());
+        assertFalse(handler.isLoggable());
+        assertTrue(handler.isLoggable());
+    }
+
+    @Test
+    public void testMaxEventsPerSecond() {
+        ByteLoggingHandler handler = new ByteLoggingHandler(LogLevel.ERROR);
+        handler.setMaxEventsPerSecond(2);
+        assertTrue(handler.isLoggable());
+        assertTrue(handler.isLoggable());
+        assertFalse(handler.isLoggable());
+    }
+}
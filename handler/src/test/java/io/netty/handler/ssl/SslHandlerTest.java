@@ -0,0 +1,311 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import io.netty.channel.ChannelOperationHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedByteChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import static org.junit.Assert.*;
+
+public class SslHandlerTest {
+
+    private static SSLContext serverContext;
+    private static SSLContext clientContext;
+
+    private final FlushCounter flushes = new FlushCounter();
+    private final Receiver receiver = new Receiver();
+    private SslHandler clientHandler;
+    private SslHandler serverHandler;
+    private EmbeddedByteChannel client;
+    private EmbeddedByteChannel server;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        serverContext = SslTestContexts.newServerContext();
+        clientContext = SslTestContexts.newClientContext();
+    }
+
+    @Test(timeout = 30000)
+    public void testUnwrapMultipleRecordsAtOnce() throws Exception {
+        handshake(newHandler(true));
+
+        ByteBuf records = Unpooled.buffer();
+        for (int i = 0; i < 3; i ++) {
+            client.writeOutbound(Unpooled.copiedBuffer("record" + i, CharsetUtil.US_ASCII));
+            records.writeBytes(readOutbound(client));
+        }
+        assertEquals(3, countRecords(records));
+
+        // All records are unwrapped by a single pass.
+        server.writeInbound(records);
+        server.checkException();
+        assertEquals("record0record1record2", receiver.received.toString());
+        assertEquals(1, receiver.updates);
+    }
+
+    @Test(timeout = 30000)
+    public void testUnwrapRecordSplitAcrossReads() throws Exception {
+        handshake(newHandler(true));
+
+        client.writeOutbound(Unpooled.copiedBuffer("first", CharsetUtil.US_ASCII));
+        ByteBuf first = readOutbound(client);
+        client.writeOutbound(Unpooled.copiedBuffer("second", CharsetUtil.US_ASCII));
+        ByteBuf second = readOutbound(client);
+        assertEquals(1, countRecords(first));
+        assertEquals(1, countRecords(second));
+
+        // Not even the record header is complete.
+        server.writeInbound(first.readBytes(3));
+        assertEquals("", receiver.received.toString());
+        server.writeInbound(first.readBytes(first.readableBytes() / 2));
+        assertEquals("", receiver.received.toString());
+
+        // The rest of the first record and a part of the second.
+        server.writeInbound(Unpooled.wrappedBuffer(first, second.readBytes(second.readableBytes() / 2)));
+        assertEquals("first", receiver.received.toString());
+        server.writeInbound(second);
+        server.checkException();
+        assertEquals("firstsecond", receiver.received.toString());
+        assertEquals(2, receiver.updates);
+    }
+
+    @Test(timeout = 30000)
+    public void testWrapCompositeBuffer() throws Exception {
+        handshake(configure(new SslHandler(newEngine(true)) {
+            @Override
+            public ByteBuf newOutboundBuffer(ChannelHandlerContext ctx) throws Exception {
+                return Unpooled.compositeBuffer();
+            }
+        }));
+
+        ByteBuf in = client.pipeline().context(clientHandler).outboundByteBuffer();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 4; i ++) {
+            // Every write outgrows the buffer, which adds a component.
+            String data = newString(in.capacity() + 1, (char) ('a' + i));
+            in.writeBytes(data.getBytes(CharsetUtil.US_ASCII));
+            expected.append(data);
+        }
+        assertTrue(in.nioBufferCount() > 1);
+
+        client.pipeline().flush().sync();
+        server.writeInbound(readOutbound(client));
+        server.checkException();
+        assertEquals(expected.toString(), receiver.received.toString());
+    }
+
+    @Test(timeout = 30000)
+    public void testCoalescedWritesFlushedOnce() throws Exception {
+        handshake(newHandler(true));
+        clientHandler.setCoalescingWrites(true);
+        flushes.count = 0;
+
+        ChannelPromise[] promises = new ChannelPromise[3];
+        for (int i = 0; i < promises.length; i ++) {
+            promises[i] = flush("part" + i);
+        }
+
+        // Nothing is encrypted before the end of the event loop iteration.
+        for (ChannelPromise p: promises) {
+            assertFalse(p.isDone());
+        }
+        assertEquals(0, flushes.count);
+
+        client.runPendingTasks();
+        client.checkException();
+        for (ChannelPromise p: promises) {
+            assertTrue(p.isSuccess());
+        }
+        assertEquals(1, flushes.count);
+
+        ByteBuf records = readOutbound(client);
+        assertEquals(1, countRecords(records));
+        server.writeInbound(records);
+        assertEquals("part0part1part2", receiver.received.toString());
+
+        // Nothing is left to flush.
+        client.runPendingTasks();
+        assertEquals(1, flushes.count);
+        assertNull(readOutbound(client));
+    }
+
+    @Test(timeout = 30000)
+    public void testCoalescingWritesFlushesFullRecordImmediately() throws Exception {
+        handshake(newHandler(true));
+        clientHandler.setCoalescingWrites(true);
+        flushes.count = 0;
+
+        String data = newString(16 * 1024, 'x');
+        ChannelPromise promise = flush(data);
+        assertTrue(promise.isSuccess());
+        assertEquals(1, flushes.count);
+
+        server.writeInbound(readOutbound(client));
+        assertEquals(data, receiver.received.toString());
+    }
+
+    @Test(timeout = 30000)
+    public void testCoalescedWritesFlushedBeforeClose() throws Exception {
+        handshake(newHandler(true));
+        clientHandler.setCoalescingWrites(true);
+
+        ChannelPromise promise = flush("bye");
+        ChannelFuture closeFuture = clientHandler.close();
+        client.runPendingTasks();
+        client.checkException();
+        assertTrue(promise.isSuccess());
+        assertTrue(closeFuture.isSuccess());
+
+        // The pending data goes out before the close_notify.
+        server.writeInbound(readOutbound(client));
+        server.checkException();
+        assertEquals("bye", receiver.received.toString());
+        assertTrue(serverHandler.sslCloseFuture().isSuccess());
+    }
+
+    @Test(timeout = 30000)
+    public void testCoalescedWritesFailedOnChannelClose() throws Exception {
+        handshake(newHandler(true));
+        clientHandler.setCoalescingWrites(true);
+
+        ChannelPromise promise = flush("lost");
+        client.close();
+        client.runPendingTasks();
+        assertTrue(promise.isDone());
+        assertFalse(promise.isSuccess());
+    }
+
+    private ChannelPromise flush(String data) {
+        client.pipeline().context(clientHandler).outboundByteBuffer().writeBytes(
+                data.getBytes(CharsetUtil.US_ASCII));
+        ChannelPromise promise = client.newPromise();
+        client.pipeline().flush(promise);
+        return promise;
+    }
+
+    private void handshake(SslHandler clientHandler) {
+        this.clientHandler = clientHandler;
+        serverHandler = newHandler(false);
+        client = new EmbeddedByteChannel(flushes, clientHandler);
+        server = new EmbeddedByteChannel(serverHandler, receiver);
+
+        for (int i = 0; i < 100; i ++) {
+            if (clientHandler.handshakeFuture().isDone() && serverHandler.handshakeFuture().isDone()) {
+                break;
+            }
+            transfer(client, server);
+            transfer(server, client);
+            client.runPendingTasks();
+            server.runPendingTasks();
+        }
+
+        client.checkException();
+        server.checkException();
+        assertTrue(clientHandler.handshakeFuture().isSuccess());
+        assertTrue(serverHandler.handshakeFuture().isSuccess());
+        transfer(client, server);
+        transfer(server, client);
+        receiver.updates = 0;
+    }
+
+    private static SslHandler newHandler(boolean client) {
+        return configure(new SslHandler(newEngine(client)));
+    }
+
+    private static SSLEngine newEngine(boolean client) {
+        SSLEngine engine = client ? clientContext.createSSLEngine() : serverContext.createSSLEngine();
+        engine.setUseClientMode(client);
+        return engine;
+    }
+
+    private static SslHandler configure(SslHandler handler) {
+        // The event loop of an EmbeddedByteChannel cannot schedule the timeouts.
+        handler.setHandshakeTimeoutMillis(0);
+        handler.setCloseNotifyTimeoutMillis(0);
+        return handler;
+    }
+
+    private static void transfer(EmbeddedByteChannel from, EmbeddedByteChannel to) {
+        ByteBuf buf = readOutbound(from);
+        if (buf != null) {
+            to.writeInbound(buf);
+        }
+    }
+
+    private static ByteBuf readOutbound(EmbeddedByteChannel ch) {
+        ByteBuf buf = null;
+        for (;;) {
+            ByteBuf b = ch.readOutbound();
+            if (b == null || !b.isReadable()) {
+                return buf;
+            }
+            if (buf == null) {
+                buf = Unpooled.buffer();
+            }
+            buf.writeBytes(b);
+        }
+    }
+
+    private static int countRecords(ByteBuf buf) {
+        int count = 0;
+        for (int i = buf.readerIndex(); i < buf.writerIndex(); i += buf.getUnsignedShort(i + 3) + 5) {
+            count ++;
+        }
+        return count;
+    }
+
+    private static String newString(int length, char c) {
+        StringBuilder buf = new StringBuilder(length);
+        for (int i = 0; i < length; i ++) {
+            buf.append(c);
+        }
+        return buf.toString();
+    }
+
+    private static final class Receiver extends ChannelInboundByteHandlerAdapter {
+        final StringBuilder received = new StringBuilder();
+        int updates;
+
+        @Override
+        public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) {
+            updates ++;
+            received.append(in.toString(CharsetUtil.US_ASCII));
+            in.clear();
+        }
+    }
+
+    private static final class FlushCounter extends ChannelOperationHandlerAdapter {
+        int count;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+            count ++;
+            ctx.flush(promise);
+        }
+    }
+}
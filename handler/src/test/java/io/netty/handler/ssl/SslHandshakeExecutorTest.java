@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.ssl;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedByteChannel;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class SslHandshakeExecutorTest {
+
+    private static SSLContext serverContext;
+    private static SSLContext clientContext;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        serverContext = SslTestContexts.newServerContext();
+        clientContext = SslTestContexts.newClientContext();
+    }
+
+    @Test(timeout = 30000)
+    public void testHandshakeContinuesOnEventLoop() throws Exception {
+        ManualExecutor pool = new ManualExecutor();
+        SslHandshakeExecutor executor = new SslHandshakeExecutor(pool, 1, 16);
+
+        SslHandler clientHandler = newHandler(true, executor);
+        SslHandler serverHandler = newHandler(false, executor);
+        EmbeddedByteChannel client = new EmbeddedByteChannel(clientHandler);
+        EmbeddedByteChannel server = new EmbeddedByteChannel(serverHandler);
+
+        for (int i = 0; i < 100; i ++) {
+            if (clientHandler.handshakeFuture().isDone() && serverHandler.handshakeFuture().isDone()) {
+                break;
+            }
+            transfer(client, server);
+            transfer(server, client);
+
+            // The handshakes must not make progress before their delegated tasks were run.
+            if (executor.activeHandshakes() > 0) {
+                assertFalse(serverHandler.handshakeFuture().isDone() && clientHandler.handshakeFuture().isDone());
+            }
+            assertTrue(executor.activeHandshakes() <= 1);
+            pool.runAll();
+            client.runPendingTasks();
+            server.runPendingTasks();
+        }
+
+        client.checkException();
+        server.checkException();
+        assertTrue(clientHandler.handshakeFuture().isSuccess());
+        assertTrue(serverHandler.handshakeFuture().isSuccess());
+        assertEquals(2, executor.handshakeCount());
+        assertEquals(0, executor.failedHandshakeCount());
+        assertTrue(executor.taskCount() > 0);
+        assertEquals(0, executor.activeHandshakes());
+        assertEquals(0, executor.pendingHandshakes());
+    }
+
+    @Test(timeout = 30000)
+    public void testHandshakeFailsIfTooManyPending() throws Exception {
+        ManualExecutor pool = new ManualExecutor();
+        SslHandshakeExecutor executor = new SslHandshakeExecutor(pool, 1, 0);
+
+        SslHandler[] serverHandlers = new SslHandler[2];
+        for (int i = 0; i < serverHandlers.length; i ++) {
+            EmbeddedByteChannel client = new EmbeddedByteChannel(newHandler(true, executor));
+            serverHandlers[i] = newHandler(false, executor);
+            EmbeddedByteChannel server = new EmbeddedByteChannel(serverHandlers[i]);
+
+            // Let the server process the ClientHello, which requires a delegated task.
+            try {
+                transfer(client, server);
+                assertEquals(0, i);
+            } catch (Exception e) {
+                // Rethrown by the EmbeddedByteChannel.
+                assertEquals(1, i);
+                assertTrue(e instanceof SSLException);
+            }
+        }
+
+        assertFalse(serverHandlers[0].handshakeFuture().isDone());
+        assertTrue(serverHandlers[1].handshakeFuture().isDone());
+        assertTrue(serverHandlers[1].handshakeFuture().cause() instanceof SSLException);
+        assertEquals(1, executor.activeHandshakes());
+        assertEquals(1, executor.rejectedCount());
+        assertEquals(1, executor.failedHandshakeCount());
+    }
+
+    private static SslHandler newHandler(boolean client, Executor executor) {
+        SSLEngine engine = client ? clientContext.createSSLEngine() : serverContext.createSSLEngine();
+        engine.setUseClientMode(client);
+        SslHandler handler = new SslHandler(engine, executor);
+        // The event loop of an EmbeddedByteChannel cannot schedule the timeouts.
+        handler.setHandshakeTimeoutMillis(0);
+        handler.setCloseNotifyTimeoutMillis(0);
+        return handler;
+    }
+
+    private static void transfer(EmbeddedByteChannel from, EmbeddedByteChannel to) {
+        for (;;) {
+            ByteBuf buf = from.readOutbound();
+            if (buf == null || !buf.isReadable()) {
+                break;
+            }
+            to.writeInbound(buf);
+        }
+    }
+
+    /**
+     * Runs the delegated tasks on the test thread, so the {@link EmbeddedByteChannel}s are only ever accessed by
+     * a single thread.
+     */
+    private static final class ManualExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (;;) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+            }
+        }
+    }
+}
@@ -20,6 +20,9 @@ import io.netty.buffer.MessageBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundByteHandlerAdapter;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.embedded.EmbeddedByteChannel;
 import io.netty.channel.embedded.EmbeddedMessageChannel;
 import io.netty.util.CharsetUtil;
@@ -29,6 +32,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.*;
@@ -185,6 +190,74 @@ public class ChunkedWriteHandlerTest {
         assertNull(ch.readOutbound());
     }
 
+    @Test
+    public void testMaxPendingBytes() {
+        final int maxPendingBytes = 4 * ChunkedStream.DEFAULT_CHUNK_SIZE;
+        ChunkedWriteHandler handler = new ChunkedWriteHandler();
+        handler.setMaxPendingBytes(maxPendingBytes);
+        SlowSocket socket = new SlowSocket();
+        EmbeddedByteChannel ch = new EmbeddedByteChannel(socket, handler);
+
+        byte[] data = new byte[BYTES.length * 4];
+        for (int i = 0; i < data.length; i ++) {
+            data[i] = BYTES[i % BYTES.length];
+        }
+        ch.outboundMessageBuffer().add(new ChunkedStream(new ByteArrayInputStream(data)));
+        ChannelFuture f = ch.flush();
+
+        ByteBuf received = Unpooled.buffer();
+        for (;;) {
+            // Never more than the budget is fetched before the socket drained.
+            assertTrue(handler.pendingBytes() <= maxPendingBytes);
+            assertTrue(socket.ctx.outboundByteBuffer().readableBytes() <= maxPendingBytes);
+            if (!socket.drain()) {
+                break;
+            }
+            ch.runPendingTasks();
+            for (;;) {
+                ByteBuf buf = ch.readOutbound();
+                if (buf == null || !buf.isReadable()) {
+                    break;
+                }
+                received.writeBytes(buf);
+            }
+        }
+
+        ch.checkException();
+        assertTrue(f.isSuccess());
+        assertEquals(0, handler.pendingBytes());
+        assertEquals(Unpooled.wrappedBuffer(data), received);
+        ch.finish();
+    }
+
+    /**
+     * Holds back the flushes until {@link #drain()} is called, like a socket which is slower than the producer.
+     */
+    private static final class SlowSocket extends ChannelOutboundByteHandlerAdapter {
+        final Queue<ChannelPromise> promises = new ArrayDeque<ChannelPromise>();
+        ChannelHandlerContext ctx;
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        @Override
+        protected void flush(ChannelHandlerContext ctx, ByteBuf in, ChannelPromise promise) {
+            promises.add(promise);
+        }
+
+        boolean drain() {
+            ChannelPromise promise = promises.poll();
+            if (promise == null) {
+                return false;
+            }
+            ctx.nextOutboundByteBuffer().writeBytes(ctx.outboundByteBuffer());
+            ctx.flush(promise);
+            return true;
+        }
+    }
+
     private static void check(ChunkedInput<?>... inputs) {
         EmbeddedByteChannel ch = new EmbeddedByteChannel(new ChunkedWriteHandler());
 
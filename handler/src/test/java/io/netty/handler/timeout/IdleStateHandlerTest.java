@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelStateHandlerAdapter;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IdleStateHandlerTest {
+
+    private static LocalEventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new LocalEventLoopGroup();
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeout = 5000)
+    public void testVoidPromise() throws Exception {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        Channel sc = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundMessageHandlerAdapter<Object>() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        received.add(msg);
+                    }
+                }).bind(LocalAddress.ANY).sync().channel();
+        Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new IdleStateHandler(0, 30, 0)).connect(sc.localAddress()).sync().channel();
+        try {
+            cc.write("hello", cc.voidPromise());
+            assertEquals("hello", received.take());
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testReaderIdle() throws Exception {
+        testIdle(false, IdleState.READER_IDLE);
+    }
+
+    @Test(timeout = 5000)
+    public void testReaderIdleSweep() throws Exception {
+        testIdle(true, IdleState.READER_IDLE);
+    }
+
+    @Test(timeout = 5000)
+    public void testWriterIdle() throws Exception {
+        testIdle(false, IdleState.WRITER_IDLE);
+    }
+
+    @Test(timeout = 5000)
+    public void testWriterIdleSweep() throws Exception {
+        testIdle(true, IdleState.WRITER_IDLE);
+    }
+
+    @Test(timeout = 5000)
+    public void testAllIdleSweep() throws Exception {
+        testIdle(true, IdleState.ALL_IDLE);
+    }
+
+    private static void testIdle(final boolean sweep, final IdleState state) throws Exception {
+        final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+        Channel sc = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundMessageHandlerAdapter<Object>() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        // Discard
+                    }
+                }).bind(LocalAddress.ANY).sync().channel();
+        Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    public void initChannel(Channel ch) throws Exception {
+                        long readerIdleTime = state == IdleState.READER_IDLE ? 200 : 0;
+                        long writerIdleTime = state == IdleState.WRITER_IDLE ? 200 : 0;
+                        long allIdleTime = state == IdleState.ALL_IDLE ? 200 : 0;
+                        ch.pipeline().addLast(
+                                new IdleStateHandler(
+                                        readerIdleTime, writerIdleTime, allIdleTime, TimeUnit.MILLISECONDS, sweep),
+                                new ChannelStateHandlerAdapter() {
+                                    @Override
+                                    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                                        events.add(evt);
+                                    }
+
+                                    @Override
+                                    public void inboundBufferUpdated(ChannelHandlerContext ctx) {
+                                        // NOOP
+                                    }
+                                });
+                    }
+                }).connect(sc.localAddress()).sync().channel();
+        try {
+            long start = System.nanoTime();
+            IdleStateEvent first = (IdleStateEvent) events.take();
+            assertEquals(state, first.state());
+            assertTrue(first.isFirst());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+
+            IdleStateEvent second = (IdleStateEvent) events.take();
+            assertEquals(state, second.state());
+            assertFalse(second.isFirst());
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+        }
+
+        // No more events once the channel was closed.
+        Thread.sleep(400);
+        events.clear();
+        Thread.sleep(400);
+        assertTrue(events.isEmpty());
+    }
+}
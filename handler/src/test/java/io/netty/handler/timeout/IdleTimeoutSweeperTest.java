@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IdleTimeoutSweeperTest {
+
+    private static EventExecutorGroup group;
+
+    @BeforeClass
+    public static void setUp() {
+        group = new DefaultEventExecutorGroup(1);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeout = 10000)
+    public void testEntriesRemovedWhileSweeping() throws Exception {
+        final EventExecutor executor = group.next();
+        final CountDownLatch done = new CountDownLatch(3);
+        final AtomicInteger[] sweeps = new AtomicInteger[5];
+        for (int i = 0; i < sweeps.length; i ++) {
+            final AtomicInteger count = sweeps[i] = new AtomicInteger();
+            final int passes = i + 1;
+            IdleTimeoutSweeper.register(executor, new IdleTimeoutSweeper.Entry() {
+                @Override
+                void sweep(long currentTime) {
+                    assertTrue(executor.inEventLoop());
+                    if (count.incrementAndGet() == passes) {
+                        IdleTimeoutSweeper.unregister(executor, this);
+                        if (passes > 2) {
+                            done.countDown();
+                        }
+                    }
+                }
+            });
+        }
+
+        done.await();
+
+        // Give the sweeper the chance to visit the entries once more, which it must not do.
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }, 300, TimeUnit.MILLISECONDS).sync();
+
+        for (int i = 0; i < sweeps.length; i ++) {
+            assertEquals(i + 1, sweeps[i].get());
+        }
+    }
+}
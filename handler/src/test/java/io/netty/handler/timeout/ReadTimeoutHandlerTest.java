@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ReadTimeoutHandlerTest {
+
+    private static LocalEventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new LocalEventLoopGroup();
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeout = 5000)
+    public void testReadTimeout() throws Exception {
+        testReadTimeout(false);
+    }
+
+    @Test(timeout = 5000)
+    public void testReadTimeoutSweep() throws Exception {
+        testReadTimeout(true);
+    }
+
+    private static void testReadTimeout(final boolean sweep) throws Exception {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        final BlockingQueue<Throwable> exceptions = new LinkedBlockingQueue<Throwable>();
+        Channel sc = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundMessageHandlerAdapter<Object>() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        // Keep the client busy for a while before going silent.
+                        for (int i = 0; i < 3; i ++) {
+                            Thread.sleep(100);
+                            ctx.write(msg);
+                        }
+                    }
+                }).bind(LocalAddress.ANY).sync().channel();
+        Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    public void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(
+                                new ReadTimeoutHandler(200, TimeUnit.MILLISECONDS, sweep),
+                                new ChannelInboundMessageHandlerAdapter<Object>() {
+                                    @Override
+                                    public void messageReceived(ChannelHandlerContext ctx, Object msg) {
+                                        received.add(msg);
+                                    }
+
+                                    @Override
+                                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                        exceptions.add(cause);
+                                    }
+                                });
+                    }
+                }).connect(sc.localAddress()).sync().channel();
+        try {
+            cc.write("ping").sync();
+
+            assertSame(ReadTimeoutException.INSTANCE, exceptions.take());
+            cc.closeFuture().sync();
+            assertEquals(3, received.size());
+            assertTrue(exceptions.isEmpty());
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.timeout;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOperationHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedByteChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WriteTimeoutHandlerTest {
+
+    private static LocalEventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new LocalEventLoopGroup();
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testVoidPromise() {
+        EmbeddedByteChannel ch = new EmbeddedByteChannel(new WriteTimeoutHandler(30), new Sink());
+        ch.write(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3 }), ch.voidPromise());
+        ch.checkException();
+
+        ByteBuf written = ch.readOutbound();
+        assertEquals(3, written.readableBytes());
+        assertFalse(ch.finish());
+    }
+
+    @Test(timeout = 5000)
+    public void testWriteTimeout() throws Exception {
+        testWriteTimeout(false);
+    }
+
+    @Test(timeout = 5000)
+    public void testWriteTimeoutSweep() throws Exception {
+        testWriteTimeout(true);
+    }
+
+    private static void testWriteTimeout(final boolean sweep) throws Exception {
+        final BlockingQueue<Object> received = new LinkedBlockingQueue<Object>();
+        final BlockingQueue<Throwable> exceptions = new LinkedBlockingQueue<Throwable>();
+        Channel sc = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundMessageHandlerAdapter<Object>() {
+                    @Override
+                    public void messageReceived(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        received.add(msg);
+                    }
+                }).bind(LocalAddress.ANY).sync().channel();
+        Channel cc = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    public void initChannel(Channel ch) throws Exception {
+                        ch.pipeline().addLast(
+                                new Stall(),
+                                new WriteTimeoutHandler(200, TimeUnit.MILLISECONDS, sweep),
+                                new ChannelInboundMessageHandlerAdapter<Object>() {
+                                    @Override
+                                    public void messageReceived(ChannelHandlerContext ctx, Object msg) {
+                                        // NOOP
+                                    }
+
+                                    @Override
+                                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                        exceptions.add(cause);
+                                    }
+                                });
+                    }
+                }).connect(sc.localAddress()).sync().channel();
+        try {
+            // Flushes which complete in time do not time out. Only a flush passes the handler, a write goes to the
+            // buffer of the channel directly.
+            flush(cc, "a").sync();
+            flush(cc, "b").sync();
+            assertEquals("a", received.take());
+            assertEquals("b", received.take());
+            Thread.sleep(400);
+            assertTrue(exceptions.isEmpty());
+            assertTrue(cc.isOpen());
+
+            cc.pipeline().get(Stall.class).stalled = true;
+            ChannelFuture future = flush(cc, "c");
+            assertSame(WriteTimeoutException.INSTANCE, exceptions.take());
+            assertSame(WriteTimeoutException.INSTANCE, future.cause());
+            cc.closeFuture().sync();
+            assertTrue(exceptions.isEmpty());
+        } finally {
+            cc.close().sync();
+            sc.close().sync();
+        }
+    }
+
+    private static ChannelFuture flush(final Channel ch, final Object msg) throws Exception {
+        final ChannelPromise promise = ch.newPromise();
+        ch.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                ch.outboundMessageBuffer().add(msg);
+                ch.flush(promise);
+            }
+        }).sync();
+        return promise;
+    }
+
+    /**
+     * Never completes a flush once stalled.
+     */
+    private static final class Stall extends ChannelOperationHandlerAdapter {
+        volatile boolean stalled;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+            if (!stalled) {
+                ctx.flush(promise);
+            }
+        }
+    }
+
+    private static final class Sink extends ChannelInboundByteHandlerAdapter {
+        @Override
+        public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) {
+            in.clear();
+        }
+    }
+}
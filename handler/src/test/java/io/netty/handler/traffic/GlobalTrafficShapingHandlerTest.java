@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInboundMessageHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOperationHandlerAdapter;
+import io.netty.channel.ChannelOutboundByteHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalEventLoopGroup;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GlobalTrafficShapingHandlerTest {
+
+    @Test(timeout = 10000)
+    public void testStalledChannelDoesNotHoldBackOtherLoops() throws Exception {
+        LocalEventLoopGroup serverGroup = new LocalEventLoopGroup(1);
+        LocalEventLoopGroup clientGroup = new LocalEventLoopGroup(2);
+        GlobalTrafficShapingHandler shaper = new GlobalTrafficShapingHandler(clientGroup, 1024 * 1024, 0, 0);
+        try {
+            Channel sc = new ServerBootstrap().group(serverGroup).channel(LocalServerChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        public void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new ChannelInboundMessageHandlerAdapter<Object>() {
+                                @Override
+                                public void messageReceived(ChannelHandlerContext ctx, Object msg) {
+                                    // Discard
+                                }
+                            });
+                        }
+                    }).bind(LocalAddress.ANY).sync().channel();
+
+            Staller staller = new Staller();
+            Channel stalled = connect(clientGroup, sc, staller, shaper);
+            Channel busy = connect(clientGroup, sc, shaper);
+            assertNotSame(stalled.eventLoop(), busy.eventLoop());
+
+            // The first batch of the stalled channel is never written, so the rest of its writes wait forever.
+            for (int i = 0; i < 4; i ++) {
+                stalled.write(Unpooled.wrappedBuffer(new byte[16 * 1024]));
+            }
+            assertTrue(staller.flushed.await(5, TimeUnit.SECONDS));
+
+            ChannelFuture last = null;
+            for (int i = 0; i < 16; i ++) {
+                last = busy.write(Unpooled.wrappedBuffer(new byte[16 * 1024]));
+            }
+            assertTrue(last.await(5, TimeUnit.SECONDS));
+            assertTrue(last.isSuccess());
+
+            busy.close().sync();
+            stalled.close().sync();
+            sc.close().sync();
+        } finally {
+            shaper.release();
+            clientGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Channel connect(
+            LocalEventLoopGroup group, Channel sc, final ChannelHandler... handlers) throws Exception {
+        return new Bootstrap().group(group).channel(LocalChannel.class).handler(new ChannelInitializer<Channel>() {
+            @Override
+            public void initChannel(Channel ch) {
+                ch.pipeline().addLast(new ToMessage()).addLast(handlers);
+            }
+        }).connect(sc.localAddress()).sync().channel();
+    }
+
+    /**
+     * Turns the written bytes into messages, which a {@link LocalChannel} transfers.
+     */
+    private static final class ToMessage extends ChannelOutboundByteHandlerAdapter {
+        @Override
+        protected void flush(ChannelHandlerContext ctx, ByteBuf in, ChannelPromise promise) {
+            ctx.nextOutboundMessageBuffer().add(in.readBytes(in.readableBytes()));
+            ctx.flush(promise);
+        }
+    }
+
+    /**
+     * Never completes a flush, like a channel whose peer stopped reading.
+     */
+    private static final class Staller extends ChannelOperationHandlerAdapter {
+        final CountDownLatch flushed = new CountDownLatch(1);
+
+        @Override
+        public void flush(ChannelHandlerContext ctx, ChannelPromise promise) {
+            flushed.countDown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.traffic;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testUnlimited() {
+        TokenBucket bucket = new TokenBucket(0);
+        bucket.consume(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, bucket.available());
+        assertEquals(0, bucket.nanosUntilAvailable());
+    }
+
+    @Test
+    public void testDebtIsPaidBack() throws Exception {
+        // 1000 bytes per second, which holds up to 100 bytes.
+        TokenBucket bucket = new TokenBucket(1000);
+        assertTrue(bucket.available() <= 100);
+        assertTrue(bucket.available() > 0);
+        assertEquals(0, bucket.nanosUntilAvailable());
+
+        // A large write is let through at once, but the next one has to wait until the debt is paid back.
+        bucket.consume(400);
+        assertTrue(bucket.available() < 0);
+        long waitNanos = bucket.nanosUntilAvailable();
+        assertTrue(waitNanos > TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(waitNanos <= TimeUnit.MILLISECONDS.toNanos(301));
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 50);
+        assertTrue(bucket.available() > 0);
+    }
+
+    @Test
+    public void testBurstIsLimited() throws Exception {
+        TokenBucket bucket = new TokenBucket(10000);
+        Thread.sleep(200);
+        assertEquals(10000 * TokenBucket.BURST_MILLIS / 1000, bucket.available());
+    }
+
+    @Test
+    public void testSetRate() {
+        TokenBucket bucket = new TokenBucket(1000);
+        bucket.consume(1000);
+        bucket.setRate(2000);
+        assertEquals(2000, bucket.rate());
+        assertEquals(200, bucket.available());
+    }
+}
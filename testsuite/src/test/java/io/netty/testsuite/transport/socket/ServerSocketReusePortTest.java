@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ServerSocketReusePortTest extends AbstractServerSocketTest {
+
+    private static final int NUM_ACCEPTORS = 4;
+    private static final int NUM_CHANNELS = 32;
+
+    @Test(timeout = 30000)
+    public void testMultipleAcceptors() throws Throwable {
+        run();
+    }
+
+    public void testMultipleAcceptors(ServerBootstrap sb) throws Throwable {
+        AcceptedChannelCounter counter = new AcceptedChannelCounter(NUM_CHANNELS);
+        sb.acceptors(NUM_ACCEPTORS);
+        sb.childHandler(counter);
+
+        ChannelFuture bindFuture = sb.bind().awaitUninterruptibly();
+        if (bindFuture.cause() instanceof ChannelException) {
+            // SO_REUSEPORT is not supported by this transport.
+            logger.info("Skipped: " + bindFuture.cause().getMessage());
+            return;
+        }
+        Channel sc = bindFuture.sync().channel();
+
+        List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int i = 0; i < NUM_CHANNELS; i ++) {
+                Socket s = new Socket();
+                s.connect(addr, 10000);
+                sockets.add(s);
+            }
+            assertTrue(counter.latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            for (Socket s: sockets) {
+                s.close();
+            }
+        }
+
+        // Closing the returned channel needs to close all other acceptors as well.
+        sc.close().sync();
+        for (;;) {
+            Socket s = new Socket();
+            try {
+                s.connect(addr, 10000);
+            } catch (IOException e) {
+                // Expected - no acceptor is left.
+                break;
+            } finally {
+                s.close();
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class AcceptedChannelCounter extends ChannelInboundByteHandlerAdapter {
+
+        final CountDownLatch latch;
+
+        AcceptedChannelCounter(int nChannels) {
+            latch = new CountDownLatch(nChannels);
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            latch.countDown();
+        }
+
+        @Override
+        public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+            // Unused
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.*;
+
+public class SocketFlushConsolidationTest extends AbstractClientSocketTest {
+
+    private static final int MAX_CONSOLIDATED_FLUSHES = 4;
+
+    @Test(timeout = 30000)
+    public void testFlushConsolidation() throws Throwable {
+        run();
+    }
+
+    public void testFlushConsolidation(Bootstrap cb) throws Throwable {
+        ServerSocket ss = new ServerSocket();
+        Socket s = null;
+        try {
+            ss.bind(addr);
+            final Channel ch = cb.option(ChannelOption.MAX_CONSOLIDATED_FLUSHES, MAX_CONSOLIDATED_FLUSHES)
+                                 .handler(new ChannelInboundByteHandlerAdapter() {
+                                     @Override
+                                     public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) {
+                                         in.skipBytes(in.readableBytes());
+                                     }
+                                 }).connect().sync().channel();
+            s = ss.accept();
+
+            final ChannelFuture[] futures = new ChannelFuture[MAX_CONSOLIDATED_FLUSHES * 2];
+            boolean[] delayed = ch.eventLoop().submit(new Callable<boolean[]>() {
+                @Override
+                public boolean[] call() {
+                    boolean[] delayed = new boolean[futures.length];
+                    for (int i = 0; i < futures.length; i ++) {
+                        futures[i] = ch.write(Unpooled.wrappedBuffer(new byte[] { (byte) i }));
+                        delayed[i] = !futures[i].isDone();
+                    }
+                    return delayed;
+                }
+            }).get();
+
+            // All flushes but the last of each batch are delayed until the end of the event loop iteration.
+            for (int i = 0; i < futures.length; i ++) {
+                if (i % MAX_CONSOLIDATED_FLUSHES != MAX_CONSOLIDATED_FLUSHES - 1) {
+                    assertTrue("flush " + i + " was not delayed", delayed[i]);
+                }
+            }
+
+            for (ChannelFuture f: futures) {
+                f.sync();
+            }
+
+            InputStream in = s.getInputStream();
+            for (int i = 0; i < futures.length; i ++) {
+                assertEquals(i, in.read());
+            }
+            ch.close().sync();
+        } finally {
+            if (s != null) {
+                s.close();
+            }
+            ss.close();
+        }
+    }
+}
@@ -27,7 +27,9 @@ import io.netty.channel.ChannelInboundByteHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.openssl.OpenSsl;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.testsuite.util.BogusOpenSslContextFactory;
 import io.netty.testsuite.util.BogusSslContextFactory;
 import io.netty.util.concurrent.Future;
 
@@ -38,6 +40,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import javax.net.ssl.SSLEngine;
 
+import org.junit.Assume;
 import org.junit.Test;
 
 public class SocketSslEchoTest extends AbstractSocketTest {
@@ -56,7 +59,7 @@ public class SocketSslEchoTest extends AbstractSocketTest {
     }
 
     public void testSslEcho(ServerBootstrap sb, Bootstrap cb) throws Throwable {
-        testSslEcho0(sb, cb, false);
+        testSslEcho0(sb, cb, false, false);
     }
 
     @Test
@@ -65,15 +68,43 @@ public class SocketSslEchoTest extends AbstractSocketTest {
     }
 
     public void testSslEchoWithChunkHandler(ServerBootstrap sb, Bootstrap cb) throws Throwable {
-        testSslEcho0(sb, cb, true);
+        testSslEcho0(sb, cb, true, false);
     }
 
-    private void testSslEcho0(ServerBootstrap sb, Bootstrap cb, final boolean chunkWriteHandler) throws Throwable {
+    @Test
+    public void testSslEchoWithOpenSsl() throws Throwable {
+        Assume.assumeTrue(OpenSsl.isAvailable());
+        run();
+    }
+
+    public void testSslEchoWithOpenSsl(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testSslEcho0(sb, cb, false, true);
+    }
+
+    @Test
+    public void testSslEchoWithOpenSslAndChunkHandler() throws Throwable {
+        Assume.assumeTrue(OpenSsl.isAvailable());
+        run();
+    }
+
+    public void testSslEchoWithOpenSslAndChunkHandler(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testSslEcho0(sb, cb, true, true);
+    }
+
+    private void testSslEcho0(
+            ServerBootstrap sb, Bootstrap cb, final boolean chunkWriteHandler, boolean openSsl) throws Throwable {
         final EchoHandler sh = new EchoHandler(true);
         final EchoHandler ch = new EchoHandler(false);
 
-        final SSLEngine sse = BogusSslContextFactory.getServerContext().createSSLEngine();
-        final SSLEngine cse = BogusSslContextFactory.getClientContext().createSSLEngine();
+        final SSLEngine sse;
+        final SSLEngine cse;
+        if (openSsl) {
+            sse = BogusOpenSslContextFactory.getServerContext().newEngine();
+            cse = BogusOpenSslContextFactory.getClientContext().newEngine();
+        } else {
+            sse = BogusSslContextFactory.getServerContext().createSSLEngine();
+            cse = BogusSslContextFactory.getClientContext().createSSLEngine();
+        }
         sse.setUseClientMode(false);
         cse.setUseClientMode(true);
 
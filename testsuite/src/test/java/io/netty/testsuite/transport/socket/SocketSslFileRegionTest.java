@@ -0,0 +1,189 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.openssl.OpenSsl;
+import io.netty.testsuite.util.BogusOpenSslContextFactory;
+import io.netty.testsuite.util.BogusSslContextFactory;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.net.ssl.SSLEngine;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class SocketSslFileRegionTest extends AbstractSocketTest {
+
+    private static final int HEAD_SIZE = 1024;
+    private static final int TAIL_SIZE = 1024;
+    private static final Random random = new Random();
+    static final byte[] data = new byte[1048576 * 3 + HEAD_SIZE + TAIL_SIZE + 17];
+
+    /**
+     * The time the transfer may take at most. It takes well below a second on any transport, but every chunk
+     * would wait for the read timeout of a blocking transport if the chunks were not sent right after each other.
+     */
+    private static final long MAX_TRANSFER_MILLIS = 10000;
+
+    static {
+        random.nextBytes(data);
+    }
+
+    @Test
+    public void testSslFileRegion() throws Throwable {
+        run();
+    }
+
+    public void testSslFileRegion(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testSslFileRegion0(sb, cb, false);
+    }
+
+    @Test
+    public void testSslFileRegionWithOpenSsl() throws Throwable {
+        Assume.assumeTrue(OpenSsl.isAvailable());
+        run();
+    }
+
+    public void testSslFileRegionWithOpenSsl(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testSslFileRegion0(sb, cb, true);
+    }
+
+    private void testSslFileRegion0(ServerBootstrap sb, Bootstrap cb, boolean openSsl) throws Throwable {
+        File file = File.createTempFile("netty-", ".tmp");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data, HEAD_SIZE, data.length - HEAD_SIZE - TAIL_SIZE);
+        out.close();
+
+        final SSLEngine sse;
+        final SSLEngine cse;
+        if (openSsl) {
+            sse = BogusOpenSslContextFactory.getServerContext().newEngine();
+            cse = BogusOpenSslContextFactory.getClientContext().newEngine();
+        } else {
+            sse = BogusSslContextFactory.getServerContext().createSSLEngine();
+            cse = BogusSslContextFactory.getClientContext().createSSLEngine();
+        }
+        sse.setUseClientMode(false);
+        cse.setUseClientMode(true);
+
+        final TestHandler sh = new TestHandler();
+        sb.childHandler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            public void initChannel(SocketChannel sch) throws Exception {
+                sch.pipeline().addLast(new SslHandler(sse), sh);
+            }
+        });
+        cb.handler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            public void initChannel(SocketChannel sch) throws Exception {
+                sch.pipeline().addLast(new SslHandler(cse), new TestHandler());
+            }
+        });
+
+        Channel sc = sb.bind().sync().channel();
+        Channel cc = cb.connect().sync().channel();
+
+        // The data written before and after the file must be received in the same order.
+        long startTime = System.nanoTime();
+        cc.write(Unpooled.wrappedBuffer(data, 0, HEAD_SIZE));
+        ChannelFuture future = cc.sendFile(new DefaultFileRegion(new FileInputStream(file).getChannel(),
+                0L, file.length()));
+        cc.write(Unpooled.wrappedBuffer(data, data.length - TAIL_SIZE, TAIL_SIZE));
+        future.sync();
+
+        while (sh.counter < data.length) {
+            if (sh.exception.get() != null) {
+                break;
+            }
+
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                // Ignore.
+            }
+        }
+        long transferMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        sh.channel.close().sync();
+        cc.close().sync();
+        sc.close().sync();
+
+        if (sh.exception.get() != null && !(sh.exception.get() instanceof IOException)) {
+            throw sh.exception.get();
+        }
+
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        assertEquals(data.length, sh.counter);
+        assertTrue("transfer took " + transferMillis + " ms", transferMillis < MAX_TRANSFER_MILLIS);
+    }
+
+    private static class TestHandler extends ChannelInboundByteHandlerAdapter {
+        volatile Channel channel;
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+        volatile int counter;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx)
+                throws Exception {
+            channel = ctx.channel();
+        }
+
+        @Override
+        public void inboundBufferUpdated(
+                ChannelHandlerContext ctx, ByteBuf in)
+                throws Exception {
+            byte[] actual = new byte[in.readableBytes()];
+            in.readBytes(actual);
+
+            int lastIdx = counter;
+            for (int i = 0; i < actual.length; i ++) {
+                assertEquals(data[i + lastIdx], actual[i]);
+            }
+            counter += actual.length;
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx,
+                Throwable cause) throws Exception {
+            if (exception.compareAndSet(null, cause)) {
+                ctx.close();
+            }
+        }
+    }
+}
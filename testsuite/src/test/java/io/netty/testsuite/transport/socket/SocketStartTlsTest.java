@@ -29,11 +29,14 @@ import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.logging.ByteLoggingHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.openssl.OpenSsl;
+import io.netty.testsuite.util.BogusOpenSslContextFactory;
 import io.netty.testsuite.util.BogusSslContextFactory;
 import io.netty.util.concurrent.DefaultEventExecutorGroup;
 import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.Future;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -64,10 +67,25 @@ public class SocketStartTlsTest extends AbstractSocketTest {
     }
 
     public void testStartTls(ServerBootstrap sb, Bootstrap cb) throws Throwable {
-        final EventExecutorGroup executor = SocketStartTlsTest.executor;
-        final SSLEngine sse = BogusSslContextFactory.getServerContext().createSSLEngine();
-        final SSLEngine cse = BogusSslContextFactory.getClientContext().createSSLEngine();
+        testStartTls0(sb, cb,
+                BogusSslContextFactory.getServerContext().createSSLEngine(),
+                BogusSslContextFactory.getClientContext().createSSLEngine());
+    }
 
+    @Test(timeout = 30000)
+    public void testStartTlsWithOpenSsl() throws Throwable {
+        Assume.assumeTrue(OpenSsl.isAvailable());
+        run();
+    }
+
+    public void testStartTlsWithOpenSsl(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        testStartTls0(sb, cb,
+                BogusOpenSslContextFactory.getServerContext().newEngine(),
+                BogusOpenSslContextFactory.getClientContext().newEngine());
+    }
+
+    private void testStartTls0(ServerBootstrap sb, Bootstrap cb, SSLEngine sse, SSLEngine cse) throws Throwable {
+        final EventExecutorGroup executor = SocketStartTlsTest.executor;
         final StartTlsServerHandler sh = new StartTlsServerHandler(sse);
         final StartTlsClientHandler ch = new StartTlsClientHandler(cse);
 
@@ -21,6 +21,10 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.aio.AioEventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.oio.OioEventLoopGroup;
 import io.netty.channel.socket.InternetProtocolFamily;
@@ -45,6 +49,9 @@ final class SocketTestPermutation {
     //       Disabling test until the root cause is known.
     private static final boolean TEST_AIO = !PlatformDependent.isWindows();
 
+    // The native epoll transport is only available on Linux.
+    private static final boolean TEST_EPOLL = Epoll.isAvailable();
+
     private static final int BOSSES = 2;
     private static final int WORKERS = 3;
     private static final EventLoopGroup nioBossGroup =
@@ -55,6 +62,10 @@ final class SocketTestPermutation {
             new AioEventLoopGroup(BOSSES, new DefaultThreadFactory("testsuite-aio-boss", true));
     private static final EventLoopGroup aioWorkerGroup =
             new AioEventLoopGroup(WORKERS, new DefaultThreadFactory("testsuite-aio-worker", true));
+    private static final EventLoopGroup epollBossGroup = TEST_EPOLL ?
+            new EpollEventLoopGroup(BOSSES, new DefaultThreadFactory("testsuite-epoll-boss", true)) : null;
+    private static final EventLoopGroup epollWorkerGroup = TEST_EPOLL ?
+            new EpollEventLoopGroup(WORKERS, new DefaultThreadFactory("testsuite-epoll-worker", true)) : null;
     private static final EventLoopGroup oioBossGroup =
             new OioEventLoopGroup(Integer.MAX_VALUE, new DefaultThreadFactory("testsuite-oio-boss", true));
     private static final EventLoopGroup oioWorkerGroup =
@@ -177,6 +188,15 @@ final class SocketTestPermutation {
                 }
             });
         }
+        if (TEST_EPOLL) {
+            list.add(new Factory<ServerBootstrap>() {
+                @Override
+                public ServerBootstrap newInstance() {
+                    return new ServerBootstrap().group(epollBossGroup, epollWorkerGroup)
+                                                .channel(EpollServerSocketChannel.class);
+                }
+            });
+        }
         list.add(new Factory<ServerBootstrap>() {
             @Override
             public ServerBootstrap newInstance() {
@@ -204,6 +224,14 @@ final class SocketTestPermutation {
                 }
             });
         }
+        if (TEST_EPOLL) {
+            list.add(new Factory<Bootstrap>() {
+                @Override
+                public Bootstrap newInstance() {
+                    return new Bootstrap().group(epollWorkerGroup).channel(EpollSocketChannel.class);
+                }
+            });
+        }
         list.add(new Factory<Bootstrap>() {
             @Override
             public Bootstrap newInstance() {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.traffic.GlobalTrafficShapingHandler;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class SocketTrafficShapingTest extends AbstractSocketTest {
+
+    private static final int WRITE_LIMIT = 1024 * 1024;
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int CHUNKS = 32;
+    private static final byte[] data = new byte[CHUNK_SIZE];
+
+    @Test
+    public void testGlobalTrafficShaping() throws Throwable {
+        run();
+    }
+
+    public void testGlobalTrafficShaping(ServerBootstrap sb, Bootstrap cb) throws Throwable {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        GlobalTrafficShapingHandler shaper = new GlobalTrafficShapingHandler(executor, WRITE_LIMIT, 0);
+        final AtomicLong received = new AtomicLong();
+
+        sb.childHandler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            public void initChannel(SocketChannel sch) throws Exception {
+                sch.pipeline().addLast(new ChannelInboundByteHandlerAdapter() {
+                    @Override
+                    public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+                        received.addAndGet(in.readableBytes());
+                        in.clear();
+                    }
+                });
+            }
+        });
+        cb.handler(shaper);
+
+        Channel sc = sb.bind().sync().channel();
+        Channel heavy = cb.connect().sync().channel();
+        Channel light = cb.connect().sync().channel();
+        try {
+            shaper.setWeight(heavy, 3);
+            assertEquals(3, shaper.weight(heavy));
+            assertEquals(1, shaper.weight(light));
+
+            final AtomicLong lightWritten = new AtomicLong();
+            ChannelFutureListener lightListener = new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (future.isSuccess()) {
+                        lightWritten.addAndGet(CHUNK_SIZE);
+                    }
+                }
+            };
+
+            long startTime = System.nanoTime();
+            ChannelFuture heavyFuture = null;
+            ChannelFuture lightFuture = null;
+            for (int i = 0; i < CHUNKS; i ++) {
+                heavyFuture = heavy.write(Unpooled.wrappedBuffer(data));
+                lightFuture = light.write(Unpooled.wrappedBuffer(data)).addListener(lightListener);
+            }
+            heavyFuture.sync();
+            long lightWrittenWhenHeavyDone = lightWritten.get();
+            lightFuture.sync();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+            // The heavy channel gets three times the share of the light channel while both are waiting.
+            assertTrue("light channel wrote " + lightWrittenWhenHeavyDone + " bytes",
+                    lightWrittenWhenHeavyDone < CHUNKS * CHUNK_SIZE * 3 / 4);
+
+            // Both channels together are limited to the write limit, except for the initial burst.
+            long expectedMillis = 2L * CHUNKS * CHUNK_SIZE * 1000 / WRITE_LIMIT;
+            assertTrue("elapsed " + elapsedMillis + " ms", elapsedMillis >= expectedMillis * 3 / 4);
+
+            while (received.get() < 2L * CHUNKS * CHUNK_SIZE) {
+                Thread.sleep(10);
+            }
+            assertEquals(2L * CHUNKS * CHUNK_SIZE, received.get());
+        } finally {
+            heavy.close().sync();
+            light.close().sync();
+            sc.close().sync();
+            shaper.release();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.util;
+
+import io.netty.handler.ssl.openssl.OpenSsl;
+import io.netty.handler.ssl.openssl.OpenSslContext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Creates the {@link OpenSslContext}s of the tests, which use the self-signed certificate {@code test.crt} for
+ * {@code localhost} from the test JAR of netty-handler. Use only if {@link OpenSsl#isAvailable()} returns
+ * {@code true}.
+ */
+public final class BogusOpenSslContextFactory {
+
+    private static OpenSslContext serverContext;
+    private static OpenSslContext clientContext;
+
+    public static synchronized OpenSslContext getServerContext() {
+        if (serverContext == null) {
+            try {
+                serverContext = OpenSslContext.newServerContext(
+                        copyResource("test.crt"), copyResource("test.key"));
+            } catch (Exception e) {
+                throw new Error("Failed to initialize the server-side OpenSslContext", e);
+            }
+        }
+        return serverContext;
+    }
+
+    public static synchronized OpenSslContext getClientContext() {
+        if (clientContext == null) {
+            try {
+                clientContext = OpenSslContext.newClientContext(copyResource("test.crt"));
+            } catch (Exception e) {
+                throw new Error("Failed to initialize the client-side OpenSslContext", e);
+            }
+        }
+        return clientContext;
+    }
+
+    // OpenSSL reads the certificates from files, which a resource in a JAR is not.
+    private static File copyResource(String name) throws IOException {
+        InputStream in = BogusOpenSslContextFactory.class.getResourceAsStream("/io/netty/handler/ssl/" + name);
+        if (in == null) {
+            throw new IOException("resource not found: " + name);
+        }
+
+        File file = File.createTempFile("netty-", '-' + name);
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            byte[] buf = new byte[8192];
+            for (;;) {
+                int n = in.read(buf);
+                if (n < 0) {
+                    break;
+                }
+                out.write(buf, 0, n);
+            }
+        } finally {
+            try {
+                out.close();
+            } finally {
+                in.close();
+            }
+        }
+        return file;
+    }
+
+    private BogusOpenSslContextFactory() { }
+}
@@ -0,0 +1,865 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#define _GNU_SOURCE
+#include <jni.h>
+#include <stdlib.h>
+#include <string.h>
+#include <errno.h>
+#include <unistd.h>
+#include <limits.h>
+#include <sys/types.h>
+#include <sys/socket.h>
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
+#include <sys/sendfile.h>
+#include <sys/uio.h>
+#include <netinet/in.h>
+#include <netinet/tcp.h>
+#include <arpa/inet.h>
+#include "io_netty_channel_epoll_Native.h"
+
+#ifndef SO_REUSEPORT
+#define SO_REUSEPORT 15
+#endif
+
+#ifndef IOV_MAX
+#define IOV_MAX 1024
+#endif
+
+// Cached JNI classes and field ids, all resolved once in JNI_OnLoad.
+static jclass ioExceptionClass = NULL;
+static jclass closedChannelExceptionClass = NULL;
+static jclass connectExceptionClass = NULL;
+static jfieldID fileChannelFieldId = NULL;
+static jfieldID fileDescriptorFieldId = NULL;
+static jfieldID fdFieldId = NULL;
+static jfieldID posFieldId = NULL;
+static jfieldID limitFieldId = NULL;
+
+// AF_INET6 if the kernel supports IPv6 (dual stack sockets), AF_INET otherwise.
+static int socketType;
+
+static void throwException(JNIEnv *env, jclass exceptionClass, const char *message) {
+    (*env)->ThrowNew(env, exceptionClass, message);
+}
+
+static void throwIOException(JNIEnv *env, const char *message) {
+    throwException(env, ioExceptionClass, message);
+}
+
+static void throwIOExceptionErrno(JNIEnv *env, const char *message, int err) {
+    char buf[256];
+    int len = strlen(message);
+    strncpy(buf, message, sizeof(buf) - 1);
+    buf[sizeof(buf) - 1] = '\0';
+    if (len < (int) sizeof(buf) - 1) {
+        strncat(buf, strerror(err), sizeof(buf) - 1 - len);
+    }
+    throwIOException(env, buf);
+}
+
+static void throwClosedChannelException(JNIEnv *env) {
+    jobject exception = (*env)->NewObject(env, closedChannelExceptionClass,
+            (*env)->GetMethodID(env, closedChannelExceptionClass, "<init>", "()V"));
+    (*env)->Throw(env, exception);
+}
+
+static void throwConnectException(JNIEnv *env, int err) {
+    throwException(env, connectExceptionClass, strerror(err));
+}
+
+static void throwIOExceptionForErrno(JNIEnv *env, const char *message, int err) {
+    if (err == EBADF || err == EPIPE) {
+        throwClosedChannelException(env);
+    } else {
+        throwIOExceptionErrno(env, message, err);
+    }
+}
+
+static jclass findGlobalClass(JNIEnv *env, const char *name) {
+    jclass localClass = (*env)->FindClass(env, name);
+    if (localClass == NULL) {
+        return NULL;
+    }
+    jclass globalClass = (*env)->NewGlobalRef(env, localClass);
+    (*env)->DeleteLocalRef(env, localClass);
+    return globalClass;
+}
+
+static int socketTypeSupported(int type) {
+    int fd = socket(type, SOCK_STREAM, 0);
+    if (fd == -1) {
+        return 0;
+    }
+    close(fd);
+    return 1;
+}
+
+jint JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    ioExceptionClass = findGlobalClass(env, "java/io/IOException");
+    closedChannelExceptionClass = findGlobalClass(env, "java/nio/channels/ClosedChannelException");
+    connectExceptionClass = findGlobalClass(env, "java/net/ConnectException");
+    if (ioExceptionClass == NULL || closedChannelExceptionClass == NULL || connectExceptionClass == NULL) {
+        return JNI_ERR;
+    }
+
+    jclass fileRegionCls = (*env)->FindClass(env, "io/netty/channel/DefaultFileRegion");
+    if (fileRegionCls == NULL) {
+        return JNI_ERR;
+    }
+    fileChannelFieldId = (*env)->GetFieldID(env, fileRegionCls, "file", "Ljava/nio/channels/FileChannel;");
+    if (fileChannelFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    jclass fileChannelCls = (*env)->FindClass(env, "sun/nio/ch/FileChannelImpl");
+    if (fileChannelCls == NULL) {
+        return JNI_ERR;
+    }
+    fileDescriptorFieldId = (*env)->GetFieldID(env, fileChannelCls, "fd", "Ljava/io/FileDescriptor;");
+    if (fileDescriptorFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    jclass fileDescriptorCls = (*env)->FindClass(env, "java/io/FileDescriptor");
+    if (fileDescriptorCls == NULL) {
+        return JNI_ERR;
+    }
+    fdFieldId = (*env)->GetFieldID(env, fileDescriptorCls, "fd", "I");
+    if (fdFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    jclass bufferCls = (*env)->FindClass(env, "java/nio/Buffer");
+    if (bufferCls == NULL) {
+        return JNI_ERR;
+    }
+    posFieldId = (*env)->GetFieldID(env, bufferCls, "position", "I");
+    limitFieldId = (*env)->GetFieldID(env, bufferCls, "limit", "I");
+    if (posFieldId == NULL || limitFieldId == NULL) {
+        return JNI_ERR;
+    }
+
+    socketType = socketTypeSupported(AF_INET6) ? AF_INET6 : AF_INET;
+    return JNI_VERSION_1_6;
+}
+
+void JNI_OnUnload(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return;
+    }
+    if (ioExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, ioExceptionClass);
+        ioExceptionClass = NULL;
+    }
+    if (closedChannelExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, closedChannelExceptionClass);
+        closedChannelExceptionClass = NULL;
+    }
+    if (connectExceptionClass != NULL) {
+        (*env)->DeleteGlobalRef(env, connectExceptionClass);
+        connectExceptionClass = NULL;
+    }
+}
+
+// Translates the address passed in from Java (4 or 16 bytes) into a sockaddr suitable for the socket type in use.
+static int initSockaddr(JNIEnv *env, jbyteArray address, jint scopeId, jint jport, struct sockaddr_storage *addr) {
+    uint16_t port = htons((uint16_t) jport);
+    jsize len = (*env)->GetArrayLength(env, address);
+    memset(addr, 0, sizeof(struct sockaddr_storage));
+
+    if (socketType == AF_INET6) {
+        struct sockaddr_in6 *ip6addr = (struct sockaddr_in6 *) addr;
+        ip6addr->sin6_family = AF_INET6;
+        ip6addr->sin6_port = port;
+        if (len == 4) {
+            jbyte ipv4[4];
+            (*env)->GetByteArrayRegion(env, address, 0, 4, ipv4);
+            if (ipv4[0] != 0 || ipv4[1] != 0 || ipv4[2] != 0 || ipv4[3] != 0) {
+                // IPv4 address - use the IPv4-mapped IPv6 form.
+                ip6addr->sin6_addr.s6_addr[10] = 0xff;
+                ip6addr->sin6_addr.s6_addr[11] = 0xff;
+                memcpy(&ip6addr->sin6_addr.s6_addr[12], ipv4, 4);
+            }
+            // 0.0.0.0 is translated to the IPv6 wildcard address so both families are accepted.
+        } else if (len == 16) {
+            ip6addr->sin6_scope_id = scopeId;
+            (*env)->GetByteArrayRegion(env, address, 0, 16, (jbyte *) &ip6addr->sin6_addr.s6_addr);
+        } else {
+            throwIOException(env, "invalid address length");
+            return -1;
+        }
+    } else {
+        struct sockaddr_in *ipaddr = (struct sockaddr_in *) addr;
+        if (len != 4) {
+            throwIOException(env, "IPv6 address not supported by this kernel");
+            return -1;
+        }
+        ipaddr->sin_family = AF_INET;
+        ipaddr->sin_port = port;
+        (*env)->GetByteArrayRegion(env, address, 0, 4, (jbyte *) &ipaddr->sin_addr.s_addr);
+    }
+    return 0;
+}
+
+static void putInt(jbyte *buf, int offset, jint value) {
+    buf[offset] = (jbyte) (value >> 24);
+    buf[offset + 1] = (jbyte) (value >> 16);
+    buf[offset + 2] = (jbyte) (value >> 8);
+    buf[offset + 3] = (jbyte) value;
+}
+
+// Encodes a sockaddr as expected by NativeInetAddress:
+//   IPv4: 4 address bytes + 4 port bytes
+//   IPv6: 16 address bytes + 4 scope id bytes + 4 port bytes
+static jbyteArray createInetSocketAddressBytes(JNIEnv *env, const struct sockaddr_storage *addr) {
+    jbyte buf[24];
+    int len;
+    if (addr->ss_family == AF_INET) {
+        const struct sockaddr_in *s = (const struct sockaddr_in *) addr;
+        memcpy(buf, &s->sin_addr.s_addr, 4);
+        putInt(buf, 4, ntohs(s->sin_port));
+        len = 8;
+    } else {
+        const struct sockaddr_in6 *s = (const struct sockaddr_in6 *) addr;
+        if (IN6_IS_ADDR_V4MAPPED(&s->sin6_addr)) {
+            memcpy(buf, &s->sin6_addr.s6_addr[12], 4);
+            putInt(buf, 4, ntohs(s->sin6_port));
+            len = 8;
+        } else {
+            memcpy(buf, &s->sin6_addr.s6_addr, 16);
+            putInt(buf, 16, s->sin6_scope_id);
+            putInt(buf, 20, ntohs(s->sin6_port));
+            len = 24;
+        }
+    }
+
+    jbyteArray bytes = (*env)->NewByteArray(env, len);
+    if (bytes == NULL) {
+        return NULL;
+    }
+    (*env)->SetByteArrayRegion(env, bytes, 0, len, buf);
+    return bytes;
+}
+
+static int getOption(JNIEnv *env, jint fd, int level, int optname, void *optval, socklen_t optlen) {
+    if (getsockopt(fd, level, optname, optval, &optlen) == -1) {
+        throwIOExceptionForErrno(env, "Error during getsockopt(...): ", errno);
+        return -1;
+    }
+    return 0;
+}
+
+static int setOption(JNIEnv *env, jint fd, int level, int optname, const void *optval, socklen_t len) {
+    if (setsockopt(fd, level, optname, optval, len) == -1) {
+        throwIOExceptionForErrno(env, "Error during setsockopt(...): ", errno);
+        return -1;
+    }
+    return 0;
+}
+
+// eventfd / epoll
+
+jint Java_io_netty_channel_epoll_Native_eventFd(JNIEnv *env, jclass clazz) {
+    jint eventFD = eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+    if (eventFD < 0) {
+        throwIOExceptionErrno(env, "Error during eventfd(...): ", errno);
+    }
+    return eventFD;
+}
+
+void Java_io_netty_channel_epoll_Native_eventFdWrite(JNIEnv *env, jclass clazz, jint fd, jlong value) {
+    if (eventfd_write(fd, (eventfd_t) value) < 0 && errno != EAGAIN) {
+        throwIOExceptionErrno(env, "Error during eventfd_write(...): ", errno);
+    }
+}
+
+void Java_io_netty_channel_epoll_Native_eventFdRead(JNIEnv *env, jclass clazz, jint fd) {
+    eventfd_t eventfd_t;
+    if (eventfd_read(fd, &eventfd_t) != 0 && errno != EAGAIN) {
+        throwIOExceptionErrno(env, "Error during eventfd_read(...): ", errno);
+    }
+}
+
+jint Java_io_netty_channel_epoll_Native_epollCreate(JNIEnv *env, jclass clazz) {
+    jint efd = epoll_create1(EPOLL_CLOEXEC);
+    if (efd < 0) {
+        throwIOExceptionErrno(env, "Error during epoll_create(...): ", errno);
+    }
+    return efd;
+}
+
+jint Java_io_netty_channel_epoll_Native_epollWait(JNIEnv *env, jclass clazz, jint efd, jlongArray events, jint timeout) {
+    int len = (*env)->GetArrayLength(env, events);
+    struct epoll_event ev[len];
+    int ready;
+    int err;
+
+    do {
+        ready = epoll_wait(efd, ev, len, timeout);
+        // Was interrupted - try again when no timeout was given, otherwise just return.
+    } while (ready == -1 && (err = errno) == EINTR && timeout == -1);
+
+    if (ready < 0) {
+        if (err == EINTR) {
+            return 0;
+        }
+        throwIOExceptionErrno(env, "Error during epoll_wait(...): ", err);
+        return -1;
+    }
+    if (ready == 0) {
+        return 0;
+    }
+
+    jboolean isCopy;
+    jlong *elements = (*env)->GetPrimitiveArrayCritical(env, events, &isCopy);
+    if (elements == NULL) {
+        // No memory left - bad bad bad!
+        throwIOException(env, "Error during epoll_wait(...): could not access the events array");
+        return -1;
+    }
+
+    int i;
+    for (i = 0; i < ready; i++) {
+        uint32_t event = ev[i].events;
+        jlong flags = 0;
+        if (event & EPOLLIN) {
+            flags |= EPOLL_IN;
+        }
+        if (event & EPOLLOUT) {
+            flags |= EPOLL_OUT;
+        }
+        if (event & EPOLLRDHUP) {
+            flags |= EPOLL_RDHUP;
+        }
+        if (event & (EPOLLERR | EPOLLHUP)) {
+            flags |= EPOLL_ERR;
+        }
+        // The id of the registration lives in the upper 32 bits, the ready ops in the lower ones.
+        elements[i] = (((jlong) ev[i].data.u32) << 32) | flags;
+    }
+    (*env)->ReleasePrimitiveArrayCritical(env, events, elements, 0);
+    return ready;
+}
+
+static uint32_t toEpollFlags(jint flags) {
+    uint32_t val = EPOLLET;
+    if (flags & EPOLL_IN) {
+        val |= EPOLLIN;
+    }
+    if (flags & EPOLL_OUT) {
+        val |= EPOLLOUT;
+    }
+    if (flags & EPOLL_RDHUP) {
+        val |= EPOLLRDHUP;
+    }
+    return val;
+}
+
+void Java_io_netty_channel_epoll_Native_epollCtlAdd(JNIEnv *env, jclass clazz, jint efd, jint fd, jint flags, jint id) {
+    struct epoll_event ev;
+    memset(&ev, 0, sizeof(ev));
+    ev.events = toEpollFlags(flags);
+    ev.data.u32 = (uint32_t) id;
+    if (id == 0) {
+        // id 0 is reserved for the eventfd of the event loop which is used level-triggered.
+        ev.events &= ~EPOLLET;
+    }
+    if (epoll_ctl(efd, EPOLL_CTL_ADD, fd, &ev) < 0) {
+        throwIOExceptionErrno(env, "Error during epoll_ctl(...): ", errno);
+    }
+}
+
+void Java_io_netty_channel_epoll_Native_epollCtlMod(JNIEnv *env, jclass clazz, jint efd, jint fd, jint flags, jint id) {
+    struct epoll_event ev;
+    memset(&ev, 0, sizeof(ev));
+    ev.events = toEpollFlags(flags);
+    ev.data.u32 = (uint32_t) id;
+    if (epoll_ctl(efd, EPOLL_CTL_MOD, fd, &ev) < 0) {
+        throwIOExceptionErrno(env, "Error during epoll_ctl(...): ", errno);
+    }
+}
+
+void Java_io_netty_channel_epoll_Native_epollCtlDel(JNIEnv *env, jclass clazz, jint efd, jint fd) {
+    // Create an empty event to workaround a bug in older kernels which can not handle NULL.
+    struct epoll_event ev;
+    memset(&ev, 0, sizeof(ev));
+    if (epoll_ctl(efd, EPOLL_CTL_DEL, fd, &ev) < 0) {
+        throwIOExceptionErrno(env, "Error during epoll_ctl(...): ", errno);
+    }
+}
+
+// I/O
+
+static jint write0(JNIEnv *env, jint fd, void *buffer, jint pos, jint limit) {
+    ssize_t res;
+    int err;
+    do {
+        res = write(fd, buffer + pos, (size_t) (limit - pos));
+        // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        // network stack saturated... try again later
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionForErrno(env, "Error while write(...): ", err);
+        return -1;
+    }
+    return (jint) res;
+}
+
+jint Java_io_netty_channel_epoll_Native_write(JNIEnv *env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit) {
+    void *buffer = (*env)->GetDirectBufferAddress(env, jbuffer);
+    if (buffer == NULL) {
+        throwIOException(env, "Unable to access address of buffer");
+        return -1;
+    }
+    return write0(env, fd, buffer, pos, limit);
+}
+
+jint Java_io_netty_channel_epoll_Native_writeAddress(JNIEnv *env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    return write0(env, fd, (void *) address, pos, limit);
+}
+
+static int fillIovec(JNIEnv *env, jobjectArray buffers, jint offset, jint length, struct iovec *iov) {
+    int i;
+    for (i = 0; i < length; i++) {
+        jobject bufObj = (*env)->GetObjectArrayElement(env, buffers, i + offset);
+        jint pos = (*env)->GetIntField(env, bufObj, posFieldId);
+        jint limit = (*env)->GetIntField(env, bufObj, limitFieldId);
+        void *buffer = (*env)->GetDirectBufferAddress(env, bufObj);
+        (*env)->DeleteLocalRef(env, bufObj);
+        if (buffer == NULL) {
+            throwIOException(env, "Unable to access address of buffer");
+            return -1;
+        }
+        iov[i].iov_base = buffer + pos;
+        iov[i].iov_len = (size_t) (limit - pos);
+    }
+    return 0;
+}
+
+jlong Java_io_netty_channel_epoll_Native_writev(JNIEnv *env, jclass clazz, jint fd, jobjectArray buffers, jint offset, jint length) {
+    if (length > IOV_MAX) {
+        // Only write as much as the kernel accepts in one go, the caller will write the rest later.
+        length = IOV_MAX;
+    }
+    struct iovec iov[length];
+    if (fillIovec(env, buffers, offset, length, iov) < 0) {
+        return -1;
+    }
+
+    ssize_t res;
+    int err;
+    do {
+        res = writev(fd, iov, length);
+        // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            // network stack is saturated we will try again later
+            return 0;
+        }
+        throwIOExceptionForErrno(env, "Error while writev(...): ", err);
+        return -1;
+    }
+    return (jlong) res;
+}
+
+static jint read0(JNIEnv *env, jint fd, void *buffer, jint pos, jint limit) {
+    ssize_t res;
+    int err;
+    do {
+        res = read(fd, buffer + pos, (size_t) (limit - pos));
+        // Keep on reading if we was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            // Nothing left to read
+            return 0;
+        }
+        throwIOExceptionForErrno(env, "Error while read(...): ", err);
+        return -1;
+    }
+
+    if (res == 0) {
+        // end-of-stream
+        return -1;
+    }
+    return (jint) res;
+}
+
+jint Java_io_netty_channel_epoll_Native_read(JNIEnv *env, jclass clazz, jint fd, jobject jbuffer, jint pos, jint limit) {
+    void *buffer = (*env)->GetDirectBufferAddress(env, jbuffer);
+    if (buffer == NULL) {
+        throwIOException(env, "Unable to access address of buffer");
+        return -1;
+    }
+    return read0(env, fd, buffer, pos, limit);
+}
+
+jint Java_io_netty_channel_epoll_Native_readAddress(JNIEnv *env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    return read0(env, fd, (void *) address, pos, limit);
+}
+
+jlong Java_io_netty_channel_epoll_Native_readv(JNIEnv *env, jclass clazz, jint fd, jobjectArray buffers, jint offset, jint length) {
+    if (length > IOV_MAX) {
+        length = IOV_MAX;
+    }
+    struct iovec iov[length];
+    if (fillIovec(env, buffers, offset, length, iov) < 0) {
+        return -1;
+    }
+
+    ssize_t res;
+    int err;
+    do {
+        res = readv(fd, iov, length);
+        // Keep on reading if we was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionForErrno(env, "Error while readv(...): ", err);
+        return -1;
+    }
+
+    if (res == 0) {
+        // end-of-stream
+        return -1;
+    }
+    return (jlong) res;
+}
+
+jlong Java_io_netty_channel_epoll_Native_sendfile(JNIEnv *env, jclass clazz, jint fd, jobject fileRegion, jlong base_off, jlong off, jlong len) {
+    jobject fileChannel = (*env)->GetObjectField(env, fileRegion, fileChannelFieldId);
+    if (fileChannel == NULL) {
+        throwIOException(env, "Unable to obtain FileChannel from FileRegion");
+        return -1;
+    }
+    jobject fileDescriptor = (*env)->GetObjectField(env, fileChannel, fileDescriptorFieldId);
+    if (fileDescriptor == NULL) {
+        throwIOException(env, "Unable to obtain FileDescriptor from FileChannel");
+        return -1;
+    }
+    jint srcFd = (*env)->GetIntField(env, fileDescriptor, fdFieldId);
+    if (srcFd == -1) {
+        throwClosedChannelException(env);
+        return -1;
+    }
+
+    off_t offset = base_off + off;
+    ssize_t res;
+    int err;
+    do {
+        res = sendfile(fd, srcFd, &offset, (size_t) len);
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            return 0;
+        }
+        throwIOExceptionForErrno(env, "Error during sendfile(...): ", err);
+        return -1;
+    }
+    if (res == 0 && len > 0) {
+        // end of the file reached before the requested amount of bytes was transferred
+        return -1;
+    }
+    return (jlong) res;
+}
+
+// Socket life-cycle
+
+void Java_io_netty_channel_epoll_Native_close(JNIEnv *env, jclass clazz, jint fd) {
+    if (close(fd) < 0) {
+        throwIOExceptionErrno(env, "Error during close(...): ", errno);
+    }
+}
+
+void Java_io_netty_channel_epoll_Native_shutdown(JNIEnv *env, jclass clazz, jint fd, jboolean read, jboolean write) {
+    int mode;
+    if (read && write) {
+        mode = SHUT_RDWR;
+    } else if (read) {
+        mode = SHUT_RD;
+    } else if (write) {
+        mode = SHUT_WR;
+    } else {
+        return;
+    }
+    if (shutdown(fd, mode) < 0) {
+        throwIOExceptionForErrno(env, "Error during shutdown(...): ", errno);
+    }
+}
+
+jint Java_io_netty_channel_epoll_Native_socketStreamFd(JNIEnv *env, jclass clazz) {
+    int fd = socket(socketType, SOCK_STREAM | SOCK_NONBLOCK | SOCK_CLOEXEC, 0);
+    if (fd == -1) {
+        throwIOExceptionErrno(env, "Error creating socket: ", errno);
+        return -1;
+    }
+    if (socketType == AF_INET6) {
+        // Allow to use the socket for IPv4 and IPv6.
+        int optval = 0;
+        if (setOption(env, fd, IPPROTO_IPV6, IPV6_V6ONLY, &optval, sizeof(optval)) < 0) {
+            close(fd);
+            return -1;
+        }
+    }
+    return fd;
+}
+
+void Java_io_netty_channel_epoll_Native_bind(JNIEnv *env, jclass clazz, jint fd, jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    if (initSockaddr(env, address, scopeId, port, &addr) < 0) {
+        return;
+    }
+    if (bind(fd, (struct sockaddr *) &addr, sizeof(addr)) == -1) {
+        throwIOExceptionErrno(env, "Error during bind(...): ", errno);
+    }
+}
+
+void Java_io_netty_channel_epoll_Native_listen(JNIEnv *env, jclass clazz, jint fd, jint backlog) {
+    if (listen(fd, backlog) == -1) {
+        throwIOExceptionErrno(env, "Error during listen(...): ", errno);
+    }
+}
+
+jboolean Java_io_netty_channel_epoll_Native_connect(JNIEnv *env, jclass clazz, jint fd, jbyteArray address, jint scopeId, jint port) {
+    struct sockaddr_storage addr;
+    if (initSockaddr(env, address, scopeId, port, &addr) < 0) {
+        return JNI_FALSE;
+    }
+
+    int res;
+    int err;
+    do {
+        res = connect(fd, (struct sockaddr *) &addr, sizeof(addr));
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EINPROGRESS) {
+            // connect not complete yet need to wait for EPOLLOUT event
+            return JNI_FALSE;
+        }
+        throwConnectException(env, err);
+        return JNI_FALSE;
+    }
+    return JNI_TRUE;
+}
+
+jboolean Java_io_netty_channel_epoll_Native_finishConnect(JNIEnv *env, jclass clazz, jint fd) {
+    // connect may be done
+    // return true if connection finished successfully
+    // return false if connection is still in progress
+    // throw exception if connection failed
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_ERROR, &optval, sizeof(optval)) < 0) {
+        return JNI_FALSE;
+    }
+    if (optval == 0) {
+        // connect succeeded
+        return JNI_TRUE;
+    }
+    if (optval == EINPROGRESS) {
+        // connect still in progress
+        return JNI_FALSE;
+    }
+    throwConnectException(env, optval);
+    return JNI_FALSE;
+}
+
+jint Java_io_netty_channel_epoll_Native_accept(JNIEnv *env, jclass clazz, jint fd) {
+    jint socketFd;
+    int err;
+    do {
+        socketFd = accept4(fd, NULL, 0, SOCK_NONBLOCK | SOCK_CLOEXEC);
+    } while (socketFd == -1 && ((err = errno) == EINTR));
+
+    if (socketFd == -1) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            // Everything consumed so just return -1 here.
+            return -1;
+        }
+        throwIOExceptionForErrno(env, "Error during accept(...): ", err);
+        return -1;
+    }
+    return socketFd;
+}
+
+jbyteArray Java_io_netty_channel_epoll_Native_remoteAddress0(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr_storage addr;
+    socklen_t len = sizeof(addr);
+    if (getpeername(fd, (struct sockaddr *) &addr, &len) == -1) {
+        return NULL;
+    }
+    return createInetSocketAddressBytes(env, &addr);
+}
+
+jbyteArray Java_io_netty_channel_epoll_Native_localAddress0(JNIEnv *env, jclass clazz, jint fd) {
+    struct sockaddr_storage addr;
+    socklen_t len = sizeof(addr);
+    if (getsockname(fd, (struct sockaddr *) &addr, &len) == -1) {
+        return NULL;
+    }
+    return createInetSocketAddressBytes(env, &addr);
+}
+
+// Socket options
+
+void Java_io_netty_channel_epoll_Native_setReuseAddress(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_REUSEADDR, &optval, sizeof(optval));
+}
+
+void Java_io_netty_channel_epoll_Native_setReusePort(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_REUSEPORT, &optval, sizeof(optval));
+}
+
+void Java_io_netty_channel_epoll_Native_setTcpNoDelay(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, IPPROTO_TCP, TCP_NODELAY, &optval, sizeof(optval));
+}
+
+void Java_io_netty_channel_epoll_Native_setTcpCork(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, IPPROTO_TCP, TCP_CORK, &optval, sizeof(optval));
+}
+
+void Java_io_netty_channel_epoll_Native_setReceiveBufferSize(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_RCVBUF, &optval, sizeof(optval));
+}
+
+void Java_io_netty_channel_epoll_Native_setSendBufferSize(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_SNDBUF, &optval, sizeof(optval));
+}
+
+void Java_io_netty_channel_epoll_Native_setKeepAlive(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_SOCKET, SO_KEEPALIVE, &optval, sizeof(optval));
+}
+
+void Java_io_netty_channel_epoll_Native_setSoLinger(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    struct linger solinger;
+    if (optval < 0) {
+        solinger.l_onoff = 0;
+        solinger.l_linger = 0;
+    } else {
+        solinger.l_onoff = 1;
+        solinger.l_linger = optval;
+    }
+    setOption(env, fd, SOL_SOCKET, SO_LINGER, &solinger, sizeof(solinger));
+}
+
+void Java_io_netty_channel_epoll_Native_setTrafficClass(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    if (socketType == AF_INET6) {
+        // Set the traffic class for both families as a dual stack socket may carry either.
+        setsockopt(fd, IPPROTO_IP, IP_TOS, &optval, sizeof(optval));
+        setOption(env, fd, IPPROTO_IPV6, IPV6_TCLASS, &optval, sizeof(optval));
+    } else {
+        setOption(env, fd, IPPROTO_IP, IP_TOS, &optval, sizeof(optval));
+    }
+}
+
+jint Java_io_netty_channel_epoll_Native_isReuseAddress(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_REUSEADDR, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+jint Java_io_netty_channel_epoll_Native_isReusePort(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_REUSEPORT, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+jint Java_io_netty_channel_epoll_Native_isTcpNoDelay(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, IPPROTO_TCP, TCP_NODELAY, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+jint Java_io_netty_channel_epoll_Native_isTcpCork(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, IPPROTO_TCP, TCP_CORK, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+jint Java_io_netty_channel_epoll_Native_getReceiveBufferSize(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_RCVBUF, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+jint Java_io_netty_channel_epoll_Native_getSendBufferSize(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_SNDBUF, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+jint Java_io_netty_channel_epoll_Native_isKeepAlive(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_KEEPALIVE, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+jint Java_io_netty_channel_epoll_Native_getSoLinger(JNIEnv *env, jclass clazz, jint fd) {
+    struct linger optval;
+    if (getOption(env, fd, SOL_SOCKET, SO_LINGER, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    if (optval.l_onoff == 0) {
+        return -1;
+    }
+    return optval.l_linger;
+}
+
+jint Java_io_netty_channel_epoll_Native_getTrafficClass(JNIEnv *env, jclass clazz, jint fd) {
+    int optval;
+    if (socketType == AF_INET6) {
+        if (getOption(env, fd, IPPROTO_IPV6, IPV6_TCLASS, &optval, sizeof(optval)) == -1) {
+            return -1;
+        }
+    } else {
+        if (getOption(env, fd, IPPROTO_IP, IP_TOS, &optval, sizeof(optval)) == -1) {
+            return -1;
+        }
+    }
+    return optval;
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.EventLoop;
+
+import java.io.IOException;
+
+/**
+ * Base class for all {@link Channel}s which use the native epoll transport. The file descriptor is registered
+ * edge-triggered with the {@link EpollEventLoop}, so a ready event must always be consumed completely.
+ */
+abstract class AbstractEpollChannel extends AbstractChannel {
+    protected final int readFlag;
+
+    /**
+     * The file descriptor of the underlying socket or {@code -1} once closed.
+     */
+    volatile int fd;
+
+    /**
+     * The flags which are registered with the {@link EpollEventLoop}. Only modified from within the
+     * {@link EventLoop}.
+     */
+    int flags = Native.EPOLLRDHUP;
+
+    /**
+     * The id under which this channel is registered with its {@link EpollEventLoop} or {@code 0} if it is not
+     * registered.
+     */
+    int registrationId;
+
+    protected volatile boolean active;
+
+    AbstractEpollChannel(Channel parent, Integer id, int fd, int flag, boolean active) {
+        super(parent, id);
+        this.fd = fd;
+        readFlag = flag;
+        this.active = active;
+    }
+
+    static int newSocketStreamFd() {
+        try {
+            return Native.socketStreamFd();
+        } catch (IOException e) {
+            throw new ChannelException("Failed to open a socket.", e);
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return fd != -1;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        active = false;
+        int fd = this.fd;
+        if (fd != -1) {
+            this.fd = -1;
+            Native.close(fd);
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof EpollEventLoop;
+    }
+
+    @Override
+    protected boolean isFlushPending() {
+        return (flags & Native.EPOLLOUT) != 0;
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        setFlag(readFlag);
+    }
+
+    @Override
+    protected Runnable doRegister() throws Exception {
+        ((EpollEventLoop) eventLoop()).add(this);
+        return null;
+    }
+
+    @Override
+    protected Runnable doDeregister() throws Exception {
+        ((EpollEventLoop) eventLoop()).remove(this);
+        return null;
+    }
+
+    /**
+     * Add the given flag to the registered interest set. Re-arming the registration makes epoll report the
+     * readiness again even if the state of the file descriptor did not change since the last edge.
+     */
+    protected final void setFlag(int flag) throws IOException {
+        if ((flags & flag) == 0) {
+            flags |= flag;
+            modifyEvents();
+        }
+    }
+
+    /**
+     * Remove the given flag from the registered interest set.
+     */
+    protected final void clearFlag(int flag) throws IOException {
+        if ((flags & flag) != 0) {
+            flags &= ~flag;
+            modifyEvents();
+        }
+    }
+
+    private void modifyEvents() throws IOException {
+        if (isOpen() && registrationId != 0) {
+            ((EpollEventLoop) eventLoop()).modify(this);
+        }
+    }
+
+    @Override
+    protected abstract AbstractEpollUnsafe newUnsafe();
+
+    protected abstract class AbstractEpollUnsafe extends AbstractUnsafe {
+
+        /**
+         * Called once EPOLLIN event is ready to be processed
+         */
+        abstract void epollInReady();
+
+        /**
+         * Called once EPOLLRDHUP event is ready to be processed
+         */
+        void epollRdHupReady() {
+            // NOOP
+        }
+
+        /**
+         * Called once a EPOLLOUT event is ready to be processed
+         */
+        void epollOutReady() {
+            // directly flush again as the kernel has space in its buffer again
+            flushNow();
+        }
+
+        /**
+         * Remove the read interest from the registration if auto read is disabled, so the event loop will only
+         * read again once {@link Channel#read()} was called.
+         */
+        protected final void clearReadFlagIfNeeded() {
+            if (!config().isAutoRead()) {
+                try {
+                    clearFlag(readFlag);
+                } catch (IOException e) {
+                    pipeline().fireExceptionCaught(e);
+                    close(voidFuture());
+                }
+            }
+        }
+    }
+}
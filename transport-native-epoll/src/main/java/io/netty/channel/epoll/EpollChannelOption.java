@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelOption;
+
+/**
+ * {@link ChannelOption}s which are only supported by the native epoll transport.
+ *
+ * @param <T>   the type of the value which is valid for the {@link ChannelOption}
+ */
+public final class EpollChannelOption<T> extends ChannelOption<T> {
+
+    /**
+     * {@code TCP_CORK} - if enabled partial frames are not sent out until the option is disabled again, which
+     * allows to batch up a header and a body written by separate flushes into full segments.
+     */
+    public static final ChannelOption<Boolean> TCP_CORK = new EpollChannelOption<Boolean>("TCP_CORK");
+
+    /**
+     * Same as {@link ChannelOption#SO_REUSEPORT}.
+     */
+    public static final ChannelOption<Boolean> SO_REUSEPORT = ChannelOption.SO_REUSEPORT;
+
+    private EpollChannelOption(String name) {
+        super(name);
+    }
+}
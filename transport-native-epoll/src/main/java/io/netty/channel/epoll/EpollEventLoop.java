@@ -0,0 +1,328 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.channel.epoll.AbstractEpollChannel.AbstractEpollUnsafe;
+import io.netty.util.concurrent.EventExecutorMetrics;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link SingleThreadEventLoop} implementation which uses <a href="http://en.wikipedia.org/wiki/Epoll">epoll</a>
+ * under the covers. Only works on Linux!
+ */
+final class EpollEventLoop extends SingleThreadEventLoop {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollEventLoop.class);
+
+    /**
+     * The id which is used for the eventfd of this loop. Channels get ids starting at {@code 1}.
+     */
+    private static final int EVENTFD_ID = 0;
+
+    private final int epollFd;
+    private final int eventFd;
+    private final Map<Integer, AbstractEpollChannel> ids = new HashMap<Integer, AbstractEpollChannel>();
+    private final long[] events;
+
+    /**
+     * Boolean that controls determines if a blocked epoll_wait should break out of its waiting.
+     * See NioEventLoop for the details on how this flag is used.
+     */
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+    private boolean oldWakenUp;
+
+    private int id;
+    private volatile int ioRatio = 50;
+
+    EpollEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, int maxEvents) {
+        super(parent, threadFactory, false);
+        events = new long[maxEvents];
+        boolean success = false;
+        int epollFd = -1;
+        int eventFd = -1;
+        try {
+            this.epollFd = epollFd = Native.epollCreate();
+            this.eventFd = eventFd = Native.eventFd();
+            Native.epollCtlAdd(epollFd, eventFd, Native.EPOLLIN, EVENTFD_ID);
+            success = true;
+        } catch (IOException e) {
+            throw new ChannelException("failed to create the epoll file descriptors", e);
+        } finally {
+            if (!success) {
+                if (epollFd != -1) {
+                    try {
+                        Native.close(epollFd);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+                if (eventFd != -1) {
+                    try {
+                        Native.close(eventFd);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
+            }
+        }
+    }
+
+    private int nextId() {
+        int id = this.id;
+        for (;;) {
+            id ++;
+            if (id == Integer.MAX_VALUE || id <= EVENTFD_ID) {
+                // wrap around but never hand out the id of the eventfd
+                id = EVENTFD_ID + 1;
+            }
+            if (!ids.containsKey(id)) {
+                this.id = id;
+                return id;
+            }
+        }
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop && wakenUp.compareAndSet(false, true)) {
+            // write to the eventfd which will then wake-up epoll_wait
+            try {
+                Native.eventFdWrite(eventFd, 1L);
+            } catch (IOException e) {
+                logger.warn("Failed to wake up the epoll event loop.", e);
+            }
+        }
+    }
+
+    /**
+     * Register the given channel with this {@link EpollEventLoop}.
+     */
+    void add(AbstractEpollChannel ch) throws IOException {
+        assert inEventLoop();
+        int id = nextId();
+        Native.epollCtlAdd(epollFd, ch.fd, ch.flags, id);
+        ch.registrationId = id;
+        ids.put(id, ch);
+    }
+
+    /**
+     * The flags of the given channel changed so update the registration with the {@link EpollEventLoop}.
+     */
+    void modify(AbstractEpollChannel ch) throws IOException {
+        assert inEventLoop();
+        Native.epollCtlMod(epollFd, ch.fd, ch.flags, ch.registrationId);
+    }
+
+    /**
+     * Deregister the given channel from this {@link EpollEventLoop}.
+     */
+    void remove(AbstractEpollChannel ch) throws IOException {
+        assert inEventLoop();
+        if (ids.remove(ch.registrationId) != null && ch.isOpen()) {
+            // Remove the fd from the epoll set. If the channel was closed already there is no need to do this as
+            // closing the fd removes it from the set.
+            Native.epollCtlDel(epollFd, ch.fd);
+        }
+        ch.registrationId = 0;
+    }
+
+    @Override
+    protected Queue<Runnable> newTaskQueue() {
+        // This event loop never calls takeTask()
+        return new ConcurrentLinkedQueue<Runnable>();
+    }
+
+    /**
+     * Returns the percentage of the desired amount of time spent for I/O in the event loop.
+     */
+    public int getIoRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
+     * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     */
+    public void setIoRatio(int ioRatio) {
+        if (ioRatio <= 0 || ioRatio >= 100) {
+            throw new IllegalArgumentException("ioRatio: " + ioRatio + " (expected: 0 < ioRatio < 100)");
+        }
+        this.ioRatio = ioRatio;
+    }
+
+    private int epollWait() throws IOException {
+        int selectCnt = 0;
+        long currentTimeNanos = System.nanoTime();
+        long selectDeadLineNanos = currentTimeNanos + delayNanos(currentTimeNanos);
+        for (;;) {
+            long timeoutMillis = (selectDeadLineNanos - currentTimeNanos + 500000L) / 1000000L;
+            if (timeoutMillis <= 0) {
+                if (selectCnt == 0) {
+                    int ready = Native.epollWait(epollFd, events, 0);
+                    if (ready > 0) {
+                        return ready;
+                    }
+                }
+                break;
+            }
+
+            final EventExecutorMetrics metrics = metrics();
+            int selectedKeys;
+            if (metrics == null) {
+                selectedKeys = Native.epollWait(epollFd, events, (int) timeoutMillis);
+            } else {
+                long waitStartTime = System.nanoTime();
+                selectedKeys = Native.epollWait(epollFd, events, (int) timeoutMillis);
+                metrics.recordSelectWait(System.nanoTime() - waitStartTime);
+            }
+            selectCnt ++;
+
+            if (selectedKeys != 0 || oldWakenUp || wakenUp.get() || hasTasks()) {
+                // Selected something,
+                // waken up by user, or
+                // the task queue has a pending task.
+                return selectedKeys;
+            }
+            currentTimeNanos = System.nanoTime();
+        }
+        return 0;
+    }
+
+    @Override
+    protected void run() {
+        for (;;) {
+            oldWakenUp = wakenUp.getAndSet(false);
+            try {
+                int ready;
+                if (hasTasks()) {
+                    // Non blocking just return what is ready directly without block
+                    ready = Native.epollWait(epollFd, events, 0);
+                } else {
+                    ready = epollWait();
+
+                    // See NioEventLoop.run() for the reasoning behind this; the eventfd plays the role of
+                    // Selector.wakeup() here.
+                    if (wakenUp.get()) {
+                        Native.eventFdWrite(eventFd, 1L);
+                    }
+                }
+
+                final long ioStartTime = System.nanoTime();
+                updateCachedNanoTime();
+                if (ready > 0) {
+                    processReady(events, ready);
+                }
+                final long ioTime = System.nanoTime() - ioStartTime;
+
+                final EventExecutorMetrics metrics = metrics();
+                if (metrics != null) {
+                    metrics.recordIoTime(ioTime);
+                }
+
+                final int ioRatio = this.ioRatio;
+                runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+
+                if (isShuttingDown()) {
+                    closeAll();
+                    if (confirmShutdown()) {
+                        break;
+                    }
+                }
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception in the epoll event loop.", t);
+
+                // Prevent possible consecutive immediate failures that lead to
+                // excessive CPU consumption.
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    private void closeAll() {
+        Collection<AbstractEpollChannel> channels = new ArrayList<AbstractEpollChannel>(ids.values());
+
+        for (AbstractEpollChannel ch: channels) {
+            ch.unsafe().close(ch.unsafe().voidFuture());
+        }
+    }
+
+    private void processReady(long[] events, int ready) throws IOException {
+        for (int i = 0; i < ready; i ++) {
+            final long ev = events[i];
+
+            int id = (int) (ev >> 32);
+            if (id == EVENTFD_ID) {
+                // consume wakeup event
+                Native.eventFdRead(eventFd);
+                continue;
+            }
+
+            AbstractEpollChannel ch = ids.get(id);
+            if (ch == null) {
+                // The channel was deregistered while processing the events of this round.
+                continue;
+            }
+
+            final int readyOps = (int) ev;
+            AbstractEpollUnsafe unsafe = (AbstractEpollUnsafe) ch.unsafe();
+
+            // An error is reported to both the write and the read side so that a pending connect or flush and a
+            // pending read are notified about it.
+            if ((readyOps & (Native.EPOLLOUT | Native.EPOLLERR)) != 0 && ch.isOpen()) {
+                // force flush of data as the epoll is writable again
+                unsafe.epollOutReady();
+            }
+            if ((readyOps & (Native.EPOLLIN | Native.EPOLLERR)) != 0 && ch.isOpen()) {
+                // Something is ready to read, so consume it now
+                unsafe.epollInReady();
+            }
+            if ((readyOps & Native.EPOLLRDHUP) != 0 && ch.isOpen()) {
+                unsafe.epollRdHupReady();
+            }
+        }
+    }
+
+    @Override
+    protected void cleanup() {
+        try {
+            Native.close(epollFd);
+        } catch (IOException e) {
+            logger.warn("Failed to close the epoll fd.", e);
+        }
+        try {
+            Native.close(eventFd);
+        } catch (IOException e) {
+            logger.warn("Failed to close the event fd.", e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.BufType;
+import io.netty.buffer.MessageBuf;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * {@link ServerSocketChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
+ * maximal performance.
+ */
+public final class EpollServerSocketChannel extends AbstractEpollChannel implements ServerSocketChannel {
+
+    private static final ChannelMetadata METADATA = new ChannelMetadata(BufType.MESSAGE, false);
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollServerSocketChannel.class);
+
+    private final EpollServerSocketChannelConfig config;
+    private volatile InetSocketAddress local;
+
+    public EpollServerSocketChannel() {
+        super(null, null, newSocketStreamFd(), Native.EPOLLIN, false);
+        config = new EpollServerSocketChannelConfig(this);
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        InetSocketAddress addr = (InetSocketAddress) localAddress;
+        Native.bind(fd, addr.getAddress(), addr.getPort());
+        local = Native.localAddress(fd);
+        Native.listen(fd, config.getBacklog());
+        active = true;
+    }
+
+    @Override
+    public EpollServerSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return null;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return null;
+    }
+
+    @Override
+    protected boolean isFlushPending() {
+        return false;
+    }
+
+    @Override
+    protected AbstractEpollUnsafe newUnsafe() {
+        return new EpollServerSocketUnsafe();
+    }
+
+    final class EpollServerSocketUnsafe extends AbstractEpollUnsafe {
+
+        private final Runnable acceptTask = new Runnable() {
+            @Override
+            public void run() {
+                if ((flags & readFlag) != 0) {
+                    epollInReady();
+                }
+            }
+        };
+
+        @Override
+        public void connect(SocketAddress socketAddress, SocketAddress socketAddress2, ChannelPromise channelPromise) {
+            // Connect not supported by ServerChannel implementations
+            channelPromise.setFailure(new UnsupportedOperationException());
+        }
+
+        @Override
+        void epollOutReady() {
+            // Nothing is ever flushed by a server channel.
+        }
+
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+            if (!isActive()) {
+                // A socket that is registered but not listening yet is reported as hung up by epoll, ignore it.
+                return;
+            }
+            clearReadFlagIfNeeded();
+
+            final ChannelPipeline pipeline = pipeline();
+            final MessageBuf<Object> msgBuf = pipeline.inboundMessageBuffer();
+            final int maxMessagesPerRead = config.getMaxMessagesPerRead();
+            boolean closed = false;
+            boolean read = false;
+            boolean firedChannelReadSuspended = false;
+            boolean drained = false;
+            try {
+                for (int i = 0; i < maxMessagesPerRead; i ++) {
+                    int socketFd = Native.accept(fd);
+                    if (socketFd == -1) {
+                        // this means everything was handled
+                        drained = true;
+                        break;
+                    }
+                    try {
+                        msgBuf.add(new EpollSocketChannel(EpollServerSocketChannel.this, null, socketFd));
+                        read = true;
+                    } catch (Throwable t) {
+                        logger.warn("Failed to create a new channel from an accepted socket.", t);
+                        try {
+                            Native.close(socketFd);
+                        } catch (Throwable t2) {
+                            logger.warn("Failed to close a socket.", t2);
+                        }
+                    }
+                }
+            } catch (Throwable t) {
+                if (read) {
+                    read = false;
+                    pipeline.fireInboundBufferUpdated();
+                }
+
+                drained = true;
+                if (t instanceof IOException) {
+                    closed = true;
+                } else {
+                    firedChannelReadSuspended = true;
+                    pipeline.fireChannelReadSuspended();
+                }
+
+                pipeline.fireExceptionCaught(t);
+            } finally {
+                if (read) {
+                    pipeline.fireInboundBufferUpdated();
+                }
+                if (closed && isOpen()) {
+                    close(voidFuture());
+                } else if (!firedChannelReadSuspended) {
+                    pipeline.fireChannelReadSuspended();
+                }
+                if (!drained && isOpen()) {
+                    // Edge-triggered - epoll will not report the pending connections again, so continue accepting
+                    // them after the other channels of the event loop had their turn.
+                    eventLoop().execute(acceptTask);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,664 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.BufType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelProgressivePromise;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.EventLoop;
+import io.netty.channel.FileRegion;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SocketChannel} implementation that uses linux EPOLL Edge-Triggered Mode for
+ * maximal performance.
+ *
+ * Reads and writes of direct buffers are done without any copy, composite buffers are transferred with a single
+ * {@code readv} / {@code writev} call and {@link DefaultFileRegion}s are transferred with {@code sendfile}.
+ */
+public final class EpollSocketChannel extends AbstractEpollChannel implements SocketChannel {
+
+    private static final ChannelMetadata METADATA = new ChannelMetadata(BufType.BYTE, false);
+
+    private final EpollSocketChannelConfig config;
+
+    /**
+     * The future of the current connection attempt.  If not null, subsequent
+     * connection attempts will fail.
+     */
+    private ChannelPromise connectPromise;
+    private ScheduledFuture<?> connectTimeoutFuture;
+    private SocketAddress requestedRemoteAddress;
+
+    private FileRegionTransfer pendingTransfer;
+
+    private volatile InetSocketAddress local;
+    private volatile InetSocketAddress remote;
+    private volatile boolean inputShutdown;
+    private volatile boolean outputShutdown;
+
+    EpollSocketChannel(Channel parent, Integer id, int fd) {
+        super(parent, id, fd, Native.EPOLLIN, true);
+        config = new EpollSocketChannelConfig(this);
+        // Directly cache the remote and local addresses
+        remote = Native.remoteAddress(fd);
+        local = Native.localAddress(fd);
+    }
+
+    public EpollSocketChannel() {
+        super(null, null, newSocketStreamFd(), Native.EPOLLIN, false);
+        config = new EpollSocketChannelConfig(this);
+    }
+
+    @Override
+    protected AbstractEpollUnsafe newUnsafe() {
+        return new EpollSocketUnsafe();
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return local;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remote;
+    }
+
+    @Override
+    protected void doBind(SocketAddress local) throws Exception {
+        InetSocketAddress localAddress = (InetSocketAddress) local;
+        Native.bind(fd, localAddress.getAddress(), localAddress.getPort());
+        this.local = Native.localAddress(fd);
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        if (inputShutdown) {
+            return;
+        }
+        super.doBeginRead();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            super.doClose();
+        } finally {
+            FileRegionTransfer transfer = pendingTransfer;
+            if (transfer != null) {
+                pendingTransfer = null;
+                transfer.fail(new ClosedChannelException());
+            }
+        }
+    }
+
+    @Override
+    protected void doFlushByteBuffer(ByteBuf buf) throws Exception {
+        if (!buf.isReadable()) {
+            // Reset reader/writerIndex to 0 if the buffer is empty.
+            buf.clear();
+            clearFlag(Native.EPOLLOUT);
+            return;
+        }
+
+        for (;;) {
+            final int expectedWrittenBytes = buf.readableBytes();
+            final int writtenBytes = doWriteBytes(buf);
+            if (writtenBytes >= expectedWrittenBytes) {
+                // Wrote the outbound buffer completely - clear EPOLLOUT.
+                buf.clear();
+                clearFlag(Native.EPOLLOUT);
+                return;
+            }
+            if (writtenBytes == 0 || !buf.isReadable()) {
+                break;
+            }
+            // Wrote only a part of the buffer. As this is edge-triggered we either need to try again until the kernel
+            // tells us its buffer is full or wait for the next EPOLLOUT.
+        }
+
+        // The kernel buffer is full - wait for EPOLLOUT so the event loop calls flushNow() later.
+        setFlag(Native.EPOLLOUT);
+    }
+
+    /**
+     * Write bytes from the given {@link ByteBuf} to the socket, using the memory address, a single
+     * {@link ByteBuffer} or {@code writev} depending on the type of the buffer.
+     */
+    private int doWriteBytes(ByteBuf buf) throws Exception {
+        final int readerIndex = buf.readerIndex();
+        final int readableBytes = buf.readableBytes();
+        final long localWrittenBytes;
+        if (buf.hasMemoryAddress()) {
+            localWrittenBytes = Native.writeAddress(fd, buf.memoryAddress(), readerIndex, buf.writerIndex());
+        } else if (buf.isDirect() && buf.nioBufferCount() == 1) {
+            ByteBuffer nioBuf = buf.nioBuffer(readerIndex, readableBytes);
+            localWrittenBytes = Native.write(fd, nioBuf, nioBuf.position(), nioBuf.limit());
+        } else if (buf.nioBufferCount() > 1 && isAllDirect(buf)) {
+            ByteBuffer[] nioBufs = buf.nioBuffers(readerIndex, readableBytes);
+            localWrittenBytes = Native.writev(fd, nioBufs, 0, nioBufs.length);
+        } else {
+            // Heap buffer - copy it into a direct buffer first as the kernel can only work on native memory.
+            ByteBuf direct = alloc().directBuffer(readableBytes);
+            try {
+                direct.writeBytes(buf, readerIndex, readableBytes);
+                ByteBuffer nioBuf = direct.nioBuffer(0, readableBytes);
+                localWrittenBytes = Native.write(fd, nioBuf, nioBuf.position(), nioBuf.limit());
+            } finally {
+                direct.release();
+            }
+        }
+        if (localWrittenBytes > 0) {
+            buf.readerIndex(readerIndex + (int) localWrittenBytes);
+        }
+        return (int) localWrittenBytes;
+    }
+
+    /**
+     * Read bytes into the given {@link ByteBuf} and return the amount, {@code 0} if nothing was left to read or
+     * {@code -1} if the remote peer closed the connection.
+     */
+    private int doReadBytes(ByteBuf byteBuf) throws Exception {
+        final int writerIndex = byteBuf.writerIndex();
+        final int writableBytes = byteBuf.writableBytes();
+        final long localReadAmount;
+        if (byteBuf.hasMemoryAddress()) {
+            localReadAmount = Native.readAddress(fd, byteBuf.memoryAddress(), writerIndex, byteBuf.capacity());
+        } else if (byteBuf.isDirect() && byteBuf.nioBufferCount() == 1) {
+            ByteBuffer nioBuf = byteBuf.nioBuffer(writerIndex, writableBytes);
+            localReadAmount = Native.read(fd, nioBuf, nioBuf.position(), nioBuf.limit());
+        } else if (byteBuf.nioBufferCount() > 1 && isAllDirect(byteBuf)) {
+            ByteBuffer[] nioBufs = byteBuf.nioBuffers(writerIndex, writableBytes);
+            localReadAmount = Native.readv(fd, nioBufs, 0, nioBufs.length);
+        } else {
+            // Heap buffer - read into a direct buffer first and copy the bytes over.
+            ByteBuf direct = alloc().directBuffer(writableBytes);
+            try {
+                ByteBuffer nioBuf = direct.nioBuffer(0, writableBytes);
+                int read = Native.read(fd, nioBuf, nioBuf.position(), nioBuf.limit());
+                if (read > 0) {
+                    byteBuf.setBytes(writerIndex, direct, 0, read);
+                }
+                localReadAmount = read;
+            } finally {
+                direct.release();
+            }
+        }
+        if (localReadAmount > 0) {
+            byteBuf.writerIndex(writerIndex + (int) localReadAmount);
+        }
+        return (int) localReadAmount;
+    }
+
+    /**
+     * Returns {@code true} if every component of the given composite buffer is backed by native memory, so it can
+     * be handed to {@code readv} / {@code writev} directly.
+     */
+    private static boolean isAllDirect(ByteBuf buf) {
+        if (buf instanceof CompositeByteBuf) {
+            for (ByteBuf component: (CompositeByteBuf) buf) {
+                if (!component.isDirect()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return buf.isDirect();
+    }
+
+    @Override
+    protected void doFlushFileRegion(FileRegion region, ChannelPromise promise) throws Exception {
+        FileRegionTransfer transfer = new FileRegionTransfer(region, promise);
+        transfer.transfer();
+    }
+
+    /**
+     * Transfers a {@link FileRegion} to the socket. {@link DefaultFileRegion}s are transferred with
+     * {@code sendfile} so the content never needs to be copied into user-space, all other regions are written via
+     * {@link FileRegion#transferTo(WritableByteChannel, long)}. If the kernel buffer is full the transfer is resumed
+     * once the socket is writable again.
+     */
+    private final class FileRegionTransfer {
+        private final FileRegion region;
+        private final ChannelPromise promise;
+        private long writtenBytes;
+        private WritableByteChannel wch;
+
+        FileRegionTransfer(FileRegion region, ChannelPromise promise) {
+            this.region = region;
+            this.promise = promise;
+        }
+
+        void transfer() {
+            try {
+                for (;;) {
+                    if (writtenBytes >= region.count()) {
+                        done();
+                        return;
+                    }
+
+                    long localWrittenBytes;
+                    if (region instanceof DefaultFileRegion) {
+                        localWrittenBytes = Native.sendfile(fd, (DefaultFileRegion) region,
+                                region.position(), writtenBytes, region.count() - writtenBytes);
+                    } else {
+                        if (wch == null) {
+                            wch = new SocketWritableByteChannel();
+                        }
+                        localWrittenBytes = region.transferTo(wch, writtenBytes);
+                    }
+
+                    if (localWrittenBytes == 0) {
+                        // reschedule for write once the channel is writable again
+                        pendingTransfer = this;
+                        setFlag(Native.EPOLLOUT);
+                        return;
+                    } else if (localWrittenBytes == -1) {
+                        checkEOF(region, writtenBytes);
+                        done();
+                        return;
+                    } else {
+                        writtenBytes += localWrittenBytes;
+                        if (promise instanceof ChannelProgressivePromise) {
+                            ((ChannelProgressivePromise) promise).setProgress(writtenBytes, region.count());
+                        }
+                    }
+                }
+            } catch (Throwable cause) {
+                pendingTransfer = null;
+                fail(cause);
+            }
+        }
+
+        private void done() throws IOException {
+            pendingTransfer = null;
+            clearFlag(Native.EPOLLOUT);
+            region.release();
+            promise.setSuccess();
+        }
+
+        void fail(Throwable cause) {
+            region.release();
+            promise.tryFailure(cause);
+        }
+    }
+
+    /**
+     * Adapter which allows {@link FileRegion} implementations other than {@link DefaultFileRegion} to write to the
+     * socket.
+     */
+    private final class SocketWritableByteChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            final int position = src.position();
+            final int limit = src.limit();
+            int written;
+            if (src.isDirect()) {
+                written = Native.write(fd, src, position, limit);
+            } else {
+                final int readableBytes = limit - position;
+                ByteBuf direct = alloc().directBuffer(readableBytes);
+                try {
+                    direct.writeBytes(src.duplicate());
+                    ByteBuffer nioBuf = direct.nioBuffer(0, readableBytes);
+                    written = Native.write(fd, nioBuf, nioBuf.position(), nioBuf.limit());
+                } finally {
+                    direct.release();
+                }
+            }
+            if (written > 0) {
+                src.position(position + written);
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return EpollSocketChannel.this.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            EpollSocketChannel.this.close();
+        }
+    }
+
+    @Override
+    public EpollSocketChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public boolean isInputShutdown() {
+        return inputShutdown;
+    }
+
+    @Override
+    public boolean isOutputShutdown() {
+        return outputShutdown || !isActive();
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput() {
+        return shutdownOutput(newPromise());
+    }
+
+    @Override
+    public ChannelFuture shutdownOutput(final ChannelPromise promise) {
+        EventLoop loop = eventLoop();
+        if (loop.inEventLoop()) {
+            try {
+                Native.shutdown(fd, false, true);
+                outputShutdown = true;
+                promise.setSuccess();
+            } catch (Throwable t) {
+                promise.setFailure(t);
+            }
+        } else {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    shutdownOutput(promise);
+                }
+            });
+        }
+        return promise;
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public ServerSocketChannel parent() {
+        return (ServerSocketChannel) super.parent();
+    }
+
+    @Override
+    public InetSocketAddress localAddress() {
+        return (InetSocketAddress) super.localAddress();
+    }
+
+    @Override
+    public InetSocketAddress remoteAddress() {
+        return (InetSocketAddress) super.remoteAddress();
+    }
+
+    /**
+     * Connect to the remote peer
+     */
+    private boolean doConnect(SocketAddress remoteAddress, SocketAddress localAddress) throws Exception {
+        if (localAddress != null) {
+            doBind(localAddress);
+        }
+
+        boolean success = false;
+        try {
+            InetSocketAddress remoteSocketAddr = (InetSocketAddress) remoteAddress;
+            boolean connected = Native.connect(fd, remoteSocketAddr.getAddress(), remoteSocketAddr.getPort());
+            remote = remoteSocketAddr;
+            local = Native.localAddress(fd);
+            if (!connected) {
+                // Wait for EPOLLOUT which signals that the connect attempt finished.
+                setFlag(Native.EPOLLOUT);
+            } else {
+                active = true;
+            }
+            success = true;
+            return connected;
+        } finally {
+            if (!success) {
+                doClose();
+            }
+        }
+    }
+
+    /**
+     * Finish the connect
+     */
+    private boolean doFinishConnect() throws Exception {
+        if (Native.finishConnect(fd)) {
+            active = true;
+            local = Native.localAddress(fd);
+            clearFlag(Native.EPOLLOUT);
+            return true;
+        }
+        return false;
+    }
+
+    final class EpollSocketUnsafe extends AbstractEpollUnsafe {
+
+        @Override
+        public void connect(
+                final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise promise) {
+            if (eventLoop().inEventLoop()) {
+                if (!ensureOpen(promise)) {
+                    return;
+                }
+
+                try {
+                    if (connectPromise != null) {
+                        throw new IllegalStateException("connection attempt already made");
+                    }
+
+                    boolean wasActive = isActive();
+                    if (doConnect(remoteAddress, localAddress)) {
+                        promise.setSuccess();
+                        if (!wasActive && isActive()) {
+                            pipeline().fireChannelActive();
+                        }
+                    } else {
+                        connectPromise = promise;
+                        requestedRemoteAddress = remoteAddress;
+
+                        // Schedule connect timeout.
+                        int connectTimeoutMillis = config().getConnectTimeoutMillis();
+                        if (connectTimeoutMillis > 0) {
+                            connectTimeoutFuture = eventLoop().schedule(new Runnable() {
+                                @Override
+                                public void run() {
+                                    ChannelPromise connectPromise = EpollSocketChannel.this.connectPromise;
+                                    ConnectTimeoutException cause =
+                                            new ConnectTimeoutException("connection timed out: " + remoteAddress);
+                                    if (connectPromise != null && connectPromise.tryFailure(cause)) {
+                                        close(voidFuture());
+                                    }
+                                }
+                            }, connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                        }
+                    }
+                } catch (Throwable t) {
+                    promise.setFailure(annotateConnectException(t, remoteAddress));
+                    closeIfClosed();
+                }
+            } else {
+                eventLoop().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        connect(remoteAddress, localAddress, promise);
+                    }
+                });
+            }
+        }
+
+        private void finishConnect() {
+            assert eventLoop().inEventLoop();
+            assert connectPromise != null;
+            boolean connectStillInProgress = false;
+            try {
+                boolean wasActive = isActive();
+                if (!doFinishConnect()) {
+                    connectStillInProgress = true;
+                    return;
+                }
+                connectPromise.setSuccess();
+                if (!wasActive && isActive()) {
+                    pipeline().fireChannelActive();
+                }
+
+                // Flush everything that was written while the connect attempt was in progress.
+                flushNow();
+            } catch (Throwable t) {
+                connectPromise.setFailure(annotateConnectException(t, requestedRemoteAddress));
+                close(voidFuture());
+            } finally {
+                if (!connectStillInProgress) {
+                    if (connectTimeoutFuture != null) {
+                        connectTimeoutFuture.cancel(false);
+                    }
+                    connectPromise = null;
+                }
+            }
+        }
+
+        @Override
+        void epollOutReady() {
+            if (connectPromise != null) {
+                // pending connect which is now complete so handle it.
+                finishConnect();
+            } else if (pendingTransfer != null) {
+                pendingTransfer.transfer();
+            } else {
+                super.epollOutReady();
+            }
+        }
+
+        @Override
+        void epollRdHupReady() {
+            if (isActive() && (flags & readFlag) != 0) {
+                // The remote peer shut down its output - drain what is left so the EOF is handled.
+                epollInReady();
+            }
+        }
+
+        @Override
+        void epollInReady() {
+            assert eventLoop().inEventLoop();
+            if (inputShutdown || !isActive()) {
+                return;
+            }
+            clearReadFlagIfNeeded();
+
+            final ChannelPipeline pipeline = pipeline();
+            final ByteBuf byteBuf = pipeline.inboundByteBuffer();
+            boolean closed = false;
+            boolean read = false;
+            boolean firedChannelReadSuspended = false;
+            try {
+                expandReadBuffer(byteBuf);
+                loop: for (;;) {
+                    int localReadAmount = doReadBytes(byteBuf);
+                    if (localReadAmount > 0) {
+                        read = true;
+                    } else if (localReadAmount < 0) {
+                        closed = true;
+                        break;
+                    }
+
+                    // As this is edge-triggered we must read until the socket is drained. A read that did not fill
+                    // the buffer (case 0) means there is nothing left for now.
+                    switch (expandReadBuffer(byteBuf)) {
+                    case 0:
+                        // Read all - stop reading.
+                        break loop;
+                    case 1:
+                        // Keep reading until everything is read.
+                        break;
+                    case 2:
+                        // Let the inbound handler drain the buffer and continue reading.
+                        if (read) {
+                            read = false;
+                            pipeline.fireInboundBufferUpdated();
+                            if (!byteBuf.isWritable()) {
+                                throw new IllegalStateException(
+                                        "an inbound handler whose buffer is full must consume at " +
+                                                "least one byte.");
+                            }
+                        }
+                    }
+                }
+            } catch (Throwable t) {
+                if (read) {
+                    read = false;
+                    pipeline.fireInboundBufferUpdated();
+                }
+
+                if (t instanceof IOException) {
+                    closed = true;
+                } else if (!closed) {
+                    firedChannelReadSuspended = true;
+                    pipeline.fireChannelReadSuspended();
+                }
+                pipeline.fireExceptionCaught(t);
+            } finally {
+                if (read) {
+                    pipeline.fireInboundBufferUpdated();
+                }
+
+                if (closed) {
+                    inputShutdown = true;
+                    if (isOpen()) {
+                        if (Boolean.TRUE.equals(config().getOption(ChannelOption.ALLOW_HALF_CLOSURE))) {
+                            try {
+                                clearFlag(readFlag);
+                            } catch (IOException e) {
+                                // ignore - the channel will be closed anyway
+                            }
+                            pipeline.fireUserEventTriggered(ChannelInputShutdownEvent.INSTANCE);
+                        } else {
+                            close(voidFuture());
+                        }
+                    }
+                } else if (!firedChannelReadSuspended) {
+                    pipeline.fireChannelReadSuspended();
+                }
+            }
+        }
+    }
+
+    private static Throwable annotateConnectException(Throwable t, SocketAddress remoteAddress) {
+        if (t instanceof ConnectException) {
+            Throwable newT = new ConnectException(t.getMessage() + ": " + remoteAddress);
+            newT.setStackTrace(t.getStackTrace());
+            return newT;
+        }
+        return t;
+    }
+}
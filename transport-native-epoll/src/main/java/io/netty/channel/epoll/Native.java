@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.DefaultFileRegion;
+import io.netty.util.internal.NativeLibraryLoader;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+
+/**
+ * Native helper methods
+ *
+ * <strong>Internal usage only!</strong>
+ */
+final class Native {
+    static {
+        NativeLibraryLoader.load("netty-transport-native-epoll", Native.class.getClassLoader());
+    }
+
+    // EventLoop operations and constants. These must be kept in sync with io_netty_channel_epoll_Native.h
+    public static final int EPOLLIN = 0x01;
+    public static final int EPOLLOUT = 0x02;
+    public static final int EPOLLRDHUP = 0x04;
+    public static final int EPOLLERR = 0x08;
+
+    public static native int eventFd() throws IOException;
+    public static native void eventFdWrite(int fd, long value) throws IOException;
+    public static native void eventFdRead(int fd) throws IOException;
+    public static native int epollCreate() throws IOException;
+    public static native int epollWait(int efd, long[] events, int timeout) throws IOException;
+    public static native void epollCtlAdd(int efd, final int fd, final int flags, final int id) throws IOException;
+    public static native void epollCtlMod(int efd, final int fd, final int flags, final int id) throws IOException;
+    public static native void epollCtlDel(int efd, final int fd) throws IOException;
+
+    // File-descriptor operations
+    public static native void close(int fd) throws IOException;
+
+    public static native int write(int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+    public static native int writeAddress(int fd, long address, int pos, int limit) throws IOException;
+    public static native long writev(int fd, ByteBuffer[] buffers, int offset, int length) throws IOException;
+
+    public static native int read(int fd, ByteBuffer buf, int pos, int limit) throws IOException;
+    public static native int readAddress(int fd, long address, int pos, int limit) throws IOException;
+    public static native long readv(int fd, ByteBuffer[] buffers, int offset, int length) throws IOException;
+
+    public static native long sendfile(
+            int dest, DefaultFileRegion src, long baseOffset, long offset, long length) throws IOException;
+
+    // socket operations
+    public static native int socketStreamFd() throws IOException;
+    public static native void shutdown(int fd, boolean read, boolean write) throws IOException;
+    public static native void listen(int fd, int backlog) throws IOException;
+    public static native int accept(int fd) throws IOException;
+    public static native boolean finishConnect(int fd) throws IOException;
+
+    public static void bind(int fd, InetAddress addr, int port) throws IOException {
+        bind(fd, addr.getAddress(), scopeId(addr), port);
+    }
+
+    public static native void bind(int fd, byte[] address, int scopeId, int port) throws IOException;
+
+    public static boolean connect(int fd, InetAddress addr, int port) throws IOException {
+        return connect(fd, addr.getAddress(), scopeId(addr), port);
+    }
+
+    public static native boolean connect(int fd, byte[] address, int scopeId, int port) throws IOException;
+
+    public static InetSocketAddress remoteAddress(int fd) {
+        return address(remoteAddress0(fd));
+    }
+
+    public static InetSocketAddress localAddress(int fd) {
+        return address(localAddress0(fd));
+    }
+
+    private static native byte[] remoteAddress0(int fd);
+    private static native byte[] localAddress0(int fd);
+
+    // Socket option operations
+    public static native int getReceiveBufferSize(int fd) throws IOException;
+    public static native int getSendBufferSize(int fd) throws IOException;
+    public static native int isKeepAlive(int fd) throws IOException;
+    public static native int isReuseAddress(int fd) throws IOException;
+    public static native int isReusePort(int fd) throws IOException;
+    public static native int isTcpNoDelay(int fd) throws IOException;
+    public static native int isTcpCork(int fd) throws IOException;
+    public static native int getSoLinger(int fd) throws IOException;
+    public static native int getTrafficClass(int fd) throws IOException;
+
+    public static native void setKeepAlive(int fd, int keepAlive) throws IOException;
+    public static native void setReceiveBufferSize(int fd, int receiveBufferSize) throws IOException;
+    public static native void setReuseAddress(int fd, int reuseAddress) throws IOException;
+    public static native void setReusePort(int fd, int reusePort) throws IOException;
+    public static native void setSendBufferSize(int fd, int sendBufferSize) throws IOException;
+    public static native void setTcpNoDelay(int fd, int tcpNoDelay) throws IOException;
+    public static native void setTcpCork(int fd, int tcpCork) throws IOException;
+    public static native void setSoLinger(int fd, int soLinger) throws IOException;
+    public static native void setTrafficClass(int fd, int trafficClass) throws IOException;
+
+    private static int scopeId(InetAddress addr) {
+        if (addr instanceof Inet6Address) {
+            return ((Inet6Address) addr).getScopeId();
+        }
+        return 0;
+    }
+
+    /**
+     * Decodes the address returned by the native layer. IPv4 addresses are encoded as 4 address bytes followed by
+     * the port, IPv6 addresses as 16 address bytes followed by the scope id and the port.
+     */
+    private static InetSocketAddress address(byte[] addr) {
+        if (addr == null) {
+            return null;
+        }
+        try {
+            InetAddress address;
+            int portIndex;
+            if (addr.length == 8) {
+                byte[] ipv4 = new byte[4];
+                System.arraycopy(addr, 0, ipv4, 0, 4);
+                address = InetAddress.getByAddress(ipv4);
+                portIndex = 4;
+            } else {
+                byte[] ipv6 = new byte[16];
+                System.arraycopy(addr, 0, ipv6, 0, 16);
+                int scopeId = decodeInt(addr, 16);
+                if (scopeId == 0) {
+                    address = InetAddress.getByAddress(ipv6);
+                } else {
+                    address = Inet6Address.getByAddress(null, ipv6, scopeId);
+                }
+                portIndex = 20;
+            }
+            return new InetSocketAddress(address, decodeInt(addr, portIndex));
+        } catch (UnknownHostException e) {
+            throw new Error("Should never happen", e);
+        }
+    }
+
+    private static int decodeInt(byte[] addr, int index) {
+        return  (addr[index]     & 0xff) << 24 |
+                (addr[index + 1] & 0xff) << 16 |
+                (addr[index + 2] & 0xff) <<  8 |
+                 addr[index + 3] & 0xff;
+    }
+
+    private Native() {
+        // utility
+    }
+}
@@ -186,6 +186,16 @@ final class DefaultRxtxChannelConfig extends DefaultChannelConfig implements Rxt
         return (RxtxChannelConfig) super.setWriteSpinCount(writeSpinCount);
     }
 
+    @Override
+    public RxtxChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        return (RxtxChannelConfig) super.setMaxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    @Override
+    public RxtxChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        return (RxtxChannelConfig) super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+    }
+
     @Override
     public RxtxChannelConfig setAllocator(ByteBufAllocator allocator) {
         return (RxtxChannelConfig) super.setAllocator(allocator);
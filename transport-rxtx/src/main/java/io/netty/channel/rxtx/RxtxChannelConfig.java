@@ -264,6 +264,12 @@ public interface RxtxChannelConfig extends ChannelConfig {
     @Override
     RxtxChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    RxtxChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    RxtxChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     RxtxChannelConfig setAllocator(ByteBufAllocator allocator);
 
@@ -181,6 +181,16 @@ public class DefaultSctpChannelConfig extends DefaultChannelConfig implements Sc
         return (SctpChannelConfig) super.setWriteSpinCount(writeSpinCount);
     }
 
+    @Override
+    public SctpChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        return (SctpChannelConfig) super.setMaxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    @Override
+    public SctpChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        return (SctpChannelConfig) super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+    }
+
     @Override
     public SctpChannelConfig setAllocator(ByteBufAllocator allocator) {
         return (SctpChannelConfig) super.setAllocator(allocator);
@@ -159,6 +159,16 @@ public class DefaultSctpServerChannelConfig extends DefaultChannelConfig impleme
         return (SctpServerChannelConfig) super.setWriteSpinCount(writeSpinCount);
     }
 
+    @Override
+    public SctpServerChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        return (SctpServerChannelConfig) super.setMaxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    @Override
+    public SctpServerChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        return (SctpServerChannelConfig) super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+    }
+
     @Override
     public SctpServerChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
         return (SctpServerChannelConfig) super.setConnectTimeoutMillis(connectTimeoutMillis);
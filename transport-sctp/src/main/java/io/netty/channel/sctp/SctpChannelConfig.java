@@ -102,6 +102,12 @@ public interface SctpChannelConfig extends ChannelConfig {
     @Override
     SctpChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    SctpChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    SctpChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     SctpChannelConfig setAllocator(ByteBufAllocator allocator);
 
@@ -94,6 +94,12 @@ public interface SctpServerChannelConfig extends ChannelConfig {
     @Override
     SctpServerChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    SctpServerChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    SctpServerChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     SctpServerChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis);
 
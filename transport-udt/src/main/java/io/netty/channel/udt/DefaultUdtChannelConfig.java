@@ -244,6 +244,18 @@ public class DefaultUdtChannelConfig extends DefaultChannelConfig implements
         return this;
     }
 
+    @Override
+    public UdtChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public UdtChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+        return this;
+    }
+
     @Override
     public UdtChannelConfig setAllocator(ByteBufAllocator allocator) {
         super.setAllocator(allocator);
@@ -146,6 +146,18 @@ public class DefaultUdtServerChannelConfig extends DefaultUdtChannelConfig
         return this;
     }
 
+    @Override
+    public UdtServerChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public UdtServerChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+        return this;
+    }
+
     @Override
     public UdtServerChannelConfig setAllocator(ByteBufAllocator allocator) {
         super.setAllocator(allocator);
@@ -116,6 +116,12 @@ public interface UdtChannelConfig extends ChannelConfig {
     @Override
     UdtChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    UdtChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    UdtChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     UdtChannelConfig setAllocator(ByteBufAllocator allocator);
 
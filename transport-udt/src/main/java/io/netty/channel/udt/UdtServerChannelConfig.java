@@ -50,6 +50,12 @@ public interface UdtServerChannelConfig extends UdtChannelConfig {
     @Override
     UdtServerChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    UdtServerChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    UdtServerChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     UdtServerChannelConfig setAllocator(ByteBufAllocator allocator);
 
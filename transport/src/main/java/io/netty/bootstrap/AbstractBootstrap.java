@@ -279,9 +279,13 @@ abstract class AbstractBootstrap<B extends AbstractBootstrap<B, C>, C extends Ch
 		return doBind(localAddress);
 	}
 
-	private ChannelFuture doBind(final SocketAddress localAddress) {
+	ChannelFuture doBind(final SocketAddress localAddress) {
 		// 创建channel，并将这个channel注册到EventLoop上去
 		final ChannelFuture regPromise = initAndRegister();
+		if (regPromise.cause() != null) {
+			// init() or the registration failed, the channel has no event loop to run the bind on.
+			return regPromise;
+		}
 		final Channel channel = regPromise.channel();
 		final ChannelPromise promise = channel.newPromise();
 		if (regPromise.isDone()) {
@@ -19,13 +19,18 @@ import io.netty.buffer.MessageBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundMessageHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.ChannelStateHandlerAdapter;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.socket.SocketChannel;
@@ -33,10 +38,12 @@ import io.netty.util.AttributeKey;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.net.SocketAddress;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * {@link Bootstrap} sub-class which allows easy bootstrap of {@link ServerChannel}
@@ -50,6 +57,7 @@ public final class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, Se
     private final Map<AttributeKey<?>, Object> childAttrs = new LinkedHashMap<AttributeKey<?>, Object>();
     private volatile EventLoopGroup childGroup;
     private volatile ChannelHandler childHandler;
+    private volatile int acceptors = 1;
 
     public ServerBootstrap() { }
 
@@ -57,6 +65,7 @@ public final class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, Se
         super(bootstrap);
         childGroup = bootstrap.childGroup;
         childHandler = bootstrap.childHandler;
+        acceptors = bootstrap.acceptors;
         synchronized (bootstrap.childOptions) {
             childOptions.putAll(bootstrap.childOptions);
         }
@@ -138,12 +147,88 @@ public final class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, Se
         return this;
     }
 
+    /**
+     * Set the number of {@link ServerChannel}s which are bound to the same local address on {@link #bind()}.
+     * Each of them is registered to its own {@link EventLoop} of the parent {@link EventLoopGroup}, so the kernel
+     * load-balances incoming connections between several accept loops. This needs {@link ChannelOption#SO_REUSEPORT}
+     * to be supported by the transport; binding fails otherwise. The default is {@code 1}.
+     *
+     * The {@link ChannelFuture} returned by {@code bind()} is notified once all of them are bound and its
+     * {@link Channel} is the first of them. Closing this {@link Channel} also closes all the others.
+     */
+    public ServerBootstrap acceptors(int acceptors) {
+        if (acceptors <= 0) {
+            throw new IllegalArgumentException("acceptors: " + acceptors + " (expected: > 0)");
+        }
+        this.acceptors = acceptors;
+        return this;
+    }
+
+    @Override
+    ChannelFuture doBind(SocketAddress localAddress) {
+        final int acceptors = this.acceptors;
+        if (acceptors == 1) {
+            return super.doBind(localAddress);
+        }
+
+        final ChannelFuture[] futures = new ChannelFuture[acceptors];
+        for (int i = 0; i < acceptors; i ++) {
+            ChannelFuture future = super.doBind(localAddress);
+            if (future.cause() != null) {
+                // init() or the registration failed, so give up on the acceptors which were created so far.
+                closeAll(futures);
+                return future;
+            }
+            futures[i] = future;
+        }
+
+        final Channel primary = futures[0].channel();
+        final ChannelPromise promise = primary.newPromise();
+        final AtomicInteger remaining = new AtomicInteger(acceptors);
+        ChannelFutureListener listener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    if (promise.tryFailure(future.cause())) {
+                        closeAll(futures);
+                    }
+                } else if (remaining.decrementAndGet() == 0) {
+                    promise.trySuccess();
+                }
+            }
+        };
+        for (ChannelFuture f: futures) {
+            f.addListener(listener);
+        }
+
+        primary.closeFuture().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                closeAll(futures);
+            }
+        });
+        return promise;
+    }
+
+    private static void closeAll(ChannelFuture[] futures) {
+        for (ChannelFuture f: futures) {
+            if (f != null) {
+                f.channel().close();
+            }
+        }
+    }
+
     @Override
     void init(Channel channel) throws Exception {
         final Map<ChannelOption<?>, Object> options = options();
         synchronized (options) {
             channel.config().setOptions(options);
         }
+        if (acceptors > 1 && !channel.config().setOption(ChannelOption.SO_REUSEPORT, true)) {
+            throw new ChannelException(
+                    ChannelOption.SO_REUSEPORT + " is not supported by " + channel.getClass().getSimpleName() +
+                    " which is required for more than one acceptor");
+        }
 
         final Map<AttributeKey<?>, Object> attrs = attrs();
         synchronized (attrs) {
@@ -303,6 +388,11 @@ public final class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, Se
         StringBuilder buf = new StringBuilder(super.toString());
         buf.setLength(buf.length() - 1);
         buf.append(", ");
+        if (acceptors != 1) {
+            buf.append("acceptors: ");
+            buf.append(acceptors);
+            buf.append(", ");
+        }
         if (childGroup != null) {
             buf.append("childGroup: ");
             buf.append(childGroup.getClass().getSimpleName());
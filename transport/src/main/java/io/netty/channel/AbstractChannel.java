@@ -79,7 +79,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
     private final Unsafe unsafe;
     private final DefaultChannelPipeline pipeline;
     private final ChannelFuture succeededFuture = new SucceededChannelFuture(this, null);
-    private final VoidChannelPromise voidPromise = new VoidChannelPromise(this);
+    private final VoidChannelPromise voidPromise = new VoidChannelPromise(this, true);
+    private final VoidChannelPromise unsafeVoidPromise = new VoidChannelPromise(this, false);
     private final CloseFuture closeFuture = new CloseFuture(this);
 
     protected final ChannelFlushPromiseNotifier flushFutureNotifier = new ChannelFlushPromiseNotifier();
@@ -311,6 +312,11 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         return new DefaultChannelProgressivePromise(this);
     }
 
+    @Override
+    public ChannelPromise voidPromise() {
+        return voidPromise;
+    }
+
     @Override
     public ChannelFuture newSucceededFuture() {
         return succeededFuture;
@@ -447,6 +453,19 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             FlushTask next;
 
             FlushTask(FileRegion region, ChannelPromise promise) {
+                if (promise instanceof VoidChannelPromise) {
+                    // The void promise does not accept listeners, so track the task with a real promise which
+                    // forwards a failure to it.
+                    final ChannelPromise voidPromise = promise;
+                    promise = newPromise().addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) throws Exception {
+                            if (!future.isSuccess()) {
+                                voidPromise.tryFailure(future.cause());
+                            }
+                        }
+                    });
+                }
                 this.region = region;
                 this.promise = promise;
                 promise.addListener(new ChannelFutureListener() {
@@ -491,7 +510,21 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             }
         };
 
+        private final Runnable consolidatedFlushTask = new Runnable() {
+            @Override
+            public void run() {
+                consolidatedFlushScheduled = false;
+                if (consolidatedFlushes != 0) {
+                    consolidatedFlushes = 0;
+                    flush0();
+                }
+            }
+        };
+
         private FlushTask flushTaskInProgress;
+        // The number of flushes which were delayed since the last actual flush. See consolidateFlush().
+        private int consolidatedFlushes;
+        private boolean consolidatedFlushScheduled;
 
         @Override
         public final void sendFile(final FileRegion region, final ChannelPromise promise) {
@@ -550,7 +583,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
 
         @Override
         public final ChannelPromise voidFuture() {
-            return voidPromise;
+            return unsafeVoidPromise;
         }
 
         @Override
@@ -836,6 +869,9 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
 
                     return;
                 }
+                if (consolidateFlush(promise)) {
+                    return;
+                }
                 flushNotifierAndFlush(promise);
             } else {
                 eventLoop().execute(new Runnable() {
@@ -847,6 +883,32 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             }
         }
 
+        /**
+         * Delays the flush if {@link ChannelConfig#getMaxConsolidatedFlushes()} allows it, and returns {@code true}
+         * if it did. The delayed flushes are done by a task which runs at the end of the current iteration of the
+         * {@link EventLoop}, before it waits for I/O again, unless the limit is reached before.
+         */
+        private boolean consolidateFlush(ChannelPromise promise) {
+            int maxConsolidatedFlushes = config().getMaxConsolidatedFlushes();
+            if (maxConsolidatedFlushes <= 1 || promise == unsafeVoidPromise) {
+                return false;
+            }
+
+            if (++ consolidatedFlushes >= maxConsolidatedFlushes) {
+                // Flush now, which includes all the delayed flushes.
+                consolidatedFlushes = 0;
+                return false;
+            }
+
+            // The promise is notified by the flush which writes its data, just like on an immediate flush.
+            flushNotifier(promise);
+            if (!consolidatedFlushScheduled) {
+                consolidatedFlushScheduled = true;
+                eventLoop().execute(consolidatedFlushTask);
+            }
+            return true;
+        }
+
         private void flushNotifierAndFlush(ChannelPromise promise) {
             flushNotifier(promise);
             flush0();
@@ -864,8 +926,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         }
 
         private ChannelFuture flushNotifier(ChannelPromise promise) {
-            // Append flush future to the notification list.
-            if (promise != voidPromise) {
+            // Append flush future to the notification list. Nobody is interested in the outcome of an internal flush.
+            if (promise != unsafeVoidPromise) {
                 flushFutureNotifier.add(promise, outboundBufSize());
             }
             return promise;
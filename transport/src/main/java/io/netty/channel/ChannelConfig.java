@@ -51,6 +51,10 @@ import java.util.Map;
  * </tr><tr>
  * <td>{@link ChannelOption#WRITE_SPIN_COUNT}</td><td>{@link #setWriteSpinCount(int)}</td>
  * </tr><tr>
+ * <td>{@link ChannelOption#MAX_MESSAGES_PER_READ}</td><td>{@link #setMaxMessagesPerRead(int)}</td>
+ * </tr><tr>
+ * <td>{@link ChannelOption#MAX_CONSOLIDATED_FLUSHES}</td><td>{@link #setMaxConsolidatedFlushes(int)}</td>
+ * </tr><tr>
  * <td>{@link ChannelOption#ALLOCATOR}</td><td>{@link #setAllocator(ByteBufAllocator)}</td>
  * </tr><tr>
  * <td>{@link ChannelOption#AUTO_READ}</td><td>{@link #setAutoRead(boolean)}</td>
@@ -146,6 +150,40 @@ public interface ChannelConfig {
      */
     ChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    /**
+     * Returns the maximum number of messages a message based {@link Channel} (like a server socket or a datagram
+     * channel) reads in one read loop before it gives the other {@link Channel}s of its {@link EventLoop} a chance
+     * to be served. The remaining messages are read in the next loop. The default value is {@code 16}.
+     */
+    int getMaxMessagesPerRead();
+
+    /**
+     * Sets the maximum number of messages a message based {@link Channel} reads in one read loop.
+     * The default value is {@code 16}.
+     *
+     * @throws IllegalArgumentException
+     *         if the specified value is {@code 0} or less than {@code 0}
+     */
+    ChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    /**
+     * Returns the maximum number of flush requests which are consolidated into a single flush of the
+     * {@link Channel}. If more than one, a flush requested from within the {@link EventLoop} is delayed until
+     * either this many flushes were requested or the {@link EventLoop} finished its current iteration, whatever
+     * comes first. The {@link EventLoop} never waits for I/O while a delayed flush is pending, so this saves
+     * system calls without adding latency. The default value is {@code 1}, which flushes on every request.
+     */
+    int getMaxConsolidatedFlushes();
+
+    /**
+     * Sets the maximum number of flush requests which are consolidated into a single flush of the
+     * {@link Channel}. The default value is {@code 1}, which flushes on every request.
+     *
+     * @throws IllegalArgumentException
+     *         if the specified value is {@code 0} or less than {@code 0}
+     */
+    ChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     /**
      * Returns {@link ByteBufAllocator} which is used for the channel
      * to allocate buffers.
@@ -28,6 +28,11 @@ public final class ChannelFlushPromiseNotifier {
     private final Queue<FlushCheckpoint> flushCheckpoints = new ArrayDeque<FlushCheckpoint>();
     private final boolean tryNotify;
 
+    // Void promises are not queued. Only the last one and its checkpoint are remembered, so a failure can still be
+    // reported once without allocating anything per void promise.
+    private ChannelPromise voidPromise;
+    private long voidCheckpoint;
+
     /**
      * Create a new instance
      *
@@ -50,7 +55,8 @@ public final class ChannelFlushPromiseNotifier {
 
     /**
      * Add a {@link ChannelPromise} to this {@link ChannelFlushPromiseNotifier} which will be notified after the given
-     * pendingDataSize was reached.
+     * pendingDataSize was reached. A void promise (see {@link Channel#voidPromise()}) is only failed if the
+     * data is not written.
      */
     public ChannelFlushPromiseNotifier add(ChannelPromise promise, int pendingDataSize) {
         if (promise == null) {
@@ -60,7 +66,10 @@ public final class ChannelFlushPromiseNotifier {
             throw new IllegalArgumentException("pendingDataSize must be >= 0 but was" + pendingDataSize);
         }
         long checkpoint = writeCounter + pendingDataSize;
-        if (promise instanceof FlushCheckpoint) {
+        if (promise instanceof VoidChannelPromise) {
+            voidPromise = promise;
+            voidCheckpoint = checkpoint;
+        } else if (promise instanceof FlushCheckpoint) {
             FlushCheckpoint cp = (FlushCheckpoint) promise;
             cp.flushCheckpoint(checkpoint);
             flushCheckpoints.add(cp);
@@ -113,6 +122,7 @@ public final class ChannelFlushPromiseNotifier {
      */
     public ChannelFlushPromiseNotifier notifyFlushFutures(Throwable cause) {
         notifyFlushFutures();
+        failVoidPromise(cause);
         for (;;) {
             FlushCheckpoint cp = flushCheckpoints.poll();
             if (cp == null) {
@@ -145,6 +155,7 @@ public final class ChannelFlushPromiseNotifier {
      */
     public ChannelFlushPromiseNotifier notifyFlushFutures(Throwable cause1, Throwable cause2) {
         notifyFlushFutures0(cause1);
+        failVoidPromise(cause2);
         for (;;) {
             FlushCheckpoint cp = flushCheckpoints.poll();
             if (cp == null) {
@@ -160,23 +171,28 @@ public final class ChannelFlushPromiseNotifier {
     }
 
     private void notifyFlushFutures0(Throwable cause) {
+        final long writeCounter = this.writeCounter;
+        if (voidPromise != null && voidCheckpoint <= writeCounter) {
+            // All data written with the void promise was flushed, so there is nothing to report anymore.
+            voidPromise = null;
+        }
+
         if (flushCheckpoints.isEmpty()) {
-            writeCounter = 0;
+            resetWriteCounter(writeCounter);
             return;
         }
 
-        final long writeCounter = this.writeCounter;
         for (;;) {
             FlushCheckpoint cp = flushCheckpoints.peek();
             if (cp == null) {
                 // Reset the counter if there's nothing in the notification list.
-                this.writeCounter = 0;
+                resetWriteCounter(writeCounter);
                 break;
             }
 
             if (cp.flushCheckpoint() > writeCounter) {
                 if (writeCounter > 0 && flushCheckpoints.size() == 1) {
-                    this.writeCounter = 0;
+                    resetWriteCounter(writeCounter);
                     cp.flushCheckpoint(cp.flushCheckpoint() - writeCounter);
                 }
                 break;
@@ -203,13 +219,29 @@ public final class ChannelFlushPromiseNotifier {
         if (newWriteCounter >= 0x8000000000L) {
             // Reset the counter only when the counter grew pretty large
             // so that we can reduce the cost of updating all entries in the notification list.
-            this.writeCounter = 0;
+            resetWriteCounter(newWriteCounter);
             for (FlushCheckpoint cp: flushCheckpoints) {
                 cp.flushCheckpoint(cp.flushCheckpoint() - newWriteCounter);
             }
         }
     }
 
+    private void resetWriteCounter(long delta) {
+        writeCounter = 0;
+        if (voidPromise != null) {
+            voidCheckpoint -= delta;
+        }
+    }
+
+    private void failVoidPromise(Throwable cause) {
+        ChannelPromise voidPromise = this.voidPromise;
+        if (voidPromise != null) {
+            this.voidPromise = null;
+            // Fires an exceptionCaught event through the pipeline.
+            voidPromise.tryFailure(cause);
+        }
+    }
+
     interface FlushCheckpoint {
         long flushCheckpoint();
         void flushCheckpoint(long checkpoint);
@@ -210,6 +210,26 @@ public final class ChannelHandlerUtil {
         }
     }
 
+    /**
+     * Returns the given {@link ChannelPromise}, or a new one if it is the {@link ChannelHandlerContext#voidPromise()
+     * void promise}, which throws an {@link IllegalStateException} when a listener is added to it. Call this before
+     * adding a listener to a promise which was passed to your {@link ChannelHandler}. A failure of the new promise
+     * is fired through the {@link ChannelPipeline} as the void promise would do.
+     */
+    public static ChannelPromise unvoid(final ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (promise != ctx.voidPromise()) {
+            return promise;
+        }
+        return ctx.newPromise().addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    ctx.fireExceptionCaught(future.cause());
+                }
+            }
+        });
+    }
+
     /**
      * Add the msg to the next outbound buffer in the {@link ChannelPipeline}. This takes special care of
      * msgs that are of type {@link ByteBuf}.
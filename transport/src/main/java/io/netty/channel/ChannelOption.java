@@ -40,6 +40,10 @@ public class ChannelOption<T> extends UniqueName {
             new ChannelOption<Integer>("CONNECT_TIMEOUT_MILLIS");
     public static final ChannelOption<Integer> WRITE_SPIN_COUNT =
             new ChannelOption<Integer>("WRITE_SPIN_COUNT");
+    public static final ChannelOption<Integer> MAX_MESSAGES_PER_READ =
+            new ChannelOption<Integer>("MAX_MESSAGES_PER_READ");
+    public static final ChannelOption<Integer> MAX_CONSOLIDATED_FLUSHES =
+            new ChannelOption<Integer>("MAX_CONSOLIDATED_FLUSHES");
     public static final ChannelOption<Boolean> ALLOW_HALF_CLOSURE =
             new ChannelOption<Boolean>("ALLOW_HALF_CLOSURE");
     public static final ChannelOption<Boolean> AUTO_READ =
@@ -58,6 +62,12 @@ public class ChannelOption<T> extends UniqueName {
             new ChannelOption<Boolean>("SO_REUSEADDR");
     public static final ChannelOption<Integer> SO_LINGER =
             new ChannelOption<Integer>("SO_LINGER");
+    /**
+     * {@code SO_REUSEPORT} - allows multiple server sockets to be bound to the same address and port so the kernel
+     * load-balances new connections between them. Only supported by transports that can set it on the socket.
+     */
+    public static final ChannelOption<Boolean> SO_REUSEPORT =
+            new ChannelOption<Boolean>("SO_REUSEPORT");
     public static final ChannelOption<Integer> SO_BACKLOG =
             new ChannelOption<Integer>("SO_BACKLOG");
     public static final ChannelOption<Integer> SO_TIMEOUT =
@@ -76,6 +86,8 @@ public class ChannelOption<T> extends UniqueName {
 
     public static final ChannelOption<Integer> UDP_RECEIVE_PACKET_SIZE =
             new ChannelOption<Integer>("UDP_RECEIVE_PACKET_SIZE");
+    public static final ChannelOption<Integer> UDP_RECEIVE_BATCH_SIZE =
+            new ChannelOption<Integer>("UDP_RECEIVE_BATCH_SIZE");
 
     public static final ChannelOption<Boolean> TCP_NODELAY =
             new ChannelOption<Boolean>("TCP_NODELAY");
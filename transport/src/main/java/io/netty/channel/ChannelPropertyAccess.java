@@ -45,6 +45,19 @@ interface ChannelPropertyAccess {
      */
     ChannelProgressivePromise newProgressivePromise();
 
+    /**
+     * Return a special {@link ChannelPromise} which can be reused for different operations, so no promise needs to be
+     * allocated per operation. Use it for operations whose outcome you are not interested in, like fire-and-forget
+     * writes. A failed operation is reported to the {@link ChannelPipeline} via
+     * {@link ChannelPipeline#fireExceptionCaught(Throwable)} instead.
+     * <p>
+     * Be aware that the returned {@link ChannelPromise} does not support most operations: adding a listener to it or
+     * waiting for it throws an {@link IllegalStateException}. A {@link ChannelHandler} which adds a listener to a
+     * promise it was passed must replace the void promise via {@link ChannelHandlerUtil#unvoid(ChannelHandlerContext,
+     * ChannelPromise)} first, as the handlers shipped with Netty do.
+     */
+    ChannelPromise voidPromise();
+
     /**
      * Create a new {@link ChannelFuture} which is marked as successes already. So {@link ChannelFuture#isSuccess()}
      * will return {@code true}. All {@link FutureListener} added to it will be notified directly. Also
@@ -39,6 +39,8 @@ public class DefaultChannelConfig implements ChannelConfig {
     private volatile ByteBufAllocator allocator = DEFAULT_ALLOCATOR;
     private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT;
     private volatile int writeSpinCount = 16;
+    private volatile int maxMessagesPerRead = 16;
+    private volatile int maxConsolidatedFlushes = 1;
     private volatile boolean autoRead = true;
 
     public DefaultChannelConfig(Channel channel) {
@@ -50,8 +52,8 @@ public class DefaultChannelConfig implements ChannelConfig {
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(null, CONNECT_TIMEOUT_MILLIS, WRITE_SPIN_COUNT, ALLOCATOR, AUTO_READ,
-                DEFAULT_HANDLER_BYTEBUF_TYPE);
+        return getOptions(null, CONNECT_TIMEOUT_MILLIS, WRITE_SPIN_COUNT, MAX_MESSAGES_PER_READ,
+                MAX_CONSOLIDATED_FLUSHES, ALLOCATOR, AUTO_READ, DEFAULT_HANDLER_BYTEBUF_TYPE);
     }
 
     protected Map<ChannelOption<?>, Object> getOptions(
@@ -95,6 +97,12 @@ public class DefaultChannelConfig implements ChannelConfig {
         if (option == WRITE_SPIN_COUNT) {
             return (T) Integer.valueOf(getWriteSpinCount());
         }
+        if (option == MAX_MESSAGES_PER_READ) {
+            return (T) Integer.valueOf(getMaxMessagesPerRead());
+        }
+        if (option == MAX_CONSOLIDATED_FLUSHES) {
+            return (T) Integer.valueOf(getMaxConsolidatedFlushes());
+        }
         if (option == ALLOCATOR) {
             return (T) getAllocator();
         }
@@ -116,6 +124,10 @@ public class DefaultChannelConfig implements ChannelConfig {
             setConnectTimeoutMillis((Integer) value);
         } else if (option == WRITE_SPIN_COUNT) {
             setWriteSpinCount((Integer) value);
+        } else if (option == MAX_MESSAGES_PER_READ) {
+            setMaxMessagesPerRead((Integer) value);
+        } else if (option == MAX_CONSOLIDATED_FLUSHES) {
+            setMaxConsolidatedFlushes((Integer) value);
         } else if (option == ALLOCATOR) {
             setAllocator((ByteBufAllocator) value);
         } else if (option == AUTO_READ) {
@@ -166,6 +178,36 @@ public class DefaultChannelConfig implements ChannelConfig {
         return this;
     }
 
+    @Override
+    public int getMaxMessagesPerRead() {
+        return maxMessagesPerRead;
+    }
+
+    @Override
+    public ChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        if (maxMessagesPerRead <= 0) {
+            throw new IllegalArgumentException(
+                    "maxMessagesPerRead: " + maxMessagesPerRead + " (expected: > 0)");
+        }
+        this.maxMessagesPerRead = maxMessagesPerRead;
+        return this;
+    }
+
+    @Override
+    public int getMaxConsolidatedFlushes() {
+        return maxConsolidatedFlushes;
+    }
+
+    @Override
+    public ChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        if (maxConsolidatedFlushes <= 0) {
+            throw new IllegalArgumentException(
+                    "maxConsolidatedFlushes: " + maxConsolidatedFlushes + " (expected: > 0)");
+        }
+        this.maxConsolidatedFlushes = maxConsolidatedFlushes;
+        return this;
+    }
+
     @Override
     public ByteBufAllocator getAllocator() {
         return allocator;
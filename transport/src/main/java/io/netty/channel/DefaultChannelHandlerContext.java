@@ -29,9 +29,8 @@ import io.netty.util.internal.PlatformDependent;
 
 import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static io.netty.channel.DefaultChannelPipeline.*;
@@ -46,6 +45,18 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
     volatile DefaultChannelHandlerContext next;
     volatile DefaultChannelHandlerContext prev;
 
+    // Skip pointers to the closest context in either direction which handles a certain kind of event, so an event
+    // does not need to visit every context in between. They are recomputed by updateNextSkipPointers() and
+    // updatePrevSkipPointers() whenever the pipeline is modified.
+    private volatile DefaultChannelHandlerContext nextStateCtx;
+    private volatile DefaultChannelHandlerContext nextInboundCtx;
+    private volatile DefaultChannelHandlerContext nextInByteBufCtx;
+    private volatile DefaultChannelHandlerContext nextInMsgBufCtx;
+    private volatile DefaultChannelHandlerContext prevOperationCtx;
+    private volatile DefaultChannelHandlerContext prevOutboundCtx;
+    private volatile DefaultChannelHandlerContext prevOutByteBufCtx;
+    private volatile DefaultChannelHandlerContext prevOutMsgBufCtx;
+
     private final Channel channel;
     private final DefaultChannelPipeline pipeline;
     private final String name;
@@ -72,20 +83,25 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
     // Note we use an AtomicReferenceFieldUpdater for atomic operations on these to save memory. This will save us
     // 64 bytes per Bridge.
     @SuppressWarnings("UnusedDeclaration")
-    private volatile Queue<Object> inBridge;
+    private volatile Bridge inBridge;
     @SuppressWarnings("UnusedDeclaration")
-    private volatile Queue<Object> outBridge;
+    private volatile Bridge outBridge;
     @SuppressWarnings("UnusedDeclaration")
     private volatile NextBridgeFeeder nextInBridgeFeeder;
     @SuppressWarnings("UnusedDeclaration")
     private volatile NextBridgeFeeder nextOutBridgeFeeder;
-
-    @SuppressWarnings("rawtypes")
-    private static final AtomicReferenceFieldUpdater<DefaultChannelHandlerContext, Queue> IN_BRIDGE_UPDATER =
-            AtomicReferenceFieldUpdater.newUpdater(DefaultChannelHandlerContext.class, Queue.class, "inBridge");
-    @SuppressWarnings("rawtypes")
-    private static final AtomicReferenceFieldUpdater<DefaultChannelHandlerContext, Queue> OUT_BRIDGE_UPDATER =
-            AtomicReferenceFieldUpdater.newUpdater(DefaultChannelHandlerContext.class, Queue.class, "outBridge");
+    // The number of inbound buffer updates from a handler with a different executor which bridged data and were not
+    // handled yet. Only the first update of a burst submits invokeBridgedInboundBufferUpdatedTask, which notifies the
+    // handler once for all of them. Updates which bridged nothing are not coalesced.
+    @SuppressWarnings("UnusedDeclaration")
+    private volatile int inboundBufferUpdatedPending;
+
+    private static final AtomicReferenceFieldUpdater<DefaultChannelHandlerContext, Bridge> IN_BRIDGE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultChannelHandlerContext.class, Bridge.class, "inBridge");
+    private static final AtomicReferenceFieldUpdater<DefaultChannelHandlerContext, Bridge> OUT_BRIDGE_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultChannelHandlerContext.class, Bridge.class, "outBridge");
+    private static final AtomicIntegerFieldUpdater<DefaultChannelHandlerContext> INBOUND_BUFFER_UPDATED_PENDING =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultChannelHandlerContext.class, "inboundBufferUpdatedPending");
     private static final AtomicReferenceFieldUpdater<DefaultChannelHandlerContext, NextBridgeFeeder>
             NEXT_IN_BRIDGE_FEEDER = AtomicReferenceFieldUpdater.newUpdater(
                     DefaultChannelHandlerContext.class, NextBridgeFeeder.class, "nextInBridgeFeeder");
@@ -95,6 +111,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     // Lazily instantiated tasks used to trigger events to a handler with different executor.
     private Runnable invokeInboundBufferUpdatedTask;
+    private Runnable invokeBridgedInboundBufferUpdatedTask;
     private Runnable fireInboundBufferUpdated0Task;
     private Runnable invokeChannelReadSuspendedTask;
     private Runnable invokeRead0Task;
@@ -357,7 +374,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
     }
 
     private boolean flushInboundBridge() {
-        Queue<Object> inBridge = this.inBridge;
+        Bridge inBridge = this.inBridge;
         if (inBridge == null) {
             return true;
         }
@@ -365,70 +382,46 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
     }
 
     private boolean flushOutboundBridge() {
-        Queue<Object> outBridge = this.outBridge;
+        Bridge outBridge = this.outBridge;
         if (outBridge == null) {
             return true;
         }
         return flushBridge(outBridge, outMsgBuf, outByteBuf);
     }
 
-    private static boolean flushBridge(Queue<Object> bridge, MessageBuf<Object> msgBuf, ByteBuf byteBuf) {
+    private static boolean flushBridge(Bridge bridge, MessageBuf<Object> msgBuf, ByteBuf byteBuf) {
         if (bridge == null) {
             return true;
         }
 
-        boolean nextBufferHadEnoughRoom = true;
+        boolean nextBufferHadEnoughRoom = byteBuf == null || bridge.flushBytes(byteBuf);
         for (;;) {
             Object o = bridge.peek();
             if (o == null) {
                 break;
             }
 
-            try {
-                if (o instanceof Object[]) {
-                    Object[] data = (Object[]) o;
-                    int i;
-                    for (i = 0; i < data.length; i ++) {
-                        Object m = data[i];
-                        if (m == null) {
-                            break;
-                        }
+            Object[] data = (Object[]) o;
+            int i;
+            for (i = 0; i < data.length; i ++) {
+                Object m = data[i];
+                if (m == null) {
+                    break;
+                }
 
-                        if (msgBuf.offer(m)) {
-                            data[i] = null;
-                        } else {
-                            System.arraycopy(data, i, data, 0, data.length - i);
-                            for (int j = i + 1; j < data.length; j ++) {
-                                data[j] = null;
-                            }
-                            nextBufferHadEnoughRoom = false;
-                            break;
-                        }
-                    }
-                } else if (o instanceof ByteBuf) {
-                    ByteBuf data = (ByteBuf) o;
-                    if (byteBuf.writerIndex() > byteBuf.maxCapacity() - data.readableBytes()) {
-                        // The target buffer is not going to be able to accept all data in the bridge.
-                        byteBuf.capacity(byteBuf.maxCapacity());
-                        byteBuf.writeBytes(data, byteBuf.writableBytes());
-                        nextBufferHadEnoughRoom = false;
-                        break;
-                    } else {
-                        try {
-                            byteBuf.writeBytes(data);
-                        } finally {
-                            data.release();
-                        }
-                    }
+                if (msgBuf.offer(m)) {
+                    data[i] = null;
                 } else {
-                    throw new Error();
-                }
-            } finally {
-                if (nextBufferHadEnoughRoom) {
-                    Object removed = bridge.remove();
-                    assert removed == o;
+                    System.arraycopy(data, i, data, 0, data.length - i);
+                    for (int j = i + 1; j < data.length; j ++) {
+                        data[j] = null;
+                    }
+                    return false;
                 }
             }
+
+            Object removed = bridge.remove();
+            assert removed == o;
         }
 
         return nextBufferHadEnoughRoom;
@@ -457,6 +450,8 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
                 safeFree(outMsgBuf);
             } finally {
                 this.flags = (short) (flags | FLAG_FREED | FLAG_FREED_INBOUND | FLAG_FREED_OUTBOUND);
+                releaseBridge(inBridge);
+                releaseBridge(outBridge);
                 freeNextInboundBridgeFeeder();
                 freeNextOutboundBridgeFeeder();
             }
@@ -483,6 +478,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
             safeFree(inMsgBuf);
         } finally {
             flags |= FLAG_FREED_INBOUND;
+            releaseBridge(inBridge);
             freeNextInboundBridgeFeeder();
         }
 
@@ -522,6 +518,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
             } finally {
                 // We also OR FLAG_FREED because at this point we are sure both inbound and outbound were freed.
                 flags |= FLAG_FREED | FLAG_FREED_OUTBOUND;
+                releaseBridge(outBridge);
                 freeNextOutboundBridgeFeeder();
             }
         }
@@ -546,8 +543,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
         // Warn if the bridge has unflushed elements.
         if (logger.isWarnEnabled()) {
-            Queue<Object> bridge;
-            bridge = inBridge;
+            Bridge bridge = inBridge;
             if (bridge != null && !bridge.isEmpty()) {
                 logger.warn("inbound bridge not empty - bug?: {}", bridge.size());
             }
@@ -564,13 +560,19 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
         // Warn if the bridge has unflushed elements.
         if (logger.isWarnEnabled()) {
-            Queue<Object> bridge = outBridge;
+            Bridge bridge = outBridge;
             if (bridge != null && !bridge.isEmpty()) {
                 logger.warn("outbound bridge not empty - bug?: {}", bridge.size());
             }
         }
     }
 
+    private static void releaseBridge(Bridge bridge) {
+        if (bridge != null) {
+            bridge.release();
+        }
+    }
+
     private static void safeFree(Buf buf) {
         if (buf != null) {
             try {
@@ -679,38 +681,28 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public ByteBuf nextInboundByteBuffer() {
-        DefaultChannelHandlerContext ctx = next;
-        for (;;) {
-            if (ctx.hasInboundByteBuffer()) {
-                Thread currentThread = Thread.currentThread();
-                if (ctx.executor().inEventLoop(currentThread)) {
-                    return ctx.inByteBuf;
-                }
-                if (executor().inEventLoop(currentThread)) {
-                    return nextInBridgeFeeder().byteBuf;
-                }
-                throw new IllegalStateException("nextInboundByteBuffer() called from outside the eventLoop");
-            }
-            ctx = ctx.next;
+        DefaultChannelHandlerContext ctx = nextInByteBufCtx;
+        Thread currentThread = Thread.currentThread();
+        if (ctx.executor().inEventLoop(currentThread)) {
+            return ctx.inByteBuf;
         }
+        if (executor().inEventLoop(currentThread)) {
+            return nextInBridgeFeeder().byteBuf;
+        }
+        throw new IllegalStateException("nextInboundByteBuffer() called from outside the eventLoop");
     }
 
     @Override
     public MessageBuf<Object> nextInboundMessageBuffer() {
-        DefaultChannelHandlerContext ctx = next;
-        for (;;) {
-            if (ctx.hasInboundMessageBuffer()) {
-                Thread currentThread = Thread.currentThread();
-                if (ctx.executor().inEventLoop(currentThread)) {
-                    return ctx.inMsgBuf;
-                }
-                if (executor().inEventLoop(currentThread)) {
-                    return nextInBridgeFeeder().msgBuf;
-                }
-                throw new IllegalStateException("nextInboundMessageBuffer() called from outside the eventLoop");
-            }
-            ctx = ctx.next;
+        DefaultChannelHandlerContext ctx = nextInMsgBufCtx;
+        Thread currentThread = Thread.currentThread();
+        if (ctx.executor().inEventLoop(currentThread)) {
+            return ctx.inMsgBuf;
+        }
+        if (executor().inEventLoop(currentThread)) {
+            return nextInBridgeFeeder().msgBuf;
         }
+        throw new IllegalStateException("nextInboundMessageBuffer() called from outside the eventLoop");
     }
 
     private NextBridgeFeeder nextInBridgeFeeder() {
@@ -727,38 +719,28 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public ByteBuf nextOutboundByteBuffer() {
-        DefaultChannelHandlerContext ctx = prev;
-        for (;;) {
-            if (ctx.hasOutboundByteBuffer()) {
-                Thread currentThread = Thread.currentThread();
-                if (ctx.executor().inEventLoop(currentThread)) {
-                    return ctx.outboundByteBuffer();
-                }
-                if (executor().inEventLoop(currentThread)) {
-                    return nextOutBridgeFeeder().byteBuf;
-                }
-                throw new IllegalStateException("nextOutboundByteBuffer() called from outside the eventLoop");
-            }
-            ctx = ctx.prev;
+        DefaultChannelHandlerContext ctx = prevOutByteBufCtx;
+        Thread currentThread = Thread.currentThread();
+        if (ctx.executor().inEventLoop(currentThread)) {
+            return ctx.outboundByteBuffer();
+        }
+        if (executor().inEventLoop(currentThread)) {
+            return nextOutBridgeFeeder().byteBuf;
         }
+        throw new IllegalStateException("nextOutboundByteBuffer() called from outside the eventLoop");
     }
 
     @Override
     public MessageBuf<Object> nextOutboundMessageBuffer() {
-        DefaultChannelHandlerContext ctx = prev;
-        for (;;) {
-            if (ctx.hasOutboundMessageBuffer()) {
-                Thread currentThread = Thread.currentThread();
-                if (ctx.executor().inEventLoop(currentThread)) {
-                    return ctx.outboundMessageBuffer();
-                }
-                if (executor().inEventLoop(currentThread)) {
-                    return nextOutBridgeFeeder().msgBuf;
-                }
-                throw new IllegalStateException("nextOutboundMessageBuffer() called from outside the eventLoop");
-            }
-            ctx = ctx.prev;
+        DefaultChannelHandlerContext ctx = prevOutMsgBufCtx;
+        Thread currentThread = Thread.currentThread();
+        if (ctx.executor().inEventLoop(currentThread)) {
+            return ctx.outboundMessageBuffer();
         }
+        if (executor().inEventLoop(currentThread)) {
+            return nextOutBridgeFeeder().msgBuf;
+        }
+        throw new IllegalStateException("nextOutboundMessageBuffer() called from outside the eventLoop");
     }
 
     private NextBridgeFeeder nextOutBridgeFeeder() {
@@ -992,11 +974,12 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
     }
 
     private void fireInboundBufferUpdated0(final DefaultChannelHandlerContext next) {
-        feedNextInBridge();
+        boolean bridged = feedNextInBridge();
         // This comparison is safe because this method is always executed from the executor.
         if (next.executor == executor) {
             next.invokeInboundBufferUpdated();
-        } else {
+        } else if (!bridged) {
+            // There is no data to batch, so the handler is notified of this update on its own.
             Runnable task = next.invokeInboundBufferUpdatedTask;
             if (task == null) {
                 next.invokeInboundBufferUpdatedTask = task = new Runnable() {
@@ -1007,14 +990,28 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
                 };
             }
             next.executor().execute(task);
+        } else if (INBOUND_BUFFER_UPDATED_PENDING.getAndIncrement(next) == 0) {
+            // Only submit a task if there is none pending already. The pending task will pick up everything
+            // which was bridged until it runs.
+            Runnable task = next.invokeBridgedInboundBufferUpdatedTask;
+            if (task == null) {
+                next.invokeBridgedInboundBufferUpdatedTask = task = new Runnable() {
+                    @Override
+                    public void run() {
+                        // Reset the counter before draining the bridge so no update can get lost. A single
+                        // notification drains everything which was bridged so far.
+                        INBOUND_BUFFER_UPDATED_PENDING.set(next, 0);
+                        next.invokeInboundBufferUpdated();
+                    }
+                };
+            }
+            next.executor().execute(task);
         }
     }
 
-    private void feedNextInBridge() {
+    private boolean feedNextInBridge() {
         NextBridgeFeeder feeder = nextInBridgeFeeder;
-        if (feeder != null) {
-            feeder.feed();
-        }
+        return feeder != null && feeder.feed();
     }
 
     private void invokeInboundBufferUpdated() {
@@ -1501,37 +1498,18 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         }
         validateFuture(promise);
 
-        DefaultChannelHandlerContext ctx = prev;
-        EventExecutor executor;
+        DefaultChannelHandlerContext ctx;
         final boolean msgBuf;
 
         if (message instanceof ByteBuf) {
-            for (;;) {
-                if (ctx.hasOutboundByteBuffer()) {
-                    msgBuf = false;
-                    executor = ctx.executor();
-                    break;
-                }
-
-                if (ctx.hasOutboundMessageBuffer()) {
-                    msgBuf = true;
-                    executor = ctx.executor();
-                    break;
-                }
-
-                ctx = ctx.prev;
-            }
+            ctx = prevOutboundCtx;
+            // The head handler has both kinds of buffers, but prefers the byte buffer for bytes.
+            msgBuf = !ctx.hasOutboundByteBuffer() && ctx != pipeline.head;
         } else {
+            ctx = prevOutMsgBufCtx;
             msgBuf = true;
-            for (;;) {
-                if (ctx.hasOutboundMessageBuffer()) {
-                    executor = ctx.executor();
-                    break;
-                }
-
-                ctx = ctx.prev;
-            }
         }
+        EventExecutor executor = ctx.executor();
 
         if (executor.inEventLoop()) {
             ctx.write0(message, promise, msgBuf);
@@ -1617,6 +1595,11 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         return new DefaultChannelProgressivePromise(channel(), executor());
     }
 
+    @Override
+    public ChannelPromise voidPromise() {
+        return channel().voidPromise();
+    }
+
     @Override
     public ChannelFuture newSucceededFuture() {
         ChannelFuture succeededFuture = this.succeededFuture;
@@ -1642,27 +1625,19 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
         if (future.isDone()) {
             throw new IllegalArgumentException("future already done");
         }
-        if (future instanceof ChannelFuture.Unsafe) {
+        if (future instanceof ChannelFuture.Unsafe && future != channel().voidPromise()) {
             throw new IllegalArgumentException("internal use only future not allowed");
         }
     }
 
     // 当有数据需要进行读取的时候，<code>PipleLine</code>中的<code>Context</code>是从头开始一个一个执行的
     private DefaultChannelHandlerContext findContextInbound() {
-        DefaultChannelHandlerContext ctx = this;
-        do {
-            ctx = ctx.next;
-        } while (!(ctx.handler() instanceof ChannelStateHandler));
-        return ctx;
+        return nextStateCtx;
     }
 
     @Override
     public BufType nextInboundBufferType() {
-        DefaultChannelHandlerContext ctx = this;
-        do {
-            ctx = ctx.next;
-        } while (!(ctx.handler() instanceof ChannelInboundHandler));
-
+        DefaultChannelHandlerContext ctx = nextInboundCtx;
         if (ctx.handler() instanceof ChannelInboundByteHandler) {
             return BufType.BYTE;
         }  else {
@@ -1672,11 +1647,7 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     @Override
     public BufType nextOutboundBufferType() {
-        DefaultChannelHandlerContext ctx = this;
-        do {
-            ctx = ctx.prev;
-        } while (!(ctx.handler() instanceof ChannelOutboundHandler));
-
+        DefaultChannelHandlerContext ctx = prevOutboundCtx;
         if (ctx.handler() instanceof ChannelOutboundByteHandler) {
             return BufType.BYTE;
         }  else {
@@ -1686,11 +1657,45 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     // 当有数据需要写出去或者在执行bind操作的时候，<code>PipleLine</code>中的<code>Context</code>是从尾部开始往前一个一个执行的
     private DefaultChannelHandlerContext findContextOutbound() {
-        DefaultChannelHandlerContext ctx = this;
-        do {
-            ctx = ctx.prev;
-        } while (!(ctx.handler() instanceof ChannelOperationHandler));
-        return ctx;
+        return prevOperationCtx;
+    }
+
+    /**
+     * Recomputes the skip pointers towards the tail of the pipeline from the next context, whose pointers must be
+     * up to date already.
+     */
+    void updateNextSkipPointers() {
+        DefaultChannelHandlerContext next = this.next;
+        if (next == null) {
+            // The tail of the pipeline.
+            return;
+        }
+
+        ChannelHandler h = next.handler();
+        nextStateCtx = h instanceof ChannelStateHandler ? next : next.nextStateCtx;
+        nextInboundCtx = h instanceof ChannelInboundHandler ? next : next.nextInboundCtx;
+        nextInByteBufCtx = next.hasInboundByteBuffer() ? next : next.nextInByteBufCtx;
+        nextInMsgBufCtx = next.hasInboundMessageBuffer() ? next : next.nextInMsgBufCtx;
+    }
+
+    /**
+     * Recomputes the skip pointers towards the head of the pipeline from the previous context, whose pointers must
+     * be up to date already.
+     */
+    void updatePrevSkipPointers() {
+        DefaultChannelHandlerContext prev = this.prev;
+        if (prev == null) {
+            // The head of the pipeline.
+            return;
+        }
+
+        // The buffers of the head handler are created lazily, but it always has both of them.
+        boolean head = prev == pipeline.head;
+        ChannelHandler h = prev.handler();
+        prevOperationCtx = h instanceof ChannelOperationHandler ? prev : prev.prevOperationCtx;
+        prevOutboundCtx = h instanceof ChannelOutboundHandler ? prev : prev.prevOutboundCtx;
+        prevOutByteBufCtx = head || prev.hasOutboundByteBuffer() ? prev : prev.prevOutByteBufCtx;
+        prevOutMsgBufCtx = head || prev.hasOutboundMessageBuffer() ? prev : prev.prevOutMsgBufCtx;
     }
 
     private abstract class NextBridgeFeeder {
@@ -1702,25 +1707,26 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
             byteBuf = ChannelHandlerUtil.allocate(DefaultChannelHandlerContext.this);
         }
 
-        final void feed() {
-            int dataLen = byteBuf.readableBytes();
-            if (dataLen != 0) {
-                ByteBuf data;
-                if (byteBuf.isDirect()) {
-                    data = alloc().directBuffer(dataLen, dataLen);
-                } else {
-                    data = alloc().heapBuffer(dataLen, dataLen);
-                }
-
-                byteBuf.readBytes(data).discardSomeReadBytes();
-                nextByteBridge().add(data);
+        /**
+         * Moves everything the handler wrote into the bridges and returns {@code true} if there was anything.
+         */
+        final boolean feed() {
+            boolean fed = false;
+            if (byteBuf.isReadable()) {
+                // The handler may keep a reference to byteBuf, so it is never replaced. Its content is appended
+                // to a buffer of the bridge, which is reused as well, so feeding the bridge does not allocate.
+                nextByteBridge().addBytes(byteBuf);
+                byteBuf.discardSomeReadBytes();
+                fed = true;
             }
 
             if (!msgBuf.isEmpty()) {
                 Object[] data = msgBuf.toArray();
                 msgBuf.clear();
                 nextMessageBridge().add(data);
+                fed = true;
             }
+            return fed;
         }
 
         final void release() {
@@ -1728,41 +1734,25 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
             msgBuf.release();
         }
 
-        protected abstract Queue<Object> nextByteBridge();
-        protected abstract Queue<Object> nextMessageBridge();
+        protected abstract Bridge nextByteBridge();
+        protected abstract Bridge nextMessageBridge();
     }
 
     private final class NextInboundBridgeFeeder extends NextBridgeFeeder {
         @Override
-        protected Queue<Object> nextByteBridge() {
-            DefaultChannelHandlerContext ctx = next;
-            for (;;) {
-                if (ctx.hasInboundByteBuffer()) {
-                    break;
-                }
-                ctx = ctx.next;
-            }
-
-            return bridge(ctx);
+        protected Bridge nextByteBridge() {
+            return bridge(nextInByteBufCtx);
         }
 
         @Override
-        protected Queue<Object> nextMessageBridge() {
-            DefaultChannelHandlerContext ctx = next;
-            for (;;) {
-                if (ctx.hasInboundMessageBuffer()) {
-                    break;
-                }
-                ctx = ctx.next;
-            }
-
-            return bridge(ctx);
+        protected Bridge nextMessageBridge() {
+            return bridge(nextInMsgBufCtx);
         }
 
-        private Queue<Object> bridge(DefaultChannelHandlerContext ctx) {
-            Queue<Object> bridge = ctx.inBridge;
+        private Bridge bridge(DefaultChannelHandlerContext ctx) {
+            Bridge bridge = ctx.inBridge;
             if (bridge == null) {
-                Queue<Object> newBridge = new ConcurrentLinkedQueue<Object>();
+                Bridge newBridge = new Bridge();
                 if (IN_BRIDGE_UPDATER.compareAndSet(ctx, null, newBridge)) {
                     bridge = newBridge;
                 } else {
@@ -1775,42 +1765,200 @@ final class DefaultChannelHandlerContext extends DefaultAttributeMap implements
 
     private final class NextOutboundBridgeFeeder extends NextBridgeFeeder {
         @Override
-        protected Queue<Object> nextByteBridge() {
-            DefaultChannelHandlerContext ctx = prev;
+        protected Bridge nextByteBridge() {
+            return bridge(prevOutByteBufCtx);
+        }
+
+        @Override
+        protected Bridge nextMessageBridge() {
+            return bridge(prevOutMsgBufCtx);
+        }
+
+        private Bridge bridge(DefaultChannelHandlerContext ctx) {
+            Bridge bridge = ctx.outBridge;
+            if (bridge == null) {
+                Bridge newBridge = new Bridge();
+                if (OUT_BRIDGE_UPDATER.compareAndSet(ctx, null, newBridge)) {
+                    bridge = newBridge;
+                } else {
+                    bridge = ctx.outBridge;
+                }
+            }
+            return bridge;
+        }
+    }
+
+    /**
+     * The thread-safe queue behind a bridge. Any number of threads may {@link #add(Object)} to it, but only the
+     * thread of the owning context may consume it.
+     * <p>
+     * Messages are pushed onto a lock-free stack with a single CAS. The consumer detaches the whole stack with a
+     * single atomic swap and then works through the batch in order without any further synchronization, so a burst
+     * of bridged messages costs one atomic operation on each side no matter how often the consumer peeks.
+     * <p>
+     * Bytes are appended to a buffer which the producers fill under the lock of the bridge. The consumer takes the
+     * filled buffer over by swapping it with the one it drained before, and then drains it without holding the lock,
+     * so the two buffers of a bridge serve any number of bursts. The bytes are still copied once on each side: the
+     * buffer returned by {@link ChannelHandlerContext#nextInboundByteBuffer()} or
+     * {@link ChannelHandlerContext#nextOutboundByteBuffer()} and the buffer of the next handler may both be kept by
+     * their handlers, so neither of them can be handed over to the other side of the bridge.
+     */
+    private static final class Bridge {
+
+        private static final AtomicReferenceFieldUpdater<Bridge, Node> HEAD_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(Bridge.class, Node.class, "head");
+
+        // The most recently added element first.
+        @SuppressWarnings("UnusedDeclaration")
+        private volatile Node head;
+        // The batch which is consumed right now, in insertion order. Only accessed by the consumer.
+        private Node batch;
+        // The buffer the producers append to. Allocated on first use and reused afterwards; guarded by the bridge
+        // lock.
+        private ByteBuf filling;
+        // The buffer the consumer drains. Only accessed by the consumer, except for the swap with filling.
+        private ByteBuf draining;
+        private boolean released;
+
+        synchronized void addBytes(ByteBuf data) {
+            if (released) {
+                // The next handler was removed already.
+                data.skipBytes(data.readableBytes());
+                return;
+            }
+            if (filling == null) {
+                filling = data.isDirect() ? data.alloc().directBuffer(data.readableBytes())
+                                          : data.alloc().heapBuffer(data.readableBytes());
+            }
+            filling.writeBytes(data);
+        }
+
+        /**
+         * Moves the bridged bytes into the given buffer and returns {@code true} if they all fit.
+         */
+        boolean flushBytes(ByteBuf byteBuf) {
+            ByteBuf draining = this.draining;
             for (;;) {
-                if (ctx.hasOutboundByteBuffer()) {
-                    break;
+                if (draining == null || !draining.isReadable()) {
+                    draining = swapBytes();
+                    if (draining == null || !draining.isReadable()) {
+                        return true;
+                    }
+                }
+
+                if (byteBuf.writerIndex() > byteBuf.maxCapacity() - draining.readableBytes()) {
+                    // The target buffer is not going to be able to accept all data in the bridge.
+                    byteBuf.capacity(byteBuf.maxCapacity());
+                    byteBuf.writeBytes(draining, byteBuf.writableBytes());
+                    return false;
                 }
-                ctx = ctx.prev;
+
+                byteBuf.writeBytes(draining);
+            }
+        }
+
+        /**
+         * Hands the filled buffer over to the consumer and lets the producers continue with the drained one.
+         */
+        private synchronized ByteBuf swapBytes() {
+            if (released) {
+                return null;
+            }
+            ByteBuf drained = draining;
+            if (drained != null) {
+                drained.clear();
             }
+            draining = filling;
+            filling = drained;
+            return draining;
+        }
 
-            return bridge(ctx);
+        synchronized void release() {
+            released = true;
+            if (filling != null) {
+                filling.release();
+                filling = null;
+            }
+            if (draining != null) {
+                draining.release();
+                draining = null;
+            }
         }
 
-        @Override
-        protected Queue<Object> nextMessageBridge() {
-            DefaultChannelHandlerContext ctx = prev;
+        void add(Object data) {
+            Node node = new Node(data);
             for (;;) {
-                if (ctx.hasOutboundMessageBuffer()) {
-                    break;
+                Node head = this.head;
+                node.next = head;
+                if (HEAD_UPDATER.compareAndSet(this, head, node)) {
+                    return;
                 }
-                ctx = ctx.prev;
             }
+        }
 
-            return bridge(ctx);
+        Object peek() {
+            Node batch = this.batch;
+            if (batch == null) {
+                batch = takeBatch();
+                if (batch == null) {
+                    return null;
+                }
+            }
+            return batch.data;
         }
 
-        private Queue<Object> bridge(DefaultChannelHandlerContext ctx) {
-            Queue<Object> bridge = ctx.outBridge;
-            if (bridge == null) {
-                Queue<Object> newBridge = new ConcurrentLinkedQueue<Object>();
-                if (OUT_BRIDGE_UPDATER.compareAndSet(ctx, null, newBridge)) {
-                    bridge = newBridge;
-                } else {
-                    bridge = ctx.outBridge;
+        Object remove() {
+            Node batch = this.batch;
+            if (batch == null) {
+                batch = takeBatch();
+                if (batch == null) {
+                    throw new IllegalStateException("bridge is empty");
                 }
             }
-            return bridge;
+            this.batch = batch.next;
+            return batch.data;
+        }
+
+        boolean isEmpty() {
+            return batch == null && head == null && !hasBytes();
+        }
+
+        private synchronized boolean hasBytes() {
+            return filling != null && filling.isReadable() || draining != null && draining.isReadable();
+        }
+
+        int size() {
+            int size = hasBytes() ? 1 : 0;
+            for (Node n = batch; n != null; n = n.next) {
+                size ++;
+            }
+            for (Node n = head; n != null; n = n.next) {
+                size ++;
+            }
+            return size;
+        }
+
+        private Node takeBatch() {
+            Node node = HEAD_UPDATER.getAndSet(this, null);
+            // Reverse the stack to restore the insertion order.
+            Node batch = null;
+            while (node != null) {
+                Node next = node.next;
+                node.next = batch;
+                batch = node;
+                node = next;
+            }
+            this.batch = batch;
+            return batch;
+        }
+
+        private static final class Node {
+            final Object data;
+            Node next;
+
+            Node(Object data) {
+                this.data = data;
+            }
         }
     }
 }
@@ -97,6 +97,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
 
         head.next = tail;
         tail.prev = head;
+        updateSkipPointers();
     }
 
     @Override
@@ -126,8 +127,10 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         DefaultChannelHandlerContext nextCtx = head.next;
         newCtx.prev = head;
         newCtx.next = nextCtx;
+        initSkipPointers(newCtx);
         head.next = newCtx;
         nextCtx.prev = newCtx;
+        updateSkipPointers();
 
         name2ctx.put(name, newCtx);
 
@@ -157,8 +160,10 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         DefaultChannelHandlerContext prev = tail.prev;
         newCtx.prev = prev;
         newCtx.next = tail;
+        initSkipPointers(newCtx);
         prev.next = newCtx;
         tail.prev = newCtx;
+        updateSkipPointers();
 
         name2ctx.put(name, newCtx);
 
@@ -187,8 +192,10 @@ final class DefaultChannelPipeline implements ChannelPipeline {
 
         newCtx.prev = ctx.prev;
         newCtx.next = ctx;
+        initSkipPointers(newCtx);
         ctx.prev.next = newCtx;
         ctx.prev = newCtx;
+        updateSkipPointers();
 
         name2ctx.put(name, newCtx);
 
@@ -220,8 +227,10 @@ final class DefaultChannelPipeline implements ChannelPipeline {
 
         newCtx.prev = ctx;
         newCtx.next = ctx.next;
+        initSkipPointers(newCtx);
         ctx.next.prev = newCtx;
         ctx.next = newCtx;
+        updateSkipPointers();
 
         name2ctx.put(name, newCtx);
 
@@ -361,6 +370,9 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         DefaultChannelHandlerContext next = ctx.next;
         prev.next = next;
         next.prev = prev;
+        // The pointers of the removed context are left as they are, so events which are still on their way through
+        // it continue to the rest of the pipeline.
+        updateSkipPointers();
         name2ctx.remove(ctx.name());
 
         callHandlerRemoved(ctx, prev, next, forward);
@@ -447,6 +459,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         DefaultChannelHandlerContext next = oldCtx.next;
         newCtx.prev = prev;
         newCtx.next = next;
+        initSkipPointers(newCtx);
 
         // Finish the replacement of oldCtx with newCtx in the linked list.
         // Note that this doesn't mean events will be sent to the new handler immediately
@@ -454,6 +467,7 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         // at the same time (we ensured that in replace().)
         prev.next = newCtx;
         next.prev = newCtx;
+        updateSkipPointers();
 
         if (!oldCtx.name().equals(newName)) {
             name2ctx.remove(oldCtx.name());
@@ -467,6 +481,27 @@ final class DefaultChannelPipeline implements ChannelPipeline {
         callHandlerRemoved(oldCtx, newCtx, newCtx, true);
     }
 
+    /**
+     * Initializes the skip pointers of a context which is about to be linked between its {@code prev} and
+     * {@code next} context, so they are valid as soon as an event can reach it.
+     */
+    private static void initSkipPointers(DefaultChannelHandlerContext newCtx) {
+        newCtx.updateNextSkipPointers();
+        newCtx.updatePrevSkipPointers();
+    }
+
+    /**
+     * Recomputes the skip pointers of all contexts after the pipeline was modified.
+     */
+    private void updateSkipPointers() {
+        for (DefaultChannelHandlerContext ctx = tail; ctx != null; ctx = ctx.prev) {
+            ctx.updateNextSkipPointers();
+        }
+        for (DefaultChannelHandlerContext ctx = head; ctx != null; ctx = ctx.next) {
+            ctx.updatePrevSkipPointers();
+        }
+    }
+
     private static void checkMultiplicity(ChannelHandlerContext ctx) {
         ChannelHandler handler = ctx.handler();
         if (handler instanceof ChannelHandlerAdapter) {
@@ -20,6 +20,7 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 
@@ -81,6 +82,39 @@ public class DefaultFileRegion extends AbstractReferenceCounted implements FileR
         return file.transferTo(this.position + position, count, target);
     }
 
+    /**
+     * Reads the content of this file region which begins at the given relative offset into the given buffer.
+     * Unlike {@link #transferTo(WritableByteChannel, long)} this does not go through an intermediate buffer when
+     * the content has to be transformed in user space, for example to encrypt it, and the position of the
+     * {@link FileChannel} is not changed.
+     *
+     * @param dst       the buffer to read into, which should be a direct buffer
+     * @param position  the relative offset of the file where the read begins
+     * @return the number of bytes read, possibly zero, or {@code -1} if the file ended before the region
+     */
+    public int read(ByteBuffer dst, long position) throws IOException {
+        long count = this.count - position;
+        if (count < 0 || position < 0) {
+            throw new IllegalArgumentException(
+                    "position out of range: " + position +
+                    " (expected: 0 - " + (this.count - 1) + ')');
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        if (dst.remaining() > count) {
+            ByteBuffer limited = dst.duplicate();
+            limited.limit(limited.position() + (int) count);
+            int read = file.read(limited, this.position + position);
+            if (read > 0) {
+                dst.position(dst.position() + read);
+            }
+            return read;
+        }
+        return file.read(dst, this.position + position);
+    }
+
     @Override
     protected void deallocate() {
         try {
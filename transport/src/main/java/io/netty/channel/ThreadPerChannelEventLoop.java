@@ -15,6 +15,10 @@
  */
 package io.netty.channel;
 
+import io.netty.util.concurrent.VirtualThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
 /**
  * {@link SingleThreadEventLoop} which is used to handle OIO {@link Channel}'s. So in general there will be
  * one {@link ThreadPerChannelEventLoop} per {@link Channel}.
@@ -50,7 +54,7 @@ public class ThreadPerChannelEventLoop extends SingleThreadEventLoop {
         for (;;) {
             Runnable task = takeTask();
             if (task != null) {
-                task.run();
+                runTask(task);
                 updateLastExecutionTime();
             }
 
@@ -74,6 +78,24 @@ public class ThreadPerChannelEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    /**
+     * Returns {@code true} if the parent group creates virtual threads, which is the case if its
+     * {@link ThreadFactory} is a {@link VirtualThreadFactory}.
+     */
+    public boolean isVirtual() {
+        return parent.threadFactory instanceof VirtualThreadFactory;
+    }
+
+    /**
+     * Creates a new {@link Thread} with the {@link ThreadFactory} of the parent group, for a {@link Channel} which
+     * needs to block on something without blocking this event loop. The thread is not counted against the
+     * {@code maxChannels} of the parent group, so this should only be used if {@link #isVirtual()} returns
+     * {@code true}.
+     */
+    public Thread newThread(Runnable task) {
+        return parent.threadFactory.newThread(task);
+    }
+
     protected void deregister() {
         ch = null;
         parent.activeChildren.remove(this);
@@ -18,9 +18,11 @@ package io.netty.channel;
 
 import io.netty.util.concurrent.AbstractEventExecutorGroup;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.VirtualThreadFactory;
 import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.ReadOnlyIterator;
+import io.netty.util.internal.SystemPropertyUtil;
 
 import java.util.Collections;
 import java.util.Iterator;
@@ -33,9 +35,18 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * An {@link EventLoopGroup} that creates one {@link EventLoop} per {@link Channel}.
+ * <p>
+ * If the {@code io.netty.threadPerChannel.virtualThreads} system property is {@code true} and the runtime supports
+ * them, the constructors without a {@link ThreadFactory} run every {@link EventLoop} on a virtual thread, so mostly
+ * idle channels do not occupy an operating system thread each. Note that virtual threads are always daemon threads,
+ * so they do not keep the JVM alive. Pass a {@link VirtualThreadFactory} to use virtual threads regardless of the
+ * system property.
  */
 public class ThreadPerChannelEventLoopGroup extends AbstractEventExecutorGroup implements EventLoopGroup {
 
+    private static final boolean USE_VIRTUAL_THREADS =
+            SystemPropertyUtil.getBoolean("io.netty.threadPerChannel.virtualThreads", false);
+
     private final Object[] childArgs;
     private final int maxChannels;
     final ThreadFactory threadFactory;
@@ -61,7 +72,7 @@ public class ThreadPerChannelEventLoopGroup extends AbstractEventExecutorGroup i
      *                          Use {@code 0} to use no limit
      */
     protected ThreadPerChannelEventLoopGroup(int maxChannels) {
-        this(maxChannels, Executors.defaultThreadFactory());
+        this(maxChannels, newDefaultThreadFactory(ThreadPerChannelEventLoopGroup.class));
     }
 
     /**
@@ -98,6 +109,19 @@ public class ThreadPerChannelEventLoopGroup extends AbstractEventExecutorGroup i
         tooManyChannels.setStackTrace(EmptyArrays.EMPTY_STACK_TRACE);
     }
 
+    /**
+     * Returns the {@link ThreadFactory} used when none is specified. This is a {@link VirtualThreadFactory} if
+     * enabled by the {@code io.netty.threadPerChannel.virtualThreads} system property and supported by the runtime,
+     * or {@link Executors#defaultThreadFactory()} otherwise.
+     */
+    protected static ThreadFactory newDefaultThreadFactory(Class<?> groupType) {
+        if (USE_VIRTUAL_THREADS) {
+            return VirtualThreadFactory.newInstanceOrElse(
+                    groupType.getSimpleName(), Executors.defaultThreadFactory());
+        }
+        return Executors.defaultThreadFactory();
+    }
+
     /**
      * Creates a new {@link EventLoop}.  The default implementation creates a new {@link ThreadPerChannelEventLoop}.
      */
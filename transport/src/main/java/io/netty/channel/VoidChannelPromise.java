@@ -21,20 +21,30 @@ import io.netty.util.concurrent.GenericFutureListener;
 
 import java.util.concurrent.TimeUnit;
 
+/**
+ * A {@link ChannelPromise} which can be passed to an operation if nobody is interested in its outcome, so no
+ * promise needs to be allocated for it. It does not allow to add listeners or to wait for it, so a handler which
+ * needs to do so replaces it via {@link ChannelHandlerUtil#unvoid(ChannelHandlerContext, ChannelPromise)}.
+ */
 final class VoidChannelPromise extends AbstractFuture<Void> implements ChannelFuture.Unsafe, ChannelPromise {
 
     private final Channel channel;
+    private final boolean fireException;
 
     /**
      * Creates a new instance.
      *
-     * @param channel the {@link Channel} associated with this future
+     * @param channel       the {@link Channel} associated with this future
+     * @param fireException {@code true} if a failure should be fired through the {@link ChannelPipeline} via
+     *                      {@link ChannelPipeline#fireExceptionCaught(Throwable)}, {@code false} if it should be
+     *                      ignored
      */
-    public VoidChannelPromise(Channel channel) {
+    public VoidChannelPromise(Channel channel, boolean fireException) {
         if (channel == null) {
             throw new NullPointerException("channel");
         }
         this.channel = channel;
+        this.fireException = fireException;
     }
 
     @Override
@@ -132,6 +142,7 @@ final class VoidChannelPromise extends AbstractFuture<Void> implements ChannelFu
     }
     @Override
     public ChannelPromise setFailure(Throwable cause) {
+        fireException(cause);
         return this;
     }
 
@@ -142,6 +153,7 @@ final class VoidChannelPromise extends AbstractFuture<Void> implements ChannelFu
 
     @Override
     public boolean tryFailure(Throwable cause) {
+        fireException(cause);
         return false;
     }
 
@@ -154,6 +166,13 @@ final class VoidChannelPromise extends AbstractFuture<Void> implements ChannelFu
         throw new IllegalStateException("void future");
     }
 
+    private void fireException(Throwable cause) {
+        // Only fire the exception if the channel is registered, as otherwise there is no event loop to fire it on.
+        if (fireException && channel.isRegistered()) {
+            channel.pipeline().fireExceptionCaught(cause);
+        }
+    }
+
     @Override
     public ChannelPromise setSuccess(Void result) {
         return this;
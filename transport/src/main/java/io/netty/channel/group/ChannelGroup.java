@@ -108,7 +108,7 @@ public interface ChannelGroup extends Set<Channel>, Comparable<ChannelGroup> {
      * group. If the specified {@code message} is an instance of
      * {@link ByteBuf}, it is automatically
      * {@linkplain ByteBuf#duplicate() duplicated} to avoid a race
-     * condition. Please note that this operation is asynchronous as
+     * condition, as done by {@link #broadcast(ByteBuf)}. Please note that this operation is asynchronous as
      * {@link Channel#write(Object)} is.
      *
      * @return the {@link ChannelGroupFuture} instance that notifies when
@@ -116,6 +116,19 @@ public interface ChannelGroup extends Set<Channel>, Comparable<ChannelGroup> {
      */
     ChannelGroupFuture write(Object message);
 
+    /**
+     * Writes the specified already encoded {@link ByteBuf} to all {@link Channel}s in this group. The buffer is
+     * shared by all channels through {@linkplain ByteBuf#duplicate() duplicates} of it, and the writes for all
+     * channels of the same {@link EventLoop} are handed to it as a single task. As the message is a {@link ByteBuf}
+     * already, it passes the encoders in the pipelines untouched, so a message which is encoded once before can be
+     * sent to a large number of channels cheaply. This method takes over the reference of the caller, so the buffer
+     * is released once it was written to all channels.
+     *
+     * @return the {@link ChannelGroupFuture} instance that notifies when
+     *         the operation is done for all channels
+     */
+    ChannelGroupFuture broadcast(ByteBuf encoded);
+
     /**
      * Writes the specified {@link FileRegion} to all {@link Channel}s in this
      * group. Please note that this operation is asynchronous as
@@ -16,9 +16,12 @@
 package io.netty.channel.group;
 
 import io.netty.buffer.BufUtil;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.FileRegion;
 import io.netty.channel.ServerChannel;
 import io.netty.util.concurrent.EventExecutor;
@@ -26,9 +29,11 @@ import io.netty.util.internal.PlatformDependent;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -197,14 +202,13 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
 
     @Override
     public ChannelGroupFuture close() {
-        Map<Integer, ChannelFuture> futures =
-            new LinkedHashMap<Integer, ChannelFuture>(size());
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(size());
 
         for (Channel c: serverChannels.values()) {
-            futures.put(c.id(), c.close().awaitUninterruptibly());
+            futures.add(c.close().awaitUninterruptibly());
         }
         for (Channel c: nonServerChannels.values()) {
-            futures.put(c.id(), c.close());
+            futures.add(c.close());
         }
 
         return new DefaultChannelGroupFuture(this, futures, executor);
@@ -212,14 +216,13 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
 
     @Override
     public ChannelGroupFuture disconnect() {
-        Map<Integer, ChannelFuture> futures =
-            new LinkedHashMap<Integer, ChannelFuture>(size());
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(size());
 
         for (Channel c: serverChannels.values()) {
-            futures.put(c.id(), c.disconnect());
+            futures.add(c.disconnect());
         }
         for (Channel c: nonServerChannels.values()) {
-            futures.put(c.id(), c.disconnect());
+            futures.add(c.disconnect());
         }
 
         return new DefaultChannelGroupFuture(this, futures, executor);
@@ -230,27 +233,78 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         if (message == null) {
             throw new NullPointerException("message");
         }
+        if (message instanceof ByteBuf) {
+            return broadcast((ByteBuf) message);
+        }
 
-        Map<Integer, ChannelFuture> futures = new LinkedHashMap<Integer, ChannelFuture>(size());
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(size());
         for (Channel c: nonServerChannels.values()) {
             BufUtil.retain(message);
-            futures.put(c.id(), c.write(message));
+            futures.add(c.write(message));
         }
 
         BufUtil.release(message);
         return new DefaultChannelGroupFuture(this, futures, executor);
     }
 
+    @Override
+    public ChannelGroupFuture broadcast(ByteBuf encoded) {
+        if (encoded == null) {
+            throw new NullPointerException("encoded");
+        }
+
+        ChannelFuture[] futures = new ChannelFuture[nonServerChannels.size()];
+        Map<EventExecutor, BroadcastTask> tasks = new IdentityHashMap<EventExecutor, BroadcastTask>();
+        int count = 0;
+        for (Channel c: nonServerChannels.values()) {
+            if (count == futures.length) {
+                // Channels were added concurrently.
+                futures = Arrays.copyOf(futures, count << 1);
+            }
+
+            ChannelPromise promise = c.newPromise();
+            futures[count ++] = promise;
+
+            // Not registered channels are written directly, which fails the promise.
+            EventExecutor loop = c.isRegistered() ? c.eventLoop() : DEFAULT_EXECUTOR;
+            BroadcastTask task = tasks.get(loop);
+            if (task == null) {
+                task = new BroadcastTask(encoded);
+                tasks.put(loop, task);
+            }
+            task.add(c, promise);
+        }
+        if (count != futures.length) {
+            futures = Arrays.copyOf(futures, count);
+        }
+
+        // Every write releases its duplicate, so retain the buffer for all of them before the first one is done.
+        if (count != 0) {
+            encoded.retain(count);
+        }
+        for (Map.Entry<EventExecutor, BroadcastTask> e: tasks.entrySet()) {
+            EventExecutor loop = e.getKey();
+            if (loop.inEventLoop()) {
+                e.getValue().run();
+            } else {
+                loop.execute(e.getValue());
+            }
+        }
+
+        encoded.release();
+        return new DefaultChannelGroupFuture(this, futures, executor);
+    }
+
     @Override
     public ChannelGroupFuture sendFile(FileRegion region) {
         if (region == null) {
             throw new NullPointerException("region");
         }
 
-        Map<Integer, ChannelFuture> futures = new LinkedHashMap<Integer, ChannelFuture>(size());
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(size());
         for (Channel c: nonServerChannels.values()) {
             BufUtil.retain(region);
-            futures.put(c.id(), c.sendFile(region));
+            futures.add(c.sendFile(region));
         }
 
         BufUtil.release(region);
@@ -259,9 +313,9 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
 
     @Override
     public ChannelGroupFuture flush() {
-        Map<Integer, ChannelFuture> futures = new LinkedHashMap<Integer, ChannelFuture>(size());
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(size());
         for (Channel c: nonServerChannels.values()) {
-            futures.put(c.id(), c.flush());
+            futures.add(c.flush());
         }
 
         return new DefaultChannelGroupFuture(this, futures, executor);
@@ -269,19 +323,43 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
 
     @Override
     public ChannelGroupFuture deregister() {
-        Map<Integer, ChannelFuture> futures =
-                new LinkedHashMap<Integer, ChannelFuture>(size());
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(size());
 
         for (Channel c: serverChannels.values()) {
-            futures.put(c.id(), c.deregister());
+            futures.add(c.deregister());
         }
         for (Channel c: nonServerChannels.values()) {
-            futures.put(c.id(), c.deregister());
+            futures.add(c.deregister());
         }
 
         return new DefaultChannelGroupFuture(this, futures, executor);
     }
 
+    /**
+     * Writes a shared buffer to all channels of the same {@link EventLoop}.
+     */
+    private static final class BroadcastTask implements Runnable {
+        private final ByteBuf encoded;
+        private final List<Channel> channels = new ArrayList<Channel>();
+        private final List<ChannelPromise> promises = new ArrayList<ChannelPromise>();
+
+        BroadcastTask(ByteBuf encoded) {
+            this.encoded = encoded;
+        }
+
+        void add(Channel channel, ChannelPromise promise) {
+            channels.add(channel);
+            promises.add(promise);
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < channels.size(); i ++) {
+                channels.get(i).write(encoded.duplicate(), promises.get(i));
+            }
+        }
+    }
+
     @Override
     public int hashCode() {
         return System.identityHashCode(this);
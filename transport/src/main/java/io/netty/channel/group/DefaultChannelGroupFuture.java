@@ -23,55 +23,55 @@ import io.netty.util.concurrent.DefaultPromise;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.internal.ReadOnlyIterator;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 
 /**
  * The default {@link ChannelGroupFuture} implementation.
+ * <p>
+ * The futures of the channels are kept in an array and the completions are counted without locking, so creating
+ * a future for a large group only allocates what is needed per channel. The map used by {@link #find(Integer)} is
+ * only built if it is actually called.
  */
 final class DefaultChannelGroupFuture extends DefaultPromise<Void> implements ChannelGroupFuture {
 
+    private static final AtomicIntegerFieldUpdater<DefaultChannelGroupFuture> SUCCESS_COUNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultChannelGroupFuture.class, "successCount");
+    private static final AtomicIntegerFieldUpdater<DefaultChannelGroupFuture> FAILURE_COUNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultChannelGroupFuture.class, "failureCount");
+    private static final AtomicIntegerFieldUpdater<DefaultChannelGroupFuture> DONE_COUNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultChannelGroupFuture.class, "doneCount");
+
     private final ChannelGroup group;
-    private final Map<Integer, ChannelFuture> futures;
-    private int successCount;
-    private int failureCount;
+    private final ChannelFuture[] futures;
+    private volatile Map<Integer, ChannelFuture> futureMap;
+    private volatile int successCount;
+    private volatile int failureCount;
+    @SuppressWarnings("unused")
+    private volatile int doneCount;
 
     private final ChannelFutureListener childListener = new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture future) throws Exception {
-            boolean success = future.isSuccess();
-            boolean callSetDone;
-            synchronized (DefaultChannelGroupFuture.this) {
-                if (success) {
-                    successCount ++;
-                } else {
-                    failureCount ++;
-                }
-
-                callSetDone = successCount + failureCount == futures.size();
-                assert successCount + failureCount <= futures.size();
+            if (future.isSuccess()) {
+                SUCCESS_COUNT_UPDATER.incrementAndGet(DefaultChannelGroupFuture.this);
+            } else {
+                FAILURE_COUNT_UPDATER.incrementAndGet(DefaultChannelGroupFuture.this);
             }
 
-            if (callSetDone) {
-                if (failureCount > 0) {
-                    List<Map.Entry<Integer, Throwable>> failed =
-                            new ArrayList<Map.Entry<Integer, Throwable>>(failureCount);
-                    for (ChannelFuture f: futures.values()) {
-                        if (!f.isSuccess()) {
-                            failed.add(new DefaultEntry<Integer, Throwable>(f.channel().id(), f.cause()));
-                        }
-                    }
-                    setFailure0(new ChannelGroupException(failed));
-                } else {
-                    setSuccess0();
-                }
+            int done = DONE_COUNT_UPDATER.incrementAndGet(DefaultChannelGroupFuture.this);
+            assert done <= futures.length;
+            if (done == futures.length) {
+                setDone();
             }
         }
     };
@@ -80,6 +80,13 @@ final class DefaultChannelGroupFuture extends DefaultPromise<Void> implements Ch
      * Creates a new instance.
      */
     public DefaultChannelGroupFuture(ChannelGroup group, Collection<ChannelFuture> futures,  EventExecutor executor) {
+        this(group, futures.toArray(new ChannelFuture[futures.size()]), executor);
+    }
+
+    /**
+     * Creates a new instance which takes the ownership of the given array.
+     */
+    DefaultChannelGroupFuture(ChannelGroup group, ChannelFuture[] futures, EventExecutor executor) {
         super(executor);
         if (group == null) {
             throw new NullPointerException("group");
@@ -89,36 +96,30 @@ final class DefaultChannelGroupFuture extends DefaultPromise<Void> implements Ch
         }
 
         this.group = group;
-
-        Map<Integer, ChannelFuture> futureMap = new LinkedHashMap<Integer, ChannelFuture>();
+        this.futures = futures;
         for (ChannelFuture f: futures) {
-            futureMap.put(f.channel().id(), f);
-        }
-
-        this.futures = Collections.unmodifiableMap(futureMap);
-
-        for (ChannelFuture f: this.futures.values()) {
             f.addListener(childListener);
         }
 
         // Done on arrival?
-        if (this.futures.isEmpty()) {
+        if (futures.length == 0) {
             setSuccess0();
         }
     }
 
-    DefaultChannelGroupFuture(ChannelGroup group, Map<Integer, ChannelFuture> futures, EventExecutor executor) {
-        super(executor);
-        this.group = group;
-        this.futures = Collections.unmodifiableMap(futures);
-        for (ChannelFuture f: this.futures.values()) {
-            f.addListener(childListener);
+    private void setDone() {
+        if (failureCount == 0) {
+            setSuccess0();
+            return;
         }
 
-        // Done on arrival?
-        if (this.futures.isEmpty()) {
-            setSuccess0();
+        List<Map.Entry<Integer, Throwable>> failed = new ArrayList<Map.Entry<Integer, Throwable>>(failureCount);
+        for (ChannelFuture f: futures) {
+            if (!f.isSuccess()) {
+                failed.add(new DefaultEntry<Integer, Throwable>(f.channel().id(), f.cause()));
+            }
         }
+        setFailure0(new ChannelGroupException(failed));
     }
 
     @Override
@@ -128,27 +129,37 @@ final class DefaultChannelGroupFuture extends DefaultPromise<Void> implements Ch
 
     @Override
     public ChannelFuture find(Integer channelId) {
-        return futures.get(channelId);
+        Map<Integer, ChannelFuture> futureMap = this.futureMap;
+        if (futureMap == null) {
+            futureMap = new HashMap<Integer, ChannelFuture>(futures.length * 4 / 3 + 1);
+            for (ChannelFuture f: futures) {
+                futureMap.put(f.channel().id(), f);
+            }
+            this.futureMap = futureMap;
+        }
+        return futureMap.get(channelId);
     }
 
     @Override
     public ChannelFuture find(Channel channel) {
-        return futures.get(channel.id());
+        return find(channel.id());
     }
 
     @Override
     public Iterator<ChannelFuture> iterator() {
-        return futures.values().iterator();
+        return new ReadOnlyIterator<ChannelFuture>(Arrays.asList(futures).iterator());
     }
 
     @Override
-    public synchronized boolean isPartialSuccess() {
-        return successCount != 0 && successCount != futures.size();
+    public boolean isPartialSuccess() {
+        int successCount = this.successCount;
+        return successCount != 0 && successCount != futures.length;
     }
 
     @Override
-    public synchronized boolean isPartialFailure() {
-        return failureCount != 0 && failureCount != futures.size();
+    public boolean isPartialFailure() {
+        int failureCount = this.failureCount;
+        return failureCount != 0 && failureCount != futures.length;
     }
 
     @Override
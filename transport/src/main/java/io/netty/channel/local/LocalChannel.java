@@ -34,7 +34,6 @@ import java.nio.channels.AlreadyConnectedException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
-import java.util.Collections;
 
 /**
  * A {@link Channel} for the local transport.
@@ -50,6 +49,16 @@ public class LocalChannel extends AbstractChannel {
             unsafe().close(unsafe().voidFuture());
         }
     };
+    // Filled by the peer when it is registered to a different event loop.
+    private final LocalMessageRing inboundRing = new LocalMessageRing();
+    private final Runnable drainInboundRingTask = new Runnable() {
+        @Override
+        public void run() {
+            ChannelPipeline pipeline = pipeline();
+            inboundRing.drainTo(pipeline.inboundMessageBuffer());
+            finishPeerRead(LocalChannel.this, pipeline);
+        }
+    };
 
     private volatile int state; // 0 - open, 1 - bound, 2 - connected, 3 - closed
     private volatile LocalChannel peer;
@@ -238,24 +247,16 @@ public class LocalChannel extends AbstractChannel {
             throw new ClosedChannelException();
         }
 
-        final LocalChannel peer = this.peer;
-        final ChannelPipeline peerPipeline = peer.pipeline();
-        final EventLoop peerLoop = peer.eventLoop();
+        LocalChannel peer = this.peer;
+        EventLoop peerLoop = peer.eventLoop();
 
         if (peerLoop == eventLoop()) {
+            ChannelPipeline peerPipeline = peer.pipeline();
             buf.drainTo(peerPipeline.inboundMessageBuffer());
             finishPeerRead(peer, peerPipeline);
-        } else {
-            final Object[] msgs = buf.toArray();
-            buf.clear();
-            peerLoop.execute(new Runnable() {
-                @Override
-                public void run() {
-                    MessageBuf<Object> buf = peerPipeline.inboundMessageBuffer();
-                    Collections.addAll(buf, msgs);
-                    finishPeerRead(peer, peerPipeline);
-                }
-            });
+        } else if (peer.inboundRing.addAll(buf)) {
+            // Only wake up the peer if it did not start draining the previous batch yet.
+            peerLoop.execute(peer.drainInboundRingTask);
         }
     }
 
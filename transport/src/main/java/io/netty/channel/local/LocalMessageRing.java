@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.local;
+
+import io.netty.buffer.MessageBuf;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A single-producer single-consumer ring which hands the messages of a {@link LocalChannel} over to its peer
+ * when both are registered to different event loops.
+ * <p>
+ * The producer is the event loop of the writing channel and the consumer is the event loop of the reading
+ * channel. The ring is allocated once per channel, so a flush only copies references into it instead of
+ * allocating an array and a task. Messages which do not fit into the ring go to an unbounded overflow queue,
+ * which is only used until the consumer caught up. The consumer only takes a message from the overflow queue
+ * while the ring is empty, so the order of the messages is always retained.
+ */
+final class LocalMessageRing {
+
+    private static final int CAPACITY = 512;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final AtomicLongFieldUpdater<LocalMessageRing> HEAD_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(LocalMessageRing.class, "head");
+    private static final AtomicLongFieldUpdater<LocalMessageRing> TAIL_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(LocalMessageRing.class, "tail");
+    private static final AtomicIntegerFieldUpdater<LocalMessageRing> WAKEUP_PENDING_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(LocalMessageRing.class, "wakeupPending");
+
+    private final Object[] buffer = new Object[CAPACITY];
+    private final Queue<Object> overflow = new ConcurrentLinkedQueue<Object>();
+
+    // Only written by the consumer.
+    private volatile long head;
+    // Only written by the producer.
+    private volatile long tail;
+    private volatile int wakeupPending;
+
+    /**
+     * Moves all messages of the given buffer into this ring. Must only be called by the producer.
+     *
+     * @return {@code true} if the consumer needs to be woken up to drain the ring, {@code false} if a wakeup
+     *         is pending already
+     */
+    boolean addAll(MessageBuf<Object> buf) {
+        if (buf.isEmpty()) {
+            return false;
+        }
+
+        // Once messages went to the overflow queue, all following messages must go there as well until the
+        // consumer drained it. Otherwise they could overtake the overflowed ones.
+        if (overflow.isEmpty()) {
+            long tail = this.tail;
+            long limit = head + CAPACITY;
+            for (; tail < limit; tail ++) {
+                Object msg = buf.poll();
+                if (msg == null) {
+                    break;
+                }
+                buffer[(int) tail & MASK] = msg;
+            }
+            // Publish the new messages before any of the remaining ones go to the overflow queue.
+            TAIL_UPDATER.lazySet(this, tail);
+        }
+
+        for (;;) {
+            Object msg = buf.poll();
+            if (msg == null) {
+                break;
+            }
+            overflow.add(msg);
+        }
+
+        return WAKEUP_PENDING_UPDATER.compareAndSet(this, 0, 1);
+    }
+
+    /**
+     * Moves all messages of this ring into the given buffer. Must only be called by the consumer.
+     */
+    void drainTo(MessageBuf<Object> dst) {
+        // Clear the flag first, so messages added from now on trigger another wakeup.
+        wakeupPending = 0;
+
+        long head = this.head;
+        for (;;) {
+            long tail = this.tail;
+            for (; head < tail; head ++) {
+                int index = (int) head & MASK;
+                dst.add(buffer[index]);
+                buffer[index] = null;
+            }
+            HEAD_UPDATER.lazySet(this, head);
+
+            Object msg = overflow.peek();
+            if (msg == null) {
+                break;
+            }
+
+            // The producer publishes the tail before it adds anything to the overflow queue, so every message
+            // which went to the ring before this one is visible now. Those must be drained first. Messages which
+            // go to the ring after this one can only appear once it was removed, because the producer stays off
+            // the ring as long as the overflow queue is not empty.
+            if (this.tail != head) {
+                continue;
+            }
+            overflow.poll();
+            dst.add(msg);
+        }
+    }
+}
@@ -53,10 +53,14 @@ public abstract class AbstractNioMessageChannel extends AbstractNioChannel {
 
             final ChannelPipeline pipeline = pipeline();
             final MessageBuf<Object> msgBuf = pipeline.inboundMessageBuffer();
+            // Bound the number of messages per loop so a burst (e.g. a connect storm) can not starve the other
+            // channels of this event loop. The selector reports the channel as readable again if more is left.
+            final int maxMessagesPerRead = config().getMaxMessagesPerRead();
             boolean closed = false;
             boolean read = false;
             boolean firedChannelReadSuspended = false;
             try {
+                int totalReadAmount = 0;
                 for (;;) {
                     int localReadAmount = doReadMessages(msgBuf);
                     if (localReadAmount > 0) {
@@ -67,6 +71,11 @@ public abstract class AbstractNioMessageChannel extends AbstractNioChannel {
                         closed = true;
                         break;
                     }
+
+                    totalReadAmount += localReadAmount;
+                    if (totalReadAmount >= maxMessagesPerRead) {
+                        break;
+                    }
                 }
             } catch (Throwable t) {
                 if (read) {
@@ -21,6 +21,7 @@ import io.netty.channel.ChannelException;
 import io.netty.channel.EventLoopException;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.nio.AbstractNioChannel.NioUnsafe;
+import io.netty.util.concurrent.EventExecutorMetrics;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -333,9 +334,15 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 cancelledKeys = 0;
 
                 final long ioStartTime = System.nanoTime();
+                updateCachedNanoTime();
                 processSelectedKeys();
                 final long ioTime = System.nanoTime() - ioStartTime;
 
+                final EventExecutorMetrics metrics = metrics();
+                if (metrics != null) {
+                    metrics.recordIoTime(ioTime);
+                }
+
                 final int ioRatio = this.ioRatio;
                 runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
 
@@ -586,7 +593,15 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                     break;
                 }
 
-                int selectedKeys = selector.select(timeoutMillis);
+                final EventExecutorMetrics metrics = metrics();
+                int selectedKeys;
+                if (metrics == null) {
+                    selectedKeys = selector.select(timeoutMillis);
+                } else {
+                    long selectStartTime = System.nanoTime();
+                    selectedKeys = selector.select(timeoutMillis);
+                    metrics.recordSelectWait(System.nanoTime() - selectStartTime);
+                }
                 selectCnt ++;
 
                 if (selectedKeys != 0 || oldWakenUp || wakenUp.get() || hasTasks()) {
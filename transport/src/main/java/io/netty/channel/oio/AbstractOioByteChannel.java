@@ -50,19 +50,10 @@ public abstract class AbstractOioByteChannel extends AbstractOioChannel {
     }
 
     /**
-     * Check if the input was shutdown and if so return {@code true}. The default implementation sleeps also for
-     * {@link #SO_TIMEOUT} milliseconds to simulate some blocking.
+     * Check if the input was shutdown and if so return {@code true}.
      */
     protected boolean checkInputShutdown() {
-        if (inputShutdown) {
-            try {
-                Thread.sleep(SO_TIMEOUT);
-            } catch (InterruptedException e) {
-                // ignore
-            }
-            return true;
-        }
-        return false;
+        return inputShutdown;
     }
 
     @Override
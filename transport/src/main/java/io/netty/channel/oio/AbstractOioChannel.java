@@ -17,27 +17,57 @@ package io.netty.channel.oio;
 
 import io.netty.channel.AbstractChannel;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoop;
 import io.netty.channel.ThreadPerChannelEventLoop;
 
+import java.io.IOException;
 import java.net.ConnectException;
 import java.net.SocketAddress;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract base class for {@link Channel} implementations that use Old-Blocking-IO
  */
 public abstract class AbstractOioChannel extends AbstractChannel {
 
+    /**
+     * The socket timeout which lets {@link #doRead()} return to the event loop if no reader thread waits for the
+     * socket.
+     */
     protected static final int SO_TIMEOUT = 1000;
 
     private boolean readInProgress;
+    // Only accessed by the reader thread, and handed over to the event loop with the readTask.
+    private Throwable readCause;
+    private boolean readerThreadUsed;
+    private Reader reader;
 
     private final Runnable readTask = new Runnable() {
         @Override
         public void run() {
+            if (!isRegistered() || !eventLoop().inEventLoop()) {
+                // Handed over by a reader thread which was stopped by a deregistration in the meantime.
+                return;
+            }
+
             readInProgress = false;
-            doRead();
+            Throwable cause = readCause;
+            if (cause == null) {
+                doRead();
+                return;
+            }
+
+            readCause = null;
+            ChannelPipeline pipeline = pipeline();
+            pipeline.fireExceptionCaught(cause);
+            if (cause instanceof IOException) {
+                unsafe().close(unsafe().voidFuture());
+            } else {
+                pipeline.fireChannelReadSuspended();
+            }
         }
     };
 
@@ -106,6 +136,15 @@ public abstract class AbstractOioChannel extends AbstractChannel {
     protected abstract void doConnect(
             SocketAddress remoteAddress, SocketAddress localAddress) throws Exception;
 
+    @Override
+    protected Runnable doRegister() throws Exception {
+        readerThreadUsed = isReadBlocking() && ((ThreadPerChannelEventLoop) eventLoop()).isVirtual();
+        if (readerThreadUsed) {
+            doDisableSoTimeout();
+        }
+        return super.doRegister();
+    }
+
     @Override
     protected void doBeginRead() throws Exception {
         if (readInProgress) {
@@ -113,8 +152,150 @@ public abstract class AbstractOioChannel extends AbstractChannel {
         }
 
         readInProgress = true;
-        eventLoop().execute(readTask);
+        if (!readerThreadUsed) {
+            eventLoop().execute(readTask);
+            return;
+        }
+
+        Reader reader = this.reader;
+        if (reader == null || reader.isStopped()) {
+            reader = new Reader(reader);
+            this.reader = reader;
+            reader.start();
+        }
+        reader.requests.release();
+    }
+
+    @Override
+    protected void doPreClose() throws Exception {
+        stopReader();
+        super.doPreClose();
+    }
+
+    @Override
+    protected Runnable doDeregister() throws Exception {
+        stopReader();
+        readInProgress = false;
+        return super.doDeregister();
+    }
+
+    private void stopReader() {
+        Reader reader = this.reader;
+        if (reader != null) {
+            // Keep the stopped reader, so the next one waits until it returned from awaitReadable().
+            reader.stop();
+        }
+    }
+
+    /**
+     * Returns {@code true} if this channel can wait for its socket with {@link #awaitReadable()}. If so and the
+     * {@link ThreadPerChannelEventLoop} runs on a virtual thread, a separate virtual reader thread calls
+     * {@link #awaitReadable()} before every {@link #doRead()}, so the event loop is never blocked by a read and the
+     * socket does not need to time out every {@link #SO_TIMEOUT} milliseconds. On platform threads the reader
+     * thread would double the number of threads per channel without being limited by the {@code maxChannels} of
+     * the group, so {@link #doRead()} runs on the event loop and has to return on its own after at most
+     * {@link #SO_TIMEOUT} milliseconds.
+     * <p>
+     * The default implementation returns {@code false}.
+     */
+    protected boolean isReadBlocking() {
+        return false;
+    }
+
+    /**
+     * Blocks until the next {@link #doRead()} can read something without blocking, or until the socket reached
+     * its end or was closed. Implementations which can only detect this by reading keep what they read for the
+     * next {@link #doRead()}. This method is called by the reader thread, never by the event loop, and only if
+     * {@link #isReadBlocking()} returns {@code true}. The reader thread is never interrupted while it is in this
+     * method, so it must return on its own once the socket is readable, reached its end or was closed. An exception
+     * thrown by this method is passed to {@link ChannelPipeline#fireExceptionCaught(Throwable)} in place of the next
+     * {@link #doRead()}.
+     */
+    protected void awaitReadable() throws Exception {
+        // NOOP by default
+    }
+
+    /**
+     * Called on registration if a reader thread waits for the socket, so the socket no longer needs to time out
+     * every {@link #SO_TIMEOUT} milliseconds. Implementations should only reset a timeout which was not changed by
+     * the user. The default implementation does nothing.
+     */
+    protected void doDisableSoTimeout() throws Exception {
+        // NOOP by default
     }
 
     protected abstract void doRead();
+
+    /**
+     * Waits for the socket on behalf of the event loop, so the event loop is free to handle writes and other tasks
+     * while nothing can be read.
+     */
+    private final class Reader implements Runnable {
+        private static final int IDLE = 0;
+        private static final int AWAITING = 1;
+        private static final int STOPPED = 2;
+
+        final Semaphore requests = new Semaphore(0);
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private final Thread thread;
+        private Reader previous;
+
+        Reader(Reader previous) {
+            this.previous = previous;
+            thread = ((ThreadPerChannelEventLoop) eventLoop()).newThread(this);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        boolean isStopped() {
+            return state.get() == STOPPED;
+        }
+
+        /**
+         * Lets the reader thread terminate. An idle thread is interrupted right away. A thread which waits for the
+         * socket is not, as an interrupt may close the socket of a virtual thread, so it terminates once
+         * {@link #awaitReadable()} returned, which happens at the latest when the channel is closed.
+         */
+        void stop() {
+            if (state.getAndSet(STOPPED) == IDLE) {
+                thread.interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (previous != null) {
+                    // Never let two threads wait for the same socket.
+                    previous.thread.join();
+                    previous = null;
+                }
+
+                for (;;) {
+                    requests.acquire();
+                    if (!state.compareAndSet(IDLE, AWAITING)) {
+                        return;
+                    }
+
+                    Throwable cause = null;
+                    try {
+                        awaitReadable();
+                    } catch (Throwable t) {
+                        cause = t;
+                    }
+
+                    if (!state.compareAndSet(AWAITING, IDLE) || !isOpen()) {
+                        // Stopped or closed while waiting, which is expected to let awaitReadable() fail.
+                        return;
+                    }
+                    readCause = cause;
+                    eventLoop().execute(readTask);
+                }
+            } catch (InterruptedException e) {
+                // Stopped.
+            }
+        }
+    }
 }
@@ -24,6 +24,7 @@ import io.netty.channel.FileRegion;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.nio.channels.Channels;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.WritableByteChannel;
@@ -33,7 +34,7 @@ import java.nio.channels.WritableByteChannel;
  */
 public abstract class OioByteStreamChannel extends AbstractOioByteChannel {
 
-    private InputStream is;
+    private PushbackInputStream is;
     private OutputStream os;
     private WritableByteChannel outChannel;
 
@@ -64,10 +65,29 @@ public abstract class OioByteStreamChannel extends AbstractOioByteChannel {
         if (os == null) {
             throw new NullPointerException("os");
         }
-        this.is = is;
+        // Allows awaitReadable() to block for the first byte without consuming it.
+        this.is = new PushbackInputStream(is);
         this.os = os;
     }
 
+    @Override
+    protected boolean isReadBlocking() {
+        return true;
+    }
+
+    @Override
+    protected void awaitReadable() throws Exception {
+        PushbackInputStream is = this.is;
+        if (is == null || is.available() > 0) {
+            return;
+        }
+
+        int b = is.read();
+        if (b >= 0) {
+            is.unread(b);
+        }
+    }
+
     @Override
     public boolean isActive() {
         return is != null && os != null;
@@ -23,12 +23,13 @@ import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ThreadPerChannelEventLoopGroup;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
 /**
  * {@link EventLoopGroup} which is used to handle OIO {@link Channel}'s. Each {@link Channel} will be handled by its
  * own {@link EventLoop} to not block others.
+ * <p>
+ * See {@link ThreadPerChannelEventLoopGroup} for running the {@link EventLoop}s on virtual threads.
  */
 public class OioEventLoopGroup extends ThreadPerChannelEventLoopGroup {
 
@@ -49,7 +50,7 @@ public class OioEventLoopGroup extends ThreadPerChannelEventLoopGroup {
      *                          Use {@code 0} to use no limit
      */
     public OioEventLoopGroup(int maxChannels) {
-        this(maxChannels, Executors.defaultThreadFactory());
+        this(maxChannels, newDefaultThreadFactory(OioEventLoopGroup.class));
     }
 
     /**
@@ -56,6 +56,8 @@ import java.net.StandardSocketOptions;
  * <td>{@link ChannelOption#IP_TOS}</td><td>{@link #setTrafficClass(int)}</td>
  * </tr><tr>
  * <td>{@link ChannelOption#UDP_RECEIVE_PACKET_SIZE}</td><td>{@link #setReceivePacketSize(int)}</td>
+ * </tr><tr>
+ * <td>{@link ChannelOption#UDP_RECEIVE_BATCH_SIZE}</td><td>{@link #setReceiveBatchSize(int)}</td>
  * </tr>
  * </table>
  */
@@ -93,6 +95,22 @@ public interface DatagramChannelConfig extends ChannelConfig {
      */
     DatagramChannelConfig setReceivePacketSize(int receivePacketSize);
 
+    /**
+     * Gets the maximal number of datagrams which are received into one shared buffer. {@code 1} (the default)
+     * means every datagram gets its own buffer of {@link #getReceivePacketSize()} bytes.
+     */
+    int getReceiveBatchSize();
+
+    /**
+     * Sets the maximal number of datagrams which are received into one shared buffer.
+     * <p>
+     * If greater than {@code 1} the channel receives as many datagrams as are ready (up to this number) into one
+     * pooled buffer whose capacity adapts to the observed traffic, and every {@link DatagramPacket#data()} is a
+     * slice of it. This removes most of the allocation cost for small datagrams, but the shared buffer is only
+     * returned to the pool once all of its packets were released. Only honoured by transports which support it.
+     */
+    DatagramChannelConfig setReceiveBatchSize(int receiveBatchSize);
+
     /**
      * Gets the {@link StandardSocketOptions#IP_TOS} option.
      */
@@ -171,6 +189,12 @@ public interface DatagramChannelConfig extends ChannelConfig {
     @Override
     DatagramChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    DatagramChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    DatagramChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     DatagramChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis);
 
@@ -45,6 +45,7 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
 
     private final DatagramSocket javaSocket;
     private volatile int receivePacketSize = DEFAULT_RECEIVE_PACKET_SIZE;
+    private volatile int receiveBatchSize = 1;
 
     /**
      * Creates a new instance.
@@ -62,7 +63,8 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
         return getOptions(
                 super.getOptions(),
                 SO_BROADCAST, SO_RCVBUF, SO_SNDBUF, SO_REUSEADDR, IP_MULTICAST_LOOP_DISABLED,
-                IP_MULTICAST_ADDR, IP_MULTICAST_IF, IP_MULTICAST_TTL, IP_TOS, UDP_RECEIVE_PACKET_SIZE);
+                IP_MULTICAST_ADDR, IP_MULTICAST_IF, IP_MULTICAST_TTL, IP_TOS, UDP_RECEIVE_PACKET_SIZE,
+                UDP_RECEIVE_BATCH_SIZE);
     }
 
     @SuppressWarnings("unchecked")
@@ -80,6 +82,9 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
         if (option == UDP_RECEIVE_PACKET_SIZE) {
             return (T) Integer.valueOf(getReceivePacketSize());
         }
+        if (option == UDP_RECEIVE_BATCH_SIZE) {
+            return (T) Integer.valueOf(getReceiveBatchSize());
+        }
         if (option == SO_REUSEADDR) {
             return (T) Boolean.valueOf(isReuseAddress());
         }
@@ -128,6 +133,8 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
             setTrafficClass((Integer) value);
         } else if (option == UDP_RECEIVE_PACKET_SIZE) {
             setReceivePacketSize((Integer) value);
+        } else if (option == UDP_RECEIVE_BATCH_SIZE) {
+            setReceiveBatchSize((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -320,6 +327,21 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
         return this;
     }
 
+    @Override
+    public int getReceiveBatchSize() {
+        return receiveBatchSize;
+    }
+
+    @Override
+    public DatagramChannelConfig setReceiveBatchSize(int receiveBatchSize) {
+        if (receiveBatchSize <= 0) {
+            throw new IllegalArgumentException(
+                    String.format("receiveBatchSize: %d (expected: > 0)", receiveBatchSize));
+        }
+        this.receiveBatchSize = receiveBatchSize;
+        return this;
+    }
+
     @Override
     public int getTimeToLive() {
         if (javaSocket instanceof MulticastSocket) {
@@ -371,6 +393,16 @@ public class DefaultDatagramChannelConfig extends DefaultChannelConfig implement
         return (DatagramChannelConfig) super.setWriteSpinCount(writeSpinCount);
     }
 
+    @Override
+    public DatagramChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        return (DatagramChannelConfig) super.setMaxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    @Override
+    public DatagramChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        return (DatagramChannelConfig) super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+    }
+
     @Override
     public DatagramChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
         return (DatagramChannelConfig) super.setConnectTimeoutMillis(connectTimeoutMillis);
@@ -153,6 +153,16 @@ public class DefaultServerSocketChannelConfig extends DefaultChannelConfig
         return (ServerSocketChannelConfig) super.setWriteSpinCount(writeSpinCount);
     }
 
+    @Override
+    public ServerSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        return (ServerSocketChannelConfig) super.setMaxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    @Override
+    public ServerSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        return (ServerSocketChannelConfig) super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+    }
+
     @Override
     public ServerSocketChannelConfig setAllocator(ByteBufAllocator allocator) {
         return (ServerSocketChannelConfig) super.setAllocator(allocator);
@@ -288,6 +288,16 @@ public class DefaultSocketChannelConfig extends DefaultChannelConfig
         return (SocketChannelConfig) super.setWriteSpinCount(writeSpinCount);
     }
 
+    @Override
+    public SocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        return (SocketChannelConfig) super.setMaxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    @Override
+    public SocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        return (SocketChannelConfig) super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+    }
+
     @Override
     public SocketChannelConfig setAllocator(ByteBufAllocator allocator) {
         return (SocketChannelConfig) super.setAllocator(allocator);
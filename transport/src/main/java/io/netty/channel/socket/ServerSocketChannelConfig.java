@@ -88,6 +88,12 @@ public interface ServerSocketChannelConfig extends ChannelConfig {
     @Override
     ServerSocketChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    ServerSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    ServerSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     ServerSocketChannelConfig setAllocator(ByteBufAllocator allocator);
 
@@ -161,6 +161,12 @@ public interface SocketChannelConfig extends ChannelConfig {
     @Override
     SocketChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    SocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    SocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     SocketChannelConfig setAllocator(ByteBufAllocator allocator);
 
@@ -212,6 +212,18 @@ final class AioServerSocketChannelConfig extends DefaultChannelConfig implements
         return this;
     }
 
+    @Override
+    public AioServerSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public AioServerSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+        return this;
+    }
+
     @Override
     public AioServerSocketChannelConfig setAllocator(ByteBufAllocator allocator) {
         super.setAllocator(allocator);
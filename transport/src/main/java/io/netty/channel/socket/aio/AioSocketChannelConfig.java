@@ -103,6 +103,12 @@ public interface AioSocketChannelConfig extends SocketChannelConfig {
     @Override
     AioSocketChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    AioSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    AioSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     AioSocketChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis);
 
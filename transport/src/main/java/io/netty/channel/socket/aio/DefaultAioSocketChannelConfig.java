@@ -347,6 +347,16 @@ final class DefaultAioSocketChannelConfig extends DefaultChannelConfig
         return (AioSocketChannelConfig) super.setWriteSpinCount(writeSpinCount);
     }
 
+    @Override
+    public AioSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        return (AioSocketChannelConfig) super.setMaxMessagesPerRead(maxMessagesPerRead);
+    }
+
+    @Override
+    public AioSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        return (AioSocketChannelConfig) super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+    }
+
     @Override
     public AioSocketChannelConfig setAllocator(ByteBufAllocator allocator) {
         return (AioSocketChannelConfig) super.setAllocator(allocator);
@@ -62,6 +62,9 @@ public final class NioDatagramChannel
     private static final ChannelMetadata METADATA = new ChannelMetadata(BufType.MESSAGE, true);
 
     private final DatagramChannelConfig config;
+    // Capacity of the next shared receive buffer when datagrams are received in batches. Only touched by the
+    // event loop.
+    private int batchBufferSize = 8192;
     private final Map<InetAddress, List<MembershipKey>> memberships =
             new HashMap<InetAddress, List<MembershipKey>>();
 
@@ -199,6 +202,11 @@ public final class NioDatagramChannel
 
     @Override
     protected int doReadMessages(MessageBuf<Object> buf) throws Exception {
+        int batchSize = config().getReceiveBatchSize();
+        if (batchSize > 1) {
+            return doReadMessagesBatched(buf, batchSize);
+        }
+
         DatagramChannel ch = javaChannel();
         ByteBuf data = alloc().directBuffer(config().getReceivePacketSize());
         boolean free = true;
@@ -224,6 +232,66 @@ public final class NioDatagramChannel
         }
     }
 
+    /**
+     * Receive up to {@code batchSize} datagrams into one shared buffer and add a slice of it per datagram.
+     */
+    private int doReadMessagesBatched(MessageBuf<Object> buf, int batchSize) throws Exception {
+        DatagramChannel ch = javaChannel();
+        int packetSize = config().getReceivePacketSize();
+        int maxCapacity = packetSize * batchSize;
+        if (maxCapacity < 0) {
+            // overflow
+            maxCapacity = Integer.MAX_VALUE;
+        }
+        int capacity = Math.max(packetSize, Math.min(batchBufferSize, maxCapacity));
+
+        ByteBuf data = alloc().directBuffer(capacity);
+        InetSocketAddress localAddress = localAddress();
+        int packets = 0;
+        try {
+            // Every receive needs room for a full packet, so a bigger datagram is truncated the same way as
+            // in the non-batched mode.
+            while (packets < batchSize && data.writableBytes() >= packetSize) {
+                int writerIndex = data.writerIndex();
+                ByteBuffer nioData = data.nioBuffer(writerIndex, packetSize);
+                InetSocketAddress remoteAddress = (InetSocketAddress) ch.receive(nioData);
+                if (remoteAddress == null) {
+                    break;
+                }
+
+                int length = nioData.position();
+                data.writerIndex(writerIndex + length);
+                buf.add(new DatagramPacket(data.slice(writerIndex, length).retain(), localAddress, remoteAddress));
+                packets ++;
+            }
+
+            adjustBatchBufferSize(data, packetSize, maxCapacity, packets == batchSize);
+            return packets;
+        } catch (Throwable cause) {
+            PlatformDependent.throwException(cause);
+            return -1;
+        } finally {
+            // The packets keep the buffer alive through their own references.
+            data.release();
+        }
+    }
+
+    /**
+     * Grow the shared buffer if it ran out of room before the batch was complete, shrink it if less than half
+     * of it was used.
+     */
+    private void adjustBatchBufferSize(ByteBuf data, int packetSize, int maxCapacity, boolean batchComplete) {
+        int capacity = data.capacity();
+        int used = data.writerIndex();
+        if (!batchComplete && data.writableBytes() < packetSize) {
+            batchBufferSize = (int) Math.min((long) capacity << 1, maxCapacity);
+        } else if (used + packetSize <= capacity >>> 1) {
+            batchBufferSize = Math.max(capacity >>> 1, packetSize);
+        } else {
+            batchBufferSize = capacity;
+        }
+    }
+
     @Override
     protected int doWriteMessages(MessageBuf<Object> buf, boolean lastSpin) throws Exception {
         final Object o = buf.peek();
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.socket.nio;
+
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.socket.DefaultServerSocketChannelConfig;
+
+import java.lang.reflect.Method;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Map;
+
+import static io.netty.channel.ChannelOption.*;
+
+/**
+ * The {@link io.netty.channel.socket.ServerSocketChannelConfig} implementation of {@link NioServerSocketChannel}.
+ * It adds support for {@link ChannelOption#SO_REUSEPORT} when the JDK exposes it (Java 9+).
+ */
+final class NioServerSocketChannelConfig extends DefaultServerSocketChannelConfig {
+
+    private static final Object SO_REUSEPORT_OPTION;
+    private static final Method GET_OPTION;
+    private static final Method SET_OPTION;
+
+    static {
+        ClassLoader classLoader = ServerSocketChannel.class.getClassLoader();
+        Object reusePort = null;
+        Method getOption = null;
+        Method setOption = null;
+        try {
+            Class<?> socketOptionType = Class.forName("java.net.SocketOption", true, classLoader);
+            Class<?> stdSocketOptionType = Class.forName("java.net.StandardSocketOptions", true, classLoader);
+            reusePort = stdSocketOptionType.getDeclaredField("SO_REUSEPORT").get(null);
+            getOption = NetworkChannel.class.getDeclaredMethod("getOption", socketOptionType);
+            setOption = NetworkChannel.class.getDeclaredMethod("setOption", socketOptionType, Object.class);
+        } catch (Exception e) {
+            // Not Java 9+ - SO_REUSEPORT is not supported.
+            reusePort = null;
+        }
+        SO_REUSEPORT_OPTION = reusePort;
+        GET_OPTION = getOption;
+        SET_OPTION = setOption;
+    }
+
+    /**
+     * Returns {@code true} if the running JDK allows to set {@code SO_REUSEPORT} on a {@link ServerSocketChannel}.
+     */
+    static boolean isReusePortSupported() {
+        return SO_REUSEPORT_OPTION != null;
+    }
+
+    private final ServerSocketChannel javaChannel;
+
+    NioServerSocketChannelConfig(NioServerSocketChannel channel, ServerSocketChannel javaChannel) {
+        super(channel, javaChannel.socket());
+        this.javaChannel = javaChannel;
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        if (isReusePortSupported()) {
+            return getOptions(super.getOptions(), SO_REUSEPORT);
+        }
+        return super.getOptions();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == SO_REUSEPORT && isReusePortSupported()) {
+            return (T) Boolean.valueOf(isReusePort());
+        }
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        if (option == SO_REUSEPORT) {
+            if (!isReusePortSupported()) {
+                return false;
+            }
+            validate(option, value);
+            setReusePort((Boolean) value);
+            return true;
+        }
+        return super.setOption(option, value);
+    }
+
+    /**
+     * Returns {@code true} if the {@code SO_REUSEPORT} option is set.
+     */
+    public boolean isReusePort() {
+        return (Boolean) getOption0(SO_REUSEPORT_OPTION);
+    }
+
+    /**
+     * Sets the {@code SO_REUSEPORT} option. This needs to be done before the channel is bound.
+     */
+    public NioServerSocketChannelConfig setReusePort(boolean reusePort) {
+        setOption0(SO_REUSEPORT_OPTION, reusePort);
+        return this;
+    }
+
+    private Object getOption0(Object option) {
+        if (option == null) {
+            throw new UnsupportedOperationException();
+        }
+        try {
+            return GET_OPTION.invoke(javaChannel, option);
+        } catch (Exception e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    private void setOption0(Object option, Object value) {
+        if (option == null) {
+            throw new UnsupportedOperationException();
+        }
+        try {
+            SET_OPTION.invoke(javaChannel, option, value);
+        } catch (Exception e) {
+            throw new ChannelException(e);
+        }
+    }
+}
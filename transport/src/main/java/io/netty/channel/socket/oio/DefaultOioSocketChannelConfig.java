@@ -147,6 +147,18 @@ public class DefaultOioSocketChannelConfig extends DefaultSocketChannelConfig im
         return this;
     }
 
+    @Override
+    public OioSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public OioSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes) {
+        super.setMaxConsolidatedFlushes(maxConsolidatedFlushes);
+        return this;
+    }
+
     @Override
     public OioSocketChannelConfig setAllocator(ByteBufAllocator allocator) {
         super.setAllocator(allocator);
@@ -64,6 +64,10 @@ public class OioDatagramChannel extends AbstractOioMessageChannel
     private final MulticastSocket socket;
     private final DatagramChannelConfig config;
     private final java.net.DatagramPacket tmpPacket = new java.net.DatagramPacket(EmptyArrays.EMPTY_BYTES, 0);
+    // Used by the reader thread while tmpPacket may be in use for writes.
+    private final java.net.DatagramPacket receivePacket = new java.net.DatagramPacket(EmptyArrays.EMPTY_BYTES, 0);
+    // Received by awaitReadable(), but not handed to the pipeline yet.
+    private volatile ByteBuf receivedData;
 
     private static MulticastSocket newSocket() {
         try {
@@ -196,24 +200,67 @@ public class OioDatagramChannel extends AbstractOioMessageChannel
     @Override
     protected void doClose() throws Exception {
         socket.close();
+
+        ByteBuf data = receivedData;
+        if (data != null) {
+            receivedData = null;
+            data.release();
+        }
+    }
+
+    @Override
+    protected boolean isReadBlocking() {
+        return true;
+    }
+
+    @Override
+    protected void doDisableSoTimeout() throws Exception {
+        if (socket.getSoTimeout() == SO_TIMEOUT) {
+            socket.setSoTimeout(0);
+        }
+    }
+
+    @Override
+    protected void awaitReadable() throws Exception {
+        if (receivedData != null) {
+            return;
+        }
+
+        int packetSize = config().getReceivePacketSize();
+        ByteBuf data = alloc().heapBuffer(packetSize);
+        boolean free = true;
+        try {
+            receivePacket.setData(data.array(), data.arrayOffset(), packetSize);
+            socket.receive(receivePacket);
+            receivedData = data.writerIndex(receivePacket.getLength());
+            free = false;
+        } catch (SocketTimeoutException e) {
+            // Only happens if the user configured SO_TIMEOUT.
+        } finally {
+            if (free) {
+                data.release();
+            }
+        }
     }
 
     @Override
     protected int doReadMessages(MessageBuf<Object> buf) throws Exception {
+        ByteBuf received = receivedData;
+        if (received != null) {
+            receivedData = null;
+            buf.add(new DatagramPacket(received, localAddress(), receivedFrom()));
+            return 1;
+        }
+
         int packetSize = config().getReceivePacketSize();
         ByteBuf data = alloc().heapBuffer(packetSize);
         boolean free = true;
 
         try {
-            tmpPacket.setData(data.array(), data.arrayOffset(), packetSize);
-            socket.receive(tmpPacket);
-
-            InetSocketAddress remoteAddr = (InetSocketAddress) tmpPacket.getSocketAddress();
-            if (remoteAddr == null) {
-                remoteAddr = remoteAddress();
-            }
+            receivePacket.setData(data.array(), data.arrayOffset(), packetSize);
+            socket.receive(receivePacket);
 
-            buf.add(new DatagramPacket(data.writerIndex(tmpPacket.getLength()), localAddress(), remoteAddr));
+            buf.add(new DatagramPacket(data.writerIndex(receivePacket.getLength()), localAddress(), receivedFrom()));
             free = false;
             return 1;
         } catch (SocketTimeoutException e) {
@@ -234,6 +281,14 @@ public class OioDatagramChannel extends AbstractOioMessageChannel
         }
     }
 
+    private InetSocketAddress receivedFrom() {
+        InetSocketAddress remoteAddr = (InetSocketAddress) receivePacket.getSocketAddress();
+        if (remoteAddr == null) {
+            remoteAddr = remoteAddress();
+        }
+        return remoteAddr;
+    }
+
     @Override
     protected void doWriteMessages(MessageBuf<Object> buf) throws Exception {
         final Object o = buf.poll();
@@ -57,6 +57,8 @@ public class OioServerSocketChannel extends AbstractOioMessageChannel
     final ServerSocket socket;
     final Lock shutdownLock = new ReentrantLock();
     private final OioServerSocketChannelConfig config;
+    // Accepted by awaitReadable(), but not handed to the pipeline yet.
+    private volatile Socket acceptedSocket;
 
     /**
      * Create a new instance with an new {@link Socket}
@@ -152,6 +154,40 @@ public class OioServerSocketChannel extends AbstractOioMessageChannel
     @Override
     protected void doClose() throws Exception {
         socket.close();
+
+        Socket s = acceptedSocket;
+        if (s != null) {
+            acceptedSocket = null;
+            try {
+                s.close();
+            } catch (Throwable t) {
+                logger.warn("Failed to close a socket.", t);
+            }
+        }
+    }
+
+    @Override
+    protected boolean isReadBlocking() {
+        return true;
+    }
+
+    @Override
+    protected void doDisableSoTimeout() throws Exception {
+        if (socket.getSoTimeout() == SO_TIMEOUT) {
+            socket.setSoTimeout(0);
+        }
+    }
+
+    @Override
+    protected void awaitReadable() throws Exception {
+        if (acceptedSocket != null) {
+            return;
+        }
+        try {
+            acceptedSocket = socket.accept();
+        } catch (SocketTimeoutException e) {
+            // Only happens if the user configured SO_TIMEOUT.
+        }
     }
 
     @Override
@@ -161,7 +197,12 @@ public class OioServerSocketChannel extends AbstractOioMessageChannel
         }
 
         try {
-            Socket s = socket.accept();
+            Socket s = acceptedSocket;
+            if (s == null) {
+                s = socket.accept();
+            } else {
+                acceptedSocket = null;
+            }
             try {
                 if (s != null) {
                     buf.add(new OioSocketChannel(this, null, s));
@@ -67,6 +67,12 @@ public interface OioServerSocketChannelConfig extends ServerSocketChannelConfig
     @Override
     OioServerSocketChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    OioServerSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    OioServerSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     OioServerSocketChannelConfig setAllocator(ByteBufAllocator allocator);
 
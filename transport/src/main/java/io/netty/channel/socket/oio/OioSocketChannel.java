@@ -130,6 +130,22 @@ public class OioSocketChannel extends OioByteStreamChannel
         return shutdownOutput(newPromise());
     }
 
+    @Override
+    protected void doDisableSoTimeout() throws Exception {
+        if (socket.getSoTimeout() == SO_TIMEOUT) {
+            socket.setSoTimeout(0);
+        }
+    }
+
+    @Override
+    protected void awaitReadable() throws Exception {
+        try {
+            super.awaitReadable();
+        } catch (SocketTimeoutException e) {
+            // Only happens if the user configured SO_TIMEOUT, so let doReadBytes() time out as well.
+        }
+    }
+
     @Override
     protected int doReadBytes(ByteBuf buf) throws Exception {
         if (socket.isClosed()) {
@@ -220,17 +236,4 @@ public class OioSocketChannel extends OioByteStreamChannel
     protected void doClose() throws Exception {
         socket.close();
     }
-
-    @Override
-    protected boolean checkInputShutdown() {
-        if (isInputShutdown()) {
-            try {
-                Thread.sleep(config().getSoTimeout());
-            } catch (Throwable e) {
-                // ignore
-            }
-            return true;
-        }
-        return false;
-    }
 }
@@ -82,6 +82,12 @@ public interface OioSocketChannelConfig extends SocketChannelConfig {
     @Override
     OioSocketChannelConfig setWriteSpinCount(int writeSpinCount);
 
+    @Override
+    OioSocketChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead);
+
+    @Override
+    OioSocketChannelConfig setMaxConsolidatedFlushes(int maxConsolidatedFlushes);
+
     @Override
     OioSocketChannelConfig setAllocator(ByteBufAllocator allocator);
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedByteChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChannelFlushPromiseNotifierTest {
+
+    @Test
+    public void testVoidPromiseFailureFiresException() {
+        EmbeddedByteChannel ch = new EmbeddedByteChannel(new ChannelInboundByteHandlerAdapter() {
+            @Override
+            protected void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) { }
+        });
+        ChannelFlushPromiseNotifier notifier = new ChannelFlushPromiseNotifier();
+        ChannelPromise promise = ch.newPromise();
+
+        notifier.add(promise, 10);
+        notifier.add(ch.voidPromise(), 20);
+        notifier.increaseWriteCounter(15);
+
+        Exception cause = new Exception();
+        notifier.notifyFlushFutures(cause);
+        assertTrue(promise.isSuccess());
+        try {
+            ch.checkException();
+            fail();
+        } catch (Exception e) {
+            assertSame(cause, e);
+        }
+    }
+
+    @Test
+    public void testVoidPromiseSuccess() {
+        EmbeddedByteChannel ch = new EmbeddedByteChannel(new ChannelInboundByteHandlerAdapter() {
+            @Override
+            protected void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) { }
+        });
+        ChannelFlushPromiseNotifier notifier = new ChannelFlushPromiseNotifier();
+        ChannelPromise promise = ch.newPromise();
+
+        notifier.add(ch.voidPromise(), 20);
+        notifier.add(promise, 10);
+        notifier.increaseWriteCounter(10);
+        // Resets the write counter, which must not lose track of the void promise.
+        notifier.notifyFlushFutures();
+        assertTrue(promise.isSuccess());
+        notifier.increaseWriteCounter(10);
+
+        notifier.notifyFlushFutures(new Exception());
+        ch.checkException();
+    }
+}
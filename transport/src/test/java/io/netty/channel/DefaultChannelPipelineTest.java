@@ -23,10 +23,13 @@ import io.netty.buffer.MessageBuf;
 import io.netty.buffer.ReferenceCounted;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.embedded.EmbeddedByteChannel;
+import io.netty.channel.embedded.EmbeddedMessageChannel;
 import io.netty.channel.local.LocalAddress;
 import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalEventLoopGroup;
 import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Test;
@@ -37,6 +40,7 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
@@ -833,6 +837,132 @@ public class DefaultChannelPipelineTest {
         }
     }
 
+    @Test
+    public void testEventsFollowPipelineModification() {
+        InboundEventCounter a = new InboundEventCounter();
+        InboundEventCounter b = new InboundEventCounter();
+        InboundEventCounter c = new InboundEventCounter();
+        FlushCounter op = new FlushCounter();
+
+        // Forwards all messages, as they are not integers.
+        ChannelHandler forwarder = new ChannelInboundMessageHandlerAdapter<Integer>() {
+            @Override
+            public void messageReceived(ChannelHandlerContext ctx, Integer msg) {
+                fail();
+            }
+        };
+        EmbeddedMessageChannel ch = new EmbeddedMessageChannel(b, op, forwarder, a);
+        ChannelPipeline p = ch.pipeline();
+
+        assertTrue(ch.writeInbound("1"));
+        assertEquals("1", ch.readInbound());
+        assertEquals(1, a.count);
+        assertEquals(1, b.count);
+
+        p.remove(b);
+        p.replace(a, "c", c);
+        assertTrue(ch.writeInbound("2"));
+        assertEquals("2", ch.readInbound());
+        assertEquals(1, a.count);
+        assertEquals(1, b.count);
+        assertEquals(1, c.count);
+
+        assertTrue(p.flush().isSuccess());
+        assertEquals(1, op.count);
+
+        p.remove(op);
+        assertTrue(p.flush().isSuccess());
+        assertEquals(1, op.count);
+        assertFalse(ch.finish());
+    }
+
+    @Test(timeout = 10000)
+    public void testBridgedInboundBytesAreBatched() throws Exception {
+        final int updates = 100;
+        final byte[] data = new byte[updates];
+        for (int i = 0; i < data.length; i ++) {
+            data[i] = (byte) i;
+        }
+
+        // Forwards every byte on its own, through the same next buffer reference every time.
+        final AtomicReference<ByteBuf> nextBuffer = new AtomicReference<ByteBuf>();
+        ChannelInboundByteHandlerAdapter producer = new ChannelInboundByteHandlerAdapter() {
+            @Override
+            public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) {
+                ByteBuf out = ctx.nextInboundByteBuffer();
+                nextBuffer.compareAndSet(null, out);
+                assertSame(nextBuffer.get(), out);
+                out.writeBytes(in);
+                ctx.fireInboundBufferUpdated();
+            }
+        };
+
+        final AtomicInteger calls = new AtomicInteger();
+        final ByteBuf received = Unpooled.buffer();
+        final CountDownLatch done = new CountDownLatch(1);
+        ChannelInboundByteHandlerAdapter consumer = new ChannelInboundByteHandlerAdapter() {
+            @Override
+            public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) {
+                calls.incrementAndGet();
+                received.writeBytes(in);
+                if (received.readableBytes() == data.length) {
+                    done.countDown();
+                }
+            }
+        };
+
+        DefaultEventExecutorGroup consumerGroup = new DefaultEventExecutorGroup(1);
+        try {
+            EmbeddedByteChannel ch = new EmbeddedByteChannel(producer);
+            ChannelPipeline p = ch.pipeline();
+            p.addAfter(consumerGroup, p.context(producer).name(), "consumer", consumer);
+
+            // Keep the consumer busy until all updates were bridged.
+            final CountDownLatch bridged = new CountDownLatch(1);
+            consumerGroup.next().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        bridged.await();
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
+            });
+            for (byte b: data) {
+                ch.writeInbound(Unpooled.wrappedBuffer(new byte[] { b }));
+            }
+            bridged.countDown();
+
+            done.await();
+            assertEquals(1, calls.get());
+            assertEquals(Unpooled.wrappedBuffer(data), received);
+            ch.finish();
+        } finally {
+            consumerGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class InboundEventCounter extends ChannelStateHandlerAdapter {
+        int count;
+
+        @Override
+        public void inboundBufferUpdated(ChannelHandlerContext ctx) {
+            count ++;
+            ctx.fireInboundBufferUpdated();
+        }
+    }
+
+    private static final class FlushCounter extends ChannelOperationHandlerAdapter {
+        int count;
+
+        @Override
+        public void flush(ChannelHandlerContext ctx, ChannelPromise promise) {
+            count ++;
+            ctx.flush(promise);
+        }
+    }
+
     /** Test handler to validate life-cycle aware behavior. */
     private static final class LifeCycleAwareTestHandler extends ChannelHandlerAdapter {
         private final String name;
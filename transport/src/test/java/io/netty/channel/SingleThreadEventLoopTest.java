@@ -17,6 +17,7 @@ package io.netty.channel;
 
 import io.netty.channel.local.LocalChannel;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorMetrics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -29,6 +30,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -142,6 +144,30 @@ public class SingleThreadEventLoopTest {
         assertTrue(endTime.get() - startTime >= TimeUnit.MILLISECONDS.toNanos(500));
     }
 
+    @Test(timeout = 5000)
+    public void scheduleTaskWhileTaskResubmitsItself() throws Exception {
+        final AtomicBoolean stop = new AtomicBoolean();
+        loopA.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Like the read task of an OIO channel, which waits for a while and submits itself again.
+                if (!stop.get()) {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                    loopA.execute(this);
+                }
+            }
+        });
+        try {
+            testScheduleTask(loopA);
+        } finally {
+            stop.set(true);
+        }
+    }
+
     @Test
     public void scheduleTaskAtFixedRateA() throws Exception {
         testScheduleTaskAtFixedRate(loopA);
@@ -395,6 +421,40 @@ public class SingleThreadEventLoopTest {
         assertThat(loopA.isShutdown(), is(true));
     }
 
+    @Test(timeout = 10000)
+    public void testMetrics() throws Exception {
+        assertNull(loopB.metrics());
+        EventExecutorMetrics metrics = loopB.enableMetrics();
+        assertSame(metrics, loopB.enableMetrics());
+        metrics.setSlowTaskThreshold(50, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 10; i ++) {
+            loopB.execute(NOOP);
+        }
+        loopB.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+            }
+        }).sync();
+        loopB.schedule(NOOP, 10, TimeUnit.MILLISECONDS).sync();
+
+        assertTrue(metrics.taskCount() >= 12);
+        assertEquals(1, metrics.slowTaskCount());
+        assertTrue(metrics.maxTaskTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(metrics.scheduledTaskCount() >= 1);
+
+        long histogramCount = 0;
+        for (long c: metrics.taskTimeHistogram()) {
+            histogramCount += c;
+        }
+        assertTrue(histogramCount >= 12);
+    }
+
     private static class SingleThreadEventLoopA extends SingleThreadEventLoop {
 
         final AtomicInteger cleanedUp = new AtomicInteger();
@@ -408,7 +468,7 @@ public class SingleThreadEventLoopTest {
             for (;;) {
                 Runnable task = takeTask();
                 if (task != null) {
-                    task.run();
+                    runTask(task);
                     updateLastExecutionTime();
                 }
 
@@ -15,15 +15,30 @@
  */
 package io.netty.channel.group;
 
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelStateHandlerAdapter;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
 public class DefaultChannnelGroupTest {
 
     // Test for #1183
@@ -58,4 +73,70 @@ public class DefaultChannnelGroupTest {
         bossGroup.shutdownGracefully();
         workerGroup.shutdownGracefully();
     }
+
+    @Test(timeout = 10000)
+    public void testBroadcast() throws Exception {
+        EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        EventLoopGroup clientGroup = new NioEventLoopGroup(2);
+        final BlockingQueue<String> received = new LinkedBlockingQueue<String>();
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(serverGroup)
+              .channel(NioServerSocketChannel.class)
+              .childHandler(new ChannelInitializer<SocketChannel>() {
+                  @Override
+                  public void initChannel(SocketChannel ch) throws Exception {
+                      ch.pipeline().addLast(new ChannelInboundByteHandlerAdapter() {
+                          @Override
+                          public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) {
+                              if (in.readableBytes() >= 5) {
+                                  received.add(in.toString(in.readerIndex(), 5, CharsetUtil.US_ASCII));
+                                  in.skipBytes(5);
+                              }
+                          }
+                      });
+                  }
+              });
+            Channel sc = sb.bind(0).sync().channel();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(clientGroup)
+              .channel(NioSocketChannel.class)
+              .handler(new ChannelInitializer<SocketChannel>() {
+                  @Override
+                  public void initChannel(SocketChannel ch) throws Exception {
+                      ch.pipeline().addLast(new ChannelStateHandlerAdapter() {
+                          @Override
+                          public void inboundBufferUpdated(ChannelHandlerContext ctx) {
+                          }
+                      });
+                  }
+              });
+
+            ChannelGroup group = new DefaultChannelGroup();
+            for (int i = 0; i < 4; i ++) {
+                group.add(cb.connect(sc.localAddress()).sync().channel());
+            }
+
+            ByteBuf encoded = Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII);
+            ChannelGroupFuture future = group.broadcast(encoded).sync();
+            assertTrue(future.isSuccess());
+            for (Channel c: group) {
+                assertTrue(future.find(c).isSuccess());
+            }
+            for (int i = 0; i < 4; i ++) {
+                assertEquals("hello", received.poll(5, TimeUnit.SECONDS));
+            }
+
+            // Every channel wrote its own duplicate, so the shared buffer was neither consumed nor leaked.
+            assertEquals(0, encoded.readerIndex());
+            assertEquals(0, encoded.refCnt());
+
+            group.close().sync();
+            sc.close().sync();
+        } finally {
+            serverGroup.shutdownGracefully();
+            clientGroup.shutdownGracefully();
+        }
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.local;
+
+import io.netty.buffer.MessageBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class LocalMessageRingTest {
+
+    @Test
+    public void testOrderWithOverflow() {
+        LocalMessageRing ring = new LocalMessageRing();
+        MessageBuf<Object> out = Unpooled.messageBuffer();
+        MessageBuf<Object> in = Unpooled.messageBuffer();
+
+        int next = 0;
+        for (int i = 0; i < 1000; i ++) {
+            out.add(next ++);
+        }
+        // The first batch needs a wakeup, the following ones piggyback on it.
+        assertTrue(ring.addAll(out));
+        assertTrue(out.isEmpty());
+        out.add(next ++);
+        assertFalse(ring.addAll(out));
+
+        ring.drainTo(in);
+        // The ring has room again, but the overflow was drained as well.
+        for (int i = 0; i < 600; i ++) {
+            out.add(next ++);
+        }
+        assertTrue(ring.addAll(out));
+        ring.drainTo(in);
+
+        assertEquals(next, in.size());
+        for (int i = 0; i < next; i ++) {
+            assertEquals(i, in.poll());
+        }
+
+        // Nothing to hand over, so no wakeup is needed.
+        assertFalse(ring.addAll(out));
+    }
+
+    @Test(timeout = 30000)
+    public void testOrderWithConcurrentProducer() throws Exception {
+        final int count = 2000000;
+        final LocalMessageRing ring = new LocalMessageRing();
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Random random = new Random();
+                    MessageBuf<Object> out = Unpooled.messageBuffer();
+                    int next = 0;
+                    while (next < count) {
+                        // Vary the batch size, so batches are split between the ring and the overflow queue.
+                        int batch = Math.min(count - next, 1 + random.nextInt(700));
+                        for (int i = 0; i < batch; i ++) {
+                            out.add(next ++);
+                        }
+                        ring.addAll(out);
+                    }
+                } catch (Throwable t) {
+                    cause.set(t);
+                }
+            }
+        });
+        producer.start();
+
+        MessageBuf<Object> in = Unpooled.messageBuffer();
+        int expected = 0;
+        while (expected < count && cause.get() == null) {
+            ring.drainTo(in);
+            for (;;) {
+                Object msg = in.poll();
+                if (msg == null) {
+                    break;
+                }
+                assertEquals(expected ++, msg);
+            }
+        }
+        producer.join();
+        if (cause.get() != null) {
+            throw new AssertionError(cause.get());
+        }
+        assertEquals(count, expected);
+    }
+}
@@ -16,6 +16,8 @@
 package io.netty.channel.nio;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundMessageHandlerAdapter;
 import io.netty.channel.ChannelOption;
@@ -23,10 +25,17 @@ import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.CharsetUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 public class NioDatagramChannelTest {
@@ -60,4 +69,73 @@ public class NioDatagramChannelTest {
             group.shutdownGracefully();
         }
     }
+
+    @Test(timeout = 10000)
+    public void testBatchedReceive() throws Exception {
+        final int count = 100;
+        final Set<String> received = Collections.synchronizedSet(new HashSet<String>());
+        final Set<String> corrupted = Collections.synchronizedSet(new HashSet<String>());
+        final AtomicBoolean sharedBuffer = new AtomicBoolean();
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        DatagramSocket sender = new DatagramSocket();
+        try {
+            Bootstrap udpBootstrap = new Bootstrap();
+            udpBootstrap.group(group).channel(NioDatagramChannel.class)
+                    .option(ChannelOption.UDP_RECEIVE_BATCH_SIZE, 32)
+                    .option(ChannelOption.SO_RCVBUF, 1024 * 1024)
+                    .option(ChannelOption.AUTO_READ, false)
+                    .handler(new ChannelInboundMessageHandlerAdapter<DatagramPacket>() {
+                        private final Set<ByteBuf> buffers =
+                                Collections.newSetFromMap(new IdentityHashMap<ByteBuf, Boolean>());
+
+                        @Override
+                        public boolean beginMessageReceived(ChannelHandlerContext ctx) throws Exception {
+                            buffers.clear();
+                            return super.beginMessageReceived(ctx);
+                        }
+
+                        @Override
+                        public void messageReceived(ChannelHandlerContext ctx, DatagramPacket msg)
+                                throws Exception {
+                            String content = msg.content().toString(CharsetUtil.US_ASCII);
+                            if (content.matches("packet-[0-9]+") &&
+                                    Integer.parseInt(content.substring(7)) < count) {
+                                received.add(content);
+                            } else {
+                                corrupted.add(content);
+                            }
+
+                            // Datagrams of the same batch are slices of one shared buffer.
+                            ByteBuf unwrapped = msg.content().unwrap();
+                            if (unwrapped != null && !buffers.add(unwrapped)) {
+                                sharedBuffer.set(true);
+                            }
+                        }
+                    });
+            Channel channel = udpBootstrap.bind(new InetSocketAddress("127.0.0.1", 0)).syncUninterruptibly().channel();
+            InetSocketAddress address = (InetSocketAddress) channel.localAddress();
+
+            // Queue the datagrams in the socket before the channel reads, so they are received in batches.
+            for (int i = 0; i < count; i ++) {
+                byte[] data = ("packet-" + i).getBytes(CharsetUtil.US_ASCII);
+                sender.send(new java.net.DatagramPacket(data, data.length, address));
+            }
+            channel.config().setAutoRead(true);
+
+            // UDP does not guarantee delivery, so only wait until the datagrams stop coming in.
+            int lastReceived = -1;
+            while (received.size() < count && received.size() != lastReceived) {
+                lastReceived = received.size();
+                Thread.sleep(500);
+            }
+
+            Assert.assertTrue("received " + received.size(), received.size() > 1);
+            Assert.assertTrue("corrupted: " + corrupted, corrupted.isEmpty());
+            Assert.assertTrue(sharedBuffer.get());
+            channel.close().syncUninterruptibly();
+        } finally {
+            sender.close();
+            group.shutdownGracefully();
+        }
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.nio;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NioServerSocketChannelTest {
+
+    @Test(timeout = 10000)
+    public void testMaxMessagesPerRead() throws Exception {
+        final int maxMessagesPerRead = 2;
+        final int connections = 5;
+        final AtomicInteger accepted = new AtomicInteger();
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(NioServerSocketChannel.class)
+                    .option(ChannelOption.AUTO_READ, false)
+                    .option(ChannelOption.MAX_MESSAGES_PER_READ, maxMessagesPerRead)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        public void initChannel(Channel ch) throws Exception {
+                            accepted.incrementAndGet();
+                        }
+                    });
+            Channel sc = sb.bind(new InetSocketAddress("127.0.0.1", 0)).syncUninterruptibly().channel();
+
+            // Fill the backlog before the server channel reads anything.
+            for (int i = 0; i < connections; i ++) {
+                sockets.add(new Socket("127.0.0.1", ((InetSocketAddress) sc.localAddress()).getPort()));
+            }
+
+            // Every read stops at the limit and leaves the rest of the backlog to the next read.
+            sc.read();
+            assertAccepted(accepted, 2);
+            sc.read();
+            assertAccepted(accepted, 4);
+            sc.read();
+            assertAccepted(accepted, 5);
+
+            sc.close().syncUninterruptibly();
+        } finally {
+            for (Socket s: sockets) {
+                s.close();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
+    private static void assertAccepted(AtomicInteger accepted, int expected) throws Exception {
+        while (accepted.get() < expected) {
+            Thread.sleep(10);
+        }
+        // Give the event loop the chance to accept more than it should.
+        Thread.sleep(200);
+        Assert.assertEquals(expected, accepted.get());
+    }
+}
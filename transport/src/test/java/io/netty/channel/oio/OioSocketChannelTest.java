@@ -0,0 +1,213 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.oio;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundByteHandlerAdapter;
+import io.netty.channel.ThreadPerChannelEventLoop;
+import io.netty.channel.socket.oio.OioSocketChannel;
+import io.netty.util.CharsetUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OioSocketChannelTest {
+
+    private final RecordingThreadFactory threadFactory = new RecordingThreadFactory();
+    private final Receiver receiver = new Receiver();
+    private ServerSocket serverSocket;
+    private Socket peer;
+
+    @Before
+    public void setUp() throws Exception {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (peer != null) {
+            peer.close();
+        }
+        serverSocket.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testPlatformThreadsPollWithSoTimeout() throws Exception {
+        OioEventLoopGroup group = new OioEventLoopGroup(0, threadFactory);
+        try {
+            Channel ch = connect(group);
+            assertEquals(AbstractOioChannel.SO_TIMEOUT, ((OioSocketChannel) ch).config().getSoTimeout());
+
+            send("hello");
+            receiver.await("hello");
+
+            // No reader thread next to the event loop.
+            assertEquals(1, threadFactory.threads.size());
+            ch.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testReaderThread() throws Exception {
+        OioEventLoopGroup group = new VirtualOioEventLoopGroup(threadFactory);
+        try {
+            Channel ch = connect(group);
+            // The reader thread waits for the socket, so it does not need to time out.
+            assertEquals(0, ((OioSocketChannel) ch).config().getSoTimeout());
+
+            // Neither a timed out read nor a blocked event loop while nothing arrives.
+            Thread.sleep(AbstractOioChannel.SO_TIMEOUT + 500);
+            assertEquals(0, receiver.readSuspended.get());
+            ch.write(Unpooled.copiedBuffer("ping", CharsetUtil.US_ASCII)).sync();
+            assertEquals("ping", receive(4));
+
+            send("hello");
+            receiver.await("hello");
+            assertEquals(2, threadFactory.threads.size());
+
+            ch.close().sync();
+            Thread reader = threadFactory.threads.get(1);
+            reader.join(5000);
+            assertFalse(reader.isAlive());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testReaderThreadAfterDeregister() throws Exception {
+        OioEventLoopGroup group = new VirtualOioEventLoopGroup(threadFactory);
+        try {
+            Channel ch = connect(group);
+            // Wait until the reader thread waits for the socket.
+            while (threadFactory.threads.size() < 2) {
+                Thread.sleep(10);
+            }
+            ch.deregister().sync();
+
+            // The stopped reader thread terminates once the socket became readable, without losing what it read.
+            send("hello");
+            Thread reader = threadFactory.threads.get(1);
+            reader.join(5000);
+            assertFalse(reader.isAlive());
+            assertEquals("", receiver.received.toString());
+
+            group.register(ch).sync();
+            receiver.await("hello");
+            ch.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    private Channel connect(OioEventLoopGroup group) throws Exception {
+        Bootstrap b = new Bootstrap();
+        b.group(group).channel(OioSocketChannel.class).handler(receiver);
+        Channel ch = b.connect(serverSocket.getLocalSocketAddress()).sync().channel();
+        peer = serverSocket.accept();
+        assertEquals(((InetSocketAddress) ch.localAddress()).getPort(), peer.getPort());
+        return ch;
+    }
+
+    private void send(String data) throws Exception {
+        peer.getOutputStream().write(data.getBytes(CharsetUtil.US_ASCII));
+        peer.getOutputStream().flush();
+    }
+
+    private String receive(int length) throws Exception {
+        InputStream in = peer.getInputStream();
+        byte[] data = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int localRead = in.read(data, read, length - read);
+            assertTrue(localRead > 0);
+            read += localRead;
+        }
+        return new String(data, CharsetUtil.US_ASCII);
+    }
+
+    private static final class Receiver extends ChannelInboundByteHandlerAdapter {
+        final StringBuffer received = new StringBuffer();
+        final AtomicInteger readSuspended = new AtomicInteger();
+
+        @Override
+        public void inboundBufferUpdated(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+            received.append(in.toString(CharsetUtil.US_ASCII));
+            in.clear();
+        }
+
+        @Override
+        public void channelReadSuspended(ChannelHandlerContext ctx) throws Exception {
+            readSuspended.incrementAndGet();
+            super.channelReadSuspended(ctx);
+        }
+
+        void await(String expected) throws Exception {
+            while (received.length() < expected.length()) {
+                Thread.sleep(10);
+            }
+            assertEquals(expected, received.toString());
+        }
+    }
+
+    private static final class RecordingThreadFactory implements ThreadFactory {
+        final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r);
+            threads.add(t);
+            return t;
+        }
+    }
+
+    /**
+     * Pretends to run on virtual threads, so the reader thread is used on any runtime.
+     */
+    private static final class VirtualOioEventLoopGroup extends OioEventLoopGroup {
+        VirtualOioEventLoopGroup(ThreadFactory threadFactory) {
+            super(0, threadFactory);
+        }
+
+        @Override
+        protected ThreadPerChannelEventLoop newChild(Object... args) throws Exception {
+            return new ThreadPerChannelEventLoop(this) {
+                @Override
+                public boolean isVirtual() {
+                    return true;
+                }
+            };
+        }
+    }
+}